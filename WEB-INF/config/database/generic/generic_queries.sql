@@ -46,11 +46,7 @@ ConfigModel.update = UPDATE jforum_config SET config_value = ? WHERE config_name
 # ##########
 UserModel.pendingActivations = SELECT user_id, username, user_regdate FROM jforum_users WHERE user_actkey IS NOT NULL ORDER BY user_id
 
-UserModel.selectById = SELECT COUNT(pm.privmsgs_to_userid) AS private_messages, u.* \
-	FROM jforum_users u \
-	LEFT JOIN jforum_privmsgs pm ON pm.privmsgs_type = 1 AND pm.privmsgs_to_userid = u.user_id \
-	WHERE u.user_id = ? \
-	GROUP BY pm.privmsgs_to_userid
+UserModel.selectById = SELECT u.* FROM jforum_users u WHERE u.user_id = ?
 
 UserModel.selectAll = SELECT user_email, user_id, user_posts, user_regdate, username, deleted, user_karma, user_from, \
 	user_website, user_viewemail FROM jforum_users ORDER BY user_id
@@ -72,6 +68,8 @@ UserModel.deletedStatus = UPDATE jforum_users SET deleted = ? WHERE user_id = ?
 UserModel.isDeleted = SELECT deleted FROM jforum_users WHERE user_id = ?
 UserModel.incrementPosts = UPDATE jforum_users SET user_posts = user_posts + 1 WHERE user_id = ?
 UserModel.decrementPosts = UPDATE jforum_users SET user_posts = user_posts - 1 WHERE user_id = ?
+UserModel.addNewPrivateMessages = UPDATE jforum_users SET user_new_privmsg = user_new_privmsg + ? WHERE user_id = ?
+UserModel.addFolderMessages = UPDATE jforum_users SET user_inbox_privmsg = user_inbox_privmsg + ?, user_sent_privmsg = user_sent_privmsg + ? WHERE user_id = ?
 UserModel.rankingId = UPDATE jforum_users SET rank_id = ? WHERE user_id = ?
 UserModel.activeStatus = UPDATE jforum_users SET user_active = ? WHERE user_id = ?
 UserModel.addNew = INSERT INTO jforum_users (username, user_password, user_email, user_regdate, user_actkey, rank_id) VALUES (?, ?, ?, ?, ?, 0)
@@ -134,6 +132,7 @@ UserModel.validateActivationKeyHash = SELECT COUNT(1) AS valid FROM jforum_users
 UserModel.writeUserActive = UPDATE jforum_users SET user_active = 1, user_actkey = NULL WHERE user_id = ?
 UserModel.updateUsername = UPDATE jforum_users SET username = ? WHERE user_id = ?
 UserModel.getUsername = SELECT username FROM jforum_users WHERE user_id = ?
+UserModel.selectSummaries = SELECT user_id, username, user_avatar, user_allowavatar, rank_id, user_posts FROM jforum_users WHERE user_id IN (:ids:)
 
 # #############
 # PostModel
@@ -177,6 +176,7 @@ PostModel.deletePostText = DELETE FROM jforum_posts_text WHERE post_id = ?
 
 PostModel.updatePost = UPDATE jforum_posts SET topic_id = ?, forum_id = ?, enable_bbcode = ?, enable_html = ?, enable_smilies = ?, enable_sig = ?, post_edit_time = ?, post_edit_count = ?, poster_ip = ? WHERE post_id = ?
 PostModel.updatePostText = UPDATE jforum_posts_text SET post_text = ?, post_subject = ? WHERE post_id = ?
+PostModel.selectTexts = SELECT post_id, post_subject, post_text FROM jforum_posts_text WHERE post_id > ? ORDER BY post_id
 
 PostModel.addNewPost = INSERT INTO jforum_posts (topic_id, forum_id, user_id, post_time, poster_ip, enable_bbcode, enable_html, enable_smilies, enable_sig, post_edit_time, need_moderate) \
 	VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, NOW(), ?)
@@ -189,9 +189,20 @@ PostModel.selectAllByTopicByLimit = SELECT p.post_id, topic_id, forum_id, p.user
 	AND topic_id = ? \
 	AND p.user_id = u.user_id \
 	AND p.need_moderate = 0 \
-	ORDER BY post_time ASC \
+	ORDER BY post_time ASC, p.post_id ASC \
 	LIMIT ?, ?
 
+PostModel.selectAllByTopicAfter = SELECT p.post_id, topic_id, forum_id, p.user_id, post_time, poster_ip, enable_bbcode, p.attach, \
+	enable_html, enable_smilies, enable_sig, post_edit_time, post_edit_count, status, pt.post_subject, pt.post_text, username, p.need_moderate \
+	FROM jforum_posts p, jforum_posts_text pt, jforum_users u \
+	WHERE p.post_id = pt.post_id \
+	AND topic_id = ? \
+	AND p.user_id = u.user_id \
+	AND p.need_moderate = 0 \
+	AND (p.post_time > ? OR (p.post_time = ? AND p.post_id > ?)) \
+	ORDER BY post_time ASC, p.post_id ASC \
+	LIMIT ?
+
 PostModel.selectByUserByLimit = SELECT p.post_id, topic_id, forum_id, p.user_id, post_time, poster_ip, enable_bbcode, p.attach, \
 	enable_html, enable_smilies, enable_sig, post_edit_time, post_edit_count, status, pt.post_subject, pt.post_text, username, p.need_moderate \
 	FROM jforum_posts p, jforum_posts_text pt, jforum_users u \
@@ -206,7 +217,153 @@ PostModel.selectByUserByLimit = SELECT p.post_id, topic_id, forum_id, p.user_id,
 PostModel.countUserPosts = SELECT COUNT(1) AS total FROM jforum_posts where user_id = ? AND forum_id IN (:fids:) AND need_moderate = 0
 	
 PostModel.setForumByTopic = UPDATE jforum_posts SET forum_id = ? WHERE topic_id = ?
-PostModel.deleteByTopic = SELECT post_id, user_id FROM jforum_posts WHERE topic_id = ?
+PostModel.deleteByTopic = SELECT post_id, user_id, need_moderate FROM jforum_posts WHERE topic_id = ?
+PostModel.deleteByTopics = SELECT post_id, user_id, need_moderate FROM jforum_posts WHERE topic_id IN (:topicIds:) \
+	UNION ALL SELECT post_id, user_id, need_moderate FROM jforum_posts_archive WHERE topic_id IN (:topicIds:)
+PostModel.deleteArchivedTextsByTopics = DELETE FROM jforum_posts_text_archive \
+	WHERE post_id IN (SELECT p.post_id FROM jforum_posts_archive p WHERE p.topic_id IN (:topicIds:))
+PostModel.deleteArchivedByTopics = DELETE FROM jforum_posts_archive WHERE topic_id IN (:topicIds:)
+
+# #############
+# ArchiveModel
+# #############
+ArchiveModel.selectTopicsToArchive = SELECT t.topic_id FROM jforum_topics t \
+	WHERE t.topic_archived = 0 \
+	AND t.topic_moved_id = 0 \
+	AND t.topic_last_post_time < ? \
+	AND NOT EXISTS (SELECT 1 FROM jforum_posts p WHERE p.topic_id = t.topic_id AND p.need_moderate = 1) \
+	ORDER BY t.topic_last_post_time
+
+ArchiveModel.isArchived = SELECT topic_archived FROM jforum_topics WHERE topic_id = ?
+ArchiveModel.markArchived = UPDATE jforum_topics SET topic_archived = 1 \
+	WHERE topic_id = ? \
+	AND topic_archived = 0 \
+	AND topic_last_post_time < ? \
+	AND NOT EXISTS (SELECT 1 FROM jforum_posts p WHERE p.topic_id = jforum_topics.topic_id AND p.need_moderate = 1)
+ArchiveModel.markRestored = UPDATE jforum_topics SET topic_archived = 0 WHERE topic_id = ? AND topic_archived = 1
+
+ArchiveModel.archivePostsText = INSERT INTO jforum_posts_text_archive (post_id, post_text, post_subject) \
+	SELECT pt.post_id, pt.post_text, pt.post_subject FROM jforum_posts_text pt \
+	WHERE pt.post_id IN (SELECT p.post_id FROM jforum_posts p WHERE p.topic_id = ?)
+ArchiveModel.archivePosts = INSERT INTO jforum_posts_archive (post_id, topic_id, forum_id, user_id, post_time, poster_ip, enable_bbcode, enable_html, enable_smilies, enable_sig, post_edit_time, post_edit_count, status, attach, need_moderate) \
+	SELECT post_id, topic_id, forum_id, user_id, post_time, poster_ip, enable_bbcode, enable_html, enable_smilies, enable_sig, post_edit_time, post_edit_count, status, attach, need_moderate FROM jforum_posts WHERE topic_id = ?
+ArchiveModel.deleteHotPostsText = DELETE FROM jforum_posts_text WHERE post_id IN (SELECT p.post_id FROM jforum_posts p WHERE p.topic_id = ?)
+ArchiveModel.deleteHotPosts = DELETE FROM jforum_posts WHERE topic_id = ?
+
+ArchiveModel.restorePostsText = INSERT INTO jforum_posts_text (post_id, post_text, post_subject) \
+	SELECT pt.post_id, pt.post_text, pt.post_subject FROM jforum_posts_text_archive pt \
+	WHERE pt.post_id IN (SELECT p.post_id FROM jforum_posts_archive p WHERE p.topic_id = ?)
+ArchiveModel.restorePosts = INSERT INTO jforum_posts (post_id, topic_id, forum_id, user_id, post_time, poster_ip, enable_bbcode, enable_html, enable_smilies, enable_sig, post_edit_time, post_edit_count, status, attach, need_moderate) \
+	SELECT post_id, topic_id, forum_id, user_id, post_time, poster_ip, enable_bbcode, enable_html, enable_smilies, enable_sig, post_edit_time, post_edit_count, status, attach, need_moderate FROM jforum_posts_archive WHERE topic_id = ?
+ArchiveModel.deleteArchivedPostsText = DELETE FROM jforum_posts_text_archive WHERE post_id IN (SELECT p.post_id FROM jforum_posts_archive p WHERE p.topic_id = ?)
+ArchiveModel.deleteArchivedPosts = DELETE FROM jforum_posts_archive WHERE topic_id = ?
+
+ArchiveModel.selectPostById = SELECT p.post_id, topic_id, forum_id, p.user_id, post_time, poster_ip, enable_bbcode, enable_html, \
+	enable_smilies, enable_sig, post_edit_time, post_edit_count, status, pt.post_subject, pt.post_text, username, p.attach, p.need_moderate \
+	FROM jforum_posts_archive p, jforum_posts_text_archive pt, jforum_users u \
+	WHERE p.post_id = pt.post_id \
+	AND p.post_id = ? \
+	AND p.user_id = u.user_id
+
+ArchiveModel.selectAllByTopic = SELECT p.post_id, topic_id, forum_id, p.user_id, post_time, poster_ip, enable_bbcode, p.attach, \
+	enable_html, enable_smilies, enable_sig, post_edit_time, post_edit_count, status, pt.post_subject, pt.post_text, username, p.need_moderate \
+	FROM jforum_posts_archive p, jforum_posts_text_archive pt, jforum_users u \
+	WHERE p.post_id = pt.post_id \
+	AND topic_id = ? \
+	AND p.user_id = u.user_id \
+	AND p.need_moderate = 0 \
+	ORDER BY post_time ASC, p.post_id ASC
+
+ArchiveModel.selectAllByTopicAfter = SELECT p.post_id, topic_id, forum_id, p.user_id, post_time, poster_ip, enable_bbcode, p.attach, \
+	enable_html, enable_smilies, enable_sig, post_edit_time, post_edit_count, status, pt.post_subject, pt.post_text, username, p.need_moderate \
+	FROM jforum_posts_archive p, jforum_posts_text_archive pt, jforum_users u \
+	WHERE p.post_id = pt.post_id \
+	AND topic_id = ? \
+	AND p.user_id = u.user_id \
+	AND p.need_moderate = 0 \
+	AND (p.post_time > ? OR (p.post_time = ? AND p.post_id > ?)) \
+	ORDER BY post_time ASC, p.post_id ASC
+
+ArchiveModel.countPreviousPosts = SELECT COUNT(p2.post_id) AS prev_posts \
+	FROM jforum_posts_archive p, jforum_posts_archive p2 \
+	WHERE p.post_id = ? \
+	AND p2.topic_id = p.topic_id \
+	AND p2.post_id <= ?
+
+ArchiveModel.distinctPosters = SELECT DISTINCT user_id FROM jforum_posts_archive WHERE topic_id = ?
+ArchiveModel.setForumByTopic = UPDATE jforum_posts_archive SET forum_id = ? WHERE topic_id = ?
+ArchiveModel.countForumPosts = SELECT COUNT(1) FROM jforum_posts_archive WHERE forum_id = ?
+ArchiveModel.totalMessages = SELECT COUNT(1) AS total_messages FROM jforum_posts_archive WHERE need_moderate = 0
+ArchiveModel.statsFirstPostTime = SELECT MIN(post_time) FROM jforum_posts_archive WHERE post_time > 0
+
+ArchiveModel.getFirstPostId = SELECT MIN(post_id) FROM jforum_posts_archive
+ArchiveModel.firstPostIdByDate = SELECT MIN(post_id) FROM jforum_posts_archive WHERE post_time > ?
+ArchiveModel.lastPostIdByDate = SELECT MAX(post_id) FROM jforum_posts_archive WHERE post_time < ?
+
+ArchiveModel.getPostsToIndexForLucene = SELECT p.post_id, p.forum_id, p.enable_bbcode, p.enable_smilies, '' AS topic_title, p.topic_id, p.user_id, p.post_time, pt.post_text, pt.post_subject \
+	FROM jforum_posts_archive p, jforum_posts_text_archive pt \
+	WHERE p.post_id = pt.post_id \
+	AND p.post_id >= ? \
+	AND p.post_id < ?
+
+ArchiveModel.getPostsDataForLucene = SELECT p.post_id, p.forum_id, p.topic_id, p.user_id, u.username, p.enable_bbcode, p.enable_smilies, p.post_time, pt.post_subject, pt.post_text, t.topic_title \
+	FROM jforum_posts_archive p, jforum_posts_text_archive pt, jforum_users u, jforum_topics t \
+	WHERE p.post_id IN (:posts:) \
+	AND p.post_id = pt.post_id \
+	AND p.topic_id = t.topic_id \
+	AND p.user_id = u.user_id
+
+# #############
+# BulkModel
+# #############
+BulkModel.exportCategories = SELECT * FROM jforum_categories ORDER BY categories_id
+BulkModel.exportForums = SELECT * FROM jforum_forums ORDER BY forum_id
+BulkModel.exportUsers = SELECT * FROM jforum_users ORDER BY user_id
+BulkModel.exportUserGroups = SELECT * FROM jforum_user_groups ORDER BY user_id
+BulkModel.exportTopics = SELECT * FROM jforum_topics ORDER BY topic_id
+BulkModel.exportPosts = SELECT * FROM jforum_posts ORDER BY post_id
+BulkModel.exportArchivedPosts = SELECT * FROM jforum_posts_archive ORDER BY post_id
+BulkModel.exportPostsText = SELECT * FROM jforum_posts_text ORDER BY post_id
+BulkModel.exportArchivedPostsText = SELECT * FROM jforum_posts_text_archive ORDER BY post_id
+BulkModel.exportAttachments = SELECT * FROM jforum_attach WHERE post_id IS NOT NULL AND post_id > 0 ORDER BY attach_id
+BulkModel.exportAttachmentsDesc = SELECT d.* FROM jforum_attach_desc d, jforum_attach a \
+	WHERE a.attach_id = d.attach_id \
+	AND a.post_id IS NOT NULL \
+	AND a.post_id > 0 \
+	ORDER BY d.attach_desc_id
+
+BulkModel.forumIds = SELECT forum_id FROM jforum_forums ORDER BY forum_id
+BulkModel.maxUserId = SELECT MAX(user_id) FROM jforum_users
+BulkModel.maxTopicId = SELECT MAX(topic_id) FROM jforum_topics
+
+BulkModel.recountTopics = UPDATE jforum_topics SET \
+	topic_first_post_id = COALESCE((SELECT MIN(p.post_id) FROM jforum_posts p WHERE p.topic_id = jforum_topics.topic_id), 0), \
+	topic_last_post_id = COALESCE((SELECT MAX(p.post_id) FROM jforum_posts p WHERE p.topic_id = jforum_topics.topic_id), 0), \
+	topic_replies = (SELECT CASE WHEN COUNT(1) > 0 THEN COUNT(1) - 1 ELSE 0 END FROM jforum_posts p WHERE p.topic_id = jforum_topics.topic_id AND p.need_moderate = 0) \
+	WHERE forum_id = ? \
+	AND topic_archived = 0
+
+BulkModel.recountTopicsLastPostData = UPDATE jforum_topics SET \
+	topic_last_post_time = (SELECT p.post_time FROM jforum_posts p WHERE p.post_id = jforum_topics.topic_last_post_id AND p.need_moderate = 0), \
+	topic_last_user_id = COALESCE((SELECT p.user_id FROM jforum_posts p WHERE p.post_id = jforum_topics.topic_last_post_id), 0), \
+	topic_has_attach = COALESCE((SELECT MAX(p.attach) FROM jforum_posts p WHERE p.topic_id = jforum_topics.topic_id AND p.need_moderate = 0), 0) \
+	WHERE forum_id = ? \
+	AND topic_archived = 0
+
+BulkModel.recountForum = UPDATE jforum_forums SET \
+	forum_topics = (SELECT COUNT(1) FROM jforum_topics t WHERE t.forum_id = jforum_forums.forum_id), \
+	forum_last_post_id = COALESCE((SELECT MAX(t.topic_last_post_id) FROM jforum_topics t WHERE t.forum_id = jforum_forums.forum_id), 0) \
+	WHERE forum_id = ?
+
+BulkModel.recountUserPosts = UPDATE jforum_users SET \
+	user_posts = (SELECT COUNT(1) FROM jforum_posts p WHERE p.user_id = jforum_users.user_id AND p.need_moderate = 0) \
+		+ (SELECT COUNT(1) FROM jforum_posts_archive p WHERE p.user_id = jforum_users.user_id) \
+	WHERE user_id BETWEEN ? AND ?
+
+BulkModel.recountUserFolders = UPDATE jforum_users SET \
+	user_inbox_privmsg = (SELECT COUNT(1) FROM jforum_privmsgs pm WHERE pm.privmsgs_to_userid = jforum_users.user_id AND pm.privmsgs_type IN (0, 1, 5)), \
+	user_sent_privmsg = (SELECT COUNT(1) FROM jforum_privmsgs pm WHERE pm.privmsgs_from_userid = jforum_users.user_id AND pm.privmsgs_type = 2) \
+	WHERE user_id BETWEEN ? AND ?
 
 # #############
 # PollModel
@@ -247,6 +404,10 @@ ForumModel.selectAllForPermissions = SELECT forum_id, forum_name FROM jforum_for
 
 ForumModel.statsFirstPostTime = SELECT MIN(post_time) FROM jforum_posts WHERE post_time > 0
 ForumModel.statsFirstRegisteredUserTime = SELECT MIN(user_regdate) FROM jforum_users WHERE user_regdate > 0
+ForumModel.selectBoardStats = SELECT stat_name, stat_value FROM jforum_board_stats
+ForumModel.updateBoardStat = UPDATE jforum_board_stats SET stat_value = ? WHERE stat_name = ?
+ForumModel.insertBoardStat = INSERT INTO jforum_board_stats (stat_name, stat_value) VALUES (?, ?)
+ForumModel.addBoardStat = UPDATE jforum_board_stats SET stat_value = stat_value + ? WHERE stat_name = ?
 ForumModel.discoverForumId = SELECT forum_id FROM jforum_mail_integration WHERE forum_email = ?
 ForumModel.countForumPosts = SELECT COUNT(1) FROM jforum_posts WHERE forum_id = ?
 ForumModel.setModerated = UPDATE jforum_forums SET moderated = ? WHERE categories_id = ?
@@ -261,15 +422,13 @@ ForumModel.getTotalTopics = SELECT COUNT(topic_id) as total FROM jforum_topics W
 ForumModel.setOrderById = UPDATE jforum_forums SET forum_order = ? WHERE forum_id = ? 
 ForumModel.getMaxOrder = SELECT MAX(forum_order) FROM jforum_forums
 
-ForumModel.lastPostInfo = SELECT post_time, p.topic_id, t.topic_replies, post_id, u.user_id, username \
-	FROM jforum_posts p, jforum_users u, jforum_topics t , jforum_forums f \
-	WHERE t.forum_id = f.forum_id \
-	AND t.topic_id = p.topic_id \
+ForumModel.lastPostInfo = SELECT t.topic_last_post_time AS post_time, t.topic_id, t.topic_replies, t.topic_last_post_id AS post_id, u.user_id, u.username \
+	FROM jforum_topics t, jforum_forums f, jforum_users u \
+	WHERE f.forum_id = ? \
+	AND t.forum_id = f.forum_id \
 	AND f.forum_last_post_id = t.topic_last_post_id \
-	AND t.topic_last_post_id = p.post_id \
-	AND p.forum_id = ? \
-	AND p.user_id = u.user_id \
-    AND p.need_moderate = 0
+	AND t.topic_last_user_id = u.user_id \
+	AND t.topic_last_post_time IS NOT NULL
 
 ForumModel.getModeratorList = SELECT g.group_id AS id, g.group_name AS name \
 	FROM jforum_groups g, jforum_roles r, jforum_role_values rv, jforum_roles r2 \
@@ -283,16 +442,21 @@ ForumModel.getModeratorList = SELECT g.group_id AS id, g.group_name AS name \
 ForumModel.totalMessages = SELECT COUNT(1) as total_messages FROM jforum_posts WHERE need_moderate = 0
 ForumModel.getMaxPostId = SELECT MAX(post_id) AS post_id FROM jforum_posts WHERE forum_id = ?
 ForumModel.moveTopics = UPDATE jforum_topics SET forum_id = ?, topic_moved_id = ? WHERE topic_id = ?
-ForumModel.checkUnreadTopics = SELECT MAX(post_time), topic_id FROM jforum_posts WHERE forum_id = ? AND post_time > ? GROUP BY topic_id
 ForumModel.latestTopicIdForfix = SELECT MAX(topic_id) AS topic_id FROM jforum_posts WHERE forum_id = ? AND need_moderate = 0
 ForumModel.fixLatestPostData = UPDATE jforum_topics SET topic_last_post_id = ? WHERE topic_id = ?
 ForumModel.fixForumLatestPostData = UPDATE jforum_forums SET forum_last_post_id = ? WHERE forum_id = ?
 
-ForumModel.getUnreadForums = SELECT t.forum_id, t.topic_id, p.post_time \
+ForumModel.selectLastPostTimes = SELECT t.forum_id, t.topic_id, p.post_time \
 	FROM jforum_topics t, jforum_posts p \
 	WHERE p.post_id = t.topic_last_post_id \
 	AND p.post_time > ?
 
+ForumModel.selectForumLastPostTimes = SELECT t.forum_id, t.topic_id, p.post_time \
+	FROM jforum_topics t, jforum_posts p \
+	WHERE p.post_id = t.topic_last_post_id \
+	AND t.forum_id = ? \
+	AND p.post_time > ?
+
 ForumModel.subscribeUser = INSERT INTO jforum_forums_watch(forum_id, user_id) VALUES (?, ?)
 ForumModel.isUserSubscribed = SELECT user_id FROM jforum_forums_watch WHERE forum_id = ? AND user_id = ?
 ForumModel.removeSubscription = DELETE FROM jforum_forums_watch WHERE forum_id = ? AND user_id = ?
@@ -309,25 +473,37 @@ ForumModel.notifyUsers = SELECT u.user_id, u.username, u.user_lang, u.user_email
 # #############
 # TopicModel
 # #############
-TopicModel.findTopicsByDateRange = SELECT DISTINCT topic_id FROM jforum_posts WHERE post_time >= ? AND post_time <= ?
+TopicModel.findTopicsByDateRange = SELECT topic_id FROM jforum_posts WHERE post_time >= ? AND post_time <= ? \
+	UNION SELECT topic_id FROM jforum_posts_archive WHERE post_time >= ? AND post_time <= ?
 
-TopicModel.selectById = SELECT t.*, p.user_id AS last_user_id, p.post_time, p.attach AS attach \
-	FROM jforum_topics t, jforum_posts p \
-	WHERE t.topic_id = ? \
-	AND p.post_id = t.topic_last_post_id
+TopicModel.selectById = SELECT t.*, t.topic_last_user_id AS last_user_id, COALESCE(t.topic_last_post_time, t.topic_time) AS post_time, \
+	t.topic_has_attach AS attach \
+	FROM jforum_topics t \
+	WHERE t.topic_id = ?
 	
 TopicModel.selectRaw = SELECT topic_id, forum_id, topic_title, user_id, topic_views, topic_replies, topic_status, topic_vote_id, topic_type, \
 	topic_first_post_id, topic_last_post_id, moderated, topic_time, topic_moved_id \
 	FROM jforum_topics WHERE topic_id = ?
 
-TopicModel.selectAllByForumByLimit = SELECT t.*, p.user_id AS last_user_id, p.post_time, p.attach AS attach \
-	FROM jforum_topics t, jforum_posts p \
+TopicModel.selectRawByIds = SELECT topic_id, forum_id, topic_title, user_id, topic_views, topic_replies, topic_status, topic_vote_id, topic_type, \
+	topic_first_post_id, topic_last_post_id, moderated, topic_time, topic_moved_id \
+	FROM jforum_topics WHERE topic_id IN (:topicIds:)
+
+TopicModel.selectAllByForumByLimit = SELECT t.*, t.topic_last_user_id AS last_user_id, t.topic_last_post_time AS post_time, t.topic_has_attach AS attach \
+	FROM jforum_topics t \
 	WHERE (t.forum_id = ? OR t.topic_moved_id = ?) \
-	AND p.post_id = t.topic_last_post_id \
-	AND p.need_moderate = 0 \
+	AND t.topic_last_post_time IS NOT NULL \
 	ORDER BY t.topic_type DESC, t.topic_last_post_id DESC \
 	LIMIT ?, ?
 
+TopicModel.selectAllByForumAfter = SELECT t.*, t.topic_last_user_id AS last_user_id, t.topic_last_post_time AS post_time, t.topic_has_attach AS attach \
+	FROM jforum_topics t \
+	WHERE (t.forum_id = ? OR t.topic_moved_id = ?) \
+	AND t.topic_last_post_time IS NOT NULL \
+	AND (t.topic_type < ? OR (t.topic_type = ? AND t.topic_last_post_id < ?)) \
+	ORDER BY t.topic_type DESC, t.topic_last_post_id DESC \
+	LIMIT ?
+
 TopicModel.topicPosters = SELECT user_id, username, user_karma, user_avatar, user_allowavatar, user_regdate, user_posts, user_icq, \
 	user_from, user_email, rank_id, user_sig, user_attachsig, user_viewemail, user_msnm, user_yim, user_website, user_sig, user_aim \
 	FROM jforum_users \
@@ -343,6 +519,7 @@ TopicModel.deleteByForum = SELECT topic_id FROM jforum_topics where forum_id = ?
 TopicModel.delete = DELETE FROM jforum_topics WHERE topic_id = ?
 TopicModel.deletePosts = DELETE FROM jforum_posts WHERE topic_id = ?
 TopicModel.incrementTotalViews = UPDATE jforum_topics SET topic_views = topic_views + 1 WHERE topic_id = ?
+TopicModel.addTotalViews = UPDATE jforum_topics SET topic_views = topic_views + ? WHERE topic_id = ?
 TopicModel.incrementTotalReplies = UPDATE jforum_topics SET topic_replies = topic_replies + 1 WHERE topic_id = ?
 TopicModel.decrementTotalReplies = UPDATE jforum_topics SET topic_replies = topic_replies - 1 WHERE topic_id = ?
 TopicModel.setLastPostId = UPDATE jforum_topics SET topic_last_post_id = ? WHERE topic_id = ?
@@ -354,60 +531,74 @@ TopicModel.addNew = INSERT INTO jforum_topics (forum_id, topic_title, user_id, t
 
 TopicModel.update = UPDATE jforum_topics SET topic_title = ?, topic_last_post_id = ?, topic_first_post_id = ?, topic_type = ?, moderated = ?, topic_vote_id = ? WHERE topic_id = ?
 TopicModel.getMaxPostId = SELECT MAX(post_id) AS post_id FROM jforum_posts WHERE topic_id = ?
+TopicModel.getLastPostTime = SELECT MAX(post_time) AS post_time FROM jforum_posts WHERE topic_id = ? AND need_moderate = 0
 TopicModel.getTotalPosts = SELECT COUNT(1) AS total FROM jforum_posts WHERE topic_id = ? AND need_moderate = 0
 
-TopicModel.subscribeUser = INSERT INTO jforum_topics_watch(topic_id, user_id, is_read) VALUES (?, ?, 1)
+TopicModel.subscribeUser = INSERT INTO jforum_topics_watch(topic_id, user_id, last_read_post_id) \
+	SELECT topic_id, ?, topic_last_post_id FROM jforum_topics WHERE topic_id = ?
 TopicModel.isUserSubscribed = SELECT user_id FROM jforum_topics_watch WHERE topic_id = ? AND user_id = ?
 TopicModel.removeSubscription = DELETE FROM jforum_topics_watch WHERE topic_id = ? AND user_id = ?
 TopicModel.removeSubscriptionByTopic = DELETE FROM jforum_topics_watch WHERE topic_id = ?
-TopicModel.updateReadStatus = UPDATE jforum_topics_watch SET is_read = ? WHERE topic_id = ? AND user_id = ?
+TopicModel.updateReadStatus = UPDATE jforum_topics_watch SET last_read_post_id = ? WHERE topic_id = ? AND user_id = ? AND last_read_post_id < ?
 
 TopicModel.notifyUsers = SELECT u.user_id, u.username, u.user_lang, u.user_email, u.user_notify_text \
 	FROM jforum_topics_watch tw, jforum_users u \
 	WHERE tw.user_id = u.user_id \
 	AND tw.topic_id = ? \
-	AND (tw.is_read = 1 OR u.user_notify_always = 1) \
+	AND (tw.last_read_post_id >= (SELECT MAX(p.post_id) FROM jforum_posts p WHERE p.topic_id = ? AND p.post_id < ? AND p.need_moderate = 0) \
+		OR u.user_notify_always = 1) \
 	AND u.user_id NOT IN ( ?, ? )
 	
-TopicModel.markAllAsUnread = UPDATE jforum_topics_watch SET is_read = '0' WHERE topic_id = ? AND user_id NOT IN (?, ?)
 TopicModel.lockUnlock = UPDATE jforum_topics SET topic_status = ? WHERE topic_id = ?
 
-TopicModel.selectRecentTopicsByLimit = SELECT t.*, p.user_id AS last_user_id, p.post_time, p.attach AS attach \
-	FROM jforum_topics t, jforum_posts p \
-	WHERE p.post_id = t.topic_last_post_id \
-	AND p.need_moderate = 0 \
+TopicModel.selectRecentTopicsByLimit = SELECT t.*, t.topic_last_user_id AS last_user_id, t.topic_last_post_time AS post_time, t.topic_has_attach AS attach \
+	FROM jforum_topics t \
+	WHERE t.topic_last_post_time IS NOT NULL \
 	ORDER BY topic_last_post_id DESC \
 	LIMIT ?
 	
-TopicModel.selectForNewMessages = SELECT t.*, p.user_id AS last_user_id, p.post_time, p.attach AS attach \
-	FROM jforum_topics t, jforum_posts p \
+TopicModel.selectForNewMessages = SELECT t.*, t.topic_last_user_id AS last_user_id, t.topic_last_post_time AS post_time, t.topic_has_attach AS attach \
+	FROM jforum_topics t \
 	WHERE t.topic_id IN (:topicIds:) \
-	AND p.need_moderate = 0 \
-	AND p.post_id = t.topic_last_post_id \
+	AND t.topic_last_post_time IS NOT NULL \
 	ORDER BY topic_last_post_id DESC
 
-TopicModel.selectHottestTopicsByLimit = SELECT t.*, p.user_id AS last_user_id, p.post_time, p.attach AS attach \
-    FROM jforum_topics t, jforum_posts p \
-    WHERE p.post_id = t.topic_last_post_id \
-    AND p.need_moderate = 0 \
+TopicModel.selectHottestTopicsByLimit = SELECT t.*, t.topic_last_user_id AS last_user_id, t.topic_last_post_time AS post_time, t.topic_has_attach AS attach \
+    FROM jforum_topics t \
+    WHERE t.topic_last_post_time IS NOT NULL \
     ORDER BY topic_views DESC \
     LIMIT ?
     
-TopicModel.getUserInformation = SELECT user_id, username FROM jforum_users WHERE user_id IN (#ID#)
 
-TopicModel.selectByUserByLimit = SELECT t.*, p.user_id AS last_user_id, p.post_time, p.attach AS attach \
-	FROM jforum_topics t, jforum_posts p \
-	WHERE p.post_id = t.topic_last_post_id \
+TopicModel.selectByUserByLimit = SELECT t.*, t.topic_last_user_id AS last_user_id, t.topic_last_post_time AS post_time, t.topic_has_attach AS attach \
+	FROM jforum_topics t \
+	WHERE t.topic_last_post_time IS NOT NULL \
 	AND t.user_id = ? \
-	AND p.need_moderate = 0 \
 	AND t.forum_id IN(:fids:) \
 	ORDER BY t.topic_last_post_id DESC \
 	LIMIT ?, ?
 
-TopicModel.countUserTopics = SELECT COUNT(1) AS total FROM jforum_topics t, jforum_posts p WHERE t.user_id = ? AND t.forum_id IN (:fids:) AND p.post_id = t.topic_first_post_id AND p.need_moderate = 0
+TopicModel.countUserTopics = SELECT COUNT(1) AS total FROM jforum_topics t WHERE t.user_id = ? AND t.forum_id IN (:fids:) AND t.topic_last_post_time IS NOT NULL
 	
 TopicModel.getFirstLastPostId = SELECT MIN(post_id) AS first_post_id, MAX(post_id) AS last_post_id FROM jforum_posts WHERE topic_id = ?
 TopicModel.fixFirstLastPostId = UPDATE jforum_topics SET topic_first_post_id = ?, topic_last_post_id = ? WHERE topic_id = ?
+
+TopicModel.updateLastPostData = UPDATE jforum_topics SET \
+	topic_last_post_time = (SELECT p.post_time FROM jforum_posts p WHERE p.post_id = jforum_topics.topic_last_post_id AND p.need_moderate = 0), \
+	topic_last_user_id = COALESCE((SELECT p.user_id FROM jforum_posts p WHERE p.post_id = jforum_topics.topic_last_post_id), 0), \
+	topic_has_attach = COALESCE((SELECT MAX(p.attach) FROM jforum_posts p WHERE p.topic_id = jforum_topics.topic_id AND p.need_moderate = 0), 0) \
+	WHERE topic_id = ? \
+	AND topic_archived = 0
+
+TopicModel.updateHasAttach = UPDATE jforum_topics SET \
+	topic_has_attach = COALESCE((SELECT MAX(p.attach) FROM jforum_posts p WHERE p.topic_id = jforum_topics.topic_id AND p.need_moderate = 0), 0) \
+	WHERE topic_id = (SELECT p.topic_id FROM jforum_posts p WHERE p.post_id = ?)
+
+TopicModel.rebuildLastPostData = UPDATE jforum_topics SET \
+	topic_last_post_time = (SELECT p.post_time FROM jforum_posts p WHERE p.post_id = jforum_topics.topic_last_post_id AND p.need_moderate = 0), \
+	topic_last_user_id = COALESCE((SELECT p.user_id FROM jforum_posts p WHERE p.post_id = jforum_topics.topic_last_post_id), 0), \
+	topic_has_attach = COALESCE((SELECT MAX(p.attach) FROM jforum_posts p WHERE p.topic_id = jforum_topics.topic_id AND p.need_moderate = 0), 0) \
+	WHERE topic_archived = 0 AND topic_id BETWEEN ? AND ?
 TopicModel.totalTopics = SELECT COUNT(1) FROM jforum_topics
 
 # ############
@@ -482,19 +673,20 @@ PrivateMessageModel.add = INSERT INTO jforum_privmsgs ( privmsgs_type, privmsgs_
 	
 PrivateMessagesModel.addText = INSERT INTO jforum_privmsgs_text ( privmsgs_id, privmsgs_text ) VALUES (?, ?)
 	
-PrivateMessagesModel.isDeleteAllowed = SELECT 1 FROM jforum_privmsgs WHERE privmsgs_id = ? \
+PrivateMessagesModel.selectDeletable = SELECT privmsgs_id, privmsgs_type FROM jforum_privmsgs WHERE privmsgs_id IN (:ids:) \
 	AND ( \
 	    (privmsgs_from_userid = ? AND privmsgs_type = 2) \
 	    OR (privmsgs_to_userid = ? AND privmsgs_type IN(0, 1, 5)) \
 	)
 
-PrivateMessageModel.delete = DELETE FROM jforum_privmsgs WHERE privmsgs_id = ?	
+PrivateMessageModel.delete = DELETE FROM jforum_privmsgs WHERE privmsgs_id = ? AND privmsgs_type = ?
 PrivateMessagesModel.deleteText = DELETE FROM jforum_privmsgs_text WHERE privmsgs_id = ?
 
 PrivateMessageModel.baseListing = SELECT pm.privmsgs_type, pm.privmsgs_id, pm.privmsgs_date, pm.privmsgs_subject, u.user_id, u.username \
 	FROM jforum_privmsgs pm, jforum_users u \
 	#FILTER# \
-	ORDER BY pm.privmsgs_date DESC
+	AND pm.privmsgs_id < ? \
+	ORDER BY pm.privmsgs_id DESC
 	
 PrivateMessageModel.inbox = WHERE privmsgs_to_userid = ? \
 	AND u.user_id = pm.privmsgs_from_userid \
@@ -506,7 +698,8 @@ PrivateMessageModel.sent = WHERE privmsgs_from_userid = ? \
 	AND u.user_id = pm.privmsgs_to_userid \
 	AND pm.privmsgs_type = 2
 	
-PrivateMessageModel.updateType = UPDATE jforum_privmsgs SET privmsgs_type = ? WHERE privmsgs_id = ?
+PrivateMessageModel.updateType = UPDATE jforum_privmsgs SET privmsgs_type = ? WHERE privmsgs_id = ? AND privmsgs_type = ?
+PrivateMessageModel.selectType = SELECT privmsgs_type, privmsgs_to_userid FROM jforum_privmsgs WHERE privmsgs_id = ?
 
 PrivateMessageModel.selectById = SELECT p.*, pt.privmsgs_text \
 	FROM jforum_privmsgs p, jforum_privmsgs_text pt \
@@ -660,6 +853,7 @@ AttachmentModel.selectQuotaLimitByGroup = SELECT ql.quota_limit_id, ql.quota_des
 # ModerationModel
 # ################
 ModerationModel.aprovePost = UPDATE jforum_posts SET need_moderate = 0, post_time = ? WHERE post_id = ?
+ModerationModel.selectPostTopic = SELECT forum_id, topic_id FROM jforum_posts WHERE post_id = ?
 ModerationModel.categoryPendingModeration = SELECT c.categories_id, c.title, f.forum_id, f.forum_name, COUNT(p.post_id) AS total \
 	FROM jforum_categories c, jforum_forums f, jforum_posts p \
 	WHERE p.need_moderate = 1 \
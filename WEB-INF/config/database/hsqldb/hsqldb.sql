@@ -15,13 +15,6 @@ UserModel.selectAllByGroup = SELECT LIMIT ? ? user_email, u.user_id, user_posts,
 	AND ug.group_id = ? \
 	ORDER BY username
 	
-UserModel.selectById = SELECT u.*, \
-	(SELECT COUNT(1) FROM jforum_privmsgs pm \
-	WHERE pm.privmsgs_to_userid = u.user_id \
-	AND pm.privmsgs_type = 1) AS private_messages \
-	FROM jforum_users u \
-	WHERE u.user_id = ?
-
 UserModel.isUsernameRegistered = SELECT COUNT(1) as registered FROM jforum_users WHERE LCASE(username) = LCASE(?)
 UserModel.login = SELECT user_id FROM jforum_users WHERE LCASE(username) = LCASE(?) AND user_password = ?
 
@@ -56,7 +49,17 @@ PostModel.selectAllByTopicByLimit = SELECT LIMIT ? ? p.post_id, topic_id, forum_
 	AND topic_id = ? \
 	AND p.user_id = u.user_id \
 	AND p.need_moderate = 0 \
-	ORDER BY post_time ASC 
+	ORDER BY post_time ASC, p.post_id ASC
+
+PostModel.selectAllByTopicAfter = SELECT LIMIT 0 ? p.post_id, topic_id, forum_id, p.user_id, post_time, poster_ip, enable_bbcode, p.attach, \
+	enable_html, enable_smilies, enable_sig, post_edit_time, post_edit_count, status, pt.post_subject, pt.post_text, username, p.need_moderate \
+	FROM jforum_posts p, jforum_posts_text pt, jforum_users u \
+	WHERE p.post_id = pt.post_id \
+	AND topic_id = ? \
+	AND p.user_id = u.user_id \
+	AND p.need_moderate = 0 \
+	AND (p.post_time > ? OR (p.post_time = ? AND p.post_id > ?)) \
+	ORDER BY post_time ASC, p.post_id ASC
 
 PostModel.selectByUserByLimit = SELECT LIMIT ? ? p.post_id, topic_id, forum_id, p.user_id, post_time, poster_ip, enable_bbcode, p.attach, \
 	enable_html, enable_smilies, enable_sig, post_edit_time, post_edit_count, status, pt.post_subject, pt.post_text, username, p.need_moderate \
@@ -81,26 +84,30 @@ ForumModel.lastGeneratedForumId = SELECT MAX(forum_id) from jforum_forums
 # #############
 # TopicModel
 # #############
-TopicModel.selectAllByForumByLimit = SELECT LIMIT ? ? t.*, p.user_id AS last_user_id, p.post_time, p.attach AS attach \
-	FROM jforum_topics t, jforum_posts p \
+TopicModel.selectAllByForumByLimit = SELECT LIMIT ? ? t.*, t.topic_last_user_id AS last_user_id, t.topic_last_post_time AS post_time, t.topic_has_attach AS attach \
+	FROM jforum_topics t \
 	WHERE (t.forum_id = ? OR t.topic_moved_id = ?) \
-	AND p.post_id = t.topic_last_post_id \
-	AND p.need_moderate = 0 \
+	AND t.topic_last_post_time IS NOT NULL \
 	ORDER BY t.topic_type DESC, t.topic_last_post_id DESC
 
-TopicModel.selectRecentTopicsByLimit = SELECT LIMIT 0 ? t.*, p.user_id AS last_user_id, p.post_time, p.attach AS attach \
-	FROM jforum_topics t, jforum_posts p \
-	WHERE p.post_id = t.topic_last_post_id \
-	AND p.need_moderate = 0 \
+TopicModel.selectAllByForumAfter = SELECT LIMIT 0 ? t.*, t.topic_last_user_id AS last_user_id, t.topic_last_post_time AS post_time, t.topic_has_attach AS attach \
+	FROM jforum_topics t \
+	WHERE (t.forum_id = ? OR t.topic_moved_id = ?) \
+	AND t.topic_last_post_time IS NOT NULL \
+	AND (t.topic_type < ? OR (t.topic_type = ? AND t.topic_last_post_id < ?)) \
+	ORDER BY t.topic_type DESC, t.topic_last_post_id DESC
+
+TopicModel.selectRecentTopicsByLimit = SELECT LIMIT 0 ? t.*, t.topic_last_user_id AS last_user_id, t.topic_last_post_time AS post_time, t.topic_has_attach AS attach \
+	FROM jforum_topics t \
+	WHERE t.topic_last_post_time IS NOT NULL \
 	ORDER BY t.topic_last_post_id DESC
 	
 TopicModel.lastGeneratedTopicId = SELECT MAX(topic_id) from jforum_topics
 
-TopicModel.selectByUserByLimit = SELECT LIMIT ? ? t.*, p.user_id AS last_user_id, p.post_time, p.attach AS attach \
-	FROM jforum_topics t, jforum_posts p \
-	WHERE p.post_id = t.topic_last_post_id \
+TopicModel.selectByUserByLimit = SELECT LIMIT ? ? t.*, t.topic_last_user_id AS last_user_id, t.topic_last_post_time AS post_time, t.topic_has_attach AS attach \
+	FROM jforum_topics t \
+	WHERE t.topic_last_post_time IS NOT NULL \
 	AND t.user_id = ? \
-	AND p.need_moderate = 0 \
 	AND t.forum_id IN(:fids:) \
 	ORDER BY t.topic_last_post_id DESC
 
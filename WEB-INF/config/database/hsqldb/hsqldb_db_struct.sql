@@ -148,6 +148,40 @@ CREATE TABLE jforum_posts_text (
 	post_subject VARCHAR(100)
 ) ;
 
+--
+-- Table structure for table 'jforum_posts_archive'
+--
+DROP TABLE IF EXISTS jforum_posts_archive;
+CREATE TABLE jforum_posts_archive (
+  post_id int NOT NULL,
+  topic_id int default '0' NOT NULL,
+  forum_id int default '0' NOT NULL,
+  user_id int default '0' NOT NULL,
+  post_time timestamp default NULL,
+  poster_ip varchar(15) default NULL,
+  enable_bbcode int default '1' NOT NULL,
+  enable_html int default '1' NOT NULL,
+  enable_smilies int default '1' NOT NULL,
+  enable_sig int default '1' NOT NULL,
+  post_edit_time timestamp default NULL,
+  post_edit_count int default '0' NOT NULL,
+  status int default '1',
+  attach int default 0,
+  need_moderate int default '0',
+  PRIMARY KEY  (post_id)
+) ;
+CREATE INDEX idx_posts_archive_topic ON jforum_posts_archive(topic_id);
+
+--
+-- Table structure for table 'jforum_posts_text_archive'
+--
+DROP TABLE IF EXISTS jforum_posts_text_archive;
+CREATE TABLE jforum_posts_text_archive (
+	post_id int NOT NULL PRIMARY KEY,
+	post_text LONGVARCHAR,
+	post_subject VARCHAR(100)
+) ;
+
 --
 -- Table structure for table 'jforum_privmsgs'
 --
@@ -166,6 +200,8 @@ CREATE TABLE jforum_privmsgs (
   privmsgs_attach_sig int default '1' NOT NULL,
   PRIMARY KEY  (privmsgs_id)
 ) ;
+CREATE INDEX idx_pm_to_user ON jforum_privmsgs(privmsgs_to_userid, privmsgs_id);
+CREATE INDEX idx_pm_from_user ON jforum_privmsgs(privmsgs_from_userid, privmsgs_id);
 
 DROP TABLE IF EXISTS jforum_privmsgs_text;
 CREATE TABLE jforum_privmsgs_text (
@@ -248,7 +284,11 @@ CREATE TABLE jforum_topics (
   topic_type int default '0',
   topic_first_post_id int default '0',
   topic_last_post_id int default '0' NOT NULL,
+  topic_last_post_time timestamp default null,
+  topic_last_user_id int default '0',
+  topic_has_attach int default '0',
   topic_moved_id int default 0,
+  topic_archived int default '0',
   moderated int default '0',
   PRIMARY KEY  (topic_id)
 ) ;
@@ -268,7 +308,7 @@ DROP TABLE IF EXISTS jforum_topics_watch;
 CREATE TABLE jforum_topics_watch (
   topic_id int default '0' NOT NULL,
   user_id int default '0' NOT NULL,
-  is_read int default '0' NOT NULL
+  last_read_post_id int default '0' NOT NULL
 ) ;
 CREATE INDEX idx_tw_topic ON jforum_topics_watch(topic_id);
 CREATE INDEX idx_tw_user ON jforum_topics_watch(user_id);
@@ -294,6 +334,8 @@ CREATE TABLE jforum_users (
   user_dateformat varchar(20) default '%d/%M/%Y %H:%i' NOT NULL,
   user_new_privmsg int default '0' NOT NULL,
   user_unread_privmsg int default '0' NOT NULL,
+  user_inbox_privmsg int default '0' NOT NULL,
+  user_sent_privmsg int default '0' NOT NULL,
   user_last_privmsg timestamp NULL,
   user_emailtime timestamp NULL,
   user_viewemail int default '0',
@@ -559,3 +601,13 @@ CREATE TABLE jforum_moderation_log (
 
 CREATE INDEX idx_ml_user ON jforum_moderation_log(user_id);
 CREATE INDEX idx_ml_post_user ON jforum_moderation_log(post_user_id);
+
+--
+-- Table structure for table 'jforum_board_stats'
+--
+DROP TABLE IF EXISTS jforum_board_stats;
+CREATE TABLE jforum_board_stats (
+	stat_name VARCHAR(30) NOT NULL,
+	stat_value BIGINT DEFAULT 0 NOT NULL,
+	PRIMARY KEY(stat_name)
+);
@@ -146,6 +146,40 @@ CREATE TABLE jforum_posts_text (
 	post_subject VARCHAR(100)
 ) TYPE=InnoDB;
 
+--
+-- Table structure for table 'jforum_posts_archive'
+--
+DROP TABLE IF EXISTS jforum_posts_archive;
+CREATE TABLE jforum_posts_archive (
+  post_id INT NOT NULL,
+  topic_id INT NOT NULL default '0',
+  forum_id INT NOT NULL default '0',
+  user_id INT NOT NULL default '0',
+  post_time datetime default NULL,
+  poster_ip varchar(15) default NULL,
+  enable_bbcode tinyint(1) NOT NULL default '1',
+  enable_html tinyint(1) NOT NULL default '1',
+  enable_smilies tinyint(1) NOT NULL default '1',
+  enable_sig tinyint(1) NOT NULL default '1',
+  post_edit_time datetime default NULL,
+  post_edit_count INT NOT NULL default '0',
+  status tinyint(1) default '1',
+  attach TINYINT(1) DEFAULT '0',
+  need_moderate TINYINT(1) DEFAULT '0',
+  PRIMARY KEY  (post_id),
+  KEY (topic_id)
+) TYPE=InnoDB;
+
+--
+-- Table structure for table 'jforum_posts_text_archive'
+--
+DROP TABLE IF EXISTS jforum_posts_text_archive;
+CREATE TABLE jforum_posts_text_archive (
+	post_id INT NOT NULL PRIMARY KEY,
+	post_text TEXT,
+	post_subject VARCHAR(100)
+) TYPE=InnoDB;
+
 --
 -- Table structure for table 'jforum_privmsgs'
 --
@@ -162,7 +196,9 @@ CREATE TABLE jforum_privmsgs (
   privmsgs_enable_html tinyint(1) NOT NULL default '0',
   privmsgs_enable_smilies tinyint(1) NOT NULL default '1',
   privmsgs_attach_sig tinyint(1) NOT NULL default '1',
-  PRIMARY KEY  (privmsgs_id)
+  PRIMARY KEY  (privmsgs_id),
+  INDEX idx_pm_to_user (privmsgs_to_userid, privmsgs_id),
+  INDEX idx_pm_from_user (privmsgs_from_userid, privmsgs_id)
 ) TYPE=InnoDB;
 
 DROP TABLE IF EXISTS jforum_privmsgs_text;
@@ -240,7 +276,11 @@ CREATE TABLE jforum_topics (
   topic_type tinyint(3) default '0',
   topic_first_post_id INT default '0',
   topic_last_post_id INT NOT NULL default '0',
+  topic_last_post_time datetime default null,
+  topic_last_user_id INT default '0',
+  topic_has_attach TINYINT(1) default '0',
   topic_moved_id INT DEFAULT 0,
+  topic_archived TINYINT(1) DEFAULT '0',
   moderated TINYINT(1) DEFAULT '0',
   PRIMARY KEY  (topic_id),
   KEY (forum_id),
@@ -257,7 +297,7 @@ DROP TABLE IF EXISTS jforum_topics_watch;
 CREATE TABLE jforum_topics_watch (
   topic_id INT NOT NULL,
   user_id INT NOT NULL,
-  is_read tinyint(1) DEFAULT 1,
+  last_read_post_id INT NOT NULL DEFAULT 0,
   INDEX idx_topic (topic_id),
   INDEX idx_user (user_id)
 ) TYPE=InnoDB;
@@ -283,6 +323,8 @@ CREATE TABLE jforum_users (
   user_dateformat varchar(20) NOT NULL default '%d/%M/%Y %H:%i',
   user_new_privmsg INT NOT NULL default '0',
   user_unread_privmsg INT NOT NULL default '0',
+  user_inbox_privmsg INT NOT NULL default '0',
+  user_sent_privmsg INT NOT NULL default '0',
   user_last_privmsg datetime NULL,
   user_emailtime datetime default NULL,
   user_viewemail tinyint(1) default '0',
@@ -553,3 +595,13 @@ CREATE TABLE jforum_moderation_log (
 	KEY(user_id),
 	KEY(post_user_id)
 ) TYPE=InnoDB;
+
+--
+-- Table structure for table 'jforum_board_stats'
+--
+DROP TABLE IF EXISTS jforum_board_stats;
+CREATE TABLE jforum_board_stats (
+	stat_name VARCHAR(30) NOT NULL,
+	stat_value BIGINT NOT NULL DEFAULT 0,
+	PRIMARY KEY(stat_name)
+) TYPE=InnoDB;
@@ -31,13 +31,6 @@ UserModel.selectAllByLimit = SELECT * FROM ( \
 
 UserModel.lastGeneratedUserId = SELECT jforum_users_seq.currval FROM DUAL
 
-UserModel.selectById = SELECT u.*, \
-	(SELECT COUNT(1) FROM jforum_privmsgs pm \
-	WHERE pm.privmsgs_to_userid = u.user_id \
-	AND pm.privmsgs_type = 1) AS private_messages \
-	FROM jforum_users u \
-	WHERE u.user_id = ?
-
 UserModel.lastUserRegistered = SELECT * FROM ( \
 		SELECT user_id, username, ROW_NUMBER() OVER(ORDER BY user_regdate DESC) - 1 LINENUM FROM jforum_users ORDER BY user_regdate DESC \
 	) \
@@ -92,16 +85,29 @@ PostModel.lastGeneratedPostId = SELECT jforum_posts_seq.currval FROM DUAL
 PostModel.selectAllByTopicByLimit = SELECT * FROM ( \
     SELECT p.post_id, topic_id, forum_id, p.user_id, post_time, poster_ip, enable_bbcode, p.attach, p.need_moderate, \
    	enable_html, enable_smilies, enable_sig, post_edit_time, post_edit_count, status, pt.post_subject, pt.post_text, username,  \
-   	ROW_NUMBER() OVER(ORDER BY p.post_time ASC) - 1 LINENUM \
+   	ROW_NUMBER() OVER(ORDER BY p.post_time ASC, p.post_id ASC) - 1 LINENUM \
    	FROM jforum_posts p, jforum_posts_text pt, jforum_users u \
 	WHERE p.post_id = pt.post_id  \
 	AND topic_id = ? \
 	AND p.user_id = u.user_id \
 	AND p.need_moderate = 0 \
-	ORDER BY post_time ASC \
+	ORDER BY post_time ASC, p.post_id ASC \
 ) \
 WHERE LINENUM >= ? AND LINENUM < ?
 
+PostModel.selectAllByTopicAfter = SELECT * FROM ( \
+    SELECT p.post_id, topic_id, forum_id, p.user_id, post_time, poster_ip, enable_bbcode, p.attach, p.need_moderate, \
+   	enable_html, enable_smilies, enable_sig, post_edit_time, post_edit_count, status, pt.post_subject, pt.post_text, username \
+   	FROM jforum_posts p, jforum_posts_text pt, jforum_users u \
+	WHERE p.post_id = pt.post_id  \
+	AND topic_id = ? \
+	AND p.user_id = u.user_id \
+	AND p.need_moderate = 0 \
+	AND (p.post_time > ? OR (p.post_time = ? AND p.post_id > ?)) \
+	ORDER BY post_time ASC, p.post_id ASC \
+) \
+WHERE ROWNUM <= ?
+
 PostModel.selectByUserByLimit = SELECT * FROM ( \
     SELECT p.post_id, topic_id, forum_id, p.user_id, post_time, poster_ip, enable_bbcode, p.attach, \
 	enable_html, enable_smilies, enable_sig, post_edit_time, post_edit_count, status, pt.post_subject, pt.post_text, username, p.need_moderate, \
@@ -130,6 +136,7 @@ PollModel.lastGeneratedPollId = SELECT jforum_vote_desc_seq.currval FROM DUAL
 ForumModel.addNew = INSERT INTO jforum_forums (forum_id, categories_id, forum_name, forum_desc, forum_order, moderated) VALUES (jforum_forums_seq.nextval, ?, ?, ?, ?, ?)
 ForumModel.lastGeneratedForumId = SELECT jforum_forums_seq.currval FROM DUAL
 ForumModel.statsFirstPostTime = SELECT MIN(post_time) FROM jforum_posts
+ArchiveModel.statsFirstPostTime = SELECT MIN(post_time) FROM jforum_posts_archive
 ForumModel.statsFirstRegisteredUserTime = SELECT MIN(user_regdate) FROM jforum_users
 
 # #############
@@ -142,48 +149,48 @@ TopicModel.addNew = INSERT INTO jforum_topics (topic_id, forum_id, topic_title,
 # Ignores attachements (0 as attach), but goes two orders of magnitude higher...
 ##########################################################################################
 TopicModel.selectAllByForumByLimit = SELECT * FROM ( \
-       SELECT t.*, p.user_id AS last_user_id, p.post_time, (SELECT SUM(p.attach) \
-        FROM jforum_posts p \
-        WHERE p.topic_id = t.topic_id \
-        AND p.need_moderate = 0) AS attach, \
+       SELECT t.*, t.topic_last_user_id AS last_user_id, t.topic_last_post_time AS post_time, t.topic_has_attach AS attach, \
        ROW_NUMBER() OVER(ORDER BY topic_type DESC, topic_last_post_id DESC) - 1 LINENUM \
-       FROM jforum_topics t, jforum_posts p \
+       FROM jforum_topics t \
        WHERE (t.forum_id = ? OR t.topic_moved_id = ?) \
-       AND p.post_id = t.topic_last_post_id \
-       AND p.need_moderate = 0 \
+       AND t.topic_last_post_time IS NOT NULL \
 	) \
 	WHERE LINENUM >= ? AND LINENUM < ?
 
+TopicModel.selectAllByForumAfter = SELECT * FROM ( \
+       SELECT t.*, t.topic_last_user_id AS last_user_id, t.topic_last_post_time AS post_time, t.topic_has_attach AS attach \
+       FROM jforum_topics t \
+       WHERE (t.forum_id = ? OR t.topic_moved_id = ?) \
+       AND t.topic_last_post_time IS NOT NULL \
+       AND (t.topic_type < ? OR (t.topic_type = ? AND t.topic_last_post_id < ?)) \
+       ORDER BY t.topic_type DESC, t.topic_last_post_id DESC \
+	) \
+	WHERE ROWNUM <= ?
+
 TopicModel.selectByUserByLimit = SELECT * FROM ( \
-    SELECT t.*, p.user_id AS last_user_id, p.post_time, (SELECT SUM(p.attach) \
-        FROM jforum_posts p \
-        WHERE p.topic_id = t.topic_id \
-        AND p.need_moderate = 0) AS attach, \
+    SELECT t.*, t.topic_last_user_id AS last_user_id, t.topic_last_post_time AS post_time, t.topic_has_attach AS attach, \
     ROW_NUMBER() OVER(ORDER BY topic_last_post_id ASC) - 1 LINENUM \
-	FROM jforum_topics t, jforum_posts p \
-	WHERE p.post_id = t.topic_last_post_id \
+	FROM jforum_topics t \
+	WHERE t.topic_last_post_time IS NOT NULL \
 	AND t.user_id = ? \
-	AND p.need_moderate = 0 \
 	AND t.forum_id IN(:fids:) \
 	ORDER BY t.topic_last_post_id DESC \
 ) \
 WHERE LINENUM >= ? AND LINENUM < ?
 
 TopicModel.selectRecentTopicsByLimit = SELECT * FROM ( \
-       SELECT t.*, p.user_id AS last_user_id, p.post_time, p.attach AS attach,  \
+       SELECT t.*, t.topic_last_user_id AS last_user_id, t.topic_last_post_time AS post_time, t.topic_has_attach AS attach,  \
        ROW_NUMBER() OVER(ORDER BY topic_type DESC, topic_last_post_id DESC) - 1 LINENUM \
-       FROM jforum_topics t, jforum_posts p \
-       WHERE p.post_id = t.topic_last_post_id \
-       AND p.need_moderate = 0 \
+       FROM jforum_topics t \
+       WHERE t.topic_last_post_time IS NOT NULL \
 	) \
 	WHERE LINENUM < ?
 
 TopicModel.selectHottestTopicsByLimit = SELECT * FROM (\
-	SELECT t.*, p.user_id AS last_user_id, p.post_time, p.attach AS attach, \
+	SELECT t.*, t.topic_last_user_id AS last_user_id, t.topic_last_post_time AS post_time, t.topic_has_attach AS attach, \
 	ROW_NUMBER() OVER(ORDER BY topic_views DESC) - 1 LINENUM \
-    FROM jforum_topics t, jforum_posts p \
-    WHERE p.post_id = t.topic_last_post_id \
-    AND p.need_moderate = 0 \
+    FROM jforum_topics t \
+    WHERE t.topic_last_post_time IS NOT NULL \
     ORDER BY topic_views DESC \
 	) \
 	WHERE LINENUM < ?
@@ -181,6 +181,40 @@ CREATE TABLE jforum_posts_text (
 	PRIMARY KEY (post_id)
 );
 
+--
+-- Table structure for table 'jforum_posts_archive'
+--
+CREATE TABLE jforum_posts_archive (
+  post_id NUMBER(10) NOT NULL,
+  topic_id NUMBER(10) DEFAULT 0 NOT NULL,
+  forum_id NUMBER(10) DEFAULT 0 NOT NULL,
+  user_id NUMBER(10) DEFAULT 0 NOT NULL,
+  post_time DATE DEFAULT NULL,
+  poster_ip VARCHAR2(15) DEFAULT NULL,
+  enable_bbcode NUMBER(10) DEFAULT 1 NOT NULL,
+  enable_html NUMBER(10) DEFAULT 1 NOT NULL,
+  enable_smilies NUMBER(10) DEFAULT 1 NOT NULL,
+  enable_sig NUMBER(10) DEFAULT 1 NOT NULL,
+  post_edit_time DATE DEFAULT NULL,
+  post_edit_count NUMBER(10) DEFAULT 0 NOT NULL,
+  status NUMBER(10) DEFAULT 1,
+  attach NUMBER(1) DEFAULT 0,
+  need_moderate NUMBER(1) DEFAULT 0,
+  PRIMARY KEY (post_id)
+);
+
+CREATE INDEX idx_posts_archive_topic ON jforum_posts_archive(topic_id);
+
+--
+-- Table structure for table 'jforum_posts_text_archive'
+--
+CREATE TABLE jforum_posts_text_archive (
+	post_id NUMBER(10) NOT NULL,
+	post_text BLOB,
+	post_subject VARCHAR2(100) DEFAULT NULL,
+	PRIMARY KEY (post_id)
+);
+
 --
 -- Table structure for table 'jforum_privmsgs'
 --
@@ -204,6 +238,8 @@ CREATE TABLE jforum_privmsgs (
   privmsgs_attach_sig NUMBER(10) DEFAULT 1 NOT NULL,
   PRIMARY KEY  (privmsgs_id)
 );
+CREATE INDEX idx_pm_to_user ON jforum_privmsgs(privmsgs_to_userid, privmsgs_id);
+CREATE INDEX idx_pm_from_user ON jforum_privmsgs(privmsgs_from_userid, privmsgs_id);
 
 CREATE TABLE jforum_privmsgs_text (
 	privmsgs_id NUMBER(10) NOT NULL,
@@ -300,7 +336,11 @@ CREATE TABLE jforum_topics (
   topic_type NUMBER(10) DEFAULT 0,
   topic_first_post_id NUMBER(10) DEFAULT 0,
   topic_last_post_id NUMBER(10) DEFAULT 0 NOT NULL,
+  topic_last_post_time DATE DEFAULT NULL,
+  topic_last_user_id NUMBER(10) DEFAULT 0,
+  topic_has_attach NUMBER(1) DEFAULT 0,
   topic_moved_id NUMBER(10) DEFAULT 0,
+  topic_archived NUMBER(1) DEFAULT 0,
   moderated NUMBER(10) DEFAULT 0,
   PRIMARY KEY (topic_id)
 );
@@ -320,7 +360,7 @@ CREATE INDEX idx_topics_moved ON jforum_topics(topic_moved_id);
 CREATE TABLE jforum_topics_watch (
   topic_id NUMBER(10) DEFAULT 0 NOT NULL,
   user_id NUMBER(10) DEFAULT 0 NOT NULL,
-  is_read NUMBER(10) DEFAULT 0 NOT NULL
+  last_read_post_id NUMBER(10) DEFAULT 0 NOT NULL
 );
 CREATE INDEX idx_tw_topic ON jforum_topics_watch(topic_id);
 CREATE INDEX idx_tw_user ON jforum_topics_watch(user_id);
@@ -351,6 +391,8 @@ CREATE TABLE jforum_users (
   user_dateformat VARCHAR2(30) DEFAULT '%d/%M/%Y %H:%i' NOT NULL,
   user_new_privmsg NUMBER(10) DEFAULT 0 NOT NULL,
   user_unread_privmsg NUMBER(10) DEFAULT 0 NOT NULL,
+  user_inbox_privmsg NUMBER(10) DEFAULT 0 NOT NULL,
+  user_sent_privmsg NUMBER(10) DEFAULT 0 NOT NULL,
   user_last_privmsg DATE NULL,
   user_emailtime DATE DEFAULT NULL,
   user_viewemail NUMBER(10) DEFAULT 0,
@@ -666,4 +708,13 @@ CREATE TABLE jforum_moderation_log (
 );
 
 CREATE INDEX idx_ml_user ON jforum_moderation_log(user_id);
-CREATE INDEX idx_ml_post_user ON jforum_moderation_log(post_user_id);
\ No newline at end of file
+CREATE INDEX idx_ml_post_user ON jforum_moderation_log(post_user_id);
+
+--
+-- Table structure for table 'jforum_board_stats'
+--
+CREATE TABLE jforum_board_stats (
+	stat_name VARCHAR2(30) NOT NULL,
+	stat_value NUMBER(19) DEFAULT 0 NOT NULL,
+	PRIMARY KEY(stat_name)
+);
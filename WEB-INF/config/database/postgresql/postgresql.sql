@@ -6,13 +6,6 @@ UserModel.selectAllByLimit = SELECT user_email, user_id, user_posts, user_regdat
 
 UserModel.lastGeneratedUserId = SELECT CURRVAL('jforum_users_seq')
 
-UserModel.selectById = SELECT u.*, \
-	(SELECT COUNT(1) FROM jforum_privmsgs pm \
-	WHERE pm.privmsgs_to_userid = u.user_id \
-	AND pm.privmsgs_type = 1) AS private_messages \
-	FROM jforum_users u \
-	WHERE u.user_id = ?
-	
 UserModel.selectAllByGroup = SELECT user_email, u.user_id, user_posts, user_regdate, username, deleted, user_karma, user_from, user_website, user_viewemail \
 	FROM jforum_users u, jforum_user_groups ug \
 	WHERE u.user_id = ug.user_id \
@@ -32,9 +25,20 @@ PostModel.selectAllByTopicByLimit = SELECT p.post_id, topic_id, forum_id, p.user
 	AND topic_id = ? \
 	AND p.user_id = u.user_id \
 	AND p.need_moderate = 0 \
-	ORDER BY post_time ASC \
+	ORDER BY post_time ASC, p.post_id ASC \
 	OFFSET ? LIMIT ?
 
+PostModel.selectAllByTopicAfter = SELECT p.post_id, topic_id, forum_id, p.user_id, post_time, poster_ip, enable_bbcode, p.attach, \
+	enable_html, enable_smilies, enable_sig, post_edit_time, post_edit_count, status, pt.post_subject, pt.post_text, username, p.need_moderate \
+	FROM jforum_posts p, jforum_posts_text pt, jforum_users u \
+	WHERE p.post_id = pt.post_id \
+	AND topic_id = ? \
+	AND p.user_id = u.user_id \
+	AND p.need_moderate = 0 \
+	AND (p.post_time > ? OR (p.post_time = ? AND p.post_id > ?)) \
+	ORDER BY post_time ASC, p.post_id ASC \
+	LIMIT ?
+
 PostModel.selectByUserByLimit = SELECT p.post_id, topic_id, forum_id, p.user_id, post_time, poster_ip, enable_bbcode, p.attach, \
 	enable_html, enable_smilies, enable_sig, post_edit_time, post_edit_count, status, pt.post_subject, pt.post_text, username, p.need_moderate \
 	FROM jforum_posts p, jforum_posts_text pt, jforum_users u \
@@ -59,25 +63,25 @@ ForumModel.lastGeneratedForumId = SELECT CURRVAL('jforum_forums_seq');
 # #############
 # TopicModel
 # #############
-TopicModel.selectAllByForumByLimit = SELECT t.*, p.user_id AS last_user_id, p.post_time, (SELECT SUM(p.attach) \
-        FROM jforum_posts p \
-        WHERE p.topic_id = t.topic_id \
-        AND p.need_moderate = 0) AS attach \
-	FROM jforum_topics t, jforum_posts p \
+TopicModel.selectAllByForumByLimit = SELECT t.*, t.topic_last_user_id AS last_user_id, t.topic_last_post_time AS post_time, t.topic_has_attach AS attach \
+	FROM jforum_topics t \
 	WHERE (t.forum_id = ? OR t.topic_moved_id = ?) \
-	AND p.post_id = t.topic_last_post_id \
-	AND p.need_moderate = 0 \
+	AND t.topic_last_post_time IS NOT NULL \
 	ORDER BY t.topic_type DESC, t.topic_last_post_id DESC \
 	OFFSET ? LIMIT ?
 
-TopicModel.selectByUserByLimit = SELECT t.*, p.user_id AS last_user_id, p.post_time, (SELECT SUM(p.attach) \
-        FROM jforum_posts p \
-        WHERE p.topic_id = t.topic_id \
-        AND p.need_moderate = 0) AS attach \
-	FROM jforum_topics t, jforum_posts p \
-	WHERE p.post_id = t.topic_last_post_id \
+TopicModel.selectAllByForumAfter = SELECT t.*, t.topic_last_user_id AS last_user_id, t.topic_last_post_time AS post_time, t.topic_has_attach AS attach \
+	FROM jforum_topics t \
+	WHERE (t.forum_id = ? OR t.topic_moved_id = ?) \
+	AND t.topic_last_post_time IS NOT NULL \
+	AND (t.topic_type < ? OR (t.topic_type = ? AND t.topic_last_post_id < ?)) \
+	ORDER BY t.topic_type DESC, t.topic_last_post_id DESC \
+	LIMIT ?
+
+TopicModel.selectByUserByLimit = SELECT t.*, t.topic_last_user_id AS last_user_id, t.topic_last_post_time AS post_time, t.topic_has_attach AS attach \
+	FROM jforum_topics t \
+	WHERE t.topic_last_post_time IS NOT NULL \
 	AND t.user_id = ? \
-	AND p.need_moderate = 0 \
 	AND t.forum_id IN(:fids:) \
 	ORDER BY t.topic_last_post_id DESC \
 	OFFSET ? LIMIT ?
@@ -130,3 +134,15 @@ ModerationLog.selectAll = SELECT l.*, u.username, u2.username AS poster_username
 	LEFT JOIN jforum_users u ON l.user_id = u.user_id \
 	ORDER BY log_id DESC \
 	OFFSET ? LIMIT ?
+
+# ##########
+# BulkModel
+# ##########
+BulkModel.afterImport = SELECT \
+	SETVAL('jforum_categories_seq', COALESCE((SELECT MAX(categories_id) FROM jforum_categories), 0) + 1, false), \
+	SETVAL('jforum_forums_seq', COALESCE((SELECT MAX(forum_id) FROM jforum_forums), 0) + 1, false), \
+	SETVAL('jforum_users_seq', COALESCE((SELECT MAX(user_id) FROM jforum_users), 0) + 1, false), \
+	SETVAL('jforum_topics_seq', COALESCE((SELECT MAX(topic_id) FROM jforum_topics), 0) + 1, false), \
+	SETVAL('jforum_posts_seq', COALESCE((SELECT MAX(post_id) FROM jforum_posts), 0) + 1, false), \
+	SETVAL('jforum_attach_seq', COALESCE((SELECT MAX(attach_id) FROM jforum_attach), 0) + 1, false), \
+	SETVAL('jforum_attach_desc_seq', COALESCE((SELECT MAX(attach_desc_id) FROM jforum_attach_desc), 0) + 1, false)
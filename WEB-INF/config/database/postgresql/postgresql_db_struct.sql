@@ -142,6 +142,39 @@ CREATE TABLE jforum_posts_text (
 	PRIMARY KEY ( post_id )
 );
 
+--
+-- Table structure for table 'jforum_posts_archive'
+--
+CREATE TABLE jforum_posts_archive (
+  post_id INTEGER NOT NULL,
+  topic_id INTEGER NOT NULL DEFAULT 0,
+  forum_id INTEGER NOT NULL DEFAULT 0,
+  user_id INTEGER NOT NULL DEFAULT 0,
+  post_time timestamp DEFAULT NULL,
+  poster_ip VARCHAR(15) DEFAULT NULL,
+  enable_bbcode INTEGER NOT NULL DEFAULT 1,
+  enable_html INTEGER NOT NULL DEFAULT 1,
+  enable_smilies INTEGER NOT NULL DEFAULT 1,
+  enable_sig INTEGER NOT NULL DEFAULT 1,
+  post_edit_time timestamp DEFAULT NULL,
+  post_edit_count INTEGER NOT NULL DEFAULT 0,
+  status INTEGER DEFAULT 1,
+  attach INTEGER DEFAULT 0,
+  need_moderate INTEGER DEFAULT 0,
+  PRIMARY KEY(post_id)
+);
+CREATE INDEX idx_posts_archive_topic ON jforum_posts_archive(topic_id);
+
+--
+-- Table structure for table 'jforum_posts_text_archive'
+--
+CREATE TABLE jforum_posts_text_archive (
+	post_id INTEGER NOT NULL,
+	post_text TEXT,
+	post_subject VARCHAR(100) DEFAULT NULL,
+	PRIMARY KEY ( post_id )
+);
+
 --
 -- Table structure for table 'jforum_privmsgs'
 --
@@ -160,6 +193,8 @@ CREATE TABLE jforum_privmsgs (
   privmsgs_attach_sig INTEGER NOT NULL DEFAULT 1,
   PRIMARY KEY(privmsgs_id)
 );
+CREATE INDEX idx_pm_to_user ON jforum_privmsgs(privmsgs_to_userid, privmsgs_id);
+CREATE INDEX idx_pm_from_user ON jforum_privmsgs(privmsgs_from_userid, privmsgs_id);
 
 CREATE TABLE jforum_privmsgs_text (
 	privmsgs_id INTEGER NOT NULL,
@@ -235,6 +270,10 @@ CREATE TABLE jforum_topics (
   topic_type INTEGER DEFAULT 0,
   topic_first_post_id INTEGER DEFAULT 0,
   topic_last_post_id INTEGER NOT NULL DEFAULT 0,
+  topic_last_post_time timestamp DEFAULT NULL,
+  topic_last_user_id INTEGER DEFAULT 0,
+  topic_has_attach INTEGER DEFAULT 0,
+  topic_archived INTEGER DEFAULT 0,
   moderated INTEGER DEFAULT 0,
   topic_moved_id INTEGER DEFAULT 0,
   PRIMARY KEY(topic_id)
@@ -254,7 +293,7 @@ CREATE INDEX idx_topics_moved ON jforum_topics(topic_moved_id);
 CREATE TABLE jforum_topics_watch (
   topic_id INTEGER NOT NULL DEFAULT 0,
   user_id INTEGER NOT NULL DEFAULT 0,
-  is_read INTEGER NOT NULL DEFAULT 0
+  last_read_post_id INTEGER NOT NULL DEFAULT 0
 );
 CREATE INDEX idx_tw_topic ON jforum_topics_watch(topic_id);
 CREATE INDEX idx_tw_user ON jforum_topics_watch(user_id);
@@ -280,6 +319,8 @@ CREATE TABLE jforum_users (
   user_dateformat VARCHAR(20) NOT NULL DEFAULT '%d/%M/%Y %H:%i',
   user_new_privmsg INTEGER NOT NULL DEFAULT 0,
   user_unread_privmsg INTEGER NOT NULL DEFAULT 0,
+  user_inbox_privmsg INTEGER NOT NULL DEFAULT 0,
+  user_sent_privmsg INTEGER NOT NULL DEFAULT 0,
   user_last_privmsg timestamp NULL,
   user_emailtime timestamp NULL,
   user_viewemail INTEGER DEFAULT 0,
@@ -547,3 +588,12 @@ CREATE TABLE jforum_moderation_log (
 
 CREATE INDEX idx_ml_user ON jforum_moderation_log(user_id);
 CREATE INDEX idx_ml_post_user ON jforum_moderation_log(post_user_id);
+
+--
+-- Table structure for table 'jforum_board_stats'
+--
+CREATE TABLE jforum_board_stats (
+	stat_name VARCHAR(30) NOT NULL,
+	stat_value BIGINT NOT NULL DEFAULT 0,
+	PRIMARY KEY(stat_name)
+);
@@ -18,25 +18,16 @@ CategoryModel.lastGeneratedCategoryId = SELECT IDENT_CURRENT('jforum_categories'
 # #############
 # UserModel
 # #############
-UserModel.selectById = SELECT COUNT(pm.privmsgs_to_userid) AS private_messages, u.user_id, u.user_active, u.username, u.user_password, u.user_session_time, \
+UserModel.selectById = SELECT u.user_id, u.user_active, u.username, u.user_password, u.user_session_time, \
 								u.user_session_page, u.user_lastvisit, u.user_regdate, u.user_level, u.user_posts, u.user_timezone, u.user_style, \
-								u.user_lang, u.user_dateformat, u.user_new_privmsg, u.user_unread_privmsg, u.user_last_privmsg, u.user_emailtime, \
+								u.user_lang, u.user_dateformat, u.user_new_privmsg, u.user_unread_privmsg, u.user_inbox_privmsg, u.user_sent_privmsg, u.user_last_privmsg, u.user_emailtime, \
 								u.user_viewemail, u.user_attachsig, u.user_allowhtml, u.user_allowbbcode, u.user_allowsmilies, u.user_allowavatar, \
 								u.user_allow_pm, u.user_allow_viewonline, u.user_notify_always, u.user_notify_text, u.user_notify, u.user_notify_pm, u.user_popup_pm, u.rank_id, u.user_avatar, \
 								u.user_avatar_type, u.user_email, u.user_icq, u.user_website, u.user_from, CAST(u.user_sig as varchar) as user_sig , u.user_sig_bbcode_uid, \
 								u.user_aim, u.user_yim, u.user_msnm, u.user_occ, u.user_interests, CAST(u.user_biography as varchar) as user_biography, u.user_actkey, u.gender, u.themes_id, u.deleted, \
 								u.user_viewonline, u.security_hash, u.user_karma \
 								FROM jforum_users u \
-								LEFT JOIN jforum_privmsgs pm ON pm.privmsgs_type = 1 AND pm.privmsgs_to_userid = u.user_id \
-								WHERE u.user_id = ? \
-								GROUP BY pm.privmsgs_to_userid, u.user_id, u.user_active, u.username, u.user_password, u.user_session_time, \
-								u.user_session_page, u.user_lastvisit, u.user_regdate, u.user_level, u.user_posts, u.user_timezone, u.user_style, \
-								u.user_lang, u.user_dateformat, u.user_new_privmsg, u.user_unread_privmsg, u.user_last_privmsg, u.user_emailtime, \
-								u.user_viewemail, u.user_attachsig, u.user_allowhtml, u.user_allowbbcode, u.user_allowsmilies, u.user_allowavatar, \
-								u.user_allow_pm, u.user_allow_viewonline, u.user_notify_always, u.user_notify_text, u.user_notify, u.user_notify_pm, u.user_popup_pm, u.rank_id, u.user_avatar, \
-								u.user_avatar_type, u.user_email, u.user_icq, u.user_website, u.user_from, CAST(u.user_sig as varchar), u.user_sig_bbcode_uid, \
-								u.user_aim, u.user_yim, u.user_msnm, u.user_occ, u.user_interests, CAST(u.user_biography as varchar), u.user_actkey, u.gender, u.themes_id, u.deleted, \
-								u.user_viewonline, u.security_hash, u.user_karma
+								WHERE u.user_id = ?
 								
 UserModel.lastUserRegistered = SELECT TOP 1 user_id, username FROM jforum_users ORDER BY user_regdate DESC
 UserModel.lastGeneratedUserId = SELECT IDENT_CURRENT('jforum_users') AS user_id
@@ -81,8 +72,19 @@ PostModel.selectAllByTopicByLimit = SELECT TOP ? \
 	WHERE p.post_id = pt.post_id \
 	AND topic_id = ? \
 	AND p.user_id = u.user_id \
-	AND p.need_moderate = 0 
-	ORDER BY post_time ASC
+	AND p.need_moderate = 0 \
+	ORDER BY post_time ASC, p.post_id ASC
+
+PostModel.selectAllByTopicAfter = SELECT TOP ? \
+	p.post_id, topic_id, forum_id, p.user_id, post_time, poster_ip, enable_bbcode, p.attach, \
+	enable_html, enable_smilies, enable_sig, post_edit_time, post_edit_count, status, pt.post_subject, pt.post_text, username, p.need_moderate \
+	FROM jforum_posts p, jforum_posts_text pt, jforum_users u \
+	WHERE p.post_id = pt.post_id \
+	AND topic_id = ? \
+	AND p.user_id = u.user_id \
+	AND p.need_moderate = 0 \
+	AND (p.post_time > ? OR (p.post_time = ? AND p.post_id > ?)) \
+	ORDER BY post_time ASC, p.post_id ASC
 
 PostModel.selectByUserByLimit = SELECT TOP ? \
     p.post_id, topic_id, forum_id, p.user_id, post_time, poster_ip, enable_bbcode, p.attach, \
@@ -110,45 +112,37 @@ ForumModel.lastGeneratedForumId = SELECT IDENT_CURRENT('jforum_forums') AS forum
 # TopicModel
 # #############
 TopicModel.selectAllByForumByLimit =  SELECT TOP ? \
-    t.*, p.user_id AS last_user_id, p.post_time, (SELECT SUM(p.attach) \
-        FROM jforum_posts p \
-        WHERE p.topic_id = t.topic_id \
-        AND p.need_moderate = 0) AS attach \
-	FROM jforum_topics t, jforum_posts p \
+    t.*, t.topic_last_user_id AS last_user_id, t.topic_last_post_time AS post_time, t.topic_has_attach AS attach \
+	FROM jforum_topics t \
 	WHERE (t.forum_id = ? OR t.topic_moved_id = ?) \
-	AND p.post_id = t.topic_last_post_id \
-	AND p.need_moderate = 0 \
+	AND t.topic_last_post_time IS NOT NULL \
+	ORDER BY t.topic_type DESC, t.topic_last_post_id DESC
+
+TopicModel.selectAllByForumAfter = SELECT TOP ? \
+    t.*, t.topic_last_user_id AS last_user_id, t.topic_last_post_time AS post_time, t.topic_has_attach AS attach \
+	FROM jforum_topics t \
+	WHERE (t.forum_id = ? OR t.topic_moved_id = ?) \
+	AND t.topic_last_post_time IS NOT NULL \
+	AND (t.topic_type < ? OR (t.topic_type = ? AND t.topic_last_post_id < ?)) \
 	ORDER BY t.topic_type DESC, t.topic_last_post_id DESC
 
 TopicModel.selectRecentTopicsByLimit = SELECT TOP ? \
-	t.*, p.user_id AS last_user_id, p.post_time, (SELECT SUM(p.attach) \
-        FROM jforum_posts p \
-        WHERE p.topic_id = t.topic_id \
-        AND p.need_moderate = 0) AS attach \
-	FROM jforum_topics t, jforum_posts p \
-	WHERE p.post_id = t.topic_last_post_id \
-	AND p.need_moderate = 0  \
+	t.*, t.topic_last_user_id AS last_user_id, t.topic_last_post_time AS post_time, t.topic_has_attach AS attach \
+	FROM jforum_topics t \
+	WHERE t.topic_last_post_time IS NOT NULL \
 	ORDER BY t.topic_last_post_id DESC
 
 TopicModel.selectHottestTopicsByLimit = SELECT TOP ? \
-  t.*, p.user_id AS last_user_id, p.post_time, (SELECT SUM(p.attach) \
-        FROM jforum_posts p \
-        WHERE p.topic_id = t.topic_id \
-        AND p.need_moderate = 0) AS attach \
-  FROM jforum_topics t, jforum_posts p \
-  WHERE p.post_id = t.topic_last_post_id \
-  AND p.need_moderate = 0 \
+  t.*, t.topic_last_user_id AS last_user_id, t.topic_last_post_time AS post_time, t.topic_has_attach AS attach \
+  FROM jforum_topics t \
+  WHERE t.topic_last_post_time IS NOT NULL \
   ORDER BY topic_views DESC
 
 TopicModel.selectByUserByLimit = SELECT TOP ? \
-    t.*, p.user_id AS last_user_id, p.post_time, (SELECT SUM(p.attach) \
-        FROM jforum_posts p \
-        WHERE p.topic_id = t.topic_id \
-        AND p.need_moderate = 0) AS attach \
-	FROM jforum_topics t, jforum_posts p \
-	WHERE p.post_id = t.topic_last_post_id \
+    t.*, t.topic_last_user_id AS last_user_id, t.topic_last_post_time AS post_time, t.topic_has_attach AS attach \
+	FROM jforum_topics t \
+	WHERE t.topic_last_post_time IS NOT NULL \
 	AND t.user_id = ? \
-	AND p.need_moderate = 0 \
 	AND t.forum_id IN(:fids:) \
 	ORDER BY t.topic_last_post_id DESC
 
@@ -195,3 +189,11 @@ ModerationLog.selectAll = SELECT TOP ? \
 	ORDER BY log_id DESC
 
 ModerationLog.lastGeneratedModerationLogId = SELECT IDENT_CURRENT('jforum_moderation_log') AS moderation_log_id
+
+# ################
+# ArchiveModel
+# ################
+ArchiveModel.restorePosts = SET IDENTITY_INSERT jforum_posts ON; \
+	INSERT INTO jforum_posts (post_id, topic_id, forum_id, user_id, post_time, poster_ip, enable_bbcode, enable_html, enable_smilies, enable_sig, post_edit_time, post_edit_count, status, attach, need_moderate) \
+	SELECT post_id, topic_id, forum_id, user_id, post_time, poster_ip, enable_bbcode, enable_html, enable_smilies, enable_sig, post_edit_time, post_edit_count, status, attach, need_moderate FROM jforum_posts_archive WHERE topic_id = ?; \
+	SET IDENTITY_INSERT jforum_posts OFF
@@ -93,7 +93,7 @@ SET IDENTITY_INSERT jforum_forums ON;
 INSERT INTO jforum_forums (forum_id, categories_id, forum_name, forum_desc, forum_order, forum_topics, forum_last_post_id, moderated) VALUES (1,1,'Test Forum','This is a test forum',1,1,1,0);
 SET IDENTITY_INSERT jforum_forums OFF;
 SET IDENTITY_INSERT jforum_topics ON;
-INSERT INTO jforum_topics (topic_id, forum_id, topic_title, user_id, topic_time, topic_views, topic_replies, topic_status, topic_vote_id, topic_type, topic_first_post_id, topic_last_post_id, moderated ) VALUES (1,1,'Welcome to JForum',2,GETDATE(),1,0,0,0,0,1,1,0);
+INSERT INTO jforum_topics (topic_id, forum_id, topic_title, user_id, topic_time, topic_views, topic_replies, topic_status, topic_vote_id, topic_type, topic_first_post_id, topic_last_post_id, topic_last_post_time, topic_last_user_id, topic_has_attach, moderated ) VALUES (1,1,'Welcome to JForum',2,GETDATE(),1,0,0,0,0,1,1,GETDATE(),2,0,0);
 SET IDENTITY_INSERT jforum_topics OFF;
 SET IDENTITY_INSERT jforum_posts ON;
 INSERT INTO jforum_posts (post_id, topic_id, forum_id, user_id, post_time, poster_ip, enable_bbcode, enable_html, enable_smilies, enable_sig, post_edit_time, post_edit_count, status, attach, need_moderate) VALUES (1,1,1,2,GETDATE(),'127.0.0.1',1,0,1,1,null,0,1,0,0);
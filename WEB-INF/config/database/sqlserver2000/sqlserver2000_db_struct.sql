@@ -112,6 +112,9 @@ DROP TABLE jforum_banner;
 IF EXISTS (SELECT * FROM dbo.sysobjects WHERE id = object_id(N'jforum_moderation_log') AND OBJECTPROPERTY(id, N'IsUserTable') = 1)
 DROP TABLE jforum_moderation_log;
 
+IF EXISTS (SELECT * FROM dbo.sysobjects WHERE id = object_id(N'jforum_board_stats') AND OBJECTPROPERTY(id, N'IsUserTable') = 1)
+DROP TABLE jforum_board_stats;
+
 --
 -- Table structure for table 'jforum_banlist'
 --
@@ -242,6 +245,37 @@ CREATE TABLE jforum_posts_text (
 	post_subject varchar(100) NULL 
 );
 
+--
+-- Table structure for table 'jforum_posts_archive'
+--
+CREATE TABLE jforum_posts_archive (
+	post_id bigint PRIMARY KEY NOT NULL,
+	topic_id bigint DEFAULT (0) NOT NULL,
+	forum_id bigint DEFAULT (0) NOT NULL,
+	user_id bigint DEFAULT (0) NOT NULL,
+	post_time datetime DEFAULT NULL,
+	poster_ip varchar(15) DEFAULT NULL,
+	enable_bbcode tinyint DEFAULT (1) NOT NULL,
+	enable_html tinyint DEFAULT (1)  NOT NULL,
+	enable_smilies tinyint DEFAULT (1) NOT NULL,
+	enable_sig tinyint DEFAULT (1) NOT NULL,
+	post_edit_time datetime DEFAULT NULL,
+	post_edit_count bigint DEFAULT (0) NOT NULL,
+	status tinyint DEFAULT (1) , 
+	attach tinyint DEFAULT (0) ,
+	need_moderate tinyint DEFAULT (0)
+);
+CREATE INDEX idx_posts_archive_topic ON jforum_posts_archive(topic_id);
+
+--
+-- Table structure for table 'jforum_posts_text_archive'
+--
+CREATE TABLE jforum_posts_text_archive (
+	post_id bigint PRIMARY KEY NOT NULL,
+	post_text text ,
+	post_subject varchar(100) NULL 
+);
+
 --
 -- Table structure for table 'jforum_privmsgs'
 --
@@ -258,6 +292,8 @@ CREATE TABLE jforum_privmsgs (
 	privmsgs_enable_smilies tinyint DEFAULT (1) NOT NULL,
 	privmsgs_attach_sig tinyint DEFAULT (1) NOT NULL 
 );
+CREATE INDEX idx_pm_to_user ON jforum_privmsgs(privmsgs_to_userid, privmsgs_id);
+CREATE INDEX idx_pm_from_user ON jforum_privmsgs(privmsgs_from_userid, privmsgs_id);
 
 CREATE TABLE jforum_privmsgs_text (
 	privmsgs_id bigint PRIMARY KEY NOT NULL,
@@ -325,7 +361,11 @@ CREATE TABLE jforum_topics (
 	topic_type tinyint DEFAULT (0) NULL,
 	topic_first_post_id bigint DEFAULT (0) NULL,
 	topic_last_post_id bigint DEFAULT (0) NOT NULL,
+	topic_last_post_time datetime DEFAULT NULL,
+	topic_last_user_id bigint DEFAULT (0) NULL,
+	topic_has_attach tinyint DEFAULT (0) NULL,
 	topic_moved_id bigint DEFAULT (0),
+	topic_archived tinyint DEFAULT (0) NULL,
 	moderated tinyint DEFAULT (0) NULL 
 );
 CREATE INDEX idx_topics_forum ON jforum_topics(forum_id);
@@ -342,7 +382,7 @@ CREATE INDEX idx_topics_moved ON jforum_topics(topic_moved_id);
 CREATE TABLE jforum_topics_watch (
 	topic_id bigint DEFAULT (0) NOT NULL,
 	user_id bigint DEFAULT (0) NOT NULL,
-	is_read tinyint DEFAULT (1) NOT NULL 
+	last_read_post_id bigint DEFAULT (0) NOT NULL
 );
 CREATE INDEX idx_tw_topic ON jforum_topics_watch(topic_id);
 CREATE INDEX idx_tw_user ON jforum_topics_watch(user_id);
@@ -367,6 +407,8 @@ CREATE TABLE jforum_users (
 	user_dateformat varchar(20) DEFAULT ('%d/%M/%Y %H:%i') NOT NULL,
 	user_new_privmsg int DEFAULT (0) NOT NULL,
 	user_unread_privmsg int DEFAULT (0) NOT NULL,
+	user_inbox_privmsg int DEFAULT (0) NOT NULL,
+	user_sent_privmsg int DEFAULT (0) NOT NULL,
 	user_last_privmsg datetime NULL,
 	user_emailtime datetime DEFAULT NULL,
 	user_viewemail tinyint DEFAULT (0) NULL,
@@ -595,3 +637,11 @@ CREATE TABLE jforum_moderation_log (
 );
 CREATE INDEX idx_ml_user ON jforum_moderation_log(user_id);
 CREATE INDEX idx_ml_post_user ON jforum_moderation_log(post_user_id);
+
+--
+-- Table structure for table 'jforum_board_stats'
+-- 
+CREATE TABLE jforum_board_stats (
+	stat_name varchar(30) PRIMARY KEY NOT NULL,
+	stat_value bigint DEFAULT (0) NOT NULL
+);
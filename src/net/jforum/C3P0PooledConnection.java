@@ -65,11 +65,22 @@ public class C3P0PooledConnection extends DBConnection
 	 * @see net.jforum.DBConnection#init()
 	 */
 	public void init() throws Exception
+	{
+		this.init(SystemGlobals.getValue(ConfigKeys.DATABASE_CONNECTION_STRING));
+	}
+	
+	/**
+	 * Creates the pool for some database, with the configured driver and pool settings.
+	 * 
+	 * @param jdbcUrl the JDBC URL of the database
+	 * @throws Exception
+	 */
+	protected void init(String jdbcUrl) throws Exception
 	{
 		this.ds = new ComboPooledDataSource();
 		
 		this.ds.setDriverClass(SystemGlobals.getValue(ConfigKeys.DATABASE_CONNECTION_DRIVER));
-		this.ds.setJdbcUrl(SystemGlobals.getValue(ConfigKeys.DATABASE_CONNECTION_STRING));
+		this.ds.setJdbcUrl(jdbcUrl);
 		this.ds.setMinPoolSize(SystemGlobals.getIntValue(ConfigKeys.DATABASE_POOL_MIN));
 		this.ds.setMaxPoolSize(SystemGlobals.getIntValue(ConfigKeys.DATABASE_POOL_MAX));
 		this.ds.setIdleConnectionTestPeriod(SystemGlobals.getIntValue(ConfigKeys.DATABASE_PING_DELAY));
@@ -62,6 +62,7 @@ import net.jforum.security.SecurityConstants;
 import net.jforum.sso.SSO;
 import net.jforum.sso.SSOUtils;
 import net.jforum.util.I18n;
+import net.jforum.util.I18nTemplateModel;
 import net.jforum.util.MD5;
 import net.jforum.util.preferences.ConfigKeys;
 import net.jforum.util.preferences.SystemGlobals;
@@ -94,7 +95,7 @@ public class ControllerUtils
 		context.put("templateName", SystemGlobals.getValue(ConfigKeys.TEMPLATE_DIR));
 		context.put("extension", SystemGlobals.getValue(ConfigKeys.SERVLET_EXTENSION));
 		context.put("serverPort", Integer.toString(request.getServerPort()));
-		context.put("I18n", I18n.getInstance());
+		context.put("I18n", I18nTemplateModel.getInstance());
 		context.put("version", SystemGlobals.getValue(ConfigKeys.VERSION));
 		context.put("forumTitle", SystemGlobals.getValue(ConfigKeys.FORUM_PAGE_TITLE));
 		context.put("pageTitle", SystemGlobals.getValue(ConfigKeys.FORUM_PAGE_TITLE));
@@ -272,17 +273,26 @@ public class ControllerUtils
 			SessionFacade.makeUnlogged();
 
 			if (!JForumExecutionContext.getForumContext().isBot()) {
-				// Non-SSO authentications can use auto login
-				if (!ConfigKeys.TYPE_SSO.equals(SystemGlobals.getValue(ConfigKeys.AUTHENTICATION_TYPE))) {
-					if (SystemGlobals.getBoolValue(ConfigKeys.AUTO_LOGIN_ENABLED)) {
-						this.checkAutoLogin(userSession);
+				// Logging in may store the data of an older session or register 
+				// the SSO user, so it writes on the primary database
+				boolean previous = JForumExecutionContext.usePrimary(true);
+				
+				try {
+					// Non-SSO authentications can use auto login
+					if (!ConfigKeys.TYPE_SSO.equals(SystemGlobals.getValue(ConfigKeys.AUTHENTICATION_TYPE))) {
+						if (SystemGlobals.getBoolValue(ConfigKeys.AUTO_LOGIN_ENABLED)) {
+							this.checkAutoLogin(userSession);
+						}
+						else {
+							userSession.makeAnonymous();
+						}
 					}
 					else {
-						userSession.makeAnonymous();
+						this.checkSSO(userSession);
 					}
 				}
-				else {
-					this.checkSSO(userSession);
+				finally {
+					JForumExecutionContext.usePrimary(previous);
 				}
 			}
 
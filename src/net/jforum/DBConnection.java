@@ -131,6 +131,30 @@ public abstract class DBConnection
 	 */
 	public abstract Connection getConnection();
 	
+	/**
+	 * Gets a connection that will only be used to read data.
+	 * Implementations that can send reads to another database, like
+	 * {@link ReplicaRoutingConnection}, override this method. The default
+	 * implementation is the same as {@link #getConnection()}.
+	 * 
+	 * @return Connection
+	 */
+	public Connection getReadOnlyConnection()
+	{
+		return this.getConnection();
+	}
+	
+	/**
+	 * Checks if read only connections come from a different database than
+	 * the one used for writes.
+	 * 
+	 * @return <code>true</code> if there are read replicas
+	 */
+	public boolean hasReadReplicas()
+	{
+		return false;
+	}
+	
 	/**
 	 * Releases a connection.
 	 * Connection pools will want to put the connection back to the pool list,
@@ -59,7 +59,7 @@ import net.jforum.context.web.WebRequestContext;
 import net.jforum.context.web.WebResponseContext;
 import net.jforum.exceptions.ExceptionWriter;
 import net.jforum.repository.ModulesRepository;
-import net.jforum.util.I18n;
+import net.jforum.util.I18nTemplateModel;
 import net.jforum.util.preferences.ConfigKeys;
 import net.jforum.util.preferences.SystemGlobals;
 import freemarker.template.SimpleHash;
@@ -118,7 +118,7 @@ public class InstallServlet extends JForumBaseServlet
                                 tplContext.put("serverName", req.getServerName());
                                 tplContext.put("templateName", "default");
                                 tplContext.put("serverPort", Integer.toString(req.getServerPort()));
-                                tplContext.put("I18n", I18n.getInstance());
+                                tplContext.put("I18n", I18nTemplateModel.getInstance());
                                 tplContext.put("encoding", encoding);
                                 tplContext.put("extension", SystemGlobals.getValue(ConfigKeys.SERVLET_EXTENSION));
                                 tplContext.put("JForumContext", forumContext);
@@ -63,11 +63,21 @@ import net.jforum.entities.Banlist;
 import net.jforum.exceptions.ExceptionWriter;
 import net.jforum.exceptions.ForumStartupException;
 import net.jforum.repository.BanlistRepository;
+import net.jforum.repository.BoardStatsRepository;
+import net.jforum.repository.CounterRepair;
+import net.jforum.repository.FragmentRepository;
+import net.jforum.repository.HottestTopics;
 import net.jforum.repository.ModulesRepository;
+import net.jforum.repository.PostTextCompressor;
 import net.jforum.repository.RankingRepository;
+import net.jforum.repository.ReadStatusAggregator;
 import net.jforum.repository.SecurityRepository;
 import net.jforum.repository.SmiliesRepository;
+import net.jforum.repository.TopicArchiver;
+import net.jforum.repository.UnreadTopicsIndex;
+import net.jforum.repository.ViewCountAggregator;
 import net.jforum.util.I18n;
+import net.jforum.util.concurrent.Executor;
 import net.jforum.util.preferences.ConfigKeys;
 import net.jforum.util.preferences.SystemGlobals;
 import freemarker.template.SimpleHash;
@@ -108,6 +118,15 @@ public class JForum extends JForumBaseServlet
                                 RankingRepository.loadRanks();
                                 SmiliesRepository.loadSmilies();
                                 BanlistRepository.loadBanlist();
+                                BoardStatsRepository.start();
+                                FragmentRepository.start();
+                                UnreadTopicsIndex.load();
+                                HottestTopics.load();
+                                ViewCountAggregator.start();
+                                ReadStatusAggregator.start();
+                                TopicArchiver.start();
+                                PostTextCompressor.start();
+                                CounterRepair.start();
                         }
                         catch (Throwable e) {
                                 JForumExecutionContext.enableRollback();
@@ -151,6 +170,9 @@ e.printStackTrace();
 
                 JForumExecutionContext.set(ex);
 
+                                // Choose the database before anything opens the connection
+                                JForumExecutionContext.setReadOnly(this.isReadOnlyRequest(req, request));
+
                                 // Setup stuff
                                 SimpleHash tplContext = JForumExecutionContext.getTemplateContext();
 
@@ -198,6 +220,10 @@ e.printStackTrace();
                                                 tplContext.put("response", response);
 
                                                 out = this.processCommand(out, request, response, encoding, tplContext, moduleClass);
+
+                                                if ("POST".equals(req.getMethod())) {
+                                                        this.pinToPrimary();
+                                                }
                                         }
                                 }
                         }
@@ -242,6 +268,37 @@ e.printStackTrace();
 		return out;
 	}
 
+	/**
+	 * Checks if the request may be served by a read replica: it must be a GET to
+	 * an action declared as read only, from a user that did not post in the last
+	 * few seconds.
+	 */
+	private boolean isReadOnlyRequest(HttpServletRequest req, RequestContext request)
+	{
+		if (!"GET".equals(req.getMethod())
+				|| !ModulesRepository.isReadOnly(request.getModule(), request.getAction())) {
+			return false;
+		}
+
+		Long pinnedUntil = (Long)SessionFacade.getAttribute(ConfigKeys.DATABASE_REPLICA_PINNED_UNTIL);
+
+		return pinnedUntil == null || pinnedUntil.longValue() < System.currentTimeMillis();
+	}
+
+	/**
+	 * Makes the next requests of the user read from the primary database
+	 * for a while, so the changes just made are visible, even if the replicas
+	 * are behind.
+	 */
+	private void pinToPrimary()
+	{
+		if (DBConnection.getImplementation().hasReadReplicas()) {
+			long seconds = SystemGlobals.getIntValue(ConfigKeys.DATABASE_REPLICA_PIN_SECONDS);
+			SessionFacade.setAttribute(ConfigKeys.DATABASE_REPLICA_PINNED_UNTIL,
+				new Long(System.currentTimeMillis() + seconds * 1000));
+		}
+	}
+
 	private void checkDatabaseStatus()
 	{
 		if (!isDatabaseUp) {
@@ -311,6 +368,8 @@ e.printStackTrace();
 		System.out.println("Destroying JForum...");
 		
 		try {
+			// Let the queued background tasks finish while the database is still available
+			Executor.shutdown();
 			DBConnection.getImplementation().realReleaseAllConnections();
 			ConfigLoader.stopCacheEngine();
 		}
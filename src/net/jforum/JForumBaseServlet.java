@@ -44,6 +44,9 @@ package net.jforum;
 
 import java.io.File;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.TreeSet;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
@@ -53,6 +56,7 @@ import net.jforum.exceptions.ForumStartupException;
 import net.jforum.repository.BBCodeRepository;
 import net.jforum.repository.ModulesRepository;
 import net.jforum.repository.Tpl;
+import net.jforum.util.FragmentTransform;
 import net.jforum.util.I18n;
 import net.jforum.util.bbcode.BBCodeHandler;
 import net.jforum.util.preferences.ConfigKeys;
@@ -117,6 +121,7 @@ public class JForumBaseServlet extends HttpServlet
 			templateCfg.setTemplateUpdateDelay(2);
 			templateCfg.setSetting("number_format", "#");
 			templateCfg.setSharedVariable("startupTime", new Long(new Date().getTime()));
+			templateCfg.setSharedVariable("fragment", new FragmentTransform());
 
 			// Create the default template loader
 			String defaultPath = SystemGlobals.getApplicationPath() + "/templates";
@@ -145,12 +150,48 @@ public class JForumBaseServlet extends HttpServlet
 			}
 
 			JForumExecutionContext.setTemplateConfig(templateCfg);
+
+			if (SystemGlobals.getBoolValue(ConfigKeys.TEMPLATE_PRECOMPILE)) {
+				this.precompileTemplates(templateCfg);
+			}
 		}
 		catch (Exception e) {
 			throw new ForumStartupException("Error while starting JForum", e);
 		}
 	}
 
+	/**
+	 * Parses all mapped templates, and the ones they include, so the
+	 * first requests after a restart don't have to.
+	 * 
+	 * @param templateCfg the template configuration
+	 */
+	private void precompileTemplates(Configuration templateCfg)
+	{
+		String templateDir = SystemGlobals.getValue(ConfigKeys.TEMPLATE_DIR);
+
+		Set names = new TreeSet(Tpl.names());
+		names.add("header.htm");
+		names.add("bottom.htm");
+
+		long start = System.currentTimeMillis();
+		int total = 0;
+
+		for (Iterator iter = names.iterator(); iter.hasNext(); ) {
+			String name = templateDir + "/" + iter.next();
+
+			try {
+				templateCfg.getTemplate(name);
+				total++;
+			}
+			catch (Exception e) {
+				logger.warn("Could not precompile the template " + name + ": " + e);
+			}
+		}
+
+		logger.info(total + " templates precompiled in " + (System.currentTimeMillis() - start) + " ms");
+	}
+
 	protected void loadConfigStuff()
 	{
 		ConfigLoader.loadUrlPatterns();
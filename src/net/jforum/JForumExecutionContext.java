@@ -44,6 +44,8 @@ package net.jforum;
 
 import java.io.IOException;
 import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.servlet.http.HttpServletResponse;
 
@@ -51,6 +53,8 @@ import net.jforum.context.RequestContext;
 import net.jforum.context.ResponseContext;
 import net.jforum.context.ForumContext;
 import net.jforum.exceptions.ForumException;
+import net.jforum.util.concurrent.Executor;
+import net.jforum.util.concurrent.PostCommitTask;
 import net.jforum.util.preferences.ConfigKeys;
 import net.jforum.util.preferences.SystemGlobals;
 
@@ -79,6 +83,10 @@ public class JForumExecutionContext
     private String contentType;
     private boolean isCustomContent;
     private boolean enableRollback;
+    private boolean readOnly;
+    private boolean usePrimary;
+    private boolean onReplica;
+    private List afterCommit;
 	
 	/**
 	 * Gets the execution context.
@@ -117,8 +125,15 @@ public class JForumExecutionContext
                 return templateConfig;
         }
 
+        /**
+         * Starts a fresh execution context for the current thread. The returned
+         * handle calls {@link #finish()} when closed, so callers are expected to
+         * use it in a try-with-resources block.
+         * @return the handle for the new execution context
+         */
         public static ExecutionContext start()
         {
+                userData.remove();
                 return new ExecutionContext();
         }
 	
@@ -154,22 +169,41 @@ public class JForumExecutionContext
                 JForumExecutionContext ex = get();
                 Connection c =  ex.conn;
 		
+		// A read only execution that must now use the primary database gives
+		// back its replica connection first, so it never holds two connections.
+		// It then stays on the primary until it finishes
+		if (validate && c != null && ex.onReplica && ex.usePrimary) {
+			release(c, false);
+			c = null;
+		}
+		
 		if (validate && c == null) {
-			c = DBConnection.getImplementation().getConnection();
-			
-			try {
-				c.setAutoCommit(!SystemGlobals.getBoolValue(ConfigKeys.DATABASE_USE_TRANSACTIONS));
-			}
-			catch (Exception e) {
-                //catch error autocommit
-            }
+			boolean readOnly = ex.readOnly && !ex.usePrimary;
+			c = openConnection(readOnly);
 			
+			ex.onReplica = readOnly && DBConnection.getImplementation().hasReadReplicas();
 			ex.setConnection(c);
 			set(ex);
 		}
 	    
 		return c; 
 	}
+	
+	private static Connection openConnection(boolean readOnly)
+	{
+		Connection c = StatementCachingConnection.wrap(readOnly
+			? DBConnection.getImplementation().getReadOnlyConnection()
+			: DBConnection.getImplementation().getConnection());
+		
+		try {
+			c.setAutoCommit(!SystemGlobals.getBoolValue(ConfigKeys.DATABASE_USE_TRANSACTIONS));
+		}
+		catch (Exception e) {
+			//catch error autocommit
+		}
+		
+		return c;
+	}
 
     public static ForumContext getForumContext()
     {
@@ -257,6 +291,55 @@ public class JForumExecutionContext
                 return get().isCustomContent;
 	}
 
+	/**
+	 * Tells that the current execution will only read from the database.
+	 * It must be called before the first call to {@link #getConnection()},
+	 * as it only changes where the next connection comes from.
+	 * 
+	 * @param readOnly <code>true</code> to use a read only connection
+	 * @see DBConnection#getReadOnlyConnection()
+	 */
+	public static void setReadOnly(boolean readOnly)
+	{
+		get().readOnly = readOnly;
+	}
+	
+	public static boolean isReadOnly()
+	{
+		return get().readOnly;
+	}
+	
+	/**
+	 * Sends the next database calls of a read only execution to the primary 
+	 * database, instead of to a read replica. Used to load data that goes to 
+	 * the shared caches, which must not be older than what was written on the
+	 * primary, and to write from a read only execution. It has no effect when 
+	 * the execution is not read only or when there are no replicas. 
+	 * If a replica connection is open, it is released, and the execution uses
+	 * a primary connection from then on, even after the previous value is restored.
+	 * <pre>
+	 * boolean previous = JForumExecutionContext.usePrimary(true);
+	 * 
+	 * try {
+	 *     ...
+	 * }
+	 * finally {
+	 *     JForumExecutionContext.usePrimary(previous);
+	 * }
+	 * </pre>
+	 * 
+	 * @param usePrimary <code>true</code> to use the primary database
+	 * @return the previous value, to be restored when done
+	 */
+	public static boolean usePrimary(boolean usePrimary)
+	{
+		JForumExecutionContext ex = get();
+		boolean previous = ex.usePrimary;
+		ex.usePrimary = usePrimary;
+		
+		return previous;
+	}
+	
 	/**
 	 * Forces the request to not commit the connection.
 	 */
@@ -272,6 +355,40 @@ public class JForumExecutionContext
                 return get().enableRollback;
 	}
 
+	/**
+	 * Registers some work to run after the current transaction commits, like
+	 * search indexing or notifications. The work runs on the 
+	 * {@link Executor#POST_COMMIT} pool, in its own execution context, and is 
+	 * retried if it fails. It is discarded if the transaction is rolled back.
+	 * It must not use the request, the response or the user session.
+	 * 
+	 * @param task the work to run
+	 * @see PostCommitTask
+	 */
+	public static void afterCommit(Runnable task)
+	{
+		afterCommit(task, true);
+	}
+	
+	/**
+	 * Registers some work to run after the current transaction commits.
+	 * 
+	 * @param task the work to run
+	 * @param retry <code>false</code> if the work must not run again when it fails,
+	 * like sending emails, as some of them may have been sent already
+	 * @see #afterCommit(Runnable)
+	 */
+	public static void afterCommit(Runnable task, boolean retry)
+	{
+		JForumExecutionContext ex = get();
+		
+		if (ex.afterCommit == null) {
+			ex.afterCommit = new ArrayList();
+		}
+		
+		ex.afterCommit.add(new PostCommitTask(task, retry));
+	}
+
     /**
      * Send UNAUTHORIZED to the browser and ask user to login via basic authentication
      */
@@ -294,36 +411,79 @@ public class JForumExecutionContext
 	 */
 	public static void finish()
 	{
-		Connection conn = JForumExecutionContext.getConnection(false);
+		JForumExecutionContext ex = get();
+		boolean committed = !ex.enableRollback;
 		
-		if (conn != null) {
-			if (SystemGlobals.getBoolValue(ConfigKeys.DATABASE_USE_TRANSACTIONS)) {
-				if (JForumExecutionContext.shouldRollback()) {
-					try {
-						conn.rollback();
-					}
-					catch (Exception e) {
-						logger.error("Error while rolling back a transaction", e);
-					}
-				}
-				else {
-					try {
-						conn.commit();
-					}
-					catch (Exception e) {
-						logger.error("Error while commiting a transaction", e);
-					}
+		if (!release(ex.conn, ex.enableRollback)) {
+			committed = false;
+		}
+		
+		List tasks = ex.afterCommit;
+                userData.remove();
+		
+		if (tasks != null) {
+			if (committed) {
+				for (int i = 0; i < tasks.size(); i++) {
+					Executor.execute(Executor.POST_COMMIT, (PostCommitTask)tasks.get(i));
 				}
 			}
-			
-			try {
-				DBConnection.getImplementation().releaseConnection(conn);
+			else if (logger.isDebugEnabled()) {
+				logger.debug("Discarding " + tasks.size() + " tasks of a transaction not commited");
 			}
-			catch (Exception e) {
-				logger.error("Error while releasing the connection : " + e, e);
+		}
+        }
+
+	private static boolean release(Connection conn, boolean rollback)
+	{
+		if (conn == null) {
+			return true;
+		}
+		
+		boolean committed = true;
+		
+		if (SystemGlobals.getBoolValue(ConfigKeys.DATABASE_USE_TRANSACTIONS)) {
+			if (rollback) {
+				try {
+					conn.rollback();
+				}
+				catch (Exception e) {
+					logger.error("Error while rolling back a transaction", e);
+				}
+			}
+			else {
+				try {
+					conn.commit();
+				}
+				catch (Exception e) {
+					committed = false;
+					logger.error("Error while commiting a transaction", e);
+				}
 			}
 		}
 		
-                userData.remove();
+		try {
+			DBConnection.getImplementation().releaseConnection(StatementCachingConnection.unwrap(conn));
+		}
+		catch (Exception e) {
+			logger.error("Error while releasing the connection : " + e, e);
+		}
+		
+		return committed;
+	}
+
+        /**
+         * Scope of an execution context, as returned by {@link JForumExecutionContext#start()}
+         */
+        public static final class ExecutionContext implements AutoCloseable
+        {
+                private ExecutionContext() {}
+
+                /**
+                 * @see java.lang.AutoCloseable#close()
+                 */
+                public void close()
+                {
+                        finish();
+                }
         }
 }
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 14:02:18
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * Sends reads to a set of read replicas, and everything else to the primary database.
+ * <p>
+ * The primary is handled by another <code>DBConnection</code> implementation, set by the key
+ * <code>database.replica.primary.implementation</code>. Each JDBC URL in
+ * <code>database.replica.urls</code> gets its own {@link C3P0PooledConnection} pool,
+ * using the same driver and pool settings as the primary. Read only connections are taken from the replicas in turns, and
+ * are marked with {@link Connection#setReadOnly(boolean)}. If no replica can give a
+ * connection, the primary is used.
+ * </p>
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ * @see JForumExecutionContext#setReadOnly(boolean)
+ */
+public class ReplicaRoutingConnection extends DBConnection
+{
+	private static final Logger logger = Logger.getLogger(ReplicaRoutingConnection.class);
+
+	private DBConnection primary;
+	private List replicas = new ArrayList();
+	private AtomicInteger next = new AtomicInteger();
+	private ConcurrentHashMap replicaConnections = new ConcurrentHashMap();
+
+	/**
+	 * @see net.jforum.DBConnection#init()
+	 */
+	public void init() throws Exception
+	{
+		this.primary = (DBConnection)Class.forName(SystemGlobals.getValue(
+			ConfigKeys.DATABASE_REPLICA_PRIMARY_IMPLEMENTATION)).newInstance();
+		this.primary.init();
+
+		String urls = SystemGlobals.getValue(ConfigKeys.DATABASE_REPLICA_URLS);
+
+		if (StringUtils.isBlank(urls)) {
+			logger.warn("No read replicas configured. All queries will go to the primary database");
+			return;
+		}
+
+		String[] p = urls.trim().split("\\s+");
+
+		for (int i = 0; i < p.length; i++) {
+			C3P0PooledConnection replica = new C3P0PooledConnection();
+			replica.init(p[i]);
+
+			this.replicas.add(replica);
+		}
+
+		logger.info(this.replicas.size() + " read replicas configured");
+	}
+
+	/**
+	 * @see net.jforum.DBConnection#getConnection()
+	 */
+	public Connection getConnection()
+	{
+		return this.primary.getConnection();
+	}
+
+	/**
+	 * @see net.jforum.DBConnection#getReadOnlyConnection()
+	 */
+	public Connection getReadOnlyConnection()
+	{
+		int size = this.replicas.size();
+		int start = size > 0 ? (this.next.getAndIncrement() & Integer.MAX_VALUE) : 0;
+
+		for (int i = 0; i < size; i++) {
+			int index = (start + i) % size;
+			DBConnection replica = (DBConnection)this.replicas.get(index);
+			Connection conn = null;
+
+			try {
+				conn = replica.getConnection();
+				conn.setReadOnly(true);
+
+				this.replicaConnections.put(conn, replica);
+
+				return conn;
+			}
+			catch (Exception e) {
+				logger.warn("Could not get a connection from the replica #" + index + ": " + e);
+
+				if (conn != null) {
+					replica.releaseConnection(conn);
+				}
+			}
+		}
+
+		return this.primary.getConnection();
+	}
+
+	/**
+	 * @see net.jforum.DBConnection#hasReadReplicas()
+	 */
+	public boolean hasReadReplicas()
+	{
+		return this.replicas.size() > 0;
+	}
+
+	/**
+	 * @see net.jforum.DBConnection#releaseConnection(java.sql.Connection)
+	 */
+	public void releaseConnection(Connection conn)
+	{
+		if (conn == null) {
+			return;
+		}
+
+		DBConnection replica = (DBConnection)this.replicaConnections.remove(conn);
+
+		if (replica != null) {
+			replica.releaseConnection(conn);
+		}
+		else {
+			this.primary.releaseConnection(conn);
+		}
+	}
+
+	/**
+	 * @see net.jforum.DBConnection#realReleaseAllConnections()
+	 */
+	public void realReleaseAllConnections() throws Exception
+	{
+		for (Iterator iter = this.replicas.iterator(); iter.hasNext(); ) {
+			((DBConnection)iter.next()).realReleaseAllConnections();
+		}
+
+		this.replicas.clear();
+		this.replicaConnections.clear();
+
+		if (this.primary != null) {
+			this.primary.realReleaseAllConnections();
+		}
+	}
+}
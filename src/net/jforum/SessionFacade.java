@@ -48,6 +48,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 import net.jforum.cache.CacheEngine;
 import net.jforum.cache.Cacheable;
@@ -74,6 +75,9 @@ public class SessionFacade implements Cacheable
 	private static final String ANONYMOUS_COUNT = "anonymousCount";
 	private static final String LOGGED_COUNT = "loggedCount";
 	
+	// A lock instead of a monitor, so threads waiting on it do not pin the carrier of a virtual thread
+	private static final ReentrantLock LOCK = new ReentrantLock();
+	
 	private static CacheEngine cache;
 
 	/**
@@ -120,7 +124,9 @@ public class SessionFacade implements Cacheable
 			us.setSessionId(sessionId);
 		}
 		
-		synchronized (FQN) {
+		LOCK.lock();
+		
+		try {
 			cache.add(FQN, us.getSessionId(), us);
 			
 			if (!JForumExecutionContext.getForumContext().isBot()) {
@@ -135,6 +141,9 @@ public class SessionFacade implements Cacheable
 				}
 			}
 		}
+		finally {
+			LOCK.unlock();
+		}
 	}
 	
 	private static void changeUserCount(String cacheEntryName, boolean increment)
@@ -201,7 +210,9 @@ public class SessionFacade implements Cacheable
 		
 		logger.debug("Removing session " + sessionId);
 		
-		synchronized (FQN) {
+		LOCK.lock();
+		
+		try {
 			UserSession us = getUserSession(sessionId);
 			
 			if (us != null) {
@@ -218,6 +229,9 @@ public class SessionFacade implements Cacheable
 			
 			cache.remove(FQN, sessionId);
 		}
+		finally {
+			LOCK.unlock();
+		}
 	}
 	
 	/**
@@ -228,9 +242,14 @@ public class SessionFacade implements Cacheable
 	 */
 	public static List getAllSessions()
 	{
-		synchronized (FQN) {
+		LOCK.lock();
+		
+		try {
 			return new ArrayList(cache.getValues(FQN));
 		}
+		finally {
+			LOCK.unlock();
+		}
 	}
 	
 	/**
@@ -239,9 +258,14 @@ public class SessionFacade implements Cacheable
 	 */
 	public static List getLoggedSessions()
 	{
-		synchronized (FQN) {
+		LOCK.lock();
+		
+		try {
 			return new ArrayList(cache.getValues(FQN_LOGGED));
 		}
+		finally {
+			LOCK.unlock();
+		}
 	}
 	
 	/**
@@ -268,13 +292,18 @@ public class SessionFacade implements Cacheable
 	
 	public static void clear()
 	{
-		synchronized (FQN) {
+		LOCK.lock();
+		
+		try {
 			cache.add(FQN, new HashMap());
 			cache.add(FQN_COUNT, LOGGED_COUNT, new Integer(0));
 			cache.add(FQN_COUNT, ANONYMOUS_COUNT, new Integer(0));
 			cache.remove(FQN_LOGGED);
 			cache.remove(FQN_USER_ID);
 		}
+		finally {
+			LOCK.unlock();
+		}
 	}
 	
 	/**
@@ -325,7 +354,9 @@ public class SessionFacade implements Cacheable
 	{
 		int aid = SystemGlobals.getIntValue(ConfigKeys.ANONYMOUS_USER_ID);
 		
-		synchronized (FQN) {
+		LOCK.lock();
+		
+		try {
 			for (Iterator iter = cache.getValues(FQN).iterator(); iter.hasNext(); ) {
 				UserSession us = (UserSession)iter.next();
 				String thisUsername = us.getUsername();
@@ -339,6 +370,9 @@ public class SessionFacade implements Cacheable
 				}
 			}
 		}
+		finally {
+			LOCK.unlock();
+		}
 		
 		return null;
 	}
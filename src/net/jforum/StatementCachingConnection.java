@@ -0,0 +1,809 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 16:31:12
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Keeps the prepared statements of a connection, so each query is prepared
+ * only once while the connection is in use, and measures each execution.
+ * <p>
+ * {@link JForumExecutionContext} wraps the connections given by {@link DBConnection}
+ * with {@link #wrap(Connection)}, no matter the implementation. Statements are cached by
+ * the name of the query, as found by {@link SystemGlobals#getSqlName(String)}. SQL that is
+ * not one of the loaded queries, like statements built at runtime, is prepared as usual.
+ * Queries whose placeholders, like <code>:ids:</code>, were replaced give a different SQL
+ * each time, so they are measured under the name found by
+ * {@link SystemGlobals#getSqlTemplateName(String)}, but never cached.
+ * Closing a statement puts it back in the cache. If the same query is prepared again
+ * while the cached statement is still open, a new one is prepared, and it is really
+ * closed after use. Up to <code>database.statement.cache.size</code> statements are
+ * kept by each connection, and all of them are closed by {@link #unwrap(Connection)},
+ * before the connection is released.
+ * </p>
+ * <p>
+ * The cache lives as long as the connection is held by the execution context. To reuse
+ * statements across requests, enable the statement cache of the pool, as C3P0's
+ * <code>maxStatementsPerConnection</code>. Statements closed here are then kept by the pool.
+ * {@link #invalidate()} drops every cached statement, and is called when the
+ * queries files are reloaded.
+ * </p>
+ * <p>
+ * When <code>database.query.profiling.enabled</code> is set, the time taken by each
+ * execution and the rows read or changed are added to the {@link QueryStatistics} of
+ * the query. Statements from <code>createStatement()</code> are measured as well, when the
+ * SQL given to them is one of the loaded queries. Executions slower than <code>database.slow.query.threshold</code>
+ * milliseconds are logged with the query name and its SQL. Bind values are never logged.
+ * </p>
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class StatementCachingConnection implements InvocationHandler
+{
+	private static final Logger logger = Logger.getLogger(StatementCachingConnection.class);
+
+	private static final ConcurrentHashMap statistics = new ConcurrentHashMap();
+	private static final AtomicLong generation = new AtomicLong();
+
+	private final Connection conn;
+	private final Map cache;
+	private Connection proxy;
+	private long cacheGeneration = generation.get();
+
+	private StatementCachingConnection(Connection conn, final int size)
+	{
+		this.conn = conn;
+		this.cache = new LinkedHashMap(16, 0.75f, true) {
+			protected boolean removeEldestEntry(Map.Entry eldest)
+			{
+				if (this.size() > size) {
+					CachedStatement entry = (CachedStatement)eldest.getValue();
+
+					if (!entry.inUse) {
+						entry.close();
+					}
+
+					return true;
+				}
+
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Wraps a connection, so its prepared statements are cached.
+	 * @param conn the connection
+	 * @return the wrapped connection, or <code>conn</code> itself if
+	 * <code>database.statement.cache.size</code> is zero and profiling is disabled
+	 */
+	public static Connection wrap(Connection conn)
+	{
+		int size = SystemGlobals.getIntValue(ConfigKeys.DATABASE_STATEMENT_CACHE_SIZE);
+
+		if (conn == null || handlerOf(conn) != null
+			|| (size <= 0 && !SystemGlobals.getBoolValue(ConfigKeys.DATABASE_QUERY_PROFILING_ENABLED))) {
+			return conn;
+		}
+
+		StatementCachingConnection handler = new StatementCachingConnection(conn, size);
+		handler.proxy = (Connection)Proxy.newProxyInstance(Connection.class.getClassLoader(),
+			new Class[] { Connection.class }, handler);
+
+		return handler.proxy;
+	}
+
+	/**
+	 * Closes the cached statements of a connection returned by {@link #wrap(Connection)}.
+	 * @param conn the wrapped connection
+	 * @return the original connection, to be released. If <code>conn</code>
+	 * was not wrapped, it is returned as is
+	 */
+	public static Connection unwrap(Connection conn)
+	{
+		StatementCachingConnection handler = handlerOf(conn);
+
+		if (handler == null) {
+			return conn;
+		}
+
+		handler.closeStatements();
+
+		return handler.conn;
+	}
+
+	/**
+	 * Drops the statements cached by all connections. Each connection closes
+	 * its statements the next time it prepares one.
+	 */
+	public static void invalidate()
+	{
+		generation.incrementAndGet();
+	}
+
+	/**
+	 * Gets how many times each query was prepared and executed, and how long it took
+	 * @return a list of {@link QueryStatistics}, the ones with the highest total time first
+	 */
+	public static List getStatistics()
+	{
+		List l = new ArrayList(statistics.values());
+
+		Collections.sort(l, new Comparator() {
+			public int compare(Object o1, Object o2)
+			{
+				QueryStatistics s1 = (QueryStatistics)o1;
+				QueryStatistics s2 = (QueryStatistics)o2;
+
+				if (s1.totalTime.get() != s2.totalTime.get()) {
+					return s1.totalTime.get() > s2.totalTime.get() ? -1 : 1;
+				}
+
+				return s1.getName().compareTo(s2.getName());
+			}
+		});
+
+		return l;
+	}
+
+	/**
+	 * Discards the statistics of all queries
+	 */
+	public static void resetStatistics()
+	{
+		statistics.clear();
+	}
+
+	private static StatementCachingConnection handlerOf(Connection conn)
+	{
+		if (conn != null && Proxy.isProxyClass(conn.getClass())) {
+			InvocationHandler handler = Proxy.getInvocationHandler(conn);
+
+			if (handler instanceof StatementCachingConnection) {
+				return (StatementCachingConnection)handler;
+			}
+		}
+
+		return null;
+	}
+
+	private static QueryStatistics statisticsFor(String queryName)
+	{
+		QueryStatistics s = (QueryStatistics)statistics.get(queryName);
+
+		if (s == null) {
+			s = new QueryStatistics(queryName);
+			QueryStatistics previous = (QueryStatistics)statistics.putIfAbsent(queryName, s);
+
+			if (previous != null) {
+				s = previous;
+			}
+		}
+
+		return s;
+	}
+
+	/**
+	 * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+	 */
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+	{
+		String name = method.getName();
+		Class[] types = method.getParameterTypes();
+
+		if ("prepareStatement".equals(name) && (types.length == 1 || (types.length == 2 && types[1] == int.class))) {
+			String sql = (String)args[0];
+			int autoGeneratedKeys = types.length == 2 ? ((Integer)args[1]).intValue() : Statement.NO_GENERATED_KEYS;
+			String queryName = SystemGlobals.getSqlName(sql);
+
+			if (queryName != null) {
+				return this.prepare(queryName, sql, autoGeneratedKeys);
+			}
+
+			// Queries with placeholders, like :ids:, give a different SQL each time
+			queryName = SystemGlobals.getSqlTemplateName(sql);
+
+			if (queryName != null) {
+				return this.prepareUncached(queryName, sql, autoGeneratedKeys);
+			}
+		}
+		else if ("createStatement".equals(name)) {
+			try {
+				return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class[] { Statement.class },
+					new PlainStatementHandle((Statement)method.invoke(this.conn, args)));
+			}
+			catch (InvocationTargetException e) {
+				throw e.getTargetException();
+			}
+		}
+		else if ("close".equals(name)) {
+			this.closeStatements();
+		}
+		else if ("equals".equals(name)) {
+			return Boolean.valueOf(proxy == args[0]);
+		}
+		else if ("hashCode".equals(name)) {
+			return new Integer(System.identityHashCode(proxy));
+		}
+
+		try {
+			return method.invoke(this.conn, args);
+		}
+		catch (InvocationTargetException e) {
+			throw e.getTargetException();
+		}
+	}
+
+	private synchronized PreparedStatement prepare(String queryName, String sql, int autoGeneratedKeys) throws SQLException
+	{
+		if (this.cacheGeneration != generation.get()) {
+			this.closeStatements();
+			this.cacheGeneration = generation.get();
+		}
+
+		QueryStatistics stats = statisticsFor(queryName);
+		String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS
+			? queryName + "#keys"
+			: queryName;
+
+		CachedStatement entry = (CachedStatement)this.cache.get(key);
+
+		if (entry != null && !entry.inUse && entry.sql.equals(sql)) {
+			entry.inUse = true;
+			stats.reused.incrementAndGet();
+
+			return entry.newHandle();
+		}
+
+		PreparedStatement p = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS
+			? this.conn.prepareStatement(sql, autoGeneratedKeys)
+			: this.conn.prepareStatement(sql);
+
+		stats.prepared.incrementAndGet();
+
+		CachedStatement prepared = new CachedStatement(key, sql, p, stats);
+		prepared.inUse = true;
+
+		if (entry == null || !entry.inUse) {
+			if (entry != null) {
+				entry.close();
+			}
+
+			this.cache.put(key, prepared);
+		}
+
+		return prepared.newHandle();
+	}
+
+	private PreparedStatement prepareUncached(String queryName, String sql, int autoGeneratedKeys) throws SQLException
+	{
+		QueryStatistics stats = statisticsFor(queryName);
+
+		PreparedStatement p = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS
+			? this.conn.prepareStatement(sql, autoGeneratedKeys)
+			: this.conn.prepareStatement(sql);
+
+		stats.prepared.incrementAndGet();
+
+		// Never put in the cache, so release() closes it
+		CachedStatement entry = new CachedStatement(queryName, sql, p, stats);
+		entry.inUse = true;
+
+		return entry.newHandle();
+	}
+
+	private static String queryNameOf(String sql)
+	{
+		String queryName = SystemGlobals.getSqlName(sql);
+		return queryName != null ? queryName : SystemGlobals.getSqlTemplateName(sql);
+	}
+
+	private static Object execute(Object statement, Method method, Object[] args, QueryStatistics stats,
+		String sql, int parameters) throws Throwable
+	{
+		stats.executed.incrementAndGet();
+
+		if (!SystemGlobals.getBoolValue(ConfigKeys.DATABASE_QUERY_PROFILING_ENABLED)) {
+			try {
+				return method.invoke(statement, args);
+			}
+			catch (InvocationTargetException e) {
+				throw e.getTargetException();
+			}
+		}
+
+		long start = System.nanoTime();
+		long rows = 0;
+		Object result = null;
+
+		try {
+			result = method.invoke(statement, args);
+		}
+		catch (InvocationTargetException e) {
+			throw e.getTargetException();
+		}
+		finally {
+			if (result instanceof Integer) {
+				rows = Math.max(0, ((Integer)result).intValue());
+			}
+			else if (result instanceof int[]) {
+				int[] counts = (int[])result;
+
+				for (int i = 0; i < counts.length; i++) {
+					rows += Math.max(0, counts[i]);
+				}
+			}
+
+			long elapsed = System.nanoTime() - start;
+			stats.add(elapsed, rows);
+			logIfSlow(stats, sql, parameters, elapsed, rows, result);
+		}
+
+		if (result instanceof ResultSet) {
+			result = Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+				new Class[] { ResultSet.class }, new RowCounter((ResultSet)result, stats));
+		}
+
+		return result;
+	}
+
+	private static void logIfSlow(QueryStatistics stats, String sql, int parameters, long elapsed, long rows,
+		Object result)
+	{
+		long threshold = SystemGlobals.getIntValue(ConfigKeys.DATABASE_SLOW_QUERY_THRESHOLD);
+		long millis = elapsed / 1000000;
+
+		if (threshold > 0 && millis >= threshold) {
+			logger.warn("Slow query " + stats.getName() + ": " + millis + " ms"
+				+ (result instanceof ResultSet ? "" : ", " + rows + " rows")
+				+ ", " + parameters + " bind values hidden. SQL: " + sql);
+		}
+	}
+
+	private synchronized void release(CachedStatement entry)
+	{
+		boolean cached = this.cache.get(entry.key) == entry;
+
+		if (cached && !entry.dirty && this.cacheGeneration == generation.get()) {
+			try {
+				entry.statement.clearParameters();
+
+				if (entry.batched) {
+					entry.statement.clearBatch();
+					entry.batched = false;
+				}
+
+				entry.inUse = false;
+				return;
+			}
+			catch (SQLException e) {
+				logger.debug("Could not reset a cached statement: " + e);
+			}
+		}
+
+		if (cached) {
+			this.cache.remove(entry.key);
+		}
+
+		entry.close();
+	}
+
+	private synchronized void closeStatements()
+	{
+		for (Iterator iter = this.cache.values().iterator(); iter.hasNext(); ) {
+			CachedStatement entry = (CachedStatement)iter.next();
+
+			if (!entry.inUse) {
+				entry.close();
+			}
+		}
+
+		// Statements still in use are closed by release()
+		this.cache.clear();
+	}
+
+	private class CachedStatement
+	{
+		final String key;
+		final String sql;
+		final PreparedStatement statement;
+		final QueryStatistics stats;
+		boolean inUse;
+		boolean dirty;
+		boolean batched;
+
+		CachedStatement(String key, String sql, PreparedStatement statement, QueryStatistics stats)
+		{
+			this.key = key;
+			this.sql = sql;
+			this.statement = statement;
+			this.stats = stats;
+		}
+
+		PreparedStatement newHandle()
+		{
+			return (PreparedStatement)Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+				new Class[] { PreparedStatement.class }, new StatementHandle(this));
+		}
+
+		void close()
+		{
+			try {
+				this.statement.close();
+			}
+			catch (SQLException e) {
+				logger.debug("Error while closing a cached statement: " + e);
+			}
+		}
+	}
+
+	/**
+	 * What the DAOs get from <code>prepareStatement()</code>. Each call returns a new handle,
+	 * so closing the same handle twice does not give back a statement used by someone else.
+	 */
+	private class StatementHandle implements InvocationHandler
+	{
+		private final CachedStatement entry;
+		private boolean closed;
+		private int parameters;
+
+		StatementHandle(CachedStatement entry)
+		{
+			this.entry = entry;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+		{
+			String name = method.getName();
+
+			if ("close".equals(name)) {
+				if (!this.closed) {
+					this.closed = true;
+					release(this.entry);
+				}
+
+				return null;
+			}
+
+			if ("isClosed".equals(name)) {
+				return Boolean.valueOf(this.closed);
+			}
+
+			if ("equals".equals(name)) {
+				return Boolean.valueOf(proxy == args[0]);
+			}
+
+			if ("hashCode".equals(name)) {
+				return new Integer(System.identityHashCode(proxy));
+			}
+
+			if (this.closed) {
+				throw new SQLException("Statement is closed");
+			}
+
+			if ("getConnection".equals(name)) {
+				return StatementCachingConnection.this.proxy;
+			}
+
+			if (name.startsWith("execute")) {
+				return StatementCachingConnection.execute(this.entry.statement, method, args, this.entry.stats,
+					this.entry.sql, this.parameters);
+			}
+
+			if ("addBatch".equals(name)) {
+				this.entry.batched = true;
+			}
+			else if (name.startsWith("set")) {
+				if (args == null || args.length < 2) {
+					// setMaxRows(), setFetchSize() and the like change the statement
+					// itself, so it is not given to the next caller
+					this.entry.dirty = true;
+				}
+				else if (args[0] instanceof Integer) {
+					this.parameters = Math.max(this.parameters, ((Integer)args[0]).intValue());
+				}
+			}
+
+			try {
+				return method.invoke(this.entry.statement, args);
+			}
+			catch (InvocationTargetException e) {
+				throw e.getTargetException();
+			}
+		}
+	}
+
+	/**
+	 * What the DAOs get from <code>createStatement()</code>. The SQL given to each
+	 * execution is measured if it is one of the loaded queries.
+	 */
+	private class PlainStatementHandle implements InvocationHandler
+	{
+		private final Statement statement;
+		private String batchSql;
+
+		PlainStatementHandle(Statement statement)
+		{
+			this.statement = statement;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+		{
+			String name = method.getName();
+
+			if ("equals".equals(name)) {
+				return Boolean.valueOf(proxy == args[0]);
+			}
+
+			if ("hashCode".equals(name)) {
+				return new Integer(System.identityHashCode(proxy));
+			}
+
+			if ("getConnection".equals(name)) {
+				return StatementCachingConnection.this.proxy;
+			}
+
+			String sql = null;
+
+			if ("addBatch".equals(name)) {
+				this.batchSql = (String)args[0];
+			}
+			else if ("clearBatch".equals(name)) {
+				this.batchSql = null;
+			}
+			else if ("executeBatch".equals(name)) {
+				sql = this.batchSql;
+				this.batchSql = null;
+			}
+			else if (name.startsWith("execute") && args != null && args[0] instanceof String) {
+				sql = (String)args[0];
+			}
+
+			String queryName = sql != null ? queryNameOf(sql) : null;
+
+			if (queryName != null) {
+				return StatementCachingConnection.execute(this.statement, method, args, statisticsFor(queryName),
+					sql, 0);
+			}
+
+			try {
+				return method.invoke(this.statement, args);
+			}
+			catch (InvocationTargetException e) {
+				throw e.getTargetException();
+			}
+		}
+	}
+
+	/**
+	 * Counts the rows read from the result of a query
+	 */
+	private static class RowCounter implements InvocationHandler
+	{
+		private final ResultSet rs;
+		private final QueryStatistics stats;
+
+		RowCounter(ResultSet rs, QueryStatistics stats)
+		{
+			this.rs = rs;
+			this.stats = stats;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+		{
+			if ("equals".equals(method.getName())) {
+				return Boolean.valueOf(proxy == args[0]);
+			}
+
+			if ("hashCode".equals(method.getName())) {
+				return new Integer(System.identityHashCode(proxy));
+			}
+
+			try {
+				Object result = method.invoke(this.rs, args);
+
+				if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+					this.stats.rows.incrementAndGet();
+				}
+
+				return result;
+			}
+			catch (InvocationTargetException e) {
+				throw e.getTargetException();
+			}
+		}
+	}
+
+	/**
+	 * The number of times a query was prepared, taken from the cache and executed,
+	 * how long the executions took and how many rows they read or changed
+	 */
+	public static class QueryStatistics
+	{
+		private static final long[] LIMITS = { 1, 5, 10, 50, 100, 500, 1000, 5000 };
+
+		private final String name;
+		final AtomicLong prepared = new AtomicLong();
+		final AtomicLong reused = new AtomicLong();
+		final AtomicLong executed = new AtomicLong();
+		final AtomicLong timed = new AtomicLong();
+		final AtomicLong totalTime = new AtomicLong();
+		final AtomicLong maxTime = new AtomicLong();
+		final AtomicLong rows = new AtomicLong();
+		final AtomicLongArray histogram = new AtomicLongArray(LIMITS.length + 1);
+
+		QueryStatistics(String name)
+		{
+			this.name = name;
+		}
+
+		void add(long nanos, long rows)
+		{
+			this.timed.incrementAndGet();
+			this.totalTime.addAndGet(nanos);
+			this.rows.addAndGet(rows);
+
+			long max = this.maxTime.get();
+
+			while (nanos > max && !this.maxTime.compareAndSet(max, nanos)) {
+				max = this.maxTime.get();
+			}
+
+			long millis = nanos / 1000000;
+			int bucket = 0;
+
+			while (bucket < LIMITS.length && millis >= LIMITS[bucket]) {
+				bucket++;
+			}
+
+			this.histogram.incrementAndGet(bucket);
+		}
+
+		/**
+		 * Gets the upper limits, in milliseconds, of the buckets of {@link #getHistogram()}.
+		 * The last bucket has no limit.
+		 * @return the limits
+		 */
+		public static List getHistogramLimits()
+		{
+			List l = new ArrayList(LIMITS.length);
+
+			for (int i = 0; i < LIMITS.length; i++) {
+				l.add(new Long(LIMITS[i]));
+			}
+
+			return l;
+		}
+
+		public String getName()
+		{
+			return this.name;
+		}
+
+		public long getPrepared()
+		{
+			return this.prepared.get();
+		}
+
+		public long getReused()
+		{
+			return this.reused.get();
+		}
+
+		public long getExecuted()
+		{
+			return this.executed.get();
+		}
+
+		/**
+		 * @return the rows read by queries, plus the rows changed by updates
+		 */
+		public long getRows()
+		{
+			return this.rows.get();
+		}
+
+		/**
+		 * @return the total execution time, in milliseconds
+		 */
+		public long getTotalTime()
+		{
+			return this.totalTime.get() / 1000000;
+		}
+
+		/**
+		 * @return the longest execution time, in milliseconds
+		 */
+		public double getMaxTime()
+		{
+			return this.maxTime.get() / 1000000d;
+		}
+
+		/**
+		 * @return the average execution time, in milliseconds
+		 */
+		public double getAverageTime()
+		{
+			long count = this.timed.get();
+			return count == 0 ? 0 : this.totalTime.get() / 1000000d / count;
+		}
+
+		/**
+		 * @return the number of executions in each bucket of {@link #getHistogramLimits()}
+		 */
+		public List getHistogram()
+		{
+			List l = new ArrayList(this.histogram.length());
+
+			for (int i = 0; i < this.histogram.length(); i++) {
+				l.add(new Long(this.histogram.get(i)));
+			}
+
+			return l;
+		}
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 20:05:31
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum.dao;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Moves the messages of old topics from <code>jforum_posts</code> and
+ * <code>jforum_posts_text</code> to the archive tables, and back.
+ * The topics themselves always stay in <code>jforum_topics</code>.
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public interface ArchiveDAO
+{
+	/**
+	 * Gets the topics whose last message is older than some date, and that
+	 * were not archived yet. Topics with messages waiting for moderation are skipped.
+	 *
+	 * @param before the date
+	 * @param count the maximum number of topics
+	 * @return the topic ids, as <code>Integer</code>s, the oldest first
+	 */
+	public List selectTopicsToArchive(Date before, int count);
+
+	/**
+	 * Moves the messages of a topic to the archive tables, if its last message
+	 * is still older than some date
+	 *
+	 * @param topicId the topic id
+	 * @param before the date
+	 * @return <code>true</code> if the topic was archived, or <code>false</code>
+	 * if it got new messages or somebody else archived it first
+	 */
+	public boolean archiveTopic(int topicId, Date before);
+
+	/**
+	 * Moves the messages of an archived topic back to the posts tables.
+	 * Does nothing if the topic is not archived.
+	 *
+	 * @param topicId the topic id
+	 * @return <code>true</code> if the topic was archived and had its messages restored
+	 */
+	public boolean restoreTopic(int topicId);
+
+	/**
+	 * Checks if the messages of a topic are in the archive tables
+	 *
+	 * @param topicId the topic id
+	 * @return <code>true</code> if the topic is archived
+	 */
+	public boolean isArchived(int topicId);
+}
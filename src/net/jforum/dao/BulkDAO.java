@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 22:04:12
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum.dao;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes whole tables, for the bulk export and import of a board,
+ * and recomputes the counters of topics, forums and users with set-based queries,
+ * after an import or when they drift.
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ * @see net.jforum.util.bulk.BulkExporter
+ * @see net.jforum.util.bulk.BulkImporter
+ * @see net.jforum.repository.CounterRepair
+ */
+public interface BulkDAO
+{
+	/**
+	 * Receives the rows read by {@link BulkDAO#export(String, BulkDAO.RowHandler)}
+	 */
+	public static interface RowHandler
+	{
+		/**
+		 * @param columns the column names, in lower case. The same array is given for every row
+		 * @param values the values of the row, in the same order
+		 */
+		public void handle(String[] columns, Object[] values);
+	}
+
+	/**
+	 * Streams the rows of a query through a forward-only cursor, so
+	 * the rows are not all held in memory.
+	 *
+	 * @param queryName the name of the query
+	 * @param handler receives each row
+	 * @return the number of rows read
+	 */
+	public int export(String queryName, RowHandler handler);
+
+	/**
+	 * Gets the columns of a table
+	 *
+	 * @param table the table name
+	 * @return a map from each column name, in lower case, to its <code>java.sql.Types</code> type
+	 */
+	public Map columnTypes(String table);
+
+	/**
+	 * Inserts rows in a table with JDBC batches
+	 *
+	 * @param table the table name
+	 * @param columns the columns to set
+	 * @param types the <code>java.sql.Types</code> type of each column
+	 * @param rows each row is an <code>Object[]</code> with the values of <code>columns</code>
+	 */
+	public void insert(String table, String[] columns, int[] types, List rows);
+
+	/**
+	 * Removes all rows of a table
+	 *
+	 * @param table the table name
+	 */
+	public void deleteAll(String table);
+
+	/**
+	 * Runs what the database needs after rows were inserted with their ids,
+	 * like moving sequences past the highest id.
+	 */
+	public void afterImport();
+
+	/**
+	 * @return the id of every forum, as <code>Integer</code>s
+	 */
+	public List selectForumIds();
+
+	/**
+	 * @return the highest user id
+	 */
+	public int maxUserId();
+
+	/**
+	 * @return the highest topic id
+	 */
+	public int maxTopicId();
+
+	/**
+	 * Recomputes the first and last message, the replies and the last message data of
+	 * the topics of a forum, and then the topic count and last message of the forum.
+	 * Archived topics keep their counters.
+	 *
+	 * @param forumId the forum id
+	 */
+	public void recountForum(int forumId);
+
+	/**
+	 * Recomputes the message count of some users
+	 *
+	 * @param fromUserId the first user id
+	 * @param toUserId the last user id
+	 */
+	public void recountUserPosts(int fromUserId, int toUserId);
+
+	/**
+	 * Recomputes the number of messages in the inbox and sent box of some users
+	 *
+	 * @param fromUserId the first user id
+	 * @param toUserId the last user id
+	 */
+	public void recountUserFolders(int fromUserId, int toUserId);
+}
@@ -249,4 +249,18 @@ public abstract class DataAccessDriver
 	public abstract ModerationLogDAO newModerationLogDAO();
 	
 	public abstract LuceneDAO newLuceneDAO();
+
+	/**
+	 * Gets an {@link net.jforum.dao.ArchiveDAO} instance.
+	 *
+	 * @return <code>net.jforum.dao.ArchiveDAO</code> instance.
+	 */
+	public abstract ArchiveDAO newArchiveDAO();
+
+	/**
+	 * Gets a {@link net.jforum.dao.BulkDAO} instance.
+	 *
+	 * @return <code>net.jforum.dao.BulkDAO</code> instance.
+	 */
+	public abstract BulkDAO newBulkDAO();
 }
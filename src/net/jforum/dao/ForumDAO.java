@@ -188,7 +188,8 @@ public interface ForumDAO
 	public int getMaxPostId(int forumId) ;
 	
 	/**
-	 * Move the topics to a new forum
+	 * Move the topics to a new forum. The rows of all topics are
+	 * changed with batched statements, and the counters once per forum.
 	 * 
 	 * @param topics The topics id array
 	 * @param fromForumId The original forum id
@@ -197,14 +198,23 @@ public interface ForumDAO
 	public void moveTopics(String[] topics, int fromForumId, int toForumId) ;
 	
 	/**
-	 * Check if the forum has unread topics.
+	 * Gets the topics whose last message is newer than some time.
 	 * 
-	 * @param forumId The forum's id to check
-	 * @param lastVisit The last visit time the user has seen the forum
+	 * @param since The time
 	 * @return An <code>java.util.List</code> instance, where each entry is a
-	 * <code>net.jforum.entities.Topic</code> instance. 
+	 * <code>net.jforum.entities.Topic</code> instance, with only the id, the forum id
+	 * and the date of the last post set.
 	 */
-	public List checkUnreadTopics(int forumId, long lastVisit) ;
+	public List selectLastPostTimes(long since) ;
+	
+	/**
+	 * Gets the topics of a forum whose last message is newer than some time.
+	 * 
+	 * @param forumId The forum id
+	 * @param since The time
+	 * @return An <code>java.util.List</code> instance, like {@link #selectLastPostTimes(long)}
+	 */
+	public List selectLastPostTimes(int forumId, long since) ;
 	
 	/**
 	 * Enable or disabled moderation for the forum.
@@ -215,10 +225,37 @@ public interface ForumDAO
 	public void setModerated(int categoryId, boolean status) ;
 	
 	/**
-	 * Ges general statistics from the board
+	 * Counts the users, topics and messages of the board, and finds the
+	 * time of the first message and of the first registered user. 
+	 * This scans the users, topics and posts tables. 
+	 * 
 	 * @return ForumStats
+	 * @see net.jforum.repository.BoardStatsRepository#reconcile()
+	 */
+	public ForumStats countBoardStats() ;
+	
+	/**
+	 * Gets the board statistics stored by {@link #saveBoardStats(ForumStats)}
+	 * and {@link #addBoardStats(int, int, int)}
+	 * 
+	 * @return ForumStats, or <code>null</code> if no statistics were stored yet
+	 */
+	public ForumStats selectBoardStats() ;
+	
+	/**
+	 * Stores the board statistics, replacing the current ones
+	 * @param stats the totals and first times to store
+	 */
+	public void saveBoardStats(ForumStats stats) ;
+	
+	/**
+	 * Adds some values to the stored board statistics
+	 * 
+	 * @param users the number of users to add. May be negative.
+	 * @param topics the number of topics to add. May be negative.
+	 * @param posts the number of messages to add. May be negative.
 	 */
-	public ForumStats getBoardStatus() ;
+	public void addBoardStats(int users, int topics, int posts) ;
 	
 	
 	//codes below are added by socialnework@gmail.com for "watching forum" purpose
@@ -42,6 +42,7 @@
  */
 package net.jforum.dao;
 
+import java.util.Date;
 import java.util.List;
 
 import net.jforum.entities.Post;
@@ -97,6 +98,19 @@ public interface PostDAO
 	 * @return <code>ArrayList</code> containing all records found. Each entry of the <code>ArrayList</code> is a {@link net.jforum.entities.Post} object
 	 */
 	public List selectAllByTopicByLimit(int topicId, int startFrom, int count) ;
+	
+	/**
+	 * Selects the messages of a topic that come after some message, in the order 
+	 * they are shown. Unlike {@link #selectAllByTopicByLimit(int, int, int)}, the 
+	 * database does not need to read the messages of the previous pages.
+	 * 
+	 * @param topicId The topic ID 
+	 * @param postTime the time of the last message of the previous page
+	 * @param postId the id of the last message of the previous page
+	 * @param count The total number of records to retrieve
+	 * @return <code>ArrayList</code> containing the records found. Each entry is a {@link net.jforum.entities.Post} object
+	 */
+	public List selectAllByTopicAfter(int topicId, Date postTime, int postId, int count) ;
 
 
        /**
@@ -131,6 +145,15 @@ public interface PostDAO
 	 */
 	public void deleteByTopic(int topicId) ;
 
+	/**
+	 * Deletes all posts of some topics, with a single query to find the
+	 * messages and batched deletes. Keep the list to a few hundred topics,
+	 * as the ids go in an <code>IN</code> clause.
+	 * 
+	 * @param topicIds the topic ids, as <code>Integer</code>s
+	 */
+	public void deleteByTopics(List topicIds) ;
+
 	/**
 	 * Count how many previous posts there are before the given post id
 	 * @param postId int
@@ -141,4 +164,23 @@ public interface PostDAO
 	public List selectLatestByForumForRSS(int forumId, int limit);
 	
 	public List selectHotForRSS(int limit);
+
+	/**
+	 * Gets the texts of some messages as they are stored, which may be compressed.
+	 * Only the id, subject and text of each {@link net.jforum.entities.Post} are set.
+	 *
+	 * @param afterPostId only messages with a greater id are returned
+	 * @param count the maximum number of messages
+	 * @return the messages, by id
+	 * @see net.jforum.util.PostTextCodec
+	 */
+	public List selectTexts(int afterPostId, int count);
+
+	/**
+	 * Writes the text and subject of a message again, compressing the text
+	 * if it is long enough.
+	 *
+	 * @param post the message, with the text not compressed
+	 */
+	public void updateText(Post post);
 }
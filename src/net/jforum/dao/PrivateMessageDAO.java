@@ -61,13 +61,14 @@ public interface PrivateMessageDAO
 	
 	/**
 	 * Deletes a collection of private messages.
-	 * Each instance should at least have the private message
-	 * id and the owner user id.
+	 * Each instance should at least have the private message id.
+	 * Messages that are not in the inbox or sent box of the user are kept.
 	 * 
 	 * @param pm PrivateMessage[]
-	 * @param userId
+	 * @param userId The owner of the messages
+	 * @return The number of new messages deleted from the user's inbox
 	 */
-	public void delete(PrivateMessage[] pm, int userId) ;
+	public int delete(PrivateMessage[] pm, int userId) ;
 	
 	/**
 	 * Update the type of some private message.
@@ -80,22 +81,50 @@ public interface PrivateMessageDAO
 	public void updateType(PrivateMessage pm) ;
 	
 	/**
-	 * Selects all messages from the user's inbox. 
+	 * Selects a page of messages from the user's inbox, newest first. 
 	 * 
 	 * @param user The user to fetch the messages
-	 * @return A <code>List</code> with all messages found. Each 
+	 * @param startFrom The index of the first message of the page
+	 * @param count The number of messages to fetch
+	 * @return A <code>List</code> with the messages found. Each 
 	 * entry is a <code>PrivateMessage</code> entry.
 	 */
-	public List selectFromInbox(User user) ;
+	public List selectFromInbox(User user, int startFrom, int count) ;
 	
 	/**
-	 * Selects all messages from the user's sent box. 
+	 * Selects a page of messages from the user's inbox, starting
+	 * right after the last message of the previous page.
 	 * 
 	 * @param user The user to fetch the messages
-	 * @return A <code>List</code> with all messages found. Each 
+	 * @param lastId The id of the last message of the previous page
+	 * @param count The number of messages to fetch
+	 * @return A <code>List</code> with the messages found. Each 
 	 * entry is a <code>PrivateMessage</code> entry.
 	 */
-	public List selectFromSent(User user) ;
+	public List selectFromInboxAfter(User user, int lastId, int count) ;
+	
+	/**
+	 * Selects a page of messages from the user's sent box, newest first. 
+	 * 
+	 * @param user The user to fetch the messages
+	 * @param startFrom The index of the first message of the page
+	 * @param count The number of messages to fetch
+	 * @return A <code>List</code> with the messages found. Each 
+	 * entry is a <code>PrivateMessage</code> entry.
+	 */
+	public List selectFromSent(User user, int startFrom, int count) ;
+	
+	/**
+	 * Selects a page of messages from the user's sent box, starting
+	 * right after the last message of the previous page.
+	 * 
+	 * @param user The user to fetch the messages
+	 * @param lastId The id of the last message of the previous page
+	 * @param count The number of messages to fetch
+	 * @return A <code>List</code> with the messages found. Each 
+	 * entry is a <code>PrivateMessage</code> entry.
+	 */
+	public List selectFromSentAfter(User user, int lastId, int count) ;
 	
 	/**
 	 * Gets a <code>PrivateMessage</code> by its id.
@@ -70,6 +70,32 @@ public interface TopicDAO
 	 * @param topicId The topic id to fix
 	 */
 	public void fixFirstLastPostId(int topicId) ;
+
+	/**
+	 * Copies the time and the author of the last post, and whether some
+	 * post has attachments, to the topic row, so the topic listings don't
+	 * need to read the posts table.
+	 * 
+	 * @param topicId The topic id
+	 */
+	public void updateLastPostData(int topicId) ;
+
+	/**
+	 * Sets whether the topic of some post has attachments, after
+	 * attachments of the post were added or removed.
+	 * 
+	 * @param postId The post id
+	 */
+	public void updateHasAttachByPost(int postId) ;
+
+	/**
+	 * Runs {@link #updateLastPostData(int)} for a range of topics.
+	 * 
+	 * @param firstTopicId The first topic id of the range
+	 * @param lastTopicId The last topic id of the range
+	 * @see net.jforum.repository.TopicDataRebuild
+	 */
+	public void rebuildLastPostData(int firstTopicId, int lastTopicId) ;
 	
 	/**
 	 * Gets a specific <code>Topic</code>.
@@ -88,6 +114,15 @@ public interface TopicDAO
 	 * @return A topic instance
 	 */
 	public Topic selectRaw(int topicId) ;
+
+	/**
+	 * Gets the data of some topics from <code>jforum_topics</code>, in a single query,
+	 * like {@link #selectRaw(int)} does for a topic
+	 * 
+	 * @param topicIds the topic ids, as <code>Integer</code>s
+	 * @return the topics found, in no particular order
+	 */
+	public List selectRawByIds(Collection topicIds) ;
 	
 	/**
 	 * Selects all topics associated to a specific forum
@@ -109,6 +144,19 @@ public interface TopicDAO
      * @param count int
 	 */
 	public List selectAllByForumByLimit(int forumId, int startFrom, int count) ;
+	
+	/**
+	 * Selects the topics of a forum that come after some topic, in the order
+	 * of the forum listing. Unlike {@link #selectAllByForumByLimit(int, int, int)}, 
+	 * the database does not need to read the topics of the previous pages.
+	 * 
+	 * @param forumId The forum id to select the topics
+	 * @param topicType the type of the last topic of the previous page
+	 * @param lastPostId the id of the last post of the last topic of the previous page
+	 * @param count the number of topics to select
+	 * @return <code>ArrayList</code> with the topics found. Each entry is a <code>net.jforum.Topic</code> object
+	 */
+	public List selectAllByForumAfter(int forumId, int topicType, int lastPostId, int count) ;
 
     /**
      * Selects all topics associated to a specific user and belonging to
@@ -136,7 +184,8 @@ public interface TopicDAO
 	public void delete(Topic topic, boolean fromModeration) ;
 	
 	/**
-	 * Deletes a set of topics
+	 * Deletes a set of topics. The rows are removed with batched
+	 * statements, and the forum counters are changed once per forum.
 	 * @param topics The topics to delete. Each entry must be
 	 * an instance of net.jforum.entities.Topic
 	 * @param fromModeration boolean
@@ -171,6 +220,14 @@ public interface TopicDAO
 	 */
 	public void incrementTotalViews(int topicId) ;
 	
+	/**
+	 * Adds to the number of views of many topics at once
+	 * 
+	 * @param views a map where the key is the topic id (<code>Integer</code>) 
+	 * and the value is the number of views to add (<code>Integer</code>)
+	 */
+	public void addTotalViews(Map views) ;
+	
 	/**
 	 * Increments the number of replies the topic has
 	 * 
@@ -201,6 +258,14 @@ public interface TopicDAO
 	 */
 	public int getMaxPostId(int topicId) ;
 	
+	/**
+	 * Gets the time of the last message of the topic that does not need moderation
+	 * 
+	 * @param topicId The topic id
+	 * @return The time, in milliseconds, or 0 if the topic has no such messages
+	 */
+	public long getLastPostTime(int topicId) ;
+	
 	/**
 	 * Gets the number of posts the topic has.
 	 * 
@@ -210,9 +275,10 @@ public interface TopicDAO
 	public int getTotalPosts(int topicId) ;
 	
 	/**
-	 * Get the users to notify
+	 * Get the users to notify. These are the users watching the topic which 
+	 * have read it since the previous answer, or that always want to be notified.
 	 * 
-	 * @param topic The topic 
+	 * @param topic The topic, with the new answer as its last post
 	 * @return <code>ArrayList</code> of <code>User</code> objects. Each
 	 * entry is an user who will receive the topic anwser notification
 	 * */
@@ -258,18 +324,19 @@ public interface TopicDAO
 	public void removeSubscriptionByTopic(int topicId) ;
 	
 	/**
-	 * Change the topic read status 
+	 * Moves forward the read status of watched topics. Each entry is an 
+	 * <code>int[] { topicId, userId, lastReadPostId }</code>, meaning that the user
+	 * has read the topic up to the post <code>lastReadPostId</code>.
+	 * Entries for topics the user is not watching are ignored.
 	 * 
-	 * @param topicId The topic id
-	 * @param userId The user id
-	 * @param read <code>true</code> or <code>false</code>
+	 * @param readStatus the list of read status entries
 	 */
-	public void updateReadStatus(int topicId, int userId, boolean read) ;
+	public void updateReadStatus(List readStatus) ;
 	
 	/**
-	 * Lock or unlock a topic. 
+	 * Lock or unlock some topics, in a single batch. 
 	 * 
-	 * @param topicId The topic id to perform the action on
+	 * @param topicId The topic ids to perform the action on
 	 * @param status Use <code>Topic.STATUS_LOCKED</code> to lock the topic, or
 	 * <code>Topic.STATUS_UNLOCKED</code> to unlock. 
 	 */
@@ -291,6 +358,14 @@ public interface TopicDAO
 	 */
 	public List selectHottestTopics (int limit) ;
 	
+	/**
+	 * Selects some topics, with the information of their last posts
+	 * 
+	 * @param topicIds the ids of the topics, as <code>Integer</code>s
+	 * @return List
+	 */
+	public List selectTopicsByIds(Collection topicIds) ;
+	
 	/**
 	 * Sets the ID of the first post of the topic
 	 * 
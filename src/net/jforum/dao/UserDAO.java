@@ -76,6 +76,16 @@ public interface UserDAO
 	 * @see #selectAll
 	 */
 	public User selectByName(String username) ;
+
+	/**
+	 * Gets the username, avatar, rank and number of posts of many users.
+	 * Only these fields, and the id, are set in the returned instances.
+	 * 
+	 * @param userIds the user ids (<code>Integer</code>), without repetitions
+	 * @return a list of {@link User}
+	 * @see net.jforum.repository.UserSummaryRepository
+	 */
+	public List selectSummaries(List userIds) ;
 	
 	/**
 	 * Gets all users
@@ -215,6 +225,23 @@ public interface UserDAO
 	 * @param userId The user ID do decrement the number of posts.
 	 */
 	public void decrementPosts(int userId) ;
+
+	/**
+	 * Changes the number of new private messages of an user
+	 * 
+	 * @param userId The user id
+	 * @param count The number of messages to add. Negative if they were read or removed
+	 */
+	public void addNewPrivateMessages(int userId, int count) ;
+
+	/**
+	 * Changes the number of messages in the inbox and sent box of an user
+	 * 
+	 * @param userId The user id
+	 * @param inbox The number of messages to add to the inbox. Negative if they were removed
+	 * @param sent The number of messages to add to the sent box. Negative if they were removed
+	 */
+	public void addFolderMessages(int userId, int inbox, int sent) ;
 	
 	/**
 	 * Gest some piece of information of the last user registered
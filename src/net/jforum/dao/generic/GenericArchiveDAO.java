@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 20:11:48
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum.dao.generic;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import net.jforum.JForumExecutionContext;
+import net.jforum.dao.ArchiveDAO;
+import net.jforum.exceptions.DatabaseException;
+import net.jforum.util.DbUtils;
+import net.jforum.util.preferences.SystemGlobals;
+
+/**
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class GenericArchiveDAO implements ArchiveDAO
+{
+	/**
+	 * @see net.jforum.dao.ArchiveDAO#selectTopicsToArchive(java.util.Date, int)
+	 */
+	public List selectTopicsToArchive(Date before, int count)
+	{
+		List l = new ArrayList();
+
+		PreparedStatement p = null;
+		ResultSet rs = null;
+
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(
+				SystemGlobals.getSql("ArchiveModel.selectTopicsToArchive"));
+			p.setTimestamp(1, new Timestamp(before.getTime()));
+			p.setMaxRows(count);
+
+			rs = p.executeQuery();
+
+			while (rs.next()) {
+				l.add(new Integer(rs.getInt(1)));
+			}
+
+			return l;
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(rs, p);
+		}
+	}
+
+	/**
+	 * @see net.jforum.dao.ArchiveDAO#archiveTopic(int, java.util.Date)
+	 */
+	public boolean archiveTopic(int topicId, Date before)
+	{
+		PreparedStatement p = null;
+
+		// The flag is changed first, so a concurrent restore waits for the move to finish
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(
+				SystemGlobals.getSql("ArchiveModel.markArchived"));
+			p.setInt(1, topicId);
+			p.setTimestamp(2, new Timestamp(before.getTime()));
+
+			if (p.executeUpdate() == 0) {
+				return false;
+			}
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(p);
+		}
+
+		this.executeUpdate("ArchiveModel.archivePostsText", topicId);
+		this.executeUpdate("ArchiveModel.archivePosts", topicId);
+		this.executeUpdate("ArchiveModel.deleteHotPostsText", topicId);
+		this.executeUpdate("ArchiveModel.deleteHotPosts", topicId);
+
+		return true;
+	}
+
+	/**
+	 * @see net.jforum.dao.ArchiveDAO#restoreTopic(int)
+	 */
+	public boolean restoreTopic(int topicId)
+	{
+		if (this.executeUpdate("ArchiveModel.markRestored", topicId) == 0) {
+			return false;
+		}
+
+		this.executeUpdate("ArchiveModel.restorePostsText", topicId);
+		this.executeUpdate("ArchiveModel.restorePosts", topicId);
+		this.executeUpdate("ArchiveModel.deleteArchivedPostsText", topicId);
+		this.executeUpdate("ArchiveModel.deleteArchivedPosts", topicId);
+
+		return true;
+	}
+
+	/**
+	 * @see net.jforum.dao.ArchiveDAO#isArchived(int)
+	 */
+	public boolean isArchived(int topicId)
+	{
+		PreparedStatement p = null;
+		ResultSet rs = null;
+
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(
+				SystemGlobals.getSql("ArchiveModel.isArchived"));
+			p.setInt(1, topicId);
+
+			rs = p.executeQuery();
+
+			return rs.next() && rs.getInt(1) == 1;
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(rs, p);
+		}
+	}
+
+	private int executeUpdate(String query, int topicId)
+	{
+		PreparedStatement p = null;
+
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(SystemGlobals.getSql(query));
+			p.setInt(1, topicId);
+
+			return p.executeUpdate();
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(p);
+		}
+	}
+}
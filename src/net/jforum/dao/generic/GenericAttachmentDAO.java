@@ -53,6 +53,7 @@ import java.util.List;
 import java.util.Map;
 
 import net.jforum.JForumExecutionContext;
+import net.jforum.dao.DataAccessDriver;
 import net.jforum.entities.Attachment;
 import net.jforum.entities.AttachmentExtension;
 import net.jforum.entities.AttachmentExtensionGroup;
@@ -632,6 +633,8 @@ public class GenericAttachmentDAO extends AutoKeys implements net.jforum.dao.Att
 			p.setInt(1, count);
 			p.setInt(2, postId);
 			p.executeUpdate();
+
+			DataAccessDriver.getInstance().newTopicDAO().updateHasAttachByPost(postId);
 		}
 		catch (SQLException e) {
 			throw new DatabaseException(e);
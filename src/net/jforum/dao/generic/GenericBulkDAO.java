@@ -0,0 +1,452 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 22:11:37
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum.dao.generic;
+
+import java.math.BigDecimal;
+import java.sql.Clob;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.jforum.JForumExecutionContext;
+import net.jforum.dao.BulkDAO;
+import net.jforum.exceptions.DatabaseException;
+import net.jforum.util.DbUtils;
+import net.jforum.util.preferences.SystemGlobals;
+
+/**
+ * Table names given to this class are never taken from user input as they are,
+ * but checked against the tables known by {@link net.jforum.util.bulk.BulkImporter}.
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class GenericBulkDAO implements BulkDAO
+{
+	/**
+	 * @see net.jforum.dao.BulkDAO#export(java.lang.String, net.jforum.dao.BulkDAO.RowHandler)
+	 */
+	public int export(String queryName, RowHandler handler)
+	{
+		PreparedStatement p = null;
+		ResultSet rs = null;
+
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(SystemGlobals.getSql(queryName),
+				ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			p.setFetchSize(this.fetchSize());
+
+			rs = p.executeQuery();
+
+			ResultSetMetaData md = rs.getMetaData();
+			String[] columns = new String[md.getColumnCount()];
+
+			for (int i = 0; i < columns.length; i++) {
+				columns[i] = md.getColumnName(i + 1).toLowerCase();
+			}
+
+			int count = 0;
+
+			while (rs.next()) {
+				Object[] values = new Object[columns.length];
+
+				for (int i = 0; i < values.length; i++) {
+					values[i] = this.readValue(rs, i + 1);
+				}
+
+				handler.handle(columns, values);
+				count++;
+			}
+
+			return count;
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(rs, p);
+		}
+	}
+
+	/**
+	 * Rows fetched from the database at a time by {@link #export(String, BulkDAO.RowHandler)}
+	 * @return the fetch size
+	 */
+	protected int fetchSize()
+	{
+		return 500;
+	}
+
+	/**
+	 * Rows inserted by each <code>INSERT</code> statement. Databases that accept many rows in
+	 * the <code>VALUES</code> clause return more than one.
+	 * @return the number of rows
+	 */
+	protected int rowsPerInsert()
+	{
+		return 1;
+	}
+
+	protected Object readValue(ResultSet rs, int index) throws SQLException
+	{
+		Object value = rs.getObject(index);
+
+		if (value instanceof Clob) {
+			Clob clob = (Clob)value;
+			return clob.getSubString(1, (int)clob.length());
+		}
+
+		return value;
+	}
+
+	/**
+	 * @see net.jforum.dao.BulkDAO#columnTypes(java.lang.String)
+	 */
+	public Map columnTypes(String table)
+	{
+		Map m = new HashMap();
+
+		Statement s = null;
+		ResultSet rs = null;
+
+		try {
+			s = JForumExecutionContext.getConnection().createStatement();
+			rs = s.executeQuery("SELECT * FROM " + table + " WHERE 1 = 0");
+
+			ResultSetMetaData md = rs.getMetaData();
+
+			for (int i = 1; i <= md.getColumnCount(); i++) {
+				m.put(md.getColumnName(i).toLowerCase(), new Integer(md.getColumnType(i)));
+			}
+
+			return m;
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(rs, s);
+		}
+	}
+
+	/**
+	 * @see net.jforum.dao.BulkDAO#insert(java.lang.String, java.lang.String[], int[], java.util.List)
+	 */
+	public void insert(String table, String[] columns, int[] types, List rows)
+	{
+		int perInsert = this.rowsPerInsert();
+		int multiRows = perInsert > 1
+			? rows.size() - rows.size() % perInsert
+			: 0;
+
+		if (multiRows > 0) {
+			this.insert(table, columns, types, rows.subList(0, multiRows), perInsert);
+		}
+
+		if (multiRows < rows.size()) {
+			this.insert(table, columns, types, rows.subList(multiRows, rows.size()), 1);
+		}
+	}
+
+	private void insert(String table, String[] columns, int[] types, List rows, int perInsert)
+	{
+		PreparedStatement p = null;
+
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(
+				this.buildInsert(table, columns, perInsert));
+
+			for (int i = 0; i < rows.size(); i += perInsert) {
+				int index = 1;
+
+				for (int j = i; j < i + perInsert; j++) {
+					Object[] values = (Object[])rows.get(j);
+
+					for (int k = 0; k < columns.length; k++) {
+						this.setValue(p, index++, types[k], values[k]);
+					}
+				}
+
+				p.addBatch();
+			}
+
+			p.executeBatch();
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(p);
+		}
+	}
+
+	private String buildInsert(String table, String[] columns, int rows)
+	{
+		StringBuffer sb = new StringBuffer(64 + columns.length * (20 + rows * 2));
+		sb.append("INSERT INTO ").append(table).append(" (");
+
+		for (int i = 0; i < columns.length; i++) {
+			sb.append(i > 0 ? ", " : "").append(columns[i]);
+		}
+
+		sb.append(") VALUES ");
+
+		for (int i = 0; i < rows; i++) {
+			sb.append(i > 0 ? ", (" : "(");
+
+			for (int j = 0; j < columns.length; j++) {
+				sb.append(j > 0 ? ", ?" : "?");
+			}
+
+			sb.append(')');
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Binds a value read from an export file, converting it to the type of the column
+	 */
+	protected void setValue(PreparedStatement p, int index, int type, Object value) throws SQLException
+	{
+		if (value == null) {
+			p.setNull(index, type);
+		}
+		else if (type == Types.TIMESTAMP || type == Types.DATE || type == Types.TIME) {
+			p.setTimestamp(index, value instanceof Timestamp
+				? (Timestamp)value
+				: Timestamp.valueOf(value.toString()));
+		}
+		else if (value instanceof Long || value instanceof Integer) {
+			p.setLong(index, ((Number)value).longValue());
+		}
+		else if (value instanceof BigDecimal) {
+			p.setBigDecimal(index, (BigDecimal)value);
+		}
+		else if (value instanceof Boolean && type != Types.CHAR && type != Types.VARCHAR) {
+			p.setBoolean(index, ((Boolean)value).booleanValue());
+		}
+		else {
+			p.setString(index, value.toString());
+		}
+	}
+
+	/**
+	 * @see net.jforum.dao.BulkDAO#deleteAll(java.lang.String)
+	 */
+	public void deleteAll(String table)
+	{
+		Statement s = null;
+
+		try {
+			s = JForumExecutionContext.getConnection().createStatement();
+			s.executeUpdate("DELETE FROM " + table);
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(s);
+		}
+	}
+
+	/**
+	 * @see net.jforum.dao.BulkDAO#afterImport()
+	 */
+	public void afterImport()
+	{
+		String sql = SystemGlobals.getSql("BulkModel.afterImport");
+
+		if (sql == null) {
+			return;
+		}
+
+		Statement s = null;
+
+		try {
+			s = JForumExecutionContext.getConnection().createStatement();
+			s.execute(sql);
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(s);
+		}
+	}
+
+	/**
+	 * @see net.jforum.dao.BulkDAO#selectForumIds()
+	 */
+	public List selectForumIds()
+	{
+		List l = new ArrayList();
+
+		PreparedStatement p = null;
+		ResultSet rs = null;
+
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(
+				SystemGlobals.getSql("BulkModel.forumIds"));
+			rs = p.executeQuery();
+
+			while (rs.next()) {
+				l.add(new Integer(rs.getInt(1)));
+			}
+
+			return l;
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(rs, p);
+		}
+	}
+
+	/**
+	 * @see net.jforum.dao.BulkDAO#maxUserId()
+	 */
+	public int maxUserId()
+	{
+		return this.selectMax("BulkModel.maxUserId");
+	}
+
+	/**
+	 * @see net.jforum.dao.BulkDAO#maxTopicId()
+	 */
+	public int maxTopicId()
+	{
+		return this.selectMax("BulkModel.maxTopicId");
+	}
+
+	private int selectMax(String query)
+	{
+		PreparedStatement p = null;
+		ResultSet rs = null;
+
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(SystemGlobals.getSql(query));
+			rs = p.executeQuery();
+
+			return rs.next() ? rs.getInt(1) : 0;
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(rs, p);
+		}
+	}
+
+	/**
+	 * @see net.jforum.dao.BulkDAO#recountForum(int)
+	 */
+	public void recountForum(int forumId)
+	{
+		this.executeUpdate("BulkModel.recountTopics", forumId);
+		this.executeUpdate("BulkModel.recountTopicsLastPostData", forumId);
+		this.executeUpdate("BulkModel.recountForum", forumId);
+	}
+
+	/**
+	 * @see net.jforum.dao.BulkDAO#recountUserPosts(int, int)
+	 */
+	public void recountUserPosts(int fromUserId, int toUserId)
+	{
+		this.executeUpdate("BulkModel.recountUserPosts", fromUserId, toUserId);
+	}
+
+	/**
+	 * @see net.jforum.dao.BulkDAO#recountUserFolders(int, int)
+	 */
+	public void recountUserFolders(int fromUserId, int toUserId)
+	{
+		this.executeUpdate("BulkModel.recountUserFolders", fromUserId, toUserId);
+	}
+
+	private void executeUpdate(String query, int fromUserId, int toUserId)
+	{
+		PreparedStatement p = null;
+
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(SystemGlobals.getSql(query));
+			p.setInt(1, fromUserId);
+			p.setInt(2, toUserId);
+
+			p.executeUpdate();
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(p);
+		}
+	}
+
+	private void executeUpdate(String query, int forumId)
+	{
+		PreparedStatement p = null;
+
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(SystemGlobals.getSql(query));
+			p.setInt(1, forumId);
+
+			p.executeUpdate();
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(p);
+		}
+	}
+}
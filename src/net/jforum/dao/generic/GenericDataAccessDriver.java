@@ -43,10 +43,12 @@
 package net.jforum.dao.generic;
 
 import net.jforum.dao.ApiDAO;
+import net.jforum.dao.ArchiveDAO;
 import net.jforum.dao.AttachmentDAO;
 import net.jforum.dao.BanlistDAO;
 import net.jforum.dao.BannerDAO;
 import net.jforum.dao.BookmarkDAO;
+import net.jforum.dao.BulkDAO;
 import net.jforum.dao.CategoryDAO;
 import net.jforum.dao.ConfigDAO;
 import net.jforum.dao.DataAccessDriver;
@@ -101,6 +103,8 @@ public class GenericDataAccessDriver extends DataAccessDriver
     private static BanlistDAO banlistDao = new GenericBanlistDAO();
     private static ModerationLogDAO moderationLogDao = new GenericModerationLogDAO();
     private static LuceneDAO luceneDao = new GenericLuceneDAO();
+    private static ArchiveDAO archiveDao = new GenericArchiveDAO();
+    private static BulkDAO bulkDao = new GenericBulkDAO();
     
 	/**
 	 * @see net.jforum.dao.DataAccessDriver#getForumModel()
@@ -301,4 +305,20 @@ public class GenericDataAccessDriver extends DataAccessDriver
     {
     	return luceneDao;
     }
+    
+    /**
+     * @see net.jforum.dao.DataAccessDriver#newArchiveDAO()
+     */
+    public ArchiveDAO newArchiveDAO()
+    {
+    	return archiveDao;
+    }
+
+    /**
+     * @see net.jforum.dao.DataAccessDriver#newBulkDAO()
+     */
+    public BulkDAO newBulkDAO()
+    {
+    	return bulkDao;
+    }
 }
@@ -42,11 +42,9 @@
  */
 package net.jforum.dao.generic;
 
-import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -65,6 +63,7 @@ import net.jforum.entities.ModeratorInfo;
 import net.jforum.entities.Topic;
 import net.jforum.entities.User;
 import net.jforum.exceptions.DatabaseException;
+import net.jforum.repository.UnreadTopicsIndex;
 import net.jforum.util.DbUtils;
 import net.jforum.util.preferences.ConfigKeys;
 import net.jforum.util.preferences.SystemGlobals;
@@ -78,6 +77,12 @@ import net.jforum.util.preferences.SystemGlobals;
  */
 public class GenericForumDAO extends AutoKeys implements net.jforum.dao.ForumDAO
 {
+	private static final String STATS_USERS = "users";
+	private static final String STATS_TOPICS = "topics";
+	private static final String STATS_POSTS = "posts";
+	private static final String STATS_FIRST_POST_TIME = "first_post_time";
+	private static final String STATS_FIRST_USER_TIME = "first_user_time";
+	
 	/**
 	 * @see net.jforum.dao.ForumDAO#selectById(int)
 	 */
@@ -124,12 +129,17 @@ public class GenericForumDAO extends AutoKeys implements net.jforum.dao.ForumDAO
 	}
 
 	protected int countForumPosts(int forumId)
+	{
+		return this.countForumPosts("ForumModel.countForumPosts", forumId)
+			+ this.countForumPosts("ArchiveModel.countForumPosts", forumId);
+	}
+
+	private int countForumPosts(String query, int forumId)
 	{
 		PreparedStatement p = null;
 		ResultSet rs = null;
 		try {
-			p = JForumExecutionContext.getConnection().prepareStatement(
-					SystemGlobals.getSql("ForumModel.countForumPosts"));
+			p = JForumExecutionContext.getConnection().prepareStatement(SystemGlobals.getSql(query));
 			p.setInt(1, forumId);
 			rs = p.executeQuery();
 
@@ -236,6 +246,8 @@ public class GenericForumDAO extends AutoKeys implements net.jforum.dao.ForumDAO
 			
 			GroupSecurityDAO groupSecurity = DataAccessDriver.getInstance().newGroupSecurityDAO();
 			groupSecurity.deleteForumRoles(forumId);
+
+			UnreadTopicsIndex.forumRemoved(forumId);
 		}
 		catch (SQLException e) {
 			throw new DatabaseException(e);
@@ -520,12 +532,17 @@ public class GenericForumDAO extends AutoKeys implements net.jforum.dao.ForumDAO
 	 * @see net.jforum.dao.ForumDAO#getTotalMessages()
 	 */
 	public int getTotalMessages()
+	{
+		return this.getTotalMessages("ForumModel.totalMessages")
+			+ this.getTotalMessages("ArchiveModel.totalMessages");
+	}
+
+	private int getTotalMessages(String query)
 	{
 		PreparedStatement p = null;
 		ResultSet rs = null;
 		try {
-			p = JForumExecutionContext.getConnection().prepareStatement(
-					SystemGlobals.getSql("ForumModel.totalMessages"));
+			p = JForumExecutionContext.getConnection().prepareStatement(SystemGlobals.getSql(query));
 			rs = p.executeQuery();
 
 			if (rs.next()) {
@@ -606,29 +623,46 @@ public class GenericForumDAO extends AutoKeys implements net.jforum.dao.ForumDAO
 	{
 		PreparedStatement p = null;
 		PreparedStatement t = null;
+		PreparedStatement a = null;
+		PreparedStatement m = null;
 		try {
 			p = JForumExecutionContext.getConnection().prepareStatement(SystemGlobals.getSql("ForumModel.moveTopics"));
 			t = JForumExecutionContext.getConnection().prepareStatement(
 				SystemGlobals.getSql("PostModel.setForumByTopic"));
+			a = JForumExecutionContext.getConnection().prepareStatement(
+				SystemGlobals.getSql("ArchiveModel.setForumByTopic"));
+			m = JForumExecutionContext.getConnection().prepareStatement(
+				SystemGlobals.getSql("TopicModel.setModerationStatusByTopic"));
+
+			Forum f = this.selectById(toForumId);
 
 			p.setInt(1, toForumId);
 			p.setInt(2, fromForumId);
 			
 			t.setInt(1, toForumId);
-
-			TopicDAO tdao = DataAccessDriver.getInstance().newTopicDAO();
-
-			Forum f = this.selectById(toForumId);
+			a.setInt(1, toForumId);
+			m.setInt(1, f.isModerated() ? 1 : 0);
 
 			for (int i = 0; i < topics.length; i++) {
 				int topicId = Integer.parseInt(topics[i]);
 				p.setInt(3, topicId);
 				t.setInt(2, topicId);
+				a.setInt(2, topicId);
+				m.setInt(2, topicId);
 
-				p.executeUpdate();
-				t.executeUpdate();
+				p.addBatch();
+				t.addBatch();
+				a.addBatch();
+				m.addBatch();
+			}
+
+			p.executeBatch();
+			t.executeBatch();
+			a.executeBatch();
+			m.executeBatch();
 
-				tdao.setModerationStatusByTopic(topicId, f.isModerated());
+			for (int i = 0; i < topics.length; i++) {
+				UnreadTopicsIndex.topicMoved(Integer.parseInt(topics[i]), fromForumId, toForumId);
 			}
 
 			this.decrementTotalTopics(fromForumId, topics.length);
@@ -643,40 +677,73 @@ public class GenericForumDAO extends AutoKeys implements net.jforum.dao.ForumDAO
 		finally {
 			DbUtils.close(p);
 			DbUtils.close(t);
+			DbUtils.close(a);
+			DbUtils.close(m);
 		}
 	}
 
 	/**
-	 * @see net.jforum.dao.ForumDAO#hasUnreadTopics(int, long)
+	 * @see net.jforum.dao.ForumDAO#selectLastPostTimes(long)
 	 */
-	public List checkUnreadTopics(int forumId, long lastVisit)
+	public List selectLastPostTimes(long since)
 	{
-		List l = new ArrayList();
+		PreparedStatement p = null;
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(
+					SystemGlobals.getSql("ForumModel.selectLastPostTimes"));
+			p.setTimestamp(1, new Timestamp(since));
+
+			return this.lastPostTimes(p);
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(p);
+		}
+	}
 
+	/**
+	 * @see net.jforum.dao.ForumDAO#selectLastPostTimes(int, long)
+	 */
+	public List selectLastPostTimes(int forumId, long since)
+	{
 		PreparedStatement p = null;
-		ResultSet rs = null;
 		try {
 			p = JForumExecutionContext.getConnection().prepareStatement(
-					SystemGlobals.getSql("ForumModel.checkUnreadTopics"));
+					SystemGlobals.getSql("ForumModel.selectForumLastPostTimes"));
 			p.setInt(1, forumId);
-			p.setTimestamp(2, new Timestamp(lastVisit));
+			p.setTimestamp(2, new Timestamp(since));
 
+			return this.lastPostTimes(p);
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(p);
+		}
+	}
+
+	private List lastPostTimes(PreparedStatement p) throws SQLException
+	{
+		List l = new ArrayList();
+		ResultSet rs = null;
+		try {
 			rs = p.executeQuery();
 			while (rs.next()) {
 				Topic t = new Topic();
 				t.setId(rs.getInt("topic_id"));
-				t.setTime(new Date(rs.getTimestamp(1).getTime()));
+				t.setForumId(rs.getInt("forum_id"));
+				t.setLastPostDate(new Date(rs.getTimestamp("post_time").getTime()));
 
 				l.add(t);
 			}
 
 			return l;
 		}
-		catch (SQLException e) {
-			throw new DatabaseException(e);
-		}
 		finally {
-			DbUtils.close(rs, p);
+			DbUtils.close(rs);
 		}
 	}
 
@@ -702,106 +769,190 @@ public class GenericForumDAO extends AutoKeys implements net.jforum.dao.ForumDAO
 	}
 
 	/**
-	 * @see net.jforum.dao.ForumDAO#getBoardStatus()
+	 * @see net.jforum.dao.ForumDAO#countBoardStats()
 	 */
-	public ForumStats getBoardStatus()
+	public ForumStats countBoardStats()
 	{
 		ForumStats fs = new ForumStats();
 		fs.setPosts(this.getTotalMessages());
+		fs.setUsers(this.selectCount("UserModel.totalUsers"));
+		fs.setTopics(this.selectCount("TopicModel.totalTopics"));
+		fs.setFirstPostTime(this.selectTime("ForumModel.statsFirstPostTime"));
+		fs.setFirstUserTime(this.selectTime("ForumModel.statsFirstRegisteredUserTime"));
 
-		Connection c = JForumExecutionContext.getConnection();
+		// The oldest messages are likely to be archived
+		Date archived = this.selectTime("ArchiveModel.statsFirstPostTime");
 
-		// Total Users
-		Statement s = null;
-		ResultSet rs = null;
+		if (archived != null && (fs.getFirstPostTime() == null || archived.before(fs.getFirstPostTime()))) {
+			fs.setFirstPostTime(archived);
+		}
 
-		try {
-			s = c.createStatement();
-			rs = s.executeQuery(SystemGlobals.getSql("UserModel.totalUsers"));
-			rs.next();
-			fs.setUsers(rs.getInt(1));
-			rs.close();
-			rs = null;
-			s.close();
-			s = null;
-
-			// Total Topics
-			s = c.createStatement();
-			rs = s.executeQuery(SystemGlobals.getSql("TopicModel.totalTopics"));
-			rs.next();
-			fs.setTopics(rs.getInt(1));
-			rs.close();
-			rs = null;
-			s.close();
-			s = null;
+		return fs;
+	}
 
-			// Posts per day
-			double postPerDay = 0;
-			
-			// Topics per day
-			double topicPerDay = 0;
-			
-			// user per day
-			double userPerDay = 0;
+	private int selectCount(String query)
+	{
+		PreparedStatement p = null;
+		ResultSet rs = null;
 
-			s = c.createStatement();
-			rs = s.executeQuery(SystemGlobals.getSql("ForumModel.statsFirstPostTime"));
-			if (rs.next()) {
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(SystemGlobals.getSql(query));
+			rs = p.executeQuery();
 
-				Timestamp firstTime = rs.getTimestamp(1);
-				if (rs.wasNull()) {
-					firstTime = null;
-				}
-				rs.close();
-				rs = null;
-				s.close();
-				s = null;
+			return rs.next() ? rs.getInt(1) : 0;
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(rs, p);
+		}
+	}
 
-				Date today = new Date();
+	private Date selectTime(String query)
+	{
+		PreparedStatement p = null;
+		ResultSet rs = null;
 
-				postPerDay = firstTime != null ? fs.getPosts() / this.daysUntilToday(today, firstTime) : 0;
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(SystemGlobals.getSql(query));
+			rs = p.executeQuery();
 
-				if (fs.getPosts() > 0 && postPerDay < 1) {
-					postPerDay = 1;
+			return rs.next() ? rs.getTimestamp(1) : null;
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(rs, p);
+		}
+	}
+	
+	/**
+	 * @see net.jforum.dao.ForumDAO#selectBoardStats()
+	 */
+	public ForumStats selectBoardStats()
+	{
+		PreparedStatement p = null;
+		ResultSet rs = null;
+		
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(
+				SystemGlobals.getSql("ForumModel.selectBoardStats"));
+			rs = p.executeQuery();
+			
+			ForumStats fs = null;
+			
+			while (rs.next()) {
+				if (fs == null) {
+					fs = new ForumStats();
 				}
-
-				topicPerDay = firstTime != null ? fs.getTopics() / this.daysUntilToday(today, firstTime) : 0;
-
-				// Users per day
-				s = c.createStatement();
-				rs = s.executeQuery(SystemGlobals.getSql("ForumModel.statsFirstRegisteredUserTime"));
-				if (rs.next()) {
-					firstTime = rs.getTimestamp(1);
-					if (rs.wasNull()) {
-						firstTime = null;
-					}
+				
+				String name = rs.getString("stat_name");
+				long value = rs.getLong("stat_value");
+				
+				if (STATS_USERS.equals(name)) {
+					fs.setUsers((int)value);
+				}
+				else if (STATS_TOPICS.equals(name)) {
+					fs.setTopics((int)value);
+				}
+				else if (STATS_POSTS.equals(name)) {
+					fs.setPosts((int)value);
+				}
+				else if (STATS_FIRST_POST_TIME.equals(name)) {
+					fs.setFirstPostTime(value > 0 ? new Date(value) : null);
+				}
+				else if (STATS_FIRST_USER_TIME.equals(name)) {
+					fs.setFirstUserTime(value > 0 ? new Date(value) : null);
 				}
-				rs.close();
-				rs = null;
-				s.close();
-				s = null;
-
-				userPerDay = firstTime != null ? fs.getUsers() / this.daysUntilToday(today, firstTime) : 0;
 			}
-
-			fs.setPostsPerDay(postPerDay);
-			fs.setTopicsPerDay(topicPerDay);
-			fs.setUsersPerDay(userPerDay);
-
+			
 			return fs;
 		}
 		catch (SQLException e) {
 			throw new DatabaseException(e);
 		}
 		finally {
-			DbUtils.close(rs, s);
+			DbUtils.close(rs, p);
 		}
 	}
-
-	private int daysUntilToday(Date today, Date from)
+	
+	/**
+	 * @see net.jforum.dao.ForumDAO#saveBoardStats(net.jforum.entities.ForumStats)
+	 */
+	public void saveBoardStats(ForumStats stats)
 	{
-		int days = (int) ((today.getTime() - from.getTime()) / (24 * 60 * 60 * 1000));
-		return days == 0 ? 1 : days;
+		this.saveBoardStat(STATS_USERS, stats.getUsers());
+		this.saveBoardStat(STATS_TOPICS, stats.getTopics());
+		this.saveBoardStat(STATS_POSTS, stats.getPosts());
+		this.saveBoardStat(STATS_FIRST_POST_TIME, stats.getFirstPostTime() != null 
+			? stats.getFirstPostTime().getTime() : 0);
+		this.saveBoardStat(STATS_FIRST_USER_TIME, stats.getFirstUserTime() != null 
+			? stats.getFirstUserTime().getTime() : 0);
+	}
+	
+	private void saveBoardStat(String name, long value)
+	{
+		PreparedStatement p = null;
+		
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(
+				SystemGlobals.getSql("ForumModel.updateBoardStat"));
+			p.setLong(1, value);
+			p.setString(2, name);
+			
+			if (p.executeUpdate() == 0) {
+				p.close();
+				p = null;
+				
+				p = JForumExecutionContext.getConnection().prepareStatement(
+					SystemGlobals.getSql("ForumModel.insertBoardStat"));
+				p.setString(1, name);
+				p.setLong(2, value);
+				p.executeUpdate();
+			}
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(p);
+		}
+	}
+	
+	/**
+	 * @see net.jforum.dao.ForumDAO#addBoardStats(int, int, int)
+	 */
+	public void addBoardStats(int users, int topics, int posts)
+	{
+		PreparedStatement p = null;
+		
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(
+				SystemGlobals.getSql("ForumModel.addBoardStat"));
+			
+			this.addBoardStat(p, STATS_USERS, users);
+			this.addBoardStat(p, STATS_TOPICS, topics);
+			this.addBoardStat(p, STATS_POSTS, posts);
+			
+			p.executeBatch();
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(p);
+		}
+	}
+	
+	private void addBoardStat(PreparedStatement p, String name, int value) throws SQLException
+	{
+		if (value != 0) {
+			p.setInt(1, value);
+			p.setString(2, name);
+			p.addBatch();
+		}
 	}
 
 	/**
@@ -53,6 +53,7 @@ import net.jforum.dao.DataAccessDriver;
 import net.jforum.dao.GroupSecurityDAO;
 import net.jforum.entities.Group;
 import net.jforum.exceptions.DatabaseException;
+import net.jforum.repository.UserRepository;
 import net.jforum.util.DbUtils;
 import net.jforum.util.preferences.SystemGlobals;
 
@@ -133,6 +134,9 @@ public class GenericGroupDAO implements net.jforum.dao.GroupDAO
 			
 			GroupSecurityDAO securityDao = DataAccessDriver.getInstance().newGroupSecurityDAO();
 			securityDao.deleteAllRoles(groupId);
+
+			// Users in memory have the groups they belong to
+			UserRepository.clear();
 		}
 		catch (SQLException e) {
 			throw new DatabaseException(e);
@@ -156,6 +160,8 @@ public class GenericGroupDAO implements net.jforum.dao.GroupDAO
 			p.setInt(4, group.getId());
 
 			p.executeUpdate();
+
+			UserRepository.clear();
 		}
 		catch (SQLException e) {
 			throw new DatabaseException(e);
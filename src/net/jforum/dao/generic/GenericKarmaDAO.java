@@ -57,6 +57,7 @@ import net.jforum.entities.Karma;
 import net.jforum.entities.KarmaStatus;
 import net.jforum.entities.User;
 import net.jforum.exceptions.DatabaseException;
+import net.jforum.repository.UserRepository;
 import net.jforum.util.DbUtils;
 import net.jforum.util.preferences.SystemGlobals;
 
@@ -162,6 +163,8 @@ public class GenericKarmaDAO implements net.jforum.dao.KarmaDAO
 			p.setDouble(1, karmaPoints);
 			p.setInt(2, userId);
 			p.executeUpdate();
+
+			UserRepository.remove(userId);
 		}
 		catch (SQLException e) {
 			throw new DatabaseException(e);
@@ -58,6 +58,7 @@ import net.jforum.exceptions.DatabaseException;
 import net.jforum.search.LuceneReindexArgs;
 import net.jforum.search.SearchPost;
 import net.jforum.util.DbUtils;
+import net.jforum.util.PostTextCodec;
 import net.jforum.util.preferences.SystemGlobals;
 
 /**
@@ -70,6 +71,12 @@ public class GenericLuceneDAO implements LuceneDAO
 	 * @see net.jforum.dao.LuceneDAO#firstPostId()
 	 */
 	public int firstPostId() 
+	{
+		return this.lowestPostId(this.firstPostId("SearchModel.getFirstPostId"), 
+			this.firstPostId("ArchiveModel.getFirstPostId"));
+	}
+	
+	private int firstPostId(String query)
 	{
 		int postId = 0;
 		
@@ -77,8 +84,7 @@ public class GenericLuceneDAO implements LuceneDAO
 		ResultSet rs = null;
 		
 		try {
-			p = JForumExecutionContext.getConnection().prepareStatement(
-				SystemGlobals.getSql("SearchModel.getFirstPostId"));
+			p = JForumExecutionContext.getConnection().prepareStatement(SystemGlobals.getSql(query));
 			
 			rs = p.executeQuery();
 			
@@ -103,12 +109,19 @@ public class GenericLuceneDAO implements LuceneDAO
 	{
 		List l = new ArrayList();
 		
+		this.getPostsToIndex(SystemGlobals.getSql("SearchModel.getPostsToIndexForLucene"), fromPostId, toPostId, l);
+		this.getPostsToIndex(SystemGlobals.getSql("ArchiveModel.getPostsToIndexForLucene"), fromPostId, toPostId, l);
+		
+		return l;
+	}
+	
+	private void getPostsToIndex(String query, int fromPostId, int toPostId, List l)
+	{
 		PreparedStatement p = null;
 		ResultSet rs = null;
 		
 		try {
-			p = JForumExecutionContext.getConnection().prepareStatement(
-				SystemGlobals.getSql("SearchModel.getPostsToIndexForLucene"));
+			p = JForumExecutionContext.getConnection().prepareStatement(query);
 			
 			p.setInt(1, fromPostId);
 			p.setInt(2, toPostId);
@@ -125,8 +138,6 @@ public class GenericLuceneDAO implements LuceneDAO
 		finally {
 			DbUtils.close(rs, p);
 		}
-		
-		return l;
 	}
 	
 	/**
@@ -134,7 +145,8 @@ public class GenericLuceneDAO implements LuceneDAO
 	 */
 	public int firstPostIdByDate(Date date) 
 	{
-		return this.getPostIdByDate(date, SystemGlobals.getSql("SearchModel.firstPostIdByDate"));
+		return this.lowestPostId(this.getPostIdByDate(date, SystemGlobals.getSql("SearchModel.firstPostIdByDate")),
+			this.getPostIdByDate(date, SystemGlobals.getSql("ArchiveModel.firstPostIdByDate")));
 	}
 	
 	/**
@@ -142,7 +154,20 @@ public class GenericLuceneDAO implements LuceneDAO
 	 */
 	public int lastPostIdByDate(Date date) 
 	{
-		return this.getPostIdByDate(date, SystemGlobals.getSql("SearchModel.lastPostIdByDate"));
+		return Math.max(this.getPostIdByDate(date, SystemGlobals.getSql("SearchModel.lastPostIdByDate")),
+			this.getPostIdByDate(date, SystemGlobals.getSql("ArchiveModel.lastPostIdByDate")));
+	}
+	
+	/**
+	 * Gets the lowest of two post ids, where 0 means there is no post
+	 */
+	private int lowestPostId(int a, int b)
+	{
+		if (a == 0 || b == 0) {
+			return Math.max(a, b);
+		}
+		
+		return Math.min(a, b);
 	}
 	
 	private int getPostIdByDate(Date date, String query)
@@ -183,15 +208,25 @@ public class GenericLuceneDAO implements LuceneDAO
 		}
 		
 		List l = new ArrayList();
+		String inClause = this.buildInClause(postIds);
+		
+		this.getPostsData(SystemGlobals.getSql("SearchModel.getPostsDataForLucene"), inClause, l);
+		
+		if (l.size() < postIds.length) {
+			// Some of the messages belong to archived topics
+			this.getPostsData(SystemGlobals.getSql("ArchiveModel.getPostsDataForLucene"), inClause, l);
+		}
 		
+		return l;
+	}
+	
+	private void getPostsData(String query, String inClause, List l)
+	{
 		PreparedStatement p = null;
 		ResultSet rs = null;
 		
 		try {
-			String sql = SystemGlobals.getSql("SearchModel.getPostsDataForLucene");
-			sql = sql.replaceAll(":posts:", this.buildInClause(postIds));
-			
-			p = JForumExecutionContext.getConnection().prepareStatement(sql);
+			p = JForumExecutionContext.getConnection().prepareStatement(query.replaceAll(":posts:", inClause));
 			rs = p.executeQuery();
 			
 			while (rs.next()) {
@@ -207,8 +242,6 @@ public class GenericLuceneDAO implements LuceneDAO
 		finally {
 			DbUtils.close(rs, p);
 		}
-		
-		return l;
 	}
 	
 	private String buildInClause(int[] postIds)
@@ -233,7 +266,7 @@ public class GenericLuceneDAO implements LuceneDAO
 		p.setTopicId(rs.getInt("topic_id"));
 		p.setUserId(rs.getInt("user_id"));
 		p.setTime(new Date(rs.getTimestamp("post_time").getTime()));
-		p.setText(this.readPostTextFromResultSet(rs));
+		p.setText(PostTextCodec.decode(this.readPostTextFromResultSet(rs)));
 		p.setBbCodeEnabled(rs.getInt("enable_bbcode") == 1);
 		p.setSmiliesEnabled(rs.getInt("enable_smilies") == 1);
 		
@@ -58,7 +58,10 @@ import net.jforum.entities.ModerationPendingInfo;
 import net.jforum.entities.Post;
 import net.jforum.entities.TopicModerationInfo;
 import net.jforum.exceptions.DatabaseException;
+import net.jforum.repository.BoardStatsRepository;
+import net.jforum.repository.UnreadTopicsIndex;
 import net.jforum.util.DbUtils;
+import net.jforum.util.PostTextCodec;
 import net.jforum.util.preferences.SystemGlobals;
 
 /**
@@ -73,19 +76,35 @@ public class GenericModerationDAO implements ModerationDAO
 	public void aprovePost(int postId)
 	{
 		PreparedStatement p=null;
+		ResultSet rs = null;
         try
         {
             p = JForumExecutionContext.getConnection().prepareStatement(
                     SystemGlobals.getSql("ModerationModel.aprovePost"));
-            p.setTimestamp(1, new Timestamp(System.currentTimeMillis()));
+            long now = System.currentTimeMillis();
+            p.setTimestamp(1, new Timestamp(now));
             p.setInt(2, postId);
-            p.executeUpdate();
+            
+            if (p.executeUpdate() > 0) {
+                BoardStatsRepository.addPosts(1);
+
+                p.close();
+                p = JForumExecutionContext.getConnection().prepareStatement(
+                        SystemGlobals.getSql("ModerationModel.selectPostTopic"));
+                p.setInt(1, postId);
+
+                rs = p.executeQuery();
+
+                if (rs.next()) {
+                    UnreadTopicsIndex.postAdded(rs.getInt("forum_id"), rs.getInt("topic_id"), now);
+                }
+            }
         }
         catch (SQLException e) {
             throw new DatabaseException(e);
         }
         finally {
-            DbUtils.close(p);
+            DbUtils.close(rs, p);
         }
     }
 	
@@ -155,7 +174,7 @@ public class GenericModerationDAO implements ModerationDAO
 		p.setHtmlEnabled(rs.getInt("enable_html") == 1);
 		p.setSmiliesEnabled(rs.getInt("enable_smilies") == 1);
 		p.setSubject(rs.getString("post_subject"));
-		p.setText(this.getPostTextFromResultSet(rs));
+		p.setText(PostTextCodec.decode(this.getPostTextFromResultSet(rs)));
 		
 		return p;
 	}
@@ -49,16 +49,24 @@ import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import net.jforum.JForumExecutionContext;
 import net.jforum.dao.DataAccessDriver;
+import net.jforum.dao.TopicDAO;
 import net.jforum.entities.Post;
 import net.jforum.exceptions.DatabaseException;
+import net.jforum.repository.BoardStatsRepository;
 import net.jforum.repository.ForumRepository;
+import net.jforum.repository.UnreadTopicsIndex;
 import net.jforum.search.SearchFacade;
 import net.jforum.util.DbUtils;
+import net.jforum.util.PostTextCodec;
 import net.jforum.util.preferences.ConfigKeys;
 import net.jforum.util.preferences.SystemGlobals;
 
@@ -73,11 +81,23 @@ public class GenericPostDAO extends AutoKeys implements net.jforum.dao.PostDAO
 	 * @see net.jforum.dao.PostDAO#selectById(int)
 	 */
 	public Post selectById(int postId)
+	{
+		Post post = this.selectById("PostModel.selectById", postId);
+
+		if (post.getId() == 0) {
+			// The message may belong to an archived topic
+			post = this.selectById("ArchiveModel.selectPostById", postId);
+		}
+
+		return post;
+	}
+
+	protected Post selectById(String query, int postId)
 	{
 		PreparedStatement p = null;
 		ResultSet rs = null;
 		try {
-			p = JForumExecutionContext.getConnection().prepareStatement(SystemGlobals.getSql("PostModel.selectById"));
+			p = JForumExecutionContext.getConnection().prepareStatement(SystemGlobals.getSql(query));
 			p.setInt(1, postId);
 
 			rs = p.executeQuery();
@@ -119,7 +139,7 @@ public class GenericPostDAO extends AutoKeys implements net.jforum.dao.PostDAO
 		post.setEditTime(editTime != null ? new Date(editTime.getTime()) : null);
 		
 		post.setSubject(rs.getString("post_subject"));
-		post.setText(this.getPostTextFromResultSet(rs));
+		post.setText(PostTextCodec.decode(this.getPostTextFromResultSet(rs)));
 		post.setPostUsername(rs.getString("username"));
 		post.hasAttachments(rs.getInt("attach") > 0);
 		post.setModerate(rs.getInt("need_moderate") == 1);
@@ -167,16 +187,69 @@ public class GenericPostDAO extends AutoKeys implements net.jforum.dao.PostDAO
 			text = JForumExecutionContext.getConnection().prepareStatement(
 					SystemGlobals.getSql("PostModel.deletePostText"));
 
+			int visible = 0;
+			Map changedTopics = new HashMap();
+			Set restoredTopics = new HashSet();
+			
 			for (Iterator iter = posts.iterator(); iter.hasNext();) {
 				Post p = (Post) iter.next();
 
+				if (p.getTopicId() > 0 && restoredTopics.add(new Integer(p.getTopicId()))) {
+					this.restoreTopic(p.getTopicId());
+				}
+
 				post.setInt(1, p.getId());
 				text.setInt(1, p.getId());
 
-				text.executeUpdate();
-				post.executeUpdate();
+				text.addBatch();
+				post.addBatch();
+				
+				if (!p.isModerationNeeded()) {
+					visible++;
+
+					if (p.getTopicId() > 0) {
+						changedTopics.put(new Integer(p.getTopicId()), new Integer(p.getForumId()));
+					}
+				}
+			}
+			
+			text.executeBatch();
+			post.executeBatch();
+			
+			// The index only changes once the messages are gone for good
+			final List deleted = new ArrayList(posts.size());
+			
+			for (Iterator iter = posts.iterator(); iter.hasNext(); ) {
+				deleted.add(new Post((Post)iter.next()));
+			}
+			
+			JForumExecutionContext.afterCommit(new Runnable() {
+				public void run()
+				{
+					for (Iterator iter = deleted.iterator(); iter.hasNext(); ) {
+						SearchFacade.delete((Post)iter.next());
+					}
+				}
 				
-				SearchFacade.delete(p);
+				public String toString()
+				{
+					return "search removal of " + deleted.size() + " posts";
+				}
+			});
+			
+			BoardStatsRepository.addPosts(-visible);
+
+			// The last message of these topics may have changed
+			if (changedTopics.size() > 0) {
+				TopicDAO topicDao = DataAccessDriver.getInstance().newTopicDAO();
+
+				for (Iterator iter = changedTopics.entrySet().iterator(); iter.hasNext(); ) {
+					Map.Entry entry = (Map.Entry)iter.next();
+					int topicId = ((Integer)entry.getKey()).intValue();
+
+					UnreadTopicsIndex.topicChanged(((Integer)entry.getValue()).intValue(), topicId,
+						topicDao.getLastPostTime(topicId));
+				}
 			}
 		}
 		catch (SQLException e) {
@@ -193,13 +266,36 @@ public class GenericPostDAO extends AutoKeys implements net.jforum.dao.PostDAO
 	 */
 	public void deleteByTopic(int topicId)
 	{
+		List l = new ArrayList();
+		l.add(new Integer(topicId));
+		this.deleteByTopics(l);
+	}
+
+	/**
+	 * @see net.jforum.dao.PostDAO#deleteByTopics(java.util.List)
+	 */
+	public void deleteByTopics(List topicIds)
+	{
+		if (topicIds.size() == 0) {
+			return;
+		}
+		
 		PreparedStatement p = null;
 		ResultSet rs = null;
 		
 		try {
-			p = JForumExecutionContext.getConnection()
-				.prepareStatement(SystemGlobals.getSql("PostModel.deleteByTopic"));
-			p.setInt(1, topicId);
+			StringBuffer sb = new StringBuffer(topicIds.size() * 8);
+			
+			for (Iterator iter = topicIds.iterator(); iter.hasNext(); ) {
+				sb.append(iter.next()).append(',');
+			}
+			
+			sb.setLength(sb.length() - 1);
+			String ids = sb.toString();
+			
+			// The messages of archived topics are read from the archive, not restored first
+			p = JForumExecutionContext.getConnection().prepareStatement(
+				SystemGlobals.getSql("PostModel.deleteByTopics").replaceAll(":topicIds:", ids));
 			rs = p.executeQuery();
 
 			List posts = new ArrayList();
@@ -208,11 +304,15 @@ public class GenericPostDAO extends AutoKeys implements net.jforum.dao.PostDAO
 				Post post = new Post();
 				post.setId(rs.getInt("post_id"));
 				post.setUserId(rs.getInt("user_id"));
+				post.setModerate(rs.getInt("need_moderate") == 1);
 
 				posts.add(post);
 			}
 
 			this.removePosts(posts);
+			
+			this.executeByTopics("PostModel.deleteArchivedTextsByTopics", ids);
+			this.executeByTopics("PostModel.deleteArchivedByTopics", ids);
 		}
 		catch (SQLException e) {
 			throw new DatabaseException(e);
@@ -221,12 +321,30 @@ public class GenericPostDAO extends AutoKeys implements net.jforum.dao.PostDAO
 			DbUtils.close(rs, p);
 		}
 	}
+	
+	private void executeByTopics(String query, String topicIds)
+	{
+		PreparedStatement p = null;
+		
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(
+				SystemGlobals.getSql(query).replaceAll(":topicIds:", topicIds));
+			p.executeUpdate();
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(p);
+		}
+	}
 
 	/**
 	 * @see net.jforum.dao.PostDAO#update(net.jforum.entities.Post)
 	 */
 	public void update(Post post)
 	{
+		this.restoreTopic(post.getTopicId());
 		this.updatePostsTable(post);
 		this.updatePostsTextTable(post);
 
@@ -240,7 +358,7 @@ public class GenericPostDAO extends AutoKeys implements net.jforum.dao.PostDAO
 		try {
 			p = JForumExecutionContext.getConnection().prepareStatement(
 					SystemGlobals.getSql("PostModel.updatePostText"));
-			p.setString(1, post.getText());
+			p.setString(1, PostTextCodec.encode(post.getText()));
 			p.setString(2, post.getSubject());
 			p.setInt(3, post.getId());
 
@@ -287,11 +405,29 @@ public class GenericPostDAO extends AutoKeys implements net.jforum.dao.PostDAO
 	public int addNew(Post post)
 	{
 		try {
+			this.restoreTopic(post.getTopicId());
 			this.addNewPost(post);
 			this.addNewPostText(post);
+			
+			if (!post.isModerationNeeded()) {
+				BoardStatsRepository.addPosts(1);
+				UnreadTopicsIndex.postAdded(post.getForumId(), post.getTopicId(), post.getTime().getTime());
+			}
 
-			// Search
-			SearchFacade.create(post);
+			// Search. Only committed posts are indexed
+			final Post indexed = new Post(post);
+			
+			JForumExecutionContext.afterCommit(new Runnable() {
+				public void run()
+				{
+					SearchFacade.create(indexed);
+				}
+				
+				public String toString()
+				{
+					return "search indexing of post #" + indexed.getId();
+				}
+			});
 			
 			return post.getId();
 		}
@@ -307,7 +443,7 @@ public class GenericPostDAO extends AutoKeys implements net.jforum.dao.PostDAO
 			p = JForumExecutionContext.getConnection().prepareStatement(
 				SystemGlobals.getSql("PostModel.addNewPostText"));
 			p.setInt(1, post.getId());
-			p.setString(2, post.getText());
+			p.setString(2, PostTextCodec.encode(post.getText()));
 			p.setString(3, post.getSubject());
 			p.executeUpdate();
 		}
@@ -345,6 +481,17 @@ public class GenericPostDAO extends AutoKeys implements net.jforum.dao.PostDAO
 		}
 	}
 
+	/**
+	 * Moves the messages of an archived topic back to the posts tables,
+	 * so they can be changed. Does nothing if the topic is not archived.
+	 * 
+	 * @param topicId the topic id
+	 */
+	protected void restoreTopic(int topicId)
+	{
+		DataAccessDriver.getInstance().newArchiveDAO().restoreTopic(topicId);
+	}
+
 	/**
 	 * @see net.jforum.dao.PostDAO#selectAllBytTopic(int)
 	 */
@@ -357,6 +504,20 @@ public class GenericPostDAO extends AutoKeys implements net.jforum.dao.PostDAO
 	 * @see net.jforum.dao.PostDAO#selectAllBytTopicByLimit(int, int, int)
 	 */
 	public List selectAllByTopicByLimit(int topicId, int startFrom, int count)
+	{
+		List l = this.selectHotByTopicByLimit(topicId, startFrom, count);
+
+		if (l.isEmpty()) {
+			l = this.selectArchivedByTopic(topicId, startFrom, count);
+		}
+
+		return l;
+	}
+
+	/**
+	 * Reads a page of the messages of a topic from the posts tables
+	 */
+	protected List selectHotByTopicByLimit(int topicId, int startFrom, int count)
 	{
 		List l = new ArrayList();
 
@@ -387,6 +548,133 @@ public class GenericPostDAO extends AutoKeys implements net.jforum.dao.PostDAO
 		}
 	}
 
+	/**
+	 * @see net.jforum.dao.PostDAO#selectAllByTopicAfter(int, java.util.Date, int, int)
+	 */
+	public List selectAllByTopicAfter(int topicId, Date postTime, int postId, int count)
+	{
+		List l = this.selectHotByTopicAfter(topicId, postTime, postId, count);
+
+		if (l.isEmpty()) {
+			l = this.selectArchivedByTopicAfter(topicId, postTime, postId, count);
+		}
+
+		return l;
+	}
+
+	/**
+	 * Reads the messages of a topic that come after some message from the posts tables
+	 */
+	protected List selectHotByTopicAfter(int topicId, Date postTime, int postId, int count)
+	{
+		List l = new ArrayList();
+
+		String sql = SystemGlobals.getSql("PostModel.selectAllByTopicAfter");
+
+		PreparedStatement p = null;
+		ResultSet rs = null;
+		
+		try {
+			Timestamp time = new Timestamp(postTime.getTime());
+			
+			p = JForumExecutionContext.getConnection().prepareStatement(sql);
+			p.setInt(1, topicId);
+			p.setTimestamp(2, time);
+			p.setTimestamp(3, time);
+			p.setInt(4, postId);
+			p.setInt(5, count);
+
+			rs = p.executeQuery();
+
+			while (rs.next()) {
+				l.add(this.makePost(rs));
+			}
+
+			return l;
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(rs, p);
+		}
+	}
+
+	/**
+	 * Reads a page of the messages of an archived topic. The archive is read without
+	 * a limit clause, which is written differently by each database, so the
+	 * rows before <code>startFrom</code> are skipped here.
+	 */
+	private List selectArchivedByTopic(int topicId, int startFrom, int count)
+	{
+		List l = new ArrayList();
+
+		PreparedStatement p = null;
+		ResultSet rs = null;
+		
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(
+				SystemGlobals.getSql("ArchiveModel.selectAllByTopic"));
+			p.setInt(1, topicId);
+
+			long maxRows = (long)startFrom + count;
+
+			if (maxRows < Integer.MAX_VALUE) {
+				p.setMaxRows((int)maxRows);
+			}
+
+			rs = p.executeQuery();
+
+			for (int row = 0; rs.next(); row++) {
+				if (row >= startFrom) {
+					l.add(this.makePost(rs));
+				}
+			}
+
+			return l;
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(rs, p);
+		}
+	}
+
+	private List selectArchivedByTopicAfter(int topicId, Date postTime, int postId, int count)
+	{
+		List l = new ArrayList();
+
+		PreparedStatement p = null;
+		ResultSet rs = null;
+		
+		try {
+			Timestamp time = new Timestamp(postTime.getTime());
+
+			p = JForumExecutionContext.getConnection().prepareStatement(
+				SystemGlobals.getSql("ArchiveModel.selectAllByTopicAfter"));
+			p.setInt(1, topicId);
+			p.setTimestamp(2, time);
+			p.setTimestamp(3, time);
+			p.setInt(4, postId);
+			p.setMaxRows(count);
+
+			rs = p.executeQuery();
+
+			while (rs.next()) {
+				l.add(this.makePost(rs));
+			}
+
+			return l;
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(rs, p);
+		}
+	}
+
 	/**
 	 * @see net.jforum.dao.PostDAO#selectByUserByLimit(int, int, int)
 	 */
@@ -453,14 +741,24 @@ public class GenericPostDAO extends AutoKeys implements net.jforum.dao.PostDAO
 	 * @see net.jforum.model.PostModel#countPreviousPosts(int)
 	 */
 	public int countPreviousPosts(int postId)
+	{
+		int total = this.countPreviousPosts("PostModel.countPreviousPosts", postId);
+
+		if (total == 0) {
+			total = this.countPreviousPosts("ArchiveModel.countPreviousPosts", postId);
+		}
+
+		return total;
+	}
+
+	private int countPreviousPosts(String query, int postId)
 	{
 		int total = 0;
 
 		PreparedStatement p = null;
 		ResultSet rs = null;
 		try {
-			p = JForumExecutionContext.getConnection().prepareStatement(
-					SystemGlobals.getSql("PostModel.countPreviousPosts"));
+			p = JForumExecutionContext.getConnection().prepareStatement(SystemGlobals.getSql(query));
 			p.setInt(1, postId);
 			p.setInt(2, postId);
 
@@ -541,13 +839,58 @@ public class GenericPostDAO extends AutoKeys implements net.jforum.dao.PostDAO
 		return l;
 	}
 
+	/**
+	 * @see net.jforum.dao.PostDAO#selectTexts(int, int)
+	 */
+	public List selectTexts(int afterPostId, int count)
+	{
+		List l = new ArrayList();
+
+		PreparedStatement p = null;
+		ResultSet rs = null;
+
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(
+				SystemGlobals.getSql("PostModel.selectTexts"));
+			p.setInt(1, afterPostId);
+			p.setMaxRows(count);
+
+			rs = p.executeQuery();
+
+			while (rs.next()) {
+				Post post = new Post();
+				post.setId(rs.getInt("post_id"));
+				post.setSubject(rs.getString("post_subject"));
+				post.setText(this.getPostTextFromResultSet(rs));
+
+				l.add(post);
+			}
+
+			return l;
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(rs, p);
+		}
+	}
+
+	/**
+	 * @see net.jforum.dao.PostDAO#updateText(net.jforum.entities.Post)
+	 */
+	public void updateText(Post post)
+	{
+		this.updatePostsTextTable(post);
+	}
+
 	private Post buildPostForRSS(ResultSet rs) throws SQLException 
 	{
 		Post post = new Post();
 		
 		post.setId(rs.getInt("post_id"));
 		post.setSubject(rs.getString("subject"));
-		post.setText(rs.getString("post_text"));
+		post.setText(PostTextCodec.decode(rs.getString("post_text")));
 		post.setTopicId(rs.getInt("topic_id"));
 		post.setForumId(rs.getInt("forum_id")); 
 		post.setUserId(rs.getInt("user_id"));
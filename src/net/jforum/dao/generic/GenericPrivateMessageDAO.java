@@ -91,6 +91,11 @@ public class GenericPrivateMessageDAO extends AutoKeys implements net.jforum.dao
 			pm.setId(this.executeAutoKeysQuery(p));
 
 			this.addPmText(pm);
+
+			UserDAO userDao = DataAccessDriver.getInstance().newUserDAO();
+			userDao.addNewPrivateMessages(pm.getToUser().getId(), 1);
+			userDao.addFolderMessages(pm.getToUser().getId(), 1, 0);
+			userDao.addFolderMessages(pm.getFromUser().getId(), 0, 1);
 		}
 		catch (Exception e) {
 			throw new DatabaseException(e);
@@ -131,122 +136,195 @@ public class GenericPrivateMessageDAO extends AutoKeys implements net.jforum.dao
 	/**
 	 * @see net.jforum.dao.PrivateMessageDAO#delete(net.jforum.entities.PrivateMessage[], int)
 	 */
-	public void delete(PrivateMessage[] pm, int userId)
+	public int delete(PrivateMessage[] pm, int userId)
 	{
+		if (pm.length == 0) {
+			return 0;
+		}
+
+		StringBuffer sb = new StringBuffer(pm.length * 8);
+
+		for (int i = 0; i < pm.length; i++) {
+			sb.append(pm[i].getId()).append(',');
+		}
+
+		sb.setLength(sb.length() - 1);
+
+		PreparedStatement p = null;
+		ResultSet rs = null;
 		PreparedStatement deleteMessage = null;
 		PreparedStatement deleteText = null;
-		PreparedStatement isDeleteAllowed = null;
 		
 		try {
 			Connection connection = JForumExecutionContext.getConnection();
-			
+
+			// Only the messages in the user's own folders can be deleted
+			p = connection.prepareStatement(SystemGlobals.getSql("PrivateMessagesModel.selectDeletable")
+				.replaceAll(":ids:", sb.toString()));
+			p.setInt(1, userId);
+			p.setInt(2, userId);
+
 			deleteMessage = connection.prepareStatement(SystemGlobals.getSql("PrivateMessageModel.delete"));
 			deleteText = connection.prepareStatement(SystemGlobals.getSql("PrivateMessagesModel.deleteText"));
-			
-			isDeleteAllowed = connection.prepareStatement(SystemGlobals.getSql("PrivateMessagesModel.isDeleteAllowed"));
-			isDeleteAllowed.setInt(2, userId);
-			isDeleteAllowed.setInt(3, userId);
-
-			for (int i = 0; i < pm.length; i++) {
-				PrivateMessage currentMessage = pm[i];
-				
-				isDeleteAllowed.setInt(1, currentMessage.getId());
-
-				ResultSet rs = null;
-				
-				try {
-					rs = isDeleteAllowed.executeQuery();
-					
-					if (rs.next()) {
-						deleteText.setInt(1, currentMessage.getId());
-						deleteText.executeUpdate();
-		
-						deleteMessage.setInt(1, currentMessage.getId());
-						deleteMessage.executeUpdate();
-					}
+
+			List ids = new ArrayList();
+			List types = new ArrayList();
+
+			rs = p.executeQuery();
+
+			while (rs.next()) {
+				int id = rs.getInt("privmsgs_id");
+				int type = rs.getInt("privmsgs_type");
+
+				deleteMessage.setInt(1, id);
+				deleteMessage.setInt(2, type);
+				deleteMessage.addBatch();
+
+				ids.add(new Integer(id));
+				types.add(new Integer(type));
+			}
+
+			if (ids.size() == 0) {
+				return 0;
+			}
+
+			int[] deleted = deleteMessage.executeBatch();
+
+			int inbox = 0;
+			int sent = 0;
+			int newMessages = 0;
+
+			for (int i = 0; i < deleted.length; i++) {
+				// Another request changed or deleted the message since it was read
+				if (deleted[i] == 0) {
+					continue;
 				}
-				finally {
-					DbUtils.close(rs);
+
+				deleteText.setInt(1, ((Integer)ids.get(i)).intValue());
+				deleteText.addBatch();
+
+				int type = ((Integer)types.get(i)).intValue();
+
+				if (type == PrivateMessageType.SENT) {
+					sent++;
+				}
+				else {
+					inbox++;
+
+					if (type == PrivateMessageType.NEW) {
+						newMessages++;
+					}
 				}
 			}
+
+			if (inbox + sent == 0) {
+				return 0;
+			}
+
+			deleteText.executeBatch();
+
+			UserDAO userDao = DataAccessDriver.getInstance().newUserDAO();
+			userDao.addFolderMessages(userId, -inbox, -sent);
+
+			if (newMessages > 0) {
+				userDao.addNewPrivateMessages(userId, -newMessages);
+			}
+
+			return newMessages;
 		}
 		catch (SQLException e) {
 			throw new DatabaseException(e);
 		}
 		finally {
+			DbUtils.close(rs, p);
 			DbUtils.close(deleteMessage);
 			DbUtils.close(deleteText);
-			DbUtils.close(isDeleteAllowed);
 		}
 	}
 
 	/**
-	 * @see net.jforum.dao.PrivateMessageDAO#selectFromInbox(net.jforum.entities.User)
+	 * @see net.jforum.dao.PrivateMessageDAO#selectFromInbox(net.jforum.entities.User, int, int)
 	 */
-	public List selectFromInbox(User user)
+	public List selectFromInbox(User user, int startFrom, int count)
 	{
-		String query = SystemGlobals.getSql("PrivateMessageModel.baseListing");
-		query = query.replaceAll("#FILTER#", SystemGlobals.getSql("PrivateMessageModel.inbox"));
-
-		PreparedStatement p = null;
-		ResultSet rs = null;
-		try {
-			p = JForumExecutionContext.getConnection().prepareStatement(query);
-			p.setInt(1, user.getId());
-
-			List pmList = new ArrayList();
-
-			rs = p.executeQuery();
-			while (rs.next()) {
-				PrivateMessage pm = this.getPm(rs, false);
-
-				User fromUser = new User();
-				fromUser.setId(rs.getInt("user_id"));
-				fromUser.setUsername(rs.getString("username"));
+		return this.selectFolder(true, user, Integer.MAX_VALUE, startFrom, count);
+	}
 
-				pm.setFromUser(fromUser);
+	/**
+	 * @see net.jforum.dao.PrivateMessageDAO#selectFromInboxAfter(net.jforum.entities.User, int, int)
+	 */
+	public List selectFromInboxAfter(User user, int lastId, int count)
+	{
+		return this.selectFolder(true, user, lastId, 0, count);
+	}
 
-				pmList.add(pm);
-			}
+	/**
+	 * @see net.jforum.dao.PrivateMessageDAO#selectFromSent(net.jforum.entities.User, int, int)
+	 */
+	public List selectFromSent(User user, int startFrom, int count)
+	{
+		return this.selectFolder(false, user, Integer.MAX_VALUE, startFrom, count);
+	}
 
-			return pmList;
-		}
-		catch (SQLException e) {
-			throw new DatabaseException(e);
-		}
-		finally {
-			DbUtils.close(rs, p);
-		}
+	/**
+	 * @see net.jforum.dao.PrivateMessageDAO#selectFromSentAfter(net.jforum.entities.User, int, int)
+	 */
+	public List selectFromSentAfter(User user, int lastId, int count)
+	{
+		return this.selectFolder(false, user, lastId, 0, count);
 	}
 
 	/**
-	 * @see net.jforum.dao.PrivateMessageDAO#selectFromSent(net.jforum.entities.User)
+	 * Reads a page of the inbox or the sent box, with the messages older than
+	 * <code>lastId</code>. The rows are limited with <code>setMaxRows()</code> instead
+	 * of a limit clause, which is written differently by each database, so the
+	 * <code>skip</code> rows before the page are read and dropped here.
 	 */
-	public List selectFromSent(User user)
+	private List selectFolder(boolean inbox, User user, int lastId, int skip, int count)
 	{
 		String query = SystemGlobals.getSql("PrivateMessageModel.baseListing");
-		query = query.replaceAll("#FILTER#", SystemGlobals.getSql("PrivateMessageModel.sent"));
+		query = query.replaceAll("#FILTER#", SystemGlobals.getSql(inbox 
+			? "PrivateMessageModel.inbox" 
+			: "PrivateMessageModel.sent"));
 
 		PreparedStatement p = null;
 		ResultSet rs = null;
 		try {
 			p = JForumExecutionContext.getConnection().prepareStatement(query);
 			p.setInt(1, user.getId());
+			p.setInt(2, lastId);
+
+			long maxRows = (long)skip + count;
+
+			if (maxRows < Integer.MAX_VALUE) {
+				p.setMaxRows((int)maxRows);
+			}
 
 			List pmList = new ArrayList();
 
 			rs = p.executeQuery();
-			while (rs.next()) {
+
+			for (int row = 0; rs.next(); row++) {
+				if (row < skip) {
+					continue;
+				}
+
 				PrivateMessage pm = this.getPm(rs, false);
 
-				User toUser = new User();
-				toUser.setId(rs.getInt("user_id"));
-				toUser.setUsername(rs.getString("username"));
+				User other = new User();
+				other.setId(rs.getInt("user_id"));
+				other.setUsername(rs.getString("username"));
 
-				pm.setToUser(toUser);
+				if (inbox) {
+					pm.setFromUser(other);
+				}
+				else {
+					pm.setToUser(other);
+				}
 
 				pmList.add(pm);
 			}
+
 			return pmList;
 		}
 		catch (SQLException e) {
@@ -330,18 +408,49 @@ public class GenericPrivateMessageDAO extends AutoKeys implements net.jforum.dao
 	public void updateType(PrivateMessage pm)
 	{
 		PreparedStatement p = null;
+		ResultSet rs = null;
 		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(
+					SystemGlobals.getSql("PrivateMessageModel.selectType"));
+			p.setInt(1, pm.getId());
+
+			rs = p.executeQuery();
+
+			if (!rs.next()) {
+				return;
+			}
+
+			int previousType = rs.getInt("privmsgs_type");
+			int toUserId = rs.getInt("privmsgs_to_userid");
+
+			rs.close();
+			rs = null;
+			p.close();
+
 			p = JForumExecutionContext.getConnection().prepareStatement(
 					SystemGlobals.getSql("PrivateMessageModel.updateType"));
 			p.setInt(1, pm.getType());
 			p.setInt(2, pm.getId());
-			p.executeUpdate();
+			p.setInt(3, previousType);
+
+			// Another request changed or deleted the message since it was read
+			if (p.executeUpdate() == 0) {
+				return;
+			}
+
+			// Keep the number of new messages of the recipient up to date
+			int delta = (pm.getType() == PrivateMessageType.NEW ? 1 : 0)
+				- (previousType == PrivateMessageType.NEW ? 1 : 0);
+
+			if (delta != 0) {
+				DataAccessDriver.getInstance().newUserDAO().addNewPrivateMessages(toUserId, delta);
+			}
 		}
 		catch (SQLException e) {
 			throw new DatabaseException(e);
 		}
 		finally {
-			DbUtils.close(p);
+			DbUtils.close(rs, p);
 		}
 	}
 }
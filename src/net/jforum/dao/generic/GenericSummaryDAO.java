@@ -55,6 +55,7 @@ import net.jforum.dao.SummaryDAO;
 import net.jforum.entities.Post;
 import net.jforum.exceptions.DatabaseException;
 import net.jforum.util.DbUtils;
+import net.jforum.util.PostTextCodec;
 import net.jforum.util.preferences.ConfigKeys;
 import net.jforum.util.preferences.SystemGlobals;
 
@@ -105,7 +106,7 @@ public class GenericSummaryDAO extends AutoKeys implements SummaryDAO
 		Timestamp postTime = rs.getTimestamp("post_time");
 		post.setTime(postTime);
 		post.setSubject(rs.getString("post_subject"));
-		post.setText(rs.getString("post_text"));
+		post.setText(PostTextCodec.decode(rs.getString("post_text")));
 		post.setPostUsername(rs.getString("username"));
 
 		SimpleDateFormat df = new SimpleDateFormat(SystemGlobals.getValue(ConfigKeys.DATE_TIME_FORMAT));
@@ -54,19 +54,23 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import net.jforum.JForumExecutionContext;
 import net.jforum.SessionFacade;
 import net.jforum.dao.DataAccessDriver;
 import net.jforum.dao.ForumDAO;
 import net.jforum.dao.PollDAO;
-import net.jforum.dao.PostDAO;
 import net.jforum.dao.TopicDAO;
 import net.jforum.entities.KarmaStatus;
 import net.jforum.entities.Topic;
 import net.jforum.entities.User;
 import net.jforum.exceptions.DatabaseException;
+import net.jforum.repository.BoardStatsRepository;
 import net.jforum.repository.ForumRepository;
+import net.jforum.repository.HottestTopics;
+import net.jforum.repository.UnreadTopicsIndex;
+import net.jforum.repository.UserSummaryRepository;
 import net.jforum.search.SearchArgs;
 import net.jforum.search.SearchResult;
 import net.jforum.util.DbUtils;
@@ -79,6 +83,13 @@ import net.jforum.util.preferences.SystemGlobals;
  */
 public class GenericTopicDAO extends AutoKeys implements TopicDAO
 {
+	private static final ThreadLocal dateFormat = new ThreadLocal();
+	
+	/**
+	 * How many topics are deleted by each batch, as their ids go in an <code>IN</code> clause
+	 */
+	private static final int DELETE_BATCH_SIZE = 200;
+
 	/**
 	 * @see net.jforum.dao.TopicDAO#findTopicsByDateRange(net.jforum.search.SearchArgs)
 	 */
@@ -95,6 +106,8 @@ public class GenericTopicDAO extends AutoKeys implements TopicDAO
 			
 			p.setTimestamp(1, new Timestamp(args.getFromDate().getTime()));
 			p.setTimestamp(2, new Timestamp(args.getToDate().getTime()));
+			p.setTimestamp(3, new Timestamp(args.getFromDate().getTime()));
+			p.setTimestamp(4, new Timestamp(args.getToDate().getTime()));
 			
 			rs = p.executeQuery();
 			List l = new ArrayList();
@@ -149,6 +162,8 @@ public class GenericTopicDAO extends AutoKeys implements TopicDAO
 				p.setInt(2, last);
 				p.setInt(3, topicId);
 				p.executeUpdate();
+
+				this.updateLastPostData(topicId);
 			}
 		}
 		catch (SQLException e) {
@@ -159,6 +174,59 @@ public class GenericTopicDAO extends AutoKeys implements TopicDAO
 		}
 	}
 
+	/**
+	 * @see net.jforum.dao.TopicDAO#updateLastPostData(int)
+	 */
+	public void updateLastPostData(int topicId)
+	{
+		this.executeTopicUpdate("TopicModel.updateLastPostData", topicId);
+	}
+
+	/**
+	 * @see net.jforum.dao.TopicDAO#updateHasAttachByPost(int)
+	 */
+	public void updateHasAttachByPost(int postId)
+	{
+		this.executeTopicUpdate("TopicModel.updateHasAttach", postId);
+	}
+
+	/**
+	 * @see net.jforum.dao.TopicDAO#rebuildLastPostData(int, int)
+	 */
+	public void rebuildLastPostData(int firstTopicId, int lastTopicId)
+	{
+		PreparedStatement p = null;
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(
+					SystemGlobals.getSql("TopicModel.rebuildLastPostData"));
+			p.setInt(1, firstTopicId);
+			p.setInt(2, lastTopicId);
+			p.executeUpdate();
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(p);
+		}
+	}
+
+	private void executeTopicUpdate(String query, int id)
+	{
+		PreparedStatement p = null;
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(SystemGlobals.getSql(query));
+			p.setInt(1, id);
+			p.executeUpdate();
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(p);
+		}
+	}
+
 	/**
 	 * @see net.jforum.dao.TopicDAO#selectById(int)
 	 */
@@ -214,6 +282,38 @@ public class GenericTopicDAO extends AutoKeys implements TopicDAO
 		}
 	}
 
+	/**
+	 * @see net.jforum.dao.TopicDAO#selectRawByIds(java.util.Collection)
+	 */
+	public List selectRawByIds(Collection topicIds)
+	{
+		List l = new ArrayList();
+
+		if (topicIds.size() == 0) {
+			return l;
+		}
+
+		PreparedStatement p = null;
+		ResultSet rs = null;
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(
+				SystemGlobals.getSql("TopicModel.selectRawByIds").replaceAll(":topicIds:", this.idList(topicIds)));
+
+			rs = p.executeQuery();
+			while (rs.next()) {
+				l.add(this.getBaseTopicData(rs));
+			}
+
+			return l;
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(rs, p);
+		}
+	}
+
 	/**
 	 * @see net.jforum.dao.TopicDAO#delete(net.jforum.entities.Topic)
 	 */
@@ -224,46 +324,93 @@ public class GenericTopicDAO extends AutoKeys implements TopicDAO
 		this.deleteTopics(l, fromModeration);
 	}
 
+	/**
+	 * @see net.jforum.dao.TopicDAO#deleteTopics(java.util.List, boolean)
+	 */
 	public void deleteTopics(List topics, boolean fromModeration)
 	{
-		// Topic
-		PreparedStatement p = null;
-		try {
-			p = JForumExecutionContext.getConnection().prepareStatement(SystemGlobals.getSql("TopicModel.delete"));
-
+		// Always delete in the same order, so two batches never wait on each other
+		Map byId = new TreeMap();
+		
+		for (Iterator iter = topics.iterator(); iter.hasNext(); ) {
+			Topic topic = (Topic)iter.next();
+			byId.put(new Integer(topic.getId()), topic);
+		}
+		
+		List topicIds = new ArrayList(byId.keySet());
+		
+		for (int i = 0; i < topicIds.size(); i += DELETE_BATCH_SIZE) {
+			this.deleteTopicsBatch(topicIds.subList(i, Math.min(i + DELETE_BATCH_SIZE, topicIds.size())));
+		}
+		
+		Map perForum = new HashMap();
+		
+		for (Iterator iter = byId.values().iterator(); iter.hasNext(); ) {
+			Topic topic = (Topic)iter.next();
+			
+			UnreadTopicsIndex.topicRemoved(topic.getId());
+			HottestTopics.remove(topic.getId());
+			
+			Integer forumId = new Integer(topic.getForumId());
+			Integer total = (Integer)perForum.get(forumId);
+			perForum.put(forumId, new Integer(total == null ? 1 : total.intValue() + 1));
+		}
+		
+		if (!fromModeration) {
 			ForumDAO forumDao = DataAccessDriver.getInstance().newForumDAO();
-
-			PostDAO postDao = DataAccessDriver.getInstance().newPostDAO();
+			
+			for (Iterator iter = perForum.entrySet().iterator(); iter.hasNext(); ) {
+				Map.Entry entry = (Map.Entry)iter.next();
+				forumDao.decrementTotalTopics(((Integer)entry.getKey()).intValue(), ((Integer)entry.getValue()).intValue());
+			}
+		}
+		
+		BoardStatsRepository.addTopics(-byId.size());
+	}
+	
+	private void deleteTopicsBatch(List topicIds)
+	{
+		PreparedStatement watch = null;
+		PreparedStatement topic = null;
+		
+		try {
+			watch = JForumExecutionContext.getConnection().prepareStatement(
+				SystemGlobals.getSql("TopicModel.removeSubscriptionByTopic"));
+			topic = JForumExecutionContext.getConnection().prepareStatement(SystemGlobals.getSql("TopicModel.delete"));
+			
+			// Remove the watches
+			for (Iterator iter = topicIds.iterator(); iter.hasNext(); ) {
+				watch.setInt(1, ((Integer)iter.next()).intValue());
+				watch.addBatch();
+			}
+			
+			watch.executeBatch();
+			
+			// Remove the messages
+			DataAccessDriver.getInstance().newPostDAO().deleteByTopics(topicIds);
+			
+			// Remove the polls
 			PollDAO pollDao = DataAccessDriver.getInstance().newPollDAO();
-
-			for (Iterator iter = topics.iterator(); iter.hasNext();) {
-				Topic topic = (Topic) iter.next();
-
-				// Remove watches
-				this.removeSubscriptionByTopic(topic.getId());
-
-				// Remove the messages
-				postDao.deleteByTopic(topic.getId());
-
-				// Remove the poll
-				pollDao.deleteByTopicId(topic.getId());
-
-				// Delete the topic itself
-				p.setInt(1, topic.getId());
-				p.executeUpdate();
-
-				if (!fromModeration) {
-					forumDao.decrementTotalTopics(topic.getForumId(), 1);
-				}
+			
+			for (Iterator iter = topicIds.iterator(); iter.hasNext(); ) {
+				pollDao.deleteByTopicId(((Integer)iter.next()).intValue());
 			}
+			
+			// Delete the topics themselves
+			for (Iterator iter = topicIds.iterator(); iter.hasNext(); ) {
+				topic.setInt(1, ((Integer)iter.next()).intValue());
+				topic.addBatch();
+			}
+			
+			topic.executeBatch();
 		}
 		catch (SQLException e) {
 			throw new DatabaseException(e);
 		}
 		finally {
-			DbUtils.close(p);
+			DbUtils.close(watch);
+			DbUtils.close(topic);
 		}
-
 	}
 
 	/**
@@ -317,6 +464,8 @@ public class GenericTopicDAO extends AutoKeys implements TopicDAO
 			p.setInt(6, topic.getVoteId());
 			p.setInt(7, topic.getId());
 			p.executeUpdate();
+
+			this.updateLastPostData(topic.getId());
 		}
 		catch (SQLException e) {
 			throw new DatabaseException(e);
@@ -351,6 +500,7 @@ public class GenericTopicDAO extends AutoKeys implements TopicDAO
 			int topicId = this.executeAutoKeysQuery(p);
 			
 			topic.setId(topicId);
+			BoardStatsRepository.addTopics(1);
 			
 			return topicId;
 		}
@@ -382,6 +532,35 @@ public class GenericTopicDAO extends AutoKeys implements TopicDAO
 		}
 	}
 
+	/**
+	 * @see net.jforum.dao.TopicDAO#addTotalViews(java.util.Map)
+	 */
+	public void addTotalViews(Map views)
+	{
+		PreparedStatement p = null;
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(
+				SystemGlobals.getSql("TopicModel.addTotalViews"));
+			
+			// Always update in the same order, so two batches never wait on each other
+			for (Iterator iter = new TreeMap(views).entrySet().iterator(); iter.hasNext(); ) {
+				Map.Entry entry = (Map.Entry)iter.next();
+				
+				p.setInt(1, ((Integer)entry.getValue()).intValue());
+				p.setInt(2, ((Integer)entry.getKey()).intValue());
+				p.addBatch();
+			}
+			
+			p.executeBatch();
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(p);
+		}
+	}
+
 	/**
 	 * @see net.jforum.dao.TopicDAO#incrementTotalReplies(int)
 	 */
@@ -434,6 +613,8 @@ public class GenericTopicDAO extends AutoKeys implements TopicDAO
 			p.setInt(1, postId);
 			p.setInt(2, topicId);
 			p.executeUpdate();
+
+			this.updateLastPostData(topicId);
 		}
 		catch (SQLException e) {
 			throw new DatabaseException(e);
@@ -477,6 +658,34 @@ public class GenericTopicDAO extends AutoKeys implements TopicDAO
 		}
 	}
 
+	/**
+	 * @see net.jforum.dao.TopicDAO#selectAllByForumAfter(int, int, int, int)
+	 */
+	public List selectAllByForumAfter(int forumId, int topicType, int lastPostId, int count)
+	{
+		String sql = SystemGlobals.getSql("TopicModel.selectAllByForumAfter");
+
+		PreparedStatement p = null;
+
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(sql);
+			p.setInt(1, forumId);
+			p.setInt(2, forumId);
+			p.setInt(3, topicType);
+			p.setInt(4, topicType);
+			p.setInt(5, lastPostId);
+			p.setInt(6, count);
+
+			return this.fillTopicsData(p);
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(p);
+		}
+	}
+
 	/**
 	 * @see net.jforum.dao.TopicDAO#selectByUserByLimit(int, int, int)
 	 */
@@ -590,6 +799,35 @@ public class GenericTopicDAO extends AutoKeys implements TopicDAO
 		}
 	}
 
+	/**
+	 * @see net.jforum.dao.TopicDAO#getLastPostTime(int)
+	 */
+	public long getLastPostTime(int topicId)
+	{
+		PreparedStatement p = null;
+		ResultSet rs = null;
+		try {
+			p = JForumExecutionContext.getConnection()
+					.prepareStatement(SystemGlobals.getSql("TopicModel.getLastPostTime"));
+			p.setInt(1, topicId);
+
+			rs = p.executeQuery();
+			
+			if (rs.next()) {
+				Timestamp time = rs.getTimestamp("post_time");
+				return time == null ? 0 : time.getTime();
+			}
+
+			return 0;
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(rs, p);
+		}
+	}
+
 	/**
 	 * @see net.jforum.dao.TopicDAO#getTotalPosts(int)
 	 */
@@ -635,8 +873,10 @@ public class GenericTopicDAO extends AutoKeys implements TopicDAO
 					SystemGlobals.getSql("TopicModel.notifyUsers"));
 
 			stmt.setInt(1, topic.getId());
-			stmt.setInt(2, posterId); // don't notify the poster
-			stmt.setInt(3, anonUser); // don't notify the anonimous user
+			stmt.setInt(2, topic.getId());
+			stmt.setInt(3, topic.getLastPostId());
+			stmt.setInt(4, posterId); // don't notify the poster
+			stmt.setInt(5, anonUser); // don't notify the anonimous user
 
 			rs = stmt.executeQuery();
 
@@ -653,18 +893,6 @@ public class GenericTopicDAO extends AutoKeys implements TopicDAO
 
 				users.add(user);
 			}
-			
-			rs.close();
-			stmt.close();
-
-			// Set read status to false
-			stmt = JForumExecutionContext.getConnection().prepareStatement(
-				SystemGlobals.getSql("TopicModel.markAllAsUnread"));
-			stmt.setInt(1, topic.getId());
-			stmt.setInt(2, posterId); // don't notify the poster
-			stmt.setInt(3, anonUser); // don't notify the anonimous user
-
-			stmt.executeUpdate();
 
 			return users;
 		}
@@ -687,12 +915,12 @@ public class GenericTopicDAO extends AutoKeys implements TopicDAO
 			p = JForumExecutionContext.getConnection().prepareStatement(
 				SystemGlobals.getSql("TopicModel.subscribeUser"));
 
-			p.setInt(1, topicId);
+			p.setInt(2, topicId);
 			
 			for (Iterator iter = users.iterator(); iter.hasNext(); ) {
 				int userId = ((User)iter.next()).getId();
 				
-				p.setInt(2, userId);
+				p.setInt(1, userId);
 				p.executeUpdate();
 			}
 		}
@@ -789,27 +1017,32 @@ public class GenericTopicDAO extends AutoKeys implements TopicDAO
 	}
 
 	/**
-	 * @see net.jforum.dao.TopicDAO#updateReadStatus(int, int, boolean)
+	 * @see net.jforum.dao.TopicDAO#updateReadStatus(java.util.List)
 	 */
-	public void updateReadStatus(int topicId, int userId, boolean read)
+	public void updateReadStatus(List readStatus)
 	{
-		if (this.isUserSubscribed(topicId, userId)) {
-			PreparedStatement p = null;
-			try {
-				p = JForumExecutionContext.getConnection().prepareStatement(
-						SystemGlobals.getSql("TopicModel.updateReadStatus"));
-				p.setInt(1, read ? 1 : 0);
-				p.setInt(2, topicId);
-				p.setInt(3, userId);
-	
-				p.executeUpdate();
-			}
-			catch (SQLException e) {
-				throw new DatabaseException(e);
-			}
-			finally {
-				DbUtils.close(p);
+		PreparedStatement p = null;
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(
+					SystemGlobals.getSql("TopicModel.updateReadStatus"));
+			
+			for (Iterator iter = readStatus.iterator(); iter.hasNext(); ) {
+				int[] entry = (int[])iter.next();
+				
+				p.setInt(1, entry[2]);
+				p.setInt(2, entry[0]);
+				p.setInt(3, entry[1]);
+				p.setInt(4, entry[2]);
+				p.addBatch();
 			}
+
+			p.executeBatch();
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(p);
 		}
 	}
 
@@ -825,8 +1058,10 @@ public class GenericTopicDAO extends AutoKeys implements TopicDAO
 
 			for (int i = 0; i < topicId.length; i++) {
 				p.setInt(2, topicId[i]);
-				p.executeUpdate();
+				p.addBatch();
 			}
+			
+			p.executeBatch();
 		}
 		catch (SQLException e) {
 			throw new DatabaseException(e);
@@ -836,7 +1071,20 @@ public class GenericTopicDAO extends AutoKeys implements TopicDAO
 		}
 	}
 	
-	private List newMessages(List topicIds)
+	private String idList(Collection ids)
+	{
+		StringBuffer sb = new StringBuffer(ids.size() * 8);
+		
+		for (Iterator iter = ids.iterator(); iter.hasNext(); ) {
+			sb.append(iter.next()).append(',');
+		}
+		
+		sb.setLength(sb.length() - 1);
+		
+		return sb.toString();
+	}
+	
+	private List newMessages(Collection topicIds)
 	{
 		if (topicIds.size() == 0) {
 			return new ArrayList();
@@ -886,76 +1134,110 @@ public class GenericTopicDAO extends AutoKeys implements TopicDAO
 		try {
 			rs = p.executeQuery();
 
-			SimpleDateFormat df = new SimpleDateFormat(SystemGlobals.getValue(ConfigKeys.DATE_TIME_FORMAT));
-
-			StringBuffer sbFirst = new StringBuffer(128);
-			StringBuffer sbLast = new StringBuffer(128);
+			SimpleDateFormat df = dateFormat();
 
 			while (rs.next()) {
-				Topic t = this.getBaseTopicData(rs);
+				l.add(this.fillTopicListData(rs, df));
+			}
 
-				// Posted by
-				User u = new User();
-				u.setId(rs.getInt("user_id"));
-				t.setPostedBy(u);
+			this.fillTopicsUsers(l);
 
-				// Last post by
-				u = new User();
-				u.setId(rs.getInt("last_user_id"));
-				t.setLastPostBy(u);
+			return l;
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(rs, p);
+		}
+	}
 
-				t.setHasAttach(rs.getInt("attach") > 0);
-				t.setFirstPostTime(df.format(rs.getTimestamp("topic_time")));
-				t.setLastPostTime(df.format(rs.getTimestamp("post_time")));
-				t.setLastPostDate(new Date(rs.getTimestamp("post_time").getTime()));
+	/**
+	 * Builds a topic from a row of a topic listing query. Only the ids 
+	 * of the users who made the first and the last post are set.
+	 * 
+	 * @param rs the result set, positioned at the row to read
+	 * @param df the format of the post times
+	 * @return the topic
+	 * @throws SQLException
+	 * @see #fillTopicsUsers(List)
+	 */
+	protected Topic fillTopicListData(ResultSet rs, SimpleDateFormat df) throws SQLException
+	{
+		Topic t = this.getBaseTopicData(rs);
 
-				l.add(t);
+		// Posted by
+		User u = new User();
+		u.setId(rs.getInt("user_id"));
+		t.setPostedBy(u);
 
-				sbFirst.append(rs.getInt("user_id")).append(',');
-				sbLast.append(rs.getInt("last_user_id")).append(',');
-			}
+		// Last post by
+		u = new User();
+		u.setId(rs.getInt("last_user_id"));
+		t.setLastPostBy(u);
 
-			rs.close();
-			rs = null;
-			p.close();
-			p = null;
+		t.setHasAttach(rs.getInt("attach") > 0);
+		t.setFirstPostTime(df.format(rs.getTimestamp("topic_time")));
+		t.setLastPostTime(df.format(rs.getTimestamp("post_time")));
+		t.setLastPostDate(new Date(rs.getTimestamp("post_time").getTime()));
 
-			// Users
-			if (sbFirst.length() > 0) {
-				sbLast.delete(sbLast.length() - 1, sbLast.length());
+		return t;
+	}
 
-				String sql = SystemGlobals.getSql("TopicModel.getUserInformation");
-				sql = sql.replaceAll("#ID#", sbFirst.toString() + sbLast.toString());
+	/**
+	 * Sets the username of the users who made the first and the last post
+	 * of each topic, taken from {@link UserSummaryRepository}.
+	 * 
+	 * @param topics the topics, as returned by {@link #fillTopicListData(ResultSet, SimpleDateFormat)}
+	 */
+	protected void fillTopicsUsers(List topics)
+	{
+		if (topics.size() == 0) {
+			return;
+		}
 
-				Map users = new HashMap();
+		List ids = new ArrayList(topics.size() * 2);
 
-				p = JForumExecutionContext.getConnection().prepareStatement(sql);
-				rs = p.executeQuery();
+		for (Iterator iter = topics.iterator(); iter.hasNext(); ) {
+			Topic t = (Topic)iter.next();
+			ids.add(new Integer(t.getPostedBy().getId()));
+			ids.add(new Integer(t.getLastPostBy().getId()));
+		}
 
-				while (rs.next()) {
-					users.put(new Integer(rs.getInt("user_id")), rs.getString("username"));
-				}
+		Map users = UserSummaryRepository.getAll(ids);
 
-				rs.close();
-				rs = null;
-				p.close();
-				p = null;
+		for (Iterator iter = topics.iterator(); iter.hasNext(); ) {
+			Topic t = (Topic)iter.next();
+			this.setUsername(t.getPostedBy(), users);
+			this.setUsername(t.getLastPostBy(), users);
+		}
+	}
 
-				for (Iterator iter = l.iterator(); iter.hasNext();) {
-					Topic t = (Topic) iter.next();
-					t.getPostedBy().setUsername((String) users.get(new Integer(t.getPostedBy().getId())));
-					t.getLastPostBy().setUsername((String) users.get(new Integer(t.getLastPostBy().getId())));
-				}
-			}
+	private void setUsername(User u, Map users)
+	{
+		User summary = (User)users.get(new Integer(u.getId()));
 
-			return l;
-		}
-		catch (SQLException e) {
-			throw new DatabaseException(e);
+		if (summary != null) {
+			u.setUsername(summary.getUsername());
 		}
-		finally {
-			DbUtils.close(rs, p);
+	}
+
+	/**
+	 * Gets the date format for the topic listings. Each thread has its own
+	 * instance, created again if the configured format changes.
+	 * @return the date format
+	 */
+	protected static SimpleDateFormat dateFormat()
+	{
+		String pattern = SystemGlobals.getValue(ConfigKeys.DATE_TIME_FORMAT);
+		SimpleDateFormat df = (SimpleDateFormat)dateFormat.get();
+
+		if (df == null || !df.toPattern().equals(pattern)) {
+			df = new SimpleDateFormat(pattern);
+			dateFormat.set(df);
 		}
+
+		return df;
 	}
 
 	/**
@@ -1003,6 +1285,14 @@ public class GenericTopicDAO extends AutoKeys implements TopicDAO
 	    }
 	}
 	
+	/**
+	 * @see net.jforum.dao.TopicDAO#selectTopicsByIds(java.util.Collection)
+	 */
+	public List selectTopicsByIds(Collection topicIds)
+	{
+		return this.newMessages(topicIds);
+	}
+	
 	/**
 	 * @see net.jforum.dao.TopicDAO#setFirstPostId(int, int)
 	 */
@@ -1160,6 +1450,26 @@ public class GenericTopicDAO extends AutoKeys implements TopicDAO
 			rs.close();
 			p.close();
 
+			if (sb.length() == 0) {
+				// The messages may be in the archive
+				p = JForumExecutionContext.getConnection().prepareStatement(
+					SystemGlobals.getSql("ArchiveModel.distinctPosters"));
+				p.setInt(1, topicId);
+
+				rs = p.executeQuery();
+
+				while (rs.next()) {
+					sb.append(rs.getInt("user_id")).append(',');
+				}
+
+				rs.close();
+				p.close();
+			}
+
+			if (sb.length() == 0) {
+				return m;
+			}
+
 			int index = sql.indexOf(":ids:");
 			if (index > -1) {
 				sql.replace(index, index + 5, sb.substring(0, sb.length() - 1));
@@ -59,6 +59,9 @@ import net.jforum.entities.KarmaStatus;
 import net.jforum.entities.User;
 import net.jforum.exceptions.DatabaseException;
 import net.jforum.exceptions.ForumException;
+import net.jforum.repository.BoardStatsRepository;
+import net.jforum.repository.UserRepository;
+import net.jforum.repository.UserSummaryRepository;
 import net.jforum.sso.LoginAuthenticator;
 import net.jforum.util.DbUtils;
 import net.jforum.util.preferences.ConfigKeys;
@@ -70,6 +73,19 @@ import net.jforum.util.preferences.SystemGlobals;
  */
 public class GenericUserDAO extends AutoKeys implements UserDAO
 {
+	private static final int SUMMARIES_BATCH_SIZE = 20;
+	private static final String SUMMARIES_IDS;
+	
+	static {
+		StringBuffer sb = new StringBuffer(SUMMARIES_BATCH_SIZE * 2);
+		
+		for (int i = 0; i < SUMMARIES_BATCH_SIZE; i++) {
+			sb.append(i > 0 ? ",?" : "?");
+		}
+		
+		SUMMARIES_IDS = sb.toString();
+	}
+	
 	private static LoginAuthenticator loginAuthenticator;
 
 	public GenericUserDAO()
@@ -125,10 +141,20 @@ public class GenericUserDAO extends AutoKeys implements UserDAO
 	 */
 	public User selectById(int userId)
 	{
+		User cached = UserRepository.get(userId);
+
+		if (cached != null) {
+			return cached;
+		}
+
+		long version = UserRepository.version();
 		String q = SystemGlobals.getSql("UserModel.selectById");
 		PreparedStatement p = null;
 		ResultSet rs = null;
 		
+		// The user goes to the shared cache, so don't read it from a replica
+		boolean previous = JForumExecutionContext.usePrimary(true);
+		
 		try {
 			p = JForumExecutionContext.getConnection().prepareStatement(q);
 			p.setInt(1, userId);
@@ -138,7 +164,9 @@ public class GenericUserDAO extends AutoKeys implements UserDAO
 
 			if (rs.next()) {
 				this.fillUserFromResultSet(u, rs);
-				u.setPrivateMessagesCount(rs.getInt("private_messages"));
+				u.setPrivateMessagesCount(rs.getInt("user_new_privmsg"));
+				u.setInboxCount(rs.getInt("user_inbox_privmsg"));
+				u.setSentboxCount(rs.getInt("user_sent_privmsg"));
 
 				rs.close();
 				p.close();
@@ -156,6 +184,8 @@ public class GenericUserDAO extends AutoKeys implements UserDAO
 
 					u.getGroupsList().add(g);
 				}
+
+				UserRepository.add(u, version);
 			}
 
 			return u;
@@ -165,11 +195,18 @@ public class GenericUserDAO extends AutoKeys implements UserDAO
 		}
 		finally {
 			DbUtils.close(rs, p);
+			JForumExecutionContext.usePrimary(previous);
 		}
 	}
 
 	public User selectByName(String username)
 	{
+		User cached = UserRepository.getByName(username);
+
+		if (cached != null) {
+			return cached;
+		}
+
 		PreparedStatement p = null;
 		ResultSet rs = null;
 		try {
@@ -194,6 +231,56 @@ public class GenericUserDAO extends AutoKeys implements UserDAO
 		}
 	}
 
+	/**
+	 * @see net.jforum.dao.UserDAO#selectSummaries(java.util.List)
+	 */
+	public List selectSummaries(List userIds)
+	{
+		List l = new ArrayList();
+		PreparedStatement p = null;
+		ResultSet rs = null;
+		
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(
+				SystemGlobals.getSql("UserModel.selectSummaries").replaceAll(":ids:", SUMMARIES_IDS));
+			
+			// Always send SUMMARIES_BATCH_SIZE parameters, repeating the last
+			// id if needed, so the same statement is used every time
+			for (int start = 0; start < userIds.size(); start += SUMMARIES_BATCH_SIZE) {
+				for (int i = 0; i < SUMMARIES_BATCH_SIZE; i++) {
+					int index = Math.min(start + i, userIds.size() - 1);
+					p.setInt(i + 1, ((Integer)userIds.get(index)).intValue());
+				}
+				
+				rs = p.executeQuery();
+				
+				while (rs.next()) {
+					User u = new User();
+					
+					u.setId(rs.getInt("user_id"));
+					u.setUsername(rs.getString("username"));
+					u.setAvatar(rs.getString("user_avatar"));
+					u.setAvatarEnabled(rs.getInt("user_allowavatar") == 1);
+					u.setRankId(rs.getInt("rank_id"));
+					u.setTotalPosts(rs.getInt("user_posts"));
+					
+					l.add(u);
+				}
+				
+				rs.close();
+				rs = null;
+			}
+			
+			return l;
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(rs, p);
+		}
+	}
+	
 	protected void fillUserFromResultSet(User u, ResultSet rs) throws SQLException
 	{
 		u.setAim(rs.getString("user_aim"));
@@ -252,6 +339,8 @@ public class GenericUserDAO extends AutoKeys implements UserDAO
 			p.setInt(2, userId);
 
 			p.executeUpdate();
+
+			this.changed(userId);
 		}
 		catch (SQLException e) {
 			throw new DatabaseException(e);
@@ -309,6 +398,8 @@ public class GenericUserDAO extends AutoKeys implements UserDAO
 			p.setInt(32, user.getId());
 
 			p.executeUpdate();
+
+			this.changed(user.getId());
 		}
 		catch (SQLException e) {
 			throw new DatabaseException(e);
@@ -333,6 +424,7 @@ public class GenericUserDAO extends AutoKeys implements UserDAO
 			int id = this.executeAutoKeysQuery(p);
 
 			this.addToGroup(id, new int[] { SystemGlobals.getIntValue(ConfigKeys.DEFAULT_USER_GROUP) });
+			BoardStatsRepository.addUsers(1);
 
 			user.setId(id);
 			return id;
@@ -369,6 +461,7 @@ public class GenericUserDAO extends AutoKeys implements UserDAO
 			p.executeUpdate();
 
 			this.addToGroup(user.getId(), new int[] { SystemGlobals.getIntValue(ConfigKeys.DEFAULT_USER_GROUP) });
+			BoardStatsRepository.addUsers(1);
 		}
 		catch (SQLException e) {
 			throw new DatabaseException(e);
@@ -390,6 +483,8 @@ public class GenericUserDAO extends AutoKeys implements UserDAO
 			p.setInt(1, userId);
 
 			p.executeUpdate();
+
+			this.changed(userId);
 		}
 		catch (SQLException e) {
 			throw new DatabaseException(e);
@@ -411,6 +506,78 @@ public class GenericUserDAO extends AutoKeys implements UserDAO
 			p.setInt(1, userId);
 
 			p.executeUpdate();
+
+			this.changed(userId);
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(p);
+		}
+	}
+
+	/**
+	 * @see net.jforum.dao.UserDAO#addNewPrivateMessages(int, int)
+	 */
+	public void addNewPrivateMessages(final int userId, final int count)
+	{
+		PreparedStatement p = null;
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(
+					SystemGlobals.getSql("UserModel.addNewPrivateMessages"));
+			p.setInt(1, count);
+			p.setInt(2, userId);
+
+			p.executeUpdate();
+
+			// The cached copy must not change if the transaction is rolled back
+			JForumExecutionContext.afterCommit(new Runnable() {
+				public void run()
+				{
+					UserRepository.addPrivateMessages(userId, count);
+				}
+
+				public String toString()
+				{
+					return "Add " + count + " new private messages to the cached user " + userId;
+				}
+			});
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(p);
+		}
+	}
+
+	/**
+	 * @see net.jforum.dao.UserDAO#addFolderMessages(int, int, int)
+	 */
+	public void addFolderMessages(final int userId, final int inbox, final int sent)
+	{
+		PreparedStatement p = null;
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(
+					SystemGlobals.getSql("UserModel.addFolderMessages"));
+			p.setInt(1, inbox);
+			p.setInt(2, sent);
+			p.setInt(3, userId);
+
+			p.executeUpdate();
+
+			JForumExecutionContext.afterCommit(new Runnable() {
+				public void run()
+				{
+					UserRepository.addFolderMessages(userId, inbox, sent);
+				}
+
+				public String toString()
+				{
+					return "Add " + inbox + " inbox and " + sent + " sent messages to the cached user " + userId;
+				}
+			});
 		}
 		catch (SQLException e) {
 			throw new DatabaseException(e);
@@ -432,6 +599,8 @@ public class GenericUserDAO extends AutoKeys implements UserDAO
 			p.setInt(2, userId);
 
 			p.executeUpdate();
+
+			this.changed(userId);
 		}
 		catch (SQLException e) {
 			throw new DatabaseException(e);
@@ -453,6 +622,8 @@ public class GenericUserDAO extends AutoKeys implements UserDAO
 			p.setInt(2, userId);
 
 			p.executeUpdate();
+
+			this.changed(userId);
 		}
 		catch (SQLException e) {
 			throw new DatabaseException(e);
@@ -475,6 +646,8 @@ public class GenericUserDAO extends AutoKeys implements UserDAO
 			p.setInt(2, userId);
 
 			p.executeUpdate();
+
+			this.changed(userId);
 		}
 		catch (SQLException e) {
 			throw new DatabaseException(e);
@@ -752,6 +925,8 @@ public class GenericUserDAO extends AutoKeys implements UserDAO
 				p.setInt(2, groupId[i]);
 				p.executeUpdate();
 			}
+
+			this.changed(userId);
 		}
 		catch (SQLException e) {
 			throw new DatabaseException(e);
@@ -777,6 +952,8 @@ public class GenericUserDAO extends AutoKeys implements UserDAO
 				p.setInt(2, groupId[i]);
 				p.executeUpdate();
 			}
+
+			this.changed(userId);
 		}
 		catch (SQLException e) {
 			throw new DatabaseException(e);
@@ -798,6 +975,8 @@ public class GenericUserDAO extends AutoKeys implements UserDAO
 			p.setString(1, password);
 			p.setString(2, email);
 			p.executeUpdate();
+
+			UserRepository.clear();
 		}
 		catch (SQLException e) {
 			throw new DatabaseException(e);
@@ -851,6 +1030,8 @@ public class GenericUserDAO extends AutoKeys implements UserDAO
 			p.setString(1, hash);
 			p.setString(2, email);
 			p.executeUpdate();
+
+			UserRepository.clear();
 		}
 		catch (SQLException e) {
 			throw new DatabaseException(e);
@@ -964,6 +1145,8 @@ public class GenericUserDAO extends AutoKeys implements UserDAO
 					SystemGlobals.getSql("UserModel.writeUserActive"));
 			p.setInt(1, userId);
 			p.executeUpdate();
+
+			this.changed(userId);
 		}
 		catch (SQLException e) {
 			throw new DatabaseException(e);
@@ -985,6 +1168,8 @@ public class GenericUserDAO extends AutoKeys implements UserDAO
 			p.setString(1, username);
 			p.setInt(2, userId);
 			p.executeUpdate();
+
+			this.changed(userId);
 		}
 		catch (SQLException e) {
 			throw new DatabaseException(e);
@@ -1029,6 +1214,30 @@ public class GenericUserDAO extends AutoKeys implements UserDAO
 		}
 	}
 
+	/**
+	 * Removes a changed user from the repositories
+	 * @param userId the user id
+	 */
+	private void changed(final int userId)
+	{
+		UserSummaryRepository.remove(userId);
+		UserRepository.remove(userId);
+
+		// Until the commit, other requests still read the old row and may cache it again
+		JForumExecutionContext.afterCommit(new Runnable() {
+			public void run()
+			{
+				UserSummaryRepository.remove(userId);
+				UserRepository.remove(userId);
+			}
+			
+			public String toString()
+			{
+				return "Remove the cached user " + userId;
+			}
+		});
+	}
+
 	/**
 	 * Load KarmaStatus from a list of users.
 	 * 
@@ -1064,6 +1273,8 @@ public class GenericUserDAO extends AutoKeys implements UserDAO
 			p.setString(1, hash);
 			p.setInt(2, userId);
 			p.executeUpdate();
+
+			this.changed(userId);
 		}
 		catch (SQLException e) {
 			throw new DatabaseException(e);
@@ -42,9 +42,19 @@
  */
 package net.jforum.dao.hsqldb;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
+import net.jforum.JForumExecutionContext;
 import net.jforum.dao.generic.GenericPostDAO;
+import net.jforum.exceptions.DatabaseException;
+import net.jforum.util.DbUtils;
+import net.jforum.util.preferences.SystemGlobals;
 
 /**
  * @author Marc Wick
@@ -61,11 +71,11 @@ public class HsqldbPostDAO extends GenericPostDAO
 	}
 	
 	/**
-	 * @see net.jforum.dao.PostDAO#selectAllByTopicByLimit(int, int, int)
+	 * @see net.jforum.dao.generic.GenericPostDAO#selectHotByTopicByLimit(int, int, int)
 	 */
-	public List selectAllByTopicByLimit(int topicId, int startFrom, int count)
+	protected List selectHotByTopicByLimit(int topicId, int startFrom, int count)
 	{
-		return super.selectAllByTopicByLimit(startFrom, count, topicId);
+		return super.selectHotByTopicByLimit(startFrom, count, topicId);
 	}
 	
 	/**
@@ -75,4 +85,42 @@ public class HsqldbPostDAO extends GenericPostDAO
 	{
 		return super.selectByUserByLimit(startFrom, count, userId);
 	}
+
+	/**
+	 * @see net.jforum.dao.generic.GenericPostDAO#selectHotByTopicAfter(int, java.util.Date, int, int)
+	 */
+	protected List selectHotByTopicAfter(int topicId, Date postTime, int postId, int count)
+	{
+		List l = new ArrayList();
+
+		String sql = SystemGlobals.getSql("PostModel.selectAllByTopicAfter");
+		
+		PreparedStatement p = null;
+		ResultSet rs = null;
+		
+		try {
+			Timestamp time = new Timestamp(postTime.getTime());
+			
+			p = JForumExecutionContext.getConnection().prepareStatement(sql);
+			p.setInt(1, count);
+			p.setInt(2, topicId);
+			p.setTimestamp(3, time);
+			p.setTimestamp(4, time);
+			p.setInt(5, postId);
+
+			rs = p.executeQuery();
+
+			while (rs.next()) {
+				l.add(this.makePost(rs));
+			}
+
+			return l;
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(rs, p);
+		}
+	}
 }
\ No newline at end of file
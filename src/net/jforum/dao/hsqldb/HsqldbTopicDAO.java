@@ -91,4 +91,32 @@ public class HsqldbTopicDAO extends GenericTopicDAO
 	{
 		return super.selectByUserByLimit(count, startFrom, userId);
 	}
+
+	/**
+	 * @see net.jforum.dao.TopicDAO#selectAllByForumAfter(int, int, int, int)
+	 */
+	public List selectAllByForumAfter(int forumId, int topicType, int lastPostId, int count)
+	{
+		String sql = SystemGlobals.getSql("TopicModel.selectAllByForumAfter");
+
+		PreparedStatement p = null;
+
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(sql);
+			p.setInt(1, count);
+			p.setInt(2, forumId);
+			p.setInt(3, forumId);
+			p.setInt(4, topicType);
+			p.setInt(5, topicType);
+			p.setInt(6, lastPostId);
+
+			return this.fillTopicsData(p);
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(p);
+		}
+	}
 }
\ No newline at end of file
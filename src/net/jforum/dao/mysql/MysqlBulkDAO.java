@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 22:26:50
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum.dao.mysql;
+
+import net.jforum.dao.generic.GenericBulkDAO;
+
+/**
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class MysqlBulkDAO extends GenericBulkDAO
+{
+	/**
+	 * Connector/J only streams the rows, instead of reading the whole
+	 * result in memory, when the fetch size is <code>Integer.MIN_VALUE</code>.
+	 * @see net.jforum.dao.generic.GenericBulkDAO#fetchSize()
+	 */
+	protected int fetchSize()
+	{
+		return Integer.MIN_VALUE;
+	}
+
+	/**
+	 * Kept low, so a statement with long messages stays below the default
+	 * <code>max_allowed_packet</code>.
+	 * @see net.jforum.dao.generic.GenericBulkDAO#rowsPerInsert()
+	 */
+	protected int rowsPerInsert()
+	{
+		return 10;
+	}
+}
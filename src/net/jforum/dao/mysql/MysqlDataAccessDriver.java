@@ -42,8 +42,21 @@
  */
 package net.jforum.dao.mysql;
 
+import net.jforum.dao.BulkDAO;
+
 /**
  * @author Rafael Steil
  * @version $Id: MysqlDataAccessDriver.java,v 1.7 2006/08/20 22:47:54 rafaelsteil Exp $
  */
-public class MysqlDataAccessDriver extends net.jforum.dao.generic.GenericDataAccessDriver {}
+public class MysqlDataAccessDriver extends net.jforum.dao.generic.GenericDataAccessDriver
+{
+	private static BulkDAO bulkDao = new MysqlBulkDAO();
+
+	/**
+	 * @see net.jforum.dao.DataAccessDriver#newBulkDAO()
+	 */
+	public BulkDAO newBulkDAO()
+	{
+		return bulkDao;
+	}
+}
@@ -52,6 +52,7 @@ import net.jforum.dao.generic.GenericPostDAO;
 import net.jforum.entities.Post;
 import net.jforum.exceptions.DatabaseException;
 import net.jforum.util.DbUtils;
+import net.jforum.util.PostTextCodec;
 import net.jforum.util.preferences.SystemGlobals;
 
 /**
@@ -76,7 +77,7 @@ public class OraclePostDAO extends GenericPostDAO
 			p.close();
 
 			OracleUtils.writeBlobUTF16BinaryStream(SystemGlobals.getSql("PostModel.addNewPostTextField"), 
-				post.getId(), post.getText());
+				post.getId(), PostTextCodec.encode(post.getText()));
 		}
 		finally {
 			DbUtils.close(p);
@@ -99,7 +100,7 @@ public class OraclePostDAO extends GenericPostDAO
 			p.executeUpdate();
 
 			OracleUtils.writeBlobUTF16BinaryStream(SystemGlobals.getSql("PostModel.addNewPostTextField"), 
-				post.getId(), post.getText());
+				post.getId(), PostTextCodec.encode(post.getText()));
 		}
 		catch (Exception e) {
 			throw new DatabaseException(e);
@@ -118,11 +119,11 @@ public class OraclePostDAO extends GenericPostDAO
 	}
 
 	/**
-	 * @see net.jforum.dao.PostDAO#selectAllByTopicByLimit(int, int, int)
+	 * @see net.jforum.dao.generic.GenericPostDAO#selectHotByTopicByLimit(int, int, int)
 	 */
-	public List selectAllByTopicByLimit(int topicId, int startFrom, int count)
+	protected List selectHotByTopicByLimit(int topicId, int startFrom, int count)
 	{
-		return super.selectAllByTopicByLimit(topicId, startFrom, startFrom + count);
+		return super.selectHotByTopicByLimit(topicId, startFrom, startFrom + count);
 	}
 
 	/**
@@ -42,8 +42,21 @@
  */
 package net.jforum.dao.postgresql;
 
+import net.jforum.dao.BulkDAO;
+
 /**
  * @author Rafael Steil
  * @version $Id: PostgresqlDataAccessDriver.java,v 1.9 2006/11/21 22:07:59 rafaelsteil Exp $
  */
-public class PostgresqlDataAccessDriver extends net.jforum.dao.generic.GenericDataAccessDriver {}
+public class PostgresqlDataAccessDriver extends net.jforum.dao.generic.GenericDataAccessDriver
+{
+	private static BulkDAO bulkDao = new PostgresqlBulkDAO();
+
+	/**
+	 * @see net.jforum.dao.DataAccessDriver#newBulkDAO()
+	 */
+	public BulkDAO newBulkDAO()
+	{
+		return bulkDao;
+	}
+}
@@ -45,7 +45,9 @@ package net.jforum.dao.sqlserver;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 import net.jforum.JForumExecutionContext;
@@ -68,13 +70,13 @@ public class SqlServerPostDAO extends net.jforum.dao.generic.GenericPostDAO
 	private static final Logger logger = Logger.getLogger(SqlServerPostDAO.class);
 
 	/**
-	 * @see net.jforum.dao.PostDAO#selectById(int)
+	 * @see net.jforum.dao.generic.GenericPostDAO#selectById(java.lang.String, int)
 	 */
-	public Post selectById(int postId)
+	protected Post selectById(String query, int postId)
 	{
 		PreparedStatement p = null;
 		ResultSet rs = null;
-		String sqlStmnt = SystemGlobals.getSql("PostModel.selectById");
+		String sqlStmnt = SystemGlobals.getSql(query);
 		if (logger.isDebugEnabled())
 		{
 			logger.debug("selectById("+postId+")..., sqlStmnt="+sqlStmnt);
@@ -105,9 +107,9 @@ public class SqlServerPostDAO extends net.jforum.dao.generic.GenericPostDAO
 	}
 
 	/**
-	 * @see net.jforum.dao.PostDAO#selectAllByTopicByLimit(int, int, int)
+	 * @see net.jforum.dao.generic.GenericPostDAO#selectHotByTopicByLimit(int, int, int)
 	 */
-	public List selectAllByTopicByLimit(int topicId, int startFrom, int count)
+	protected List selectHotByTopicByLimit(int topicId, int startFrom, int count)
 	{
 		List l = new ArrayList();
 
@@ -182,4 +184,41 @@ public class SqlServerPostDAO extends net.jforum.dao.generic.GenericPostDAO
 		}
 	}
 
+	/**
+	 * @see net.jforum.dao.generic.GenericPostDAO#selectHotByTopicAfter(int, java.util.Date, int, int)
+	 */
+	protected List selectHotByTopicAfter(int topicId, Date postTime, int postId, int count)
+	{
+		List l = new ArrayList();
+
+		String sql = SystemGlobals.getSql("PostModel.selectAllByTopicAfter");
+		
+		PreparedStatement p = null;
+		ResultSet rs = null;
+		
+		try {
+			Timestamp time = new Timestamp(postTime.getTime());
+			
+			p = JForumExecutionContext.getConnection().prepareStatement(sql);
+			p.setInt(1, count);
+			p.setInt(2, topicId);
+			p.setTimestamp(3, time);
+			p.setTimestamp(4, time);
+			p.setInt(5, postId);
+
+			rs = p.executeQuery();
+
+			while (rs.next()) {
+				l.add(this.makePost(rs));
+			}
+
+			return l;
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(rs, p);
+		}
+	}
 }
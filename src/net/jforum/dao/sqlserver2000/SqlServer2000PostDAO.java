@@ -45,6 +45,7 @@ package net.jforum.dao.sqlserver2000;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -55,6 +56,7 @@ import net.jforum.entities.Post;
 import net.jforum.exceptions.DatabaseException;
 import net.jforum.repository.ForumRepository;
 import net.jforum.util.DbUtils;
+import net.jforum.util.PostTextCodec;
 import net.jforum.util.preferences.SystemGlobals;
 
 /**
@@ -67,9 +69,9 @@ import net.jforum.util.preferences.SystemGlobals;
 public class SqlServer2000PostDAO extends GenericPostDAO
 {
 	/**
-	 * @see net.jforum.dao.PostDAO#selectAllByTopicByLimit(int, int, int)
+	 * @see net.jforum.dao.generic.GenericPostDAO#selectHotByTopicByLimit(int, int, int)
 	 */
-	public List selectAllByTopicByLimit(int topicId, int startFrom, int count)
+	protected List selectHotByTopicByLimit(int topicId, int startFrom, int count)
 	{
 		List l = new ArrayList();
 
@@ -201,7 +203,7 @@ public class SqlServer2000PostDAO extends GenericPostDAO
 		
 		post.setId(rs.getInt("post_id"));
 		post.setSubject(rs.getString("subject"));
-		post.setText(rs.getString("post_text"));
+		post.setText(PostTextCodec.decode(rs.getString("post_text")));
 		post.setTopicId(rs.getInt("topic_id"));
 		post.setForumId(rs.getInt("forum_id")); 
 		post.setUserId(rs.getInt("user_id"));
@@ -210,4 +212,42 @@ public class SqlServer2000PostDAO extends GenericPostDAO
 		
 		return post;
 	}
+
+	/**
+	 * @see net.jforum.dao.generic.GenericPostDAO#selectHotByTopicAfter(int, java.util.Date, int, int)
+	 */
+	protected List selectHotByTopicAfter(int topicId, Date postTime, int postId, int count)
+	{
+		List l = new ArrayList();
+
+		String sql = SystemGlobals.getSql("PostModel.selectAllByTopicAfter");
+		
+		PreparedStatement p = null;
+		ResultSet rs = null;
+		
+		try {
+			Timestamp time = new Timestamp(postTime.getTime());
+			
+			p = JForumExecutionContext.getConnection().prepareStatement(sql);
+			p.setInt(1, count);
+			p.setInt(2, topicId);
+			p.setTimestamp(3, time);
+			p.setTimestamp(4, time);
+			p.setInt(5, postId);
+
+			rs = p.executeQuery();
+
+			while (rs.next()) {
+				l.add(this.makePost(rs));
+			}
+
+			return l;
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(rs, p);
+		}
+	}
 }
@@ -47,20 +47,13 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 
 import net.jforum.JForumExecutionContext;
 import net.jforum.dao.generic.GenericTopicDAO;
-import net.jforum.entities.Topic;
-import net.jforum.entities.User;
 import net.jforum.exceptions.DatabaseException;
 import net.jforum.repository.ForumRepository;
 import net.jforum.util.DbUtils;
-import net.jforum.util.preferences.ConfigKeys;
 import net.jforum.util.preferences.SystemGlobals;
 
 /**
@@ -148,77 +141,13 @@ public class SqlServer2000TopicDAO extends GenericTopicDAO
 			rs = p.executeQuery();
 			rs.absolute(startFrom);
 
-			SimpleDateFormat df = new SimpleDateFormat(SystemGlobals
-					.getValue(ConfigKeys.DATE_TIME_FORMAT));
-
-			StringBuffer sbFirst = new StringBuffer(128);
-			StringBuffer sbLast = new StringBuffer(128);
+			SimpleDateFormat df = dateFormat();
 
 			while (rs.next()) {
-				Topic t = this.getBaseTopicData(rs);
-
-				// Posted by
-				User u = new User();
-				u.setId(rs.getInt("user_id"));
-				t.setPostedBy(u);
-
-				// Last post by
-				u = new User();
-				u.setId(rs.getInt("last_user_id"));
-				t.setLastPostBy(u);
-
-				t.setHasAttach(rs.getInt("attach") > 0);
-				t.setFirstPostTime(df.format(rs.getTimestamp("topic_time")));
-				t.setLastPostTime(df.format(rs.getTimestamp("post_time")));
-				t.setLastPostDate(new Date(rs.getTimestamp("post_time")
-						.getTime()));
-
-				l.add(t);
-
-				sbFirst.append(rs.getInt("user_id")).append(',');
-				sbLast.append(rs.getInt("last_user_id")).append(',');
+				l.add(this.fillTopicListData(rs, df));
 			}
 
-			rs.close();
-			rs = null;
-			p.close();
-			p = null;
-
-			// Users
-			if (sbFirst.length() > 0) {
-				sbLast.delete(sbLast.length() - 1, sbLast.length());
-
-				String sql = SystemGlobals
-						.getSql("TopicModel.getUserInformation");
-				sql = sql.replaceAll("#ID#", sbFirst.toString()
-						+ sbLast.toString());
-
-				Map users = new HashMap();
-
-				p = JForumExecutionContext.getConnection()
-						.prepareStatement(sql);
-				rs = p.executeQuery();
-
-				while (rs.next()) {
-					users.put(new Integer(rs.getInt("user_id")), rs
-							.getString("username"));
-				}
-
-				rs.close();
-				rs = null;
-				p.close();
-				p = null;
-
-				for (Iterator iter = l.iterator(); iter.hasNext();) {
-					Topic t = (Topic) iter.next();
-					t.getPostedBy().setUsername(
-							(String) users.get(new Integer(t.getPostedBy()
-									.getId())));
-					t.getLastPostBy().setUsername(
-							(String) users.get(new Integer(t.getLastPostBy()
-									.getId())));
-				}
-			}
+			this.fillTopicsUsers(l);
 
 			return l;
 		} catch (SQLException e) {
@@ -274,4 +203,32 @@ public class SqlServer2000TopicDAO extends GenericTopicDAO
 	        DbUtils.close(p);
 	    }    
 	}
+
+	/**
+	 * @see net.jforum.dao.TopicDAO#selectAllByForumAfter(int, int, int, int)
+	 */
+	public List selectAllByForumAfter(int forumId, int topicType, int lastPostId, int count)
+	{
+		String sql = SystemGlobals.getSql("TopicModel.selectAllByForumAfter");
+
+		PreparedStatement p = null;
+
+		try {
+			p = JForumExecutionContext.getConnection().prepareStatement(sql);
+			p.setInt(1, count);
+			p.setInt(2, forumId);
+			p.setInt(3, forumId);
+			p.setInt(4, topicType);
+			p.setInt(5, topicType);
+			p.setInt(6, lastPostId);
+
+			return this.fillTopicsData(p);
+		}
+		catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+		finally {
+			DbUtils.close(p);
+		}
+	}
 }
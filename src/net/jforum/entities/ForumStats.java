@@ -42,6 +42,8 @@
  */
 package net.jforum.entities;
 
+import java.util.Date;
+
 /**
  * @author Rafael Steil
  * @version $Id: ForumStats.java,v 1.3 2006/08/20 22:47:36 rafaelsteil Exp $
@@ -54,6 +56,8 @@ public class ForumStats
 	private double postsPerDay;
 	private double topicsPerDay;
 	private double usersPerDay;
+	private Date firstPostTime;
+	private Date firstUserTime;
 	
 	/**
 	 * @return Returns the posts.
@@ -150,4 +154,36 @@ public class ForumStats
 	{
 		this.usersPerDay = usersPerDay;
 	}
+	
+	/**
+	 * @return Returns the time of the first message of the board, or <code>null</code>.
+	 */
+	public Date getFirstPostTime()
+	{
+		return this.firstPostTime;
+	}
+	
+	/**
+	 * @param firstPostTime The firstPostTime to set.
+	 */
+	public void setFirstPostTime(Date firstPostTime)
+	{
+		this.firstPostTime = firstPostTime;
+	}
+	
+	/**
+	 * @return Returns the registration time of the first user, or <code>null</code>.
+	 */
+	public Date getFirstUserTime()
+	{
+		return this.firstUserTime;
+	}
+	
+	/**
+	 * @param firstUserTime The firstUserTime to set.
+	 */
+	public void setFirstUserTime(Date firstUserTime)
+	{
+		this.firstUserTime = firstUserTime;
+	}
 }
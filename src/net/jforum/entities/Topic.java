@@ -45,6 +45,8 @@ package net.jforum.entities;
 import java.io.Serializable;
 import java.util.Date;
 
+import net.jforum.repository.ViewCountAggregator;
+
 /**
  * Represents every topic in the forum.
  * 
@@ -96,6 +98,38 @@ public class Topic implements Serializable
 		this.id = topicId;
 	}
 	
+	/**
+	 * Copy constructor
+	 * 
+	 * @param t The Topic to make a copy from
+	 */
+	public Topic(Topic t)
+	{
+		this.id = t.id;
+		this.forumId = t.forumId;
+		this.totalViews = t.totalViews;
+		this.totalReplies = t.totalReplies;
+		this.status = t.status;
+		this.type = t.type;
+		this.firstPostId = t.firstPostId;
+		this.lastPostId = t.lastPostId;
+		this.voteId = t.voteId;
+		this.movedId = t.movedId;
+		this.read = t.read;
+		this.moderated = t.moderated;
+		this.isHot = t.isHot;
+		this.hasAttach = t.hasAttach;
+		this.paginate = t.paginate;
+		this.firstPostTime = t.firstPostTime;
+		this.lastPostTime = t.lastPostTime;
+		this.title = t.title;
+		this.time = t.time;
+		this.lastPostDate = t.lastPostDate;
+		this.totalPages = t.totalPages;
+		this.postedBy = t.postedBy;
+		this.lastPostBy = t.lastPostBy;
+	}
+	
 	/**
 	 * Returns the ID of the firts topic
 	 * 
@@ -177,12 +211,13 @@ public class Topic implements Serializable
 	}
 
 	/**
-	 * Returns the total number of views
+	 * Returns the total number of views, including the ones 
+	 * not yet written to the database
 	 * 
 	 * @return int value with the total number of views
 	 */
 	public int getTotalViews() {
-		return this.totalViews;
+		return this.totalViews + ViewCountAggregator.getPendingViews(this.id);
 	}
 	
 	public User getPostedBy() {
@@ -301,6 +336,15 @@ public class Topic implements Serializable
 		this.totalViews = totalViews;
 	}
 
+	/**
+	 * Adds views that were written to the database after the topic was loaded
+	 * 
+	 * @param views The number of views
+	 */
+	public void addTotalViews(int views) {
+		this.totalViews += views;
+	}
+
 	/**
 	 * Sets the type.
 	 * 
@@ -49,6 +49,7 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -107,6 +108,8 @@ public class User implements Serializable
 	private boolean viewEmailEnabled = true;
 	private List groupsList;
 	private int privateMessagesCount;
+	private int inboxCount;
+	private int sentboxCount;
 	private KarmaStatus karma;
 	private int active;
 	private String activationKey;
@@ -128,6 +131,72 @@ public class User implements Serializable
 		this.groupsList = new ArrayList(); 
 	}
 	
+	/**
+	 * Creates a copy of an user. The groups, dates, karma and extra values
+	 * are copied as well, so changing the copy does not change the original
+	 * 
+	 * @param u the user to copy
+	 */
+	public User(User u)
+	{
+		this.id = u.id;
+		this.themeId = u.themeId;
+		this.level = u.level;
+		this.totalPosts = u.totalPosts;
+		this.attachSignatureEnabled = u.attachSignatureEnabled;
+		this.rankId = u.rankId;
+		this.htmlEnabled = u.htmlEnabled;
+		this.bbCodeEnabled = u.bbCodeEnabled;
+		this.smiliesEnabled = u.smiliesEnabled;
+		this.avatarEnabled = u.avatarEnabled;
+		this.privateMessagesEnabled = u.privateMessagesEnabled;
+		this.viewOnlineEnabled = u.viewOnlineEnabled;
+		this.notifyPrivateMessagesEnabled = u.notifyPrivateMessagesEnabled;
+		this.notifyOnMessagesEnabled = u.notifyOnMessagesEnabled;
+		this.notifyAlways = u.notifyAlways;
+		this.notifyText = u.notifyText;
+		this.username = u.username;
+		this.password = u.password;
+		this.lastVisit = u.lastVisit != null ? new Date(u.lastVisit.getTime()) : null;
+		this.registrationDate = u.registrationDate != null ? new Date(u.registrationDate.getTime()) : null;
+		this.avatar = u.avatar;
+		this.isExternalAvatar = u.isExternalAvatar;
+		this.email = u.email;
+		this.icq = u.icq;
+		this.webSite = u.webSite;
+		this.from = u.from;
+		this.signature = u.signature;
+		this.aim = u.aim;
+		this.yim = u.yim;
+		this.msnm = u.msnm;
+		this.occupation = u.occupation;
+		this.interests = u.interests;
+		this.biography = u.biography;
+		this.gender = u.gender;
+		this.timeZone = u.timeZone;
+		this.lang = u.lang;
+		this.dateFormat = u.dateFormat;
+		this.viewEmailEnabled = u.viewEmailEnabled;
+		this.privateMessagesCount = u.privateMessagesCount;
+		this.inboxCount = u.inboxCount;
+		this.sentboxCount = u.sentboxCount;
+		this.karma = u.karma != null ? new KarmaStatus(u.karma) : null;
+		this.active = u.active;
+		this.activationKey = u.activationKey;
+		this.deleted = u.deleted;
+		this.firstName = u.firstName;
+		this.lastName = u.lastName;
+		this.extra = new HashMap(u.extra);
+		this.groupsList = new ArrayList();
+		
+		if (u.groupsList != null) {
+			for (Iterator iter = u.groupsList.iterator(); iter.hasNext(); ) {
+				Group g = (Group)iter.next();
+				this.groupsList.add(new Group(g.getId(), g.getParentId(), g.getName(), g.getDescription()));
+			}
+		}
+	}
+	
 	public void addExtra(String name, Object value)
 	{
 		this.extra.put(name, value);
@@ -827,6 +896,34 @@ public class User implements Serializable
 	{
 		return this.privateMessagesCount > 0;
 	}
+	/**
+	 * @return Returns the number of messages in the inbox.
+	 */
+	public int getInboxCount()
+	{
+		return this.inboxCount;
+	}
+	/**
+	 * @param inboxCount The number of messages in the inbox.
+	 */
+	public void setInboxCount(int inboxCount)
+	{
+		this.inboxCount = inboxCount;
+	}
+	/**
+	 * @return Returns the number of messages in the sent box.
+	 */
+	public int getSentboxCount()
+	{
+		return this.sentboxCount;
+	}
+	/**
+	 * @param sentboxCount The number of messages in the sent box.
+	 */
+	public void setSentboxCount(int sentboxCount)
+	{
+		this.sentboxCount = sentboxCount;
+	}
 	
 	/**
 	 * Set when user authenticates his email after user registration
@@ -0,0 +1,420 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 15:12:40
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum.repository;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.jforum.JForumExecutionContext;
+import net.jforum.dao.DataAccessDriver;
+import net.jforum.dao.ForumDAO;
+import net.jforum.entities.ForumStats;
+import net.jforum.util.concurrent.Executor;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Keeps the number of users, topics and messages of the board, so the statistics
+ * never need to count the rows of the big tables.
+ * <p>
+ * The totals are stored in the table <code>jforum_board_stats</code>, and a copy is
+ * kept in memory. The DAOs call {@link #addUsers(int)}, {@link #addTopics(int)} and
+ * {@link #addPosts(int)} when rows are inserted or removed. The copy in memory is
+ * changed once the transaction commits, and the changes are written to the table from
+ * time to time, in a single batch. After each write the totals are read back, so changes
+ * made by other nodes of a cluster are seen as well.
+ * </p>
+ * <p>
+ * Every <code>board.stats.reconcile.interval</code> milliseconds the totals
+ * are counted again, by {@link #reconcile()}, to fix differences left by
+ * failed writes, by other nodes of a cluster or by changes made outside of JForum.
+ * </p>
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class BoardStatsRepository
+{
+	private static final Logger logger = Logger.getLogger(BoardStatsRepository.class);
+
+	private static final AtomicInteger users = new AtomicInteger();
+	private static final AtomicInteger topics = new AtomicInteger();
+	private static final AtomicInteger posts = new AtomicInteger();
+
+	private static final AtomicInteger pendingUsers = new AtomicInteger();
+	private static final AtomicInteger pendingTopics = new AtomicInteger();
+	private static final AtomicInteger pendingPosts = new AtomicInteger();
+
+	private static final ReentrantLock flushLock = new ReentrantLock();
+	private static final Object loadLock = new Object();
+
+	private static volatile long firstPostTime;
+	private static volatile long firstUserTime;
+	private static volatile boolean loaded;
+
+	/**
+	 * Loads the totals, counting them if they were never stored, and schedules
+	 * the periodic flush and reconciliation. Must be called with an execution
+	 * context started.
+	 */
+	public static void start()
+	{
+		load();
+
+		long interval = SystemGlobals.getIntValue(ConfigKeys.BOARD_STATS_FLUSH_INTERVAL);
+
+		if (interval > 0) {
+			Runnable flush = new Runnable() {
+				public void run()
+				{
+					flush();
+				}
+			};
+
+			Executor.schedule(flush, interval);
+			Executor.addShutdownTask(flush);
+		}
+
+		interval = SystemGlobals.getIntValue(ConfigKeys.BOARD_STATS_RECONCILE_INTERVAL);
+
+		if (interval > 0) {
+			Executor.schedule(new Runnable() {
+				public void run()
+				{
+					reconcile();
+				}
+			}, interval);
+		}
+	}
+
+	/**
+	 * Reads the stored totals. If there are none, the totals are counted
+	 * and stored. Uses the primary connection of the current execution context,
+	 * even in a read only request.
+	 */
+	public static void load()
+	{
+		synchronized (loadLock) {
+			boolean previous = JForumExecutionContext.usePrimary(true);
+
+			try {
+				ForumDAO dao = DataAccessDriver.getInstance().newForumDAO();
+				ForumStats stats = dao.selectBoardStats();
+
+				if (stats == null) {
+					stats = dao.countBoardStats();
+					dao.saveBoardStats(stats);
+				}
+
+				set(stats);
+				loaded = true;
+			}
+			finally {
+				JForumExecutionContext.usePrimary(previous);
+			}
+		}
+	}
+
+	/**
+	 * Registers new or removed users
+	 * @param count the number of users. Negative if they were removed
+	 */
+	public static void addUsers(int count)
+	{
+		if (count > 0 && firstUserTime == 0) {
+			firstUserTime = System.currentTimeMillis();
+		}
+
+		add(users, pendingUsers, count);
+	}
+
+	/**
+	 * Registers new or removed topics
+	 * @param count the number of topics. Negative if they were removed
+	 */
+	public static void addTopics(int count)
+	{
+		add(topics, pendingTopics, count);
+	}
+
+	/**
+	 * Registers new or removed messages. Only messages that do not
+	 * need moderation are counted.
+	 * @param count the number of messages. Negative if they were removed
+	 */
+	public static void addPosts(int count)
+	{
+		if (count > 0 && firstPostTime == 0) {
+			firstPostTime = System.currentTimeMillis();
+		}
+
+		add(posts, pendingPosts, count);
+	}
+
+	/**
+	 * Gets the number of registered users
+	 * @return the number of users
+	 */
+	public static int getTotalUsers()
+	{
+		ensureLoaded();
+		return users.get();
+	}
+
+	/**
+	 * Gets the number of topics of the board
+	 * @return the number of topics
+	 */
+	public static int getTotalTopics()
+	{
+		ensureLoaded();
+		return topics.get();
+	}
+
+	/**
+	 * Gets the number of messages of the board, not counting
+	 * the ones waiting for moderation
+	 * @return the number of messages
+	 */
+	public static int getTotalPosts()
+	{
+		ensureLoaded();
+		return posts.get();
+	}
+
+	/**
+	 * Gets the general statistics of the board
+	 * @return ForumStats
+	 */
+	public static ForumStats getBoardStatus()
+	{
+		ensureLoaded();
+
+		ForumStats fs = new ForumStats();
+		fs.setUsers(users.get());
+		fs.setTopics(topics.get());
+		fs.setPosts(posts.get());
+
+		long now = System.currentTimeMillis();
+
+		if (firstPostTime > 0) {
+			fs.setFirstPostTime(new Date(firstPostTime));
+
+			int days = daysUntil(now, firstPostTime);
+			double postsPerDay = (double)fs.getPosts() / days;
+
+			if (fs.getPosts() > 0 && postsPerDay < 1) {
+				postsPerDay = 1;
+			}
+
+			fs.setPostsPerDay(postsPerDay);
+			fs.setTopicsPerDay((double)fs.getTopics() / days);
+		}
+
+		if (firstUserTime > 0) {
+			fs.setFirstUserTime(new Date(firstUserTime));
+			fs.setUsersPerDay((double)fs.getUsers() / daysUntil(now, firstUserTime));
+		}
+
+		return fs;
+	}
+
+	/**
+	 * Writes the pending changes to the database, and reads the totals back.
+	 * If another flush is running, returns at once. If the update fails, the
+	 * changes are kept for the next flush.
+	 */
+	@SuppressWarnings("try")
+	public static void flush()
+	{
+		if (!flushLock.tryLock()) {
+			return;
+		}
+
+		try {
+			int u = pendingUsers.getAndSet(0);
+			int t = pendingTopics.getAndSet(0);
+			int p = pendingPosts.getAndSet(0);
+
+			try (JForumExecutionContext.ExecutionContext context = JForumExecutionContext.start()) {
+				try {
+					ForumDAO dao = DataAccessDriver.getInstance().newForumDAO();
+
+					if (u != 0 || t != 0 || p != 0) {
+						dao.addBoardStats(u, t, p);
+					}
+
+					ForumStats stats = dao.selectBoardStats();
+
+					if (stats != null) {
+						set(stats);
+					}
+				}
+				catch (RuntimeException e) {
+					JForumExecutionContext.enableRollback();
+					logger.error("Could not write the board statistics. Will try again later: " + e, e);
+
+					pendingUsers.addAndGet(u);
+					pendingTopics.addAndGet(t);
+					pendingPosts.addAndGet(p);
+				}
+			}
+		}
+		finally {
+			flushLock.unlock();
+		}
+	}
+
+	/**
+	 * Counts the users, topics and messages again, and stores the
+	 * result. The changes of this node not yet written are committed, 
+	 * so the count has them. They are taken out of the stored totals,
+	 * and stay pending, so the next flush adds them back.
+	 */
+	@SuppressWarnings("try")
+	public static void reconcile()
+	{
+		flushLock.lock();
+
+		try (JForumExecutionContext.ExecutionContext context = JForumExecutionContext.start()) {
+			try {
+				int u = pendingUsers.get();
+				int t = pendingTopics.get();
+				int p = pendingPosts.get();
+
+				ForumDAO dao = DataAccessDriver.getInstance().newForumDAO();
+				ForumStats stats = dao.countBoardStats();
+
+				stats.setUsers(stats.getUsers() - u);
+				stats.setTopics(stats.getTopics() - t);
+				stats.setPosts(stats.getPosts() - p);
+
+				dao.saveBoardStats(stats);
+
+				set(stats);
+				loaded = true;
+			}
+			catch (RuntimeException e) {
+				JForumExecutionContext.enableRollback();
+				logger.error("Could not count the board statistics: " + e, e);
+			}
+		}
+		finally {
+			flushLock.unlock();
+		}
+	}
+
+	private static void add(final AtomicInteger total, final AtomicInteger pending, final int count)
+	{
+		if (count == 0) {
+			return;
+		}
+
+		final boolean buffered = SystemGlobals.getIntValue(ConfigKeys.BOARD_STATS_FLUSH_INTERVAL) > 0;
+
+		if (!buffered) {
+			// Written in the same transaction as the rows
+			if (total == users) {
+				DataAccessDriver.getInstance().newForumDAO().addBoardStats(count, 0, 0);
+			}
+			else if (total == topics) {
+				DataAccessDriver.getInstance().newForumDAO().addBoardStats(0, count, 0);
+			}
+			else {
+				DataAccessDriver.getInstance().newForumDAO().addBoardStats(0, 0, count);
+			}
+		}
+
+		// A rolled back transaction must not change the totals
+		JForumExecutionContext.afterCommit(new Runnable() {
+			public void run()
+			{
+				total.addAndGet(count);
+
+				if (buffered) {
+					pending.addAndGet(count);
+				}
+			}
+
+			public String toString()
+			{
+				return "board statistics change of " + count;
+			}
+		}, false);
+	}
+
+	private static void set(ForumStats stats)
+	{
+		users.set(stats.getUsers() + pendingUsers.get());
+		topics.set(stats.getTopics() + pendingTopics.get());
+		posts.set(stats.getPosts() + pendingPosts.get());
+
+		if (stats.getFirstPostTime() != null) {
+			firstPostTime = stats.getFirstPostTime().getTime();
+		}
+
+		if (stats.getFirstUserTime() != null) {
+			firstUserTime = stats.getFirstUserTime().getTime();
+		}
+	}
+
+	private static void ensureLoaded()
+	{
+		if (!loaded) {
+			synchronized (loadLock) {
+				if (!loaded) {
+					load();
+				}
+			}
+		}
+	}
+
+	private static int daysUntil(long now, long from)
+	{
+		int days = (int)((now - from) / (24 * 60 * 60 * 1000));
+		return days == 0 ? 1 : days;
+	}
+}
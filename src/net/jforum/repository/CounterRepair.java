@@ -0,0 +1,419 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 23:41:52
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum.repository;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.jforum.JForumExecutionContext;
+import net.jforum.dao.BulkDAO;
+import net.jforum.dao.DataAccessDriver;
+import net.jforum.util.concurrent.Executor;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Recomputes the counters that drift after crashes or bulk moderation: the replies,
+ * first and last message of the topics, the topic count and last message of the
+ * forums, and the message count and private message folder sizes of the users.
+ * <p>
+ * The work is split in one task for each forum and one for each range of
+ * <code>repair.users.batch.size</code> users. Each task runs set-based queries
+ * in its own transaction, on the {@link Executor#REPAIR} pool. After
+ * each task the thread waits <code>repair.pause</code> milliseconds, so a repair
+ * never takes all the database. As soon as a forum is fixed it is reloaded in
+ * {@link ForumRepository}, and its topics are dropped from {@link TopicRepository}.
+ * The users of a range are dropped from {@link UserRepository}. The board totals are
+ * counted again at the end.
+ * </p>
+ * <p>
+ * The progress of the last repair is kept by {@link #getProgress()}, and shown on the
+ * Performance admin page, from where a repair can be started.
+ * </p>
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class CounterRepair
+{
+	private static final Logger logger = Logger.getLogger(CounterRepair.class);
+	private static final ReentrantLock runLock = new ReentrantLock();
+
+	private static volatile Progress progress;
+
+	/**
+	 * The progress of a repair
+	 */
+	public static class Progress
+	{
+		private final int total;
+		private final AtomicInteger done = new AtomicInteger();
+		private final AtomicInteger failed = new AtomicInteger();
+		private final long started = System.currentTimeMillis();
+		private volatile long finished;
+
+		Progress(int total)
+		{
+			this.total = total;
+		}
+
+		void taskDone(boolean success)
+		{
+			this.done.incrementAndGet();
+
+			if (!success) {
+				this.failed.incrementAndGet();
+			}
+		}
+
+		void finish()
+		{
+			this.finished = System.currentTimeMillis();
+		}
+
+		public int getTotal()
+		{
+			return this.total;
+		}
+
+		public int getDone()
+		{
+			return this.done.get();
+		}
+
+		public int getFailed()
+		{
+			return this.failed.get();
+		}
+
+		public int getPercent()
+		{
+			return this.total == 0 ? 100 : this.done.get() * 100 / this.total;
+		}
+
+		public boolean isRunning()
+		{
+			return this.finished == 0;
+		}
+
+		public Date getStarted()
+		{
+			return new Date(this.started);
+		}
+
+		/**
+		 * @return the time the repair took so far, in milliseconds
+		 */
+		public long getElapsed()
+		{
+			return (this.finished == 0 ? System.currentTimeMillis() : this.finished) - this.started;
+		}
+	}
+
+	/**
+	 * Schedules the repair. Does nothing if <code>repair.interval</code> is 0.
+	 */
+	public static void start()
+	{
+		long interval = SystemGlobals.getIntValue(ConfigKeys.REPAIR_INTERVAL);
+
+		if (interval <= 0) {
+			return;
+		}
+
+		Executor.schedule(new Runnable() {
+			public void run()
+			{
+				repair();
+			}
+		}, interval);
+	}
+
+	/**
+	 * Starts a repair on the maintenance pool
+	 * @return <code>false</code> if a repair is already running
+	 */
+	public static boolean startInBackground()
+	{
+		if (runLock.isLocked()) {
+			return false;
+		}
+
+		Executor.execute(new Runnable() {
+			public void run()
+			{
+				repair();
+			}
+		});
+
+		return true;
+	}
+
+	/**
+	 * @return the progress of the running or of the last repair, or <code>null</code>
+	 * if no repair was run since the board started
+	 */
+	public static Progress getProgress()
+	{
+		return progress;
+	}
+
+	/**
+	 * Recomputes all counters, waiting for the tasks to finish.
+	 * If another repair is running, returns at once.
+	 * @return <code>true</code> if the repair was run
+	 */
+	public static boolean repair()
+	{
+		if (!runLock.tryLock()) {
+			return false;
+		}
+
+		try {
+			List tasks = buildTasks();
+			Progress p = new Progress(tasks.size());
+			progress = p;
+
+			CountDownLatch done = new CountDownLatch(tasks.size());
+
+			for (Iterator iter = tasks.iterator(); iter.hasNext(); ) {
+				Task task = (Task)iter.next();
+				task.progress = p;
+				task.done = done;
+
+				try {
+					Executor.getPool(Executor.REPAIR).execute(task);
+				}
+				catch (RejectedExecutionException e) {
+					logger.warn("Discarding task " + task + ": " + e.getMessage());
+					p.taskDone(false);
+					done.countDown();
+				}
+			}
+
+			try {
+				done.await();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+
+			BoardStatsRepository.reconcile();
+			p.finish();
+
+			logger.info("Counters repaired in " + p.getElapsed() + " ms: " + p.getDone() + " tasks, " 
+				+ p.getFailed() + " failed");
+
+			return true;
+		}
+		catch (RuntimeException e) {
+			logger.error("Error repairing the counters: " + e, e);
+
+			if (progress != null) {
+				progress.finish();
+			}
+
+			return false;
+		}
+		finally {
+			runLock.unlock();
+		}
+	}
+
+	@SuppressWarnings("try")
+	private static List buildTasks()
+	{
+		List tasks = new ArrayList();
+		List forumIds;
+		int maxUserId;
+
+		try (JForumExecutionContext.ExecutionContext context = JForumExecutionContext.start()) {
+			BulkDAO dao = DataAccessDriver.getInstance().newBulkDAO();
+			forumIds = dao.selectForumIds();
+			maxUserId = dao.maxUserId();
+		}
+
+		for (Iterator iter = forumIds.iterator(); iter.hasNext(); ) {
+			tasks.add(new ForumTask(((Integer)iter.next()).intValue()));
+		}
+
+		int batchSize = Math.max(1, SystemGlobals.getIntValue(ConfigKeys.REPAIR_USERS_BATCH_SIZE));
+
+		for (int from = 1; from <= maxUserId; from += batchSize) {
+			tasks.add(new UsersTask(from, from + batchSize - 1));
+		}
+
+		return tasks;
+	}
+
+	/**
+	 * Runs the queries of a part of the repair in a transaction, and then
+	 * refreshes the caches if they succeeded
+	 */
+	private abstract static class Task implements Runnable
+	{
+		Progress progress;
+		CountDownLatch done;
+
+		abstract void repair(BulkDAO dao);
+
+		abstract void refresh();
+
+		public void run()
+		{
+			try {
+				this.runAndPause();
+			}
+			finally {
+				this.done.countDown();
+			}
+		}
+
+		@SuppressWarnings("try")
+		private void runAndPause()
+		{
+			boolean success = false;
+
+			try (JForumExecutionContext.ExecutionContext context = JForumExecutionContext.start()) {
+				try {
+					this.repair(DataAccessDriver.getInstance().newBulkDAO());
+					success = true;
+				}
+				catch (RuntimeException e) {
+					JForumExecutionContext.enableRollback();
+					logger.warn("Could not repair " + this + ": " + e);
+				}
+			}
+
+			if (success) {
+				try {
+					this.refresh();
+				}
+				catch (RuntimeException e) {
+					logger.warn("Could not refresh the cache after repairing " + this + ": " + e);
+				}
+			}
+
+			this.progress.taskDone(success);
+
+			long pause = SystemGlobals.getIntValue(ConfigKeys.REPAIR_PAUSE);
+
+			if (pause > 0) {
+				try {
+					Thread.sleep(pause);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+
+	private static class ForumTask extends Task
+	{
+		private int forumId;
+
+		ForumTask(int forumId)
+		{
+			this.forumId = forumId;
+		}
+
+		void repair(BulkDAO dao)
+		{
+			dao.recountForum(this.forumId);
+		}
+
+		@SuppressWarnings("try")
+		void refresh()
+		{
+			try (JForumExecutionContext.ExecutionContext context = JForumExecutionContext.start()) {
+				ForumRepository.reloadForum(this.forumId);
+			}
+
+			TopicRepository.clearCache(this.forumId);
+		}
+
+		public String toString()
+		{
+			return "forum #" + this.forumId;
+		}
+	}
+
+	private static class UsersTask extends Task
+	{
+		private int fromUserId;
+		private int toUserId;
+
+		UsersTask(int fromUserId, int toUserId)
+		{
+			this.fromUserId = fromUserId;
+			this.toUserId = toUserId;
+		}
+
+		void repair(BulkDAO dao)
+		{
+			dao.recountUserPosts(this.fromUserId, this.toUserId);
+			dao.recountUserFolders(this.fromUserId, this.toUserId);
+		}
+
+		void refresh()
+		{
+			for (int userId = this.fromUserId; userId <= this.toUserId; userId++) {
+				UserRepository.remove(userId);
+			}
+		}
+
+		public String toString()
+		{
+			return "users #" + this.fromUserId + " to #" + this.toUserId;
+		}
+	}
+}
@@ -51,9 +51,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.log4j.Logger;
 
+import net.jforum.JForumExecutionContext;
 import net.jforum.SessionFacade;
 import net.jforum.cache.CacheEngine;
 import net.jforum.cache.Cacheable;
@@ -97,11 +99,10 @@ public class ForumRepository implements Cacheable
 	private static final String CATEGORIES_SET = "categoriesSet";
 	private static final String RELATION = "relationForums";
 	private static final String FQN_MODERATORS = FQN + "/moderators";
-	private static final String TOTAL_MESSAGES = "totalMessages";
 	private static final String MOST_USERS_ONLINE = "mostUsersEverOnline";
 	private static final String LOADED = "loaded";
 	private static final String LAST_USER = "lastUser";
-	private static final String TOTAL_USERS = "totalUsers";
+	private static final ReentrantLock LOCK = new ReentrantLock();
 	
 	/**
 	 * @see net.jforum.cache.Cacheable#setCacheEngine(net.jforum.cache.CacheEngine)
@@ -120,23 +121,26 @@ public class ForumRepository implements Cacheable
 	 * be used to retrieve information about the categories.
      * @param  configModel ConfigDAO
 	 */
-	public synchronized static void start(ForumDAO fm, CategoryDAO cm, ConfigDAO configModel)
+	public static void start(ForumDAO fm, CategoryDAO cm, ConfigDAO configModel)
 	{
-		instance = new ForumRepository();
+		LOCK.lock();
 		
-		if (cache.get(FQN, LOADED) == null) {
-			instance.loadCategories(cm);
-			instance.loadForums(fm);
-			instance.loadMostUsersEverOnline(configModel);
-			instance.loadUsersInfo();
-			
-			Integer i = (Integer)cache.get(FQN, TOTAL_MESSAGES);
+		try {
+			instance = new ForumRepository();
+		
+			if (cache.get(FQN, LOADED) == null) {
+				instance.loadCategories(cm);
+				instance.loadForums(fm);
+				instance.loadMostUsersEverOnline(configModel);
+				instance.loadUsersInfo();
 			
-			if (i == null) {
-				cache.add(FQN, TOTAL_MESSAGES, new Integer(0));
+				cache.add(FQN, LOADED, "1");
 			}
 			
-			cache.add(FQN, LOADED, "1");
+			FragmentRepository.invalidate(FragmentRepository.FORUMS);
+		}
+		finally {
+			LOCK.unlock();
 		}
 	}
 	
@@ -242,6 +246,8 @@ public class ForumRepository implements Cacheable
 				if (categoriesSet == null) {
 					logger.warn("Categories set returned null from the cache. Trying to reload");
 					
+					boolean previous = JForumExecutionContext.usePrimary(true);
+					
 					try {
 						ForumRepository.instance.loadCategories(DataAccessDriver.getInstance().newCategoryDAO());
 						ForumRepository.instance.loadForums(DataAccessDriver.getInstance().newForumDAO());
@@ -249,6 +255,9 @@ public class ForumRepository implements Cacheable
 					catch (Exception e) {
 						throw new CategoryNotFoundException("Failed to get the category", e);
 					}
+					finally {
+						JForumExecutionContext.usePrimary(previous);
+					}
 					
 					categoriesSet = (Set)cache.get(FQN, CATEGORIES_SET);
 					
@@ -303,31 +312,40 @@ public class ForumRepository implements Cacheable
 	 * @param c The category to update. The method will search for a category
 	 * with the same id and update its data.
 	 */
-	public synchronized static void reloadCategory(Category c)
+	public static void reloadCategory(Category c)
 	{
-		Category current = (Category)cache.get(FQN, Integer.toString(c.getId()));
-		Category currentAtOrder = findCategoryByOrder(c.getOrder());
+		LOCK.lock();
 		
-		Set tmpSet = new TreeSet(new CategoryOrderComparator());
-		tmpSet.addAll((Set)cache.get(FQN, CATEGORIES_SET));
+		try {
+			Category current = (Category)cache.get(FQN, Integer.toString(c.getId()));
+			Category currentAtOrder = findCategoryByOrder(c.getOrder());
 		
-		if (currentAtOrder != null) {
-			tmpSet.remove(currentAtOrder);
-			cache.remove(FQN, Integer.toString(currentAtOrder.getId()));
-		}
+			Set tmpSet = new TreeSet(new CategoryOrderComparator());
+			tmpSet.addAll((Set)cache.get(FQN, CATEGORIES_SET));
+		
+			if (currentAtOrder != null) {
+				tmpSet.remove(currentAtOrder);
+				cache.remove(FQN, Integer.toString(currentAtOrder.getId()));
+			}
 		
-		tmpSet.add(c);
-		cache.add(FQN, Integer.toString(c.getId()), c);
+			tmpSet.add(c);
+			cache.add(FQN, Integer.toString(c.getId()), c);
 		
-		if (currentAtOrder != null && c.getId() != currentAtOrder.getId()) {
-			tmpSet.remove(current);
-			currentAtOrder.setOrder(current.getOrder());
-			tmpSet.add(currentAtOrder);
+			if (currentAtOrder != null && c.getId() != currentAtOrder.getId()) {
+				tmpSet.remove(current);
+				currentAtOrder.setOrder(current.getOrder());
+				tmpSet.add(currentAtOrder);
 			
-			cache.add(FQN, Integer.toString(currentAtOrder.getId()), currentAtOrder);
-		}
+				cache.add(FQN, Integer.toString(currentAtOrder.getId()), currentAtOrder);
+			}
 		
-		cache.add(FQN, CATEGORIES_SET, tmpSet);
+			cache.add(FQN, CATEGORIES_SET, tmpSet);
+			
+			FragmentRepository.invalidate(FragmentRepository.FORUMS);
+		}
+		finally {
+			LOCK.unlock();
+		}
 	}
 	
 	/**
@@ -335,20 +353,36 @@ public class ForumRepository implements Cacheable
 	 * 
 	 * @param c The category to refresh
 	 */
-	public synchronized static void refreshCategory(Category c)
+	public static void refreshCategory(Category c)
 	{
-		cache.add(FQN, Integer.toString(c.getId()), c);
-		Set s = (Set)cache.get(FQN, CATEGORIES_SET);
-		s.remove(c);
-		s.add(c);
-		cache.add(FQN, CATEGORIES_SET, s);
+		LOCK.lock();
+		
+		try {
+			cache.add(FQN, Integer.toString(c.getId()), c);
+			Set s = (Set)cache.get(FQN, CATEGORIES_SET);
+			s.remove(c);
+			s.add(c);
+			cache.add(FQN, CATEGORIES_SET, s);
+			
+			FragmentRepository.invalidate(FragmentRepository.FORUMS);
+		}
+		finally {
+			LOCK.unlock();
+		}
 	}
 	
-	public synchronized static void refreshForum(Forum forum)
+	public static void refreshForum(Forum forum)
 	{
-		Category c = retrieveCategory(forum.getCategoryId());
-		c.addForum(forum);
-		refreshCategory(c);
+		LOCK.lock();
+		
+		try {
+			Category c = retrieveCategory(forum.getCategoryId());
+			c.addForum(forum);
+			refreshCategory(c);
+		}
+		finally {
+			LOCK.unlock();
+		}
 	}
 	
 	/**
@@ -356,53 +390,71 @@ public class ForumRepository implements Cacheable
 	 * @param c The category to remove. The instance should have the 
 	 * category id at least
 	 */
-	public synchronized static void removeCategory(Category c)
+	public static void removeCategory(Category c)
 	{
-		cache.remove(FQN, Integer.toString(c.getId()));
+		LOCK.lock();
 		
-		Set s = (Set)cache.get(FQN, CATEGORIES_SET);
-		s.remove(c);
-		cache.add(FQN, CATEGORIES_SET, s);
+		try {
+			cache.remove(FQN, Integer.toString(c.getId()));
 		
-		Map m = (Map)cache.get(FQN, RELATION);
-		for (Iterator iter = m.values().iterator(); iter.hasNext(); ) {
-			if (Integer.parseInt((String)iter.next()) == c.getId()) {
-				iter.remove();
+			Set s = (Set)cache.get(FQN, CATEGORIES_SET);
+			s.remove(c);
+			cache.add(FQN, CATEGORIES_SET, s);
+		
+			Map m = (Map)cache.get(FQN, RELATION);
+			for (Iterator iter = m.values().iterator(); iter.hasNext(); ) {
+				if (Integer.parseInt((String)iter.next()) == c.getId()) {
+					iter.remove();
+				}
 			}
-		}
 		
-		cache.add(FQN, RELATION, m);
+			cache.add(FQN, RELATION, m);
+			
+			FragmentRepository.invalidate(FragmentRepository.FORUMS);
+		}
+		finally {
+			LOCK.unlock();
+		}
 	}
 	
 	/**
 	 * Adds a new category to the cache.
 	 * @param c The category instance to insert in the cache.
 	 */
-	public synchronized static void addCategory(Category c)
+	public static void addCategory(Category c)
 	{
-		String categoryId = Integer.toString(c.getId());
-		cache.add(FQN, categoryId, c);
+		LOCK.lock();
 		
-		Set s = (Set)cache.get(FQN, CATEGORIES_SET);
+		try {
+			String categoryId = Integer.toString(c.getId());
+			cache.add(FQN, categoryId, c);
 		
-		if (s == null) {
-			s = new TreeSet(new CategoryOrderComparator());
-		}
+			Set s = (Set)cache.get(FQN, CATEGORIES_SET);
+		
+			if (s == null) {
+				s = new TreeSet(new CategoryOrderComparator());
+			}
 		
-		s.add(c);
-		cache.add(FQN, CATEGORIES_SET, s);
+			s.add(c);
+			cache.add(FQN, CATEGORIES_SET, s);
 		
-		Map relation = (Map)cache.get(FQN, RELATION);
-		if (relation == null) {
-			relation = new HashMap();
-		}
+			Map relation = (Map)cache.get(FQN, RELATION);
+			if (relation == null) {
+				relation = new HashMap();
+			}
 		
-		for (Iterator iter = c.getForums().iterator(); iter.hasNext(); ) {
-			Forum f = (Forum)iter.next();
-			relation.put(Integer.toString(f.getId()), categoryId);
-		}
+			for (Iterator iter = c.getForums().iterator(); iter.hasNext(); ) {
+				Forum f = (Forum)iter.next();
+				relation.put(Integer.toString(f.getId()), categoryId);
+			}
 		
-		cache.add(FQN, RELATION, relation);
+			cache.add(FQN, RELATION, relation);
+			
+			FragmentRepository.invalidate(FragmentRepository.FORUMS);
+		}
+		finally {
+			LOCK.unlock();
+		}
 	}
 	
 	/**
@@ -448,20 +500,29 @@ public class ForumRepository implements Cacheable
 	 * 
 	 * @param forum The forum to add
 	 */
-	public synchronized static void addForum(Forum forum)
+	public static void addForum(Forum forum)
 	{
-		String categoryId = Integer.toString(forum.getCategoryId());
+		LOCK.lock();
+		
+		try {
+			String categoryId = Integer.toString(forum.getCategoryId());
 
-		Category c = (Category)cache.get(FQN, categoryId);
-		c.addForum(forum);
-		cache.add(FQN, categoryId, c);
+			Category c = (Category)cache.get(FQN, categoryId);
+			c.addForum(forum);
+			cache.add(FQN, categoryId, c);
 		
-		Map m = (Map)cache.get(FQN, RELATION);
-		m.put(Integer.toString(forum.getId()), categoryId);
-		cache.add(FQN, RELATION, m);
+			Map m = (Map)cache.get(FQN, RELATION);
+			m.put(Integer.toString(forum.getId()), categoryId);
+			cache.add(FQN, RELATION, m);
 		
-		Set s = (Set)cache.get(FQN, CATEGORIES_SET);
-		cache.add(FQN, CATEGORIES_SET, s);
+			Set s = (Set)cache.get(FQN, CATEGORIES_SET);
+			cache.add(FQN, CATEGORIES_SET, s);
+			
+			FragmentRepository.invalidate(FragmentRepository.FORUMS);
+		}
+		finally {
+			LOCK.unlock();
+		}
 	}
 	
 	/**
@@ -469,21 +530,30 @@ public class ForumRepository implements Cacheable
 	 * 
 	 * @param forum The forum instance to remove.
 	 */
-	public synchronized static void removeForum(Forum forum)
+	public static void removeForum(Forum forum)
 	{
-		String id = Integer.toString(forum.getId());
-		Map m = (Map)cache.get(FQN, RELATION);
-		m.remove(id);
-		cache.add(FQN, RELATION, m);
+		LOCK.lock();
+		
+		try {
+			String id = Integer.toString(forum.getId());
+			Map m = (Map)cache.get(FQN, RELATION);
+			m.remove(id);
+			cache.add(FQN, RELATION, m);
 
-		id = Integer.toString(forum.getCategoryId());
+			id = Integer.toString(forum.getCategoryId());
 		
-		Category c = (Category)cache.get(FQN, id);
-		c.removeForum(forum.getId());
-		cache.add(FQN, id, c);
+			Category c = (Category)cache.get(FQN, id);
+			c.removeForum(forum.getId());
+			cache.add(FQN, id, c);
 		
-		Set s = (Set)cache.get(FQN, CATEGORIES_SET);
-		cache.add(FQN, CATEGORIES_SET, s);
+			Set s = (Set)cache.get(FQN, CATEGORIES_SET);
+			cache.add(FQN, CATEGORIES_SET, s);
+			
+			FragmentRepository.invalidate(FragmentRepository.FORUMS);
+		}
+		finally {
+			LOCK.unlock();
+		}
 	}
 	
 	/**
@@ -495,61 +565,75 @@ public class ForumRepository implements Cacheable
 	 * 
 	 * @param forumId int The forum to reload its information
 	 */
-	public static synchronized void reloadForum(int forumId)
+	public static void reloadForum(int forumId)
 	{
-		Forum f = DataAccessDriver.getInstance().newForumDAO().selectById(forumId);
+		LOCK.lock();
 		
-		if (((Map)cache.get(FQN, RELATION)).containsKey(Integer.toString(forumId))) {
-			String id = Integer.toString(f.getCategoryId());
-			Category c = (Category)cache.get(FQN, id);
+		try {
+			Forum f = DataAccessDriver.getInstance().newForumDAO().selectById(forumId);
+		
+			if (((Map)cache.get(FQN, RELATION)).containsKey(Integer.toString(forumId))) {
+				String id = Integer.toString(f.getCategoryId());
+				Category c = (Category)cache.get(FQN, id);
 			
-			f.setLastPostInfo(null);
-			f.setLastPostInfo(ForumRepository.getLastPostInfo(f));
-			c.reloadForum(f);
+				f.setLastPostInfo(null);
+				f.setLastPostInfo(ForumRepository.getLastPostInfo(f));
+				c.reloadForum(f);
 			
-			cache.add(FQN, id, c);
-			Set s = (Set)cache.get(FQN, CATEGORIES_SET);
-			cache.add(FQN, CATEGORIES_SET, s);
-		}
+				cache.add(FQN, id, c);
+				Set s = (Set)cache.get(FQN, CATEGORIES_SET);
+				cache.add(FQN, CATEGORIES_SET, s);
+			}
 		
-		getTotalMessages(true);
+			FragmentRepository.invalidate(FragmentRepository.FORUMS);
+		}
+		finally {
+			LOCK.unlock();
+		}
 	}
 	
-	public static synchronized void updateForumStats(Topic t, User u, Post p)
+	public static void updateForumStats(Topic t, User u, Post p)
 	{
-		String f = Integer.toString(t.getForumId());
+		LOCK.lock();
 		
-		if (((Map)cache.get(FQN, RELATION)).containsKey(f)) {
-			Forum forum = getForum(t.getForumId());
+		try {
+			String f = Integer.toString(t.getForumId());
+		
+			if (((Map)cache.get(FQN, RELATION)).containsKey(f)) {
+				Forum forum = getForum(t.getForumId());
 
-			SimpleDateFormat df = new SimpleDateFormat(SystemGlobals.getValue(ConfigKeys.DATE_TIME_FORMAT));
+				SimpleDateFormat df = new SimpleDateFormat(SystemGlobals.getValue(ConfigKeys.DATE_TIME_FORMAT));
 		
-			LastPostInfo lpi = forum.getLastPostInfo();
+				LastPostInfo lpi = forum.getLastPostInfo();
 			
-			if (lpi == null) {
-				lpi = new LastPostInfo();
-			}
+				if (lpi == null) {
+					lpi = new LastPostInfo();
+				}
 			
-			lpi.setPostId(p.getId());
-			lpi.setPostDate(df.format(p.getTime()));
-			lpi.setPostTimeMillis(p.getTime().getTime());
-			lpi.setTopicId(t.getId());
-			lpi.setTopicReplies(t.getTotalReplies());
-			lpi.setUserId(u.getId());
-			lpi.setUsername(u.getUsername());
+				lpi.setPostId(p.getId());
+				lpi.setPostDate(df.format(p.getTime()));
+				lpi.setPostTimeMillis(p.getTime().getTime());
+				lpi.setTopicId(t.getId());
+				lpi.setTopicReplies(t.getTotalReplies());
+				lpi.setUserId(u.getId());
+				lpi.setUsername(u.getUsername());
 			
-			forum.setLastPostInfo(lpi);
+				forum.setLastPostInfo(lpi);
 			
-			if (t.getTotalReplies() == 0) {
-				forum.setTotalTopics(forum.getTotalTopics() + 1);
-			}
+				if (t.getTotalReplies() == 0) {
+					forum.setTotalTopics(forum.getTotalTopics() + 1);
+				}
 
-			forum.setTotalPosts(forum.getTotalPosts() + 1);
+				forum.setTotalPosts(forum.getTotalPosts() + 1);
 			
-			Category c = retrieveCategory(forum.getCategoryId());
-			c.reloadForum(forum);
+				Category c = retrieveCategory(forum.getCategoryId());
+				c.reloadForum(forum);
 			
-			refreshCategory(c);
+				refreshCategory(c);
+			}
+		}
+		finally {
+			LOCK.unlock();
 		}
 	}
 	
@@ -563,7 +647,15 @@ public class ForumRepository implements Cacheable
 		LastPostInfo lpi = forum.getLastPostInfo();
 		
 		if (lpi == null || !forum.getLastPostInfo().hasInfo()) {
-			lpi = DataAccessDriver.getInstance().newForumDAO().getLastPostInfo(forum.getId());
+			boolean previous = JForumExecutionContext.usePrimary(true);
+			
+			try {
+				lpi = DataAccessDriver.getInstance().newForumDAO().getLastPostInfo(forum.getId());
+			}
+			finally {
+				JForumExecutionContext.usePrimary(previous);
+			}
+			
 			forum.setLastPostInfo(lpi);
 		}
 		
@@ -592,6 +684,8 @@ public class ForumRepository implements Cacheable
 		
 		if (l == null) {
 			synchronized (FQN_MODERATORS) {
+				boolean previous = JForumExecutionContext.usePrimary(true);
+				
 				try {
 					l = DataAccessDriver.getInstance().newForumDAO().getModeratorList(forumId);
 					cache.add(FQN_MODERATORS, Integer.toString(forumId), l);
@@ -599,6 +693,9 @@ public class ForumRepository implements Cacheable
 				catch (Exception e) {
 					throw new DatabaseException(e);
 				}
+				finally {
+					JForumExecutionContext.usePrimary(previous);
+				}
 			}
 		}
 		
@@ -620,61 +717,6 @@ public class ForumRepository implements Cacheable
 		cache.add(FQN, LAST_USER, user);
 	}
 	
-	public static Integer totalUsers()
-	{
-		return (Integer)cache.get(FQN, TOTAL_USERS);
-	}
-	
-	public static void incrementTotalUsers()
-	{
-		Integer i = (Integer)cache.get(FQN, TOTAL_USERS);
-		
-		if (i == null) {
-			i = new Integer(0);
-		}
-		
-		cache.add(FQN,TOTAL_USERS, new Integer(i.intValue() + 1));
-	}
-	
-	/**
-	 * Gets the number of messages in the entire board.
-	 * @return int
-	 * @see #getTotalMessages(boolean)
-	 */
-	public static int getTotalMessages()
-	{
-		return getTotalMessages(false);
-	}
-
-	/**
-	 * Gets the number of messags in the entire board.
-	 * 
-	 * @param fromDb If <code>true</code>, a query to the database will
-	 * be made, to retrieve the desired information. If <code>false</code>, the
-	 * data will be fetched from the cache.
-	 * @return The number of messages posted in the board.
-	 * @see #getTotalMessages()
-	 */
-	public static int getTotalMessages(boolean fromDb) 
-	{
-		Integer i = (Integer)cache.get(FQN, TOTAL_MESSAGES);
-		
-		int total = i != null ? i.intValue() : 0;
-		
-		if (fromDb || total == 0) {
-			total = DataAccessDriver.getInstance().newForumDAO().getTotalMessages();
-			cache.add(FQN, TOTAL_MESSAGES, new Integer(total));
-		}
-		
-		return total;
-	}
-	
-	public static synchronized void incrementTotalMessages()
-	{
-		int total = ((Integer)cache.get(FQN, TOTAL_MESSAGES)).intValue();
-		cache.add(FQN, TOTAL_MESSAGES, new Integer(total + 1));
-	}
-	
 	/**
 	 * Gets the number of most online users ever
 	 * @return MostUsersEverOnline
@@ -688,8 +730,15 @@ public class ForumRepository implements Cacheable
 				online = (MostUsersEverOnline)cache.get(FQN, MOST_USERS_ONLINE);
 				
 				if (online == null) {
-					online = instance.loadMostUsersEverOnline(
-						DataAccessDriver.getInstance().newConfigDAO());
+					boolean previous = JForumExecutionContext.usePrimary(true);
+					
+					try {
+						online = instance.loadMostUsersEverOnline(
+							DataAccessDriver.getInstance().newConfigDAO());
+					}
+					finally {
+						JForumExecutionContext.usePrimary(previous);
+					}
 				}
 			}
 		}
@@ -786,7 +835,6 @@ public class ForumRepository implements Cacheable
 	{
 		UserDAO udao = DataAccessDriver.getInstance().newUserDAO();
 		cache.add(FQN, LAST_USER, udao.getLastUserInfo());
-		cache.add(FQN, TOTAL_USERS, new Integer(udao.getTotalUsers()));
 	}
 
 	/**
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 12:10:24
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum.repository;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.jforum.SessionFacade;
+import net.jforum.cache.CacheEngine;
+import net.jforum.cache.Cacheable;
+import net.jforum.entities.UserSession;
+import net.jforum.security.PermissionControl;
+import net.jforum.util.I18n;
+import net.jforum.util.concurrent.Executor;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+/**
+ * Keeps rendered pieces of templates that are shared by many users, like the
+ * forum navigation combo or the online users box.
+ * <p>
+ * Fragments are grouped in regions. Each region has a version number, which is
+ * incremented every time the data the region depends on changes. A fragment is
+ * stored under its name, the language of the user, the permission set of the user
+ * (if the fragment depends on it) and the current version of its region, so a
+ * change in the data or in the permissions never shows an old fragment.
+ * </p>
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class FragmentRepository implements Cacheable
+{
+	/** Fragments that depend on the categories and forums */
+	public static final String FORUMS = "forums";
+
+	/** 
+	 * Fragments that depend on the online users. Sessions come and go all the 
+	 * time, so this region is refreshed every <code>template.fragment.sessions.refresh</code>
+	 * milliseconds instead of on each change
+	 */
+	public static final String SESSIONS = "sessions";
+
+	private static final String FQN = "fragments";
+
+	private static final ConcurrentHashMap versions = new ConcurrentHashMap();
+	private static CacheEngine cache;
+
+	/**
+	 * @see net.jforum.cache.Cacheable#setCacheEngine(net.jforum.cache.CacheEngine)
+	 */
+	public void setCacheEngine(CacheEngine engine)
+	{
+		cache = engine;
+	}
+
+	/**
+	 * Schedules the refresh of the {@link #SESSIONS} region. Does nothing if
+	 * the refresh interval is 0, as that region is not cached then.
+	 */
+	public static void start()
+	{
+		long interval = SystemGlobals.getIntValue(ConfigKeys.TEMPLATE_FRAGMENT_SESSIONS_REFRESH);
+		
+		if (interval <= 0) {
+			return;
+		}
+		
+		Executor.schedule(new Runnable() {
+			public void run()
+			{
+				invalidate(SESSIONS);
+			}
+		}, interval);
+	}
+
+	/**
+	 * Checks if the fragment cache is enabled
+	 * @return <code>true</code> if fragments should be cached
+	 */
+	public static boolean isEnabled()
+	{
+		return cache != null && SystemGlobals.getBoolValue(ConfigKeys.TEMPLATE_FRAGMENT_CACHE_ENABLED);
+	}
+
+	/**
+	 * Checks if the fragments of some region should be cached
+	 * @param region the region
+	 * @return <code>true</code> if the fragments of the region should be cached
+	 */
+	public static boolean isEnabled(String region)
+	{
+		return isEnabled() 
+			&& (!SESSIONS.equals(region) 
+				|| SystemGlobals.getIntValue(ConfigKeys.TEMPLATE_FRAGMENT_SESSIONS_REFRESH) > 0);
+	}
+
+	/**
+	 * Builds the key of a fragment for the current user.
+	 *
+	 * @param region the region of the fragment
+	 * @param name the fragment name
+	 * @param byPermission if <code>true</code>, the permission set of the user is part of the key
+	 * @return the key
+	 */
+	public static String buildKey(String region, String name, boolean byPermission)
+	{
+		StringBuffer sb = new StringBuffer(64)
+			.append(name)
+			.append('/').append(I18n.getUserLanguage())
+			.append('/').append(version(region));
+
+		if (byPermission) {
+			UserSession us = SessionFacade.getUserSession();
+
+			int userId = us != null
+				? us.getUserId()
+				: SystemGlobals.getIntValue(ConfigKeys.ANONYMOUS_USER_ID);
+
+			PermissionControl pc = SecurityRepository.get(userId);
+			sb.append('/').append(pc.getFingerprint());
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Gets a rendered fragment
+	 *
+	 * @param region the region of the fragment
+	 * @param key the key, as returned by {@link #buildKey(String, String, boolean)}
+	 * @return the rendered fragment, or <code>null</code> if not found
+	 */
+	public static String get(String region, String key)
+	{
+		return (String)cache.get(FQN + "/" + region, key);
+	}
+
+	/**
+	 * Stores a rendered fragment
+	 *
+	 * @param region the region of the fragment
+	 * @param key the key, as returned by {@link #buildKey(String, String, boolean)}
+	 * @param content the rendered fragment
+	 */
+	public static void add(String region, String key, String content)
+	{
+		cache.add(FQN + "/" + region, key, content);
+	}
+
+	/**
+	 * Tells that the data of some region has changed. All fragments of the
+	 * region are discarded.
+	 *
+	 * @param region the region to invalidate
+	 */
+	public static void invalidate(String region)
+	{
+		counter(region).incrementAndGet();
+
+		if (cache != null) {
+			cache.remove(FQN + "/" + region);
+		}
+	}
+
+	/**
+	 * Gets the current version of a region
+	 * @param region the region
+	 * @return the version number
+	 */
+	public static long version(String region)
+	{
+		return counter(region).get();
+	}
+
+	private static AtomicLong counter(String region)
+	{
+		AtomicLong counter = (AtomicLong)versions.get(region);
+
+		if (counter == null) {
+			counter = new AtomicLong();
+			AtomicLong previous = (AtomicLong)versions.putIfAbsent(region, counter);
+
+			if (previous != null) {
+				counter = previous;
+			}
+		}
+
+		return counter;
+	}
+}
@@ -0,0 +1,575 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 18:05:12
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.jforum.dao.DataAccessDriver;
+import net.jforum.entities.Topic;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Keeps the ids of the most viewed topics, so the hottest topics are found
+ * without sorting the topics table.
+ * <p>
+ * Two lists are kept, each one a heap with the least viewed topic on top:
+ * the topics with most views ever, and the topics with most views in the last
+ * <code>topic.hottest.recent.days</code> days. Each list has room for twice
+ * <code>topic.hottest</code> topics, so a few can be deleted before the list
+ * has to be read again from the database.
+ * </p>
+ * <p>
+ * A view of a topic with less views than the least viewed topic of a full list
+ * is discarded without taking any lock. The views of the last days are weighted
+ * by their age, so older views count less, and the weight grows with the time
+ * instead of decaying all the entries. The recent views are summed by shared
+ * counters, one per topic, and added to the list every <code>16</code> views or
+ * every second by whichever thread gets there first, so the list is not locked on
+ * each view. A view counted while the counters are being added, or while the
+ * list is scaled down, may rarely be lost. The recent list starts empty when the application starts. Each node
+ * keeps its own lists.
+ * </p>
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class HottestTopics
+{
+	private static final Logger logger = Logger.getLogger(HottestTopics.class);
+	private static final long DAY = 24L * 60 * 60 * 1000;
+	private static final double MAX_EXPONENT = 50;
+	private static final int BUFFERED_VIEWS = 16;
+	private static final long BUFFER_TIME = 1000;
+
+	private static final ReentrantLock drainLock = new ReentrantLock();
+	private static final AtomicInteger bufferedViews = new AtomicInteger();
+
+	private static volatile TopK allTime;
+	private static volatile TopK recent;
+	private static volatile RecentViews buffer;
+	private static volatile long lastDrain;
+	private static volatile boolean complete;
+	private static volatile long epoch;
+
+	/**
+	 * Reads the most viewed topics from the database. Uses the
+	 * connection of the current execution context.
+	 */
+	public static void load()
+	{
+		List topics = DataAccessDriver.getInstance().newTopicDAO().selectHottestTopics(capacity());
+
+		TopK top = new TopK(capacity());
+
+		for (Iterator iter = topics.iterator(); iter.hasNext(); ) {
+			Topic t = (Topic)iter.next();
+			top.offer(t.getId(), t.getTotalViews());
+		}
+
+		if (recent == null) {
+			reset();
+		}
+
+		allTime = top;
+		complete = topics.size() < capacity();
+
+		logger.info("Hottest topics loaded with " + topics.size() + " topics");
+	}
+
+	/**
+	 * Empties the recent list, and the list of all time if it was not loaded
+	 */
+	static void reset()
+	{
+		synchronized (HottestTopics.class) {
+			recent = new TopK(capacity());
+			epoch = System.currentTimeMillis();
+			buffer = new RecentViews();
+
+			if (allTime == null) {
+				allTime = new TopK(capacity());
+				complete = true;
+			}
+		}
+	}
+
+	/**
+	 * Registers a view of a topic
+	 * @param topicId the topic id
+	 * @param totalViews the number of views of the topic, including this one
+	 */
+	public static void viewed(int topicId, int totalViews)
+	{
+		TopK top = allTime;
+
+		if (top == null) {
+			return;
+		}
+
+		top.offer(topicId, totalViews);
+
+		long now = System.currentTimeMillis();
+
+		if ((now - epoch) / (double)window() > MAX_EXPONENT) {
+			rescale(now);
+		}
+
+		RecentViews views = buffer;
+
+		// Weighted from the epoch of the buffer, which is drained before the epoch changes
+		views.add(topicId, Math.exp((now - views.epoch) / (double)window()));
+
+		if (bufferedViews.incrementAndGet() >= BUFFERED_VIEWS || now - lastDrain >= BUFFER_TIME) {
+			drain(now, false);
+		}
+	}
+
+	/**
+	 * Scales down the recent list, so the weights of new views start from one again
+	 */
+	private static void rescale(long now)
+	{
+		drainLock.lock();
+
+		try {
+			drain(now, true);
+
+			TopK target = recent;
+
+			synchronized (target) {
+				double exponent = (now - epoch) / (double)window();
+
+				if (exponent > MAX_EXPONENT) {
+					target.scale(Math.exp(-exponent));
+					epoch = now;
+					buffer = new RecentViews();
+				}
+			}
+		}
+		finally {
+			drainLock.unlock();
+		}
+	}
+
+	/**
+	 * Adds the buffered views to the recent list. If another thread is
+	 * already doing it, returns at once, unless <code>wait</code> is set
+	 */
+	private static void drain(long now, boolean wait)
+	{
+		if (wait) {
+			drainLock.lock();
+		}
+		else if (!drainLock.tryLock()) {
+			return;
+		}
+
+		try {
+			bufferedViews.set(0);
+			lastDrain = now;
+
+			RecentViews views = buffer;
+			TopK target = recent;
+
+			if (views.target != target) {
+				// The list was emptied after the views were counted
+				buffer = new RecentViews();
+				return;
+			}
+
+			synchronized (target) {
+				for (Iterator iter = views.weights.entrySet().iterator(); iter.hasNext(); ) {
+					Map.Entry entry = (Map.Entry)iter.next();
+					DoubleAdder adder = (DoubleAdder)entry.getValue();
+					double weight = adder.sumThenReset();
+
+					if (weight > 0) {
+						target.add(((Integer)entry.getKey()).intValue(), weight);
+					}
+					else {
+						// Not viewed since the last time
+						views.weights.remove(entry.getKey(), adder);
+					}
+				}
+			}
+		}
+		finally {
+			drainLock.unlock();
+		}
+	}
+
+	/**
+	 * Removes a deleted topic
+	 * @param topicId the topic id
+	 */
+	public static void remove(int topicId)
+	{
+		if (allTime == null) {
+			return;
+		}
+
+		allTime.remove(topicId);
+		recent.remove(topicId);
+	}
+
+	/**
+	 * Gets the most viewed topics
+	 * @param count the number of topics
+	 * @return the ids of the topics, as <code>Integer</code>s, the most viewed first
+	 */
+	public static List getTopicIds(int count)
+	{
+		if (allTime == null || (!complete && allTime.size() < count)) {
+			load();
+		}
+
+		return allTime.top(count);
+	}
+
+	/**
+	 * Gets the most viewed topics of the last days
+	 * @param count the number of topics
+	 * @return the ids of the topics, as <code>Integer</code>s, the most viewed first
+	 */
+	public static List getRecentTopicIds(int count)
+	{
+		if (recent == null) {
+			reset();
+		}
+
+		drain(System.currentTimeMillis(), true);
+
+		return recent.top(count);
+	}
+
+	private static int capacity()
+	{
+		return Math.max(1, SystemGlobals.getIntValue(ConfigKeys.HOTTEST_TOPICS) * 2);
+	}
+
+	private static long window()
+	{
+		return Math.max(1, SystemGlobals.getIntValue(ConfigKeys.HOTTEST_TOPICS_RECENT_DAYS)) * DAY;
+	}
+
+	/**
+	 * The recent views not yet added to the list, weighted from the same epoch.
+	 * Any thread can add to it and drain it.
+	 */
+	private static class RecentViews
+	{
+		final ConcurrentHashMap weights = new ConcurrentHashMap();
+		final TopK target = recent;
+		final long epoch = HottestTopics.epoch;
+
+		void add(int topicId, double weight)
+		{
+			Integer key = new Integer(topicId);
+			DoubleAdder adder = (DoubleAdder)this.weights.get(key);
+
+			if (adder == null) {
+				adder = new DoubleAdder();
+				DoubleAdder previous = (DoubleAdder)this.weights.putIfAbsent(key, adder);
+
+				if (previous != null) {
+					adder = previous;
+				}
+			}
+
+			adder.add(weight);
+		}
+	}
+
+	/**
+	 * A fixed size heap of topic ids, with the lowest score on top
+	 */
+	static class TopK
+	{
+		private final int[] ids;
+		private final double[] scores;
+		private final Map positions = new HashMap();
+		private int size;
+
+		/**
+		 * The lowest score when full. A topic with a lower or equal score
+		 * can't enter the heap, and can be discarded without locking
+		 */
+		private volatile double threshold = Double.NEGATIVE_INFINITY;
+
+		TopK(int capacity)
+		{
+			this.ids = new int[capacity];
+			this.scores = new double[capacity];
+		}
+
+		/**
+		 * Sets the score of a topic, if greater than the current one
+		 * @param topicId the topic id
+		 * @param score the score
+		 */
+		void offer(int topicId, double score)
+		{
+			if (score <= this.threshold) {
+				return;
+			}
+
+			synchronized (this) {
+				Integer position = (Integer)this.positions.get(new Integer(topicId));
+
+				if (position != null) {
+					int i = position.intValue();
+
+					if (score > this.scores[i]) {
+						this.scores[i] = score;
+						this.down(i);
+					}
+				}
+				else if (this.size < this.ids.length) {
+					this.insert(topicId, score);
+				}
+				else if (score > this.scores[0]) {
+					this.replaceTop(topicId, score);
+				}
+
+				this.updateThreshold();
+			}
+		}
+
+		/**
+		 * Adds to the score of a topic. If the heap is full, the topic takes
+		 * the place of the lowest one, starting from its score
+		 * @param topicId the topic id
+		 * @param weight the value to add
+		 */
+		synchronized void add(int topicId, double weight)
+		{
+			Integer position = (Integer)this.positions.get(new Integer(topicId));
+
+			if (position != null) {
+				int i = position.intValue();
+				this.scores[i] += weight;
+				this.down(i);
+			}
+			else if (this.size < this.ids.length) {
+				this.insert(topicId, weight);
+			}
+			else {
+				this.replaceTop(topicId, this.scores[0] + weight);
+			}
+
+			this.updateThreshold();
+		}
+
+		synchronized void remove(int topicId)
+		{
+			Integer position = (Integer)this.positions.remove(new Integer(topicId));
+
+			if (position == null) {
+				return;
+			}
+
+			int i = position.intValue();
+			this.size--;
+
+			if (i < this.size) {
+				this.set(i, this.ids[this.size], this.scores[this.size]);
+				this.down(i);
+				this.up(i);
+			}
+
+			this.updateThreshold();
+		}
+
+		synchronized void scale(double factor)
+		{
+			for (int i = 0; i < this.size; i++) {
+				this.scores[i] *= factor;
+			}
+
+			this.updateThreshold();
+		}
+
+		synchronized int size()
+		{
+			return this.size;
+		}
+
+		/**
+		 * Gets the topics with the highest scores
+		 * @param count the maximum number of topics
+		 * @return the topic ids, the highest score first
+		 */
+		List top(int count)
+		{
+			Entry[] entries;
+
+			synchronized (this) {
+				entries = new Entry[this.size];
+
+				for (int i = 0; i < this.size; i++) {
+					entries[i] = new Entry(this.ids[i], this.scores[i]);
+				}
+			}
+
+			Arrays.sort(entries);
+
+			List l = new ArrayList(Math.min(count, entries.length));
+
+			for (int i = 0; i < entries.length && i < count; i++) {
+				l.add(new Integer(entries[i].topicId));
+			}
+
+			return l;
+		}
+
+		private void insert(int topicId, double score)
+		{
+			this.set(this.size, topicId, score);
+			this.size++;
+			this.up(this.size - 1);
+		}
+
+		private void replaceTop(int topicId, double score)
+		{
+			this.positions.remove(new Integer(this.ids[0]));
+			this.set(0, topicId, score);
+			this.down(0);
+		}
+
+		private void up(int i)
+		{
+			while (i > 0) {
+				int parent = (i - 1) / 2;
+
+				if (this.scores[parent] <= this.scores[i]) {
+					return;
+				}
+
+				this.swap(i, parent);
+				i = parent;
+			}
+		}
+
+		private void down(int i)
+		{
+			while (true) {
+				int smallest = i;
+				int left = i * 2 + 1;
+				int right = left + 1;
+
+				if (left < this.size && this.scores[left] < this.scores[smallest]) {
+					smallest = left;
+				}
+
+				if (right < this.size && this.scores[right] < this.scores[smallest]) {
+					smallest = right;
+				}
+
+				if (smallest == i) {
+					return;
+				}
+
+				this.swap(i, smallest);
+				i = smallest;
+			}
+		}
+
+		private void swap(int a, int b)
+		{
+			int id = this.ids[a];
+			double score = this.scores[a];
+
+			this.set(a, this.ids[b], this.scores[b]);
+			this.set(b, id, score);
+		}
+
+		private void set(int i, int topicId, double score)
+		{
+			this.ids[i] = topicId;
+			this.scores[i] = score;
+			this.positions.put(new Integer(topicId), new Integer(i));
+		}
+
+		private void updateThreshold()
+		{
+			this.threshold = this.size == this.ids.length
+				? this.scores[0]
+				: Double.NEGATIVE_INFINITY;
+		}
+	}
+
+	private static class Entry implements Comparable
+	{
+		final int topicId;
+		final double score;
+
+		Entry(int topicId, double score)
+		{
+			this.topicId = topicId;
+			this.score = score;
+		}
+
+		public int compareTo(Object o)
+		{
+			Entry other = (Entry)o;
+
+			if (this.score != other.score) {
+				return this.score > other.score ? -1 : 1;
+			}
+
+			return other.topicId - this.topicId;
+		}
+	}
+}
@@ -43,9 +43,13 @@
 package net.jforum.repository;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 import net.jforum.ConfigLoader;
 import net.jforum.JForumExecutionContext;
@@ -62,6 +66,9 @@ public class ModulesRepository
 	
 	private static Map cache = new HashMap();
 	private static final String ENTRIES = "entries";
+	private static final String READ_ONLY_PREFIX = "readonly.";
+	
+	private static Map readOnlyActions = new HashMap();
 
 	/**
 	 * Loads all modules mapping.
@@ -72,7 +79,21 @@ public class ModulesRepository
 	 */
 	public static void init(String baseDir)
 	{
-		cache.put(ENTRIES, ConfigLoader.loadModulesMapping(baseDir));
+		Properties p = ConfigLoader.loadModulesMapping(baseDir);
+		Map readOnly = new HashMap();
+		
+		for (Iterator iter = p.keySet().iterator(); iter.hasNext(); ) {
+			String key = (String)iter.next();
+			
+			if (key.startsWith(READ_ONLY_PREFIX)) {
+				String[] actions = p.getProperty(key).trim().split("\\s*,\\s*");
+				readOnly.put(key.substring(READ_ONLY_PREFIX.length()), new HashSet(Arrays.asList(actions)));
+				iter.remove();
+			}
+		}
+		
+		cache.put(ENTRIES, p);
+		readOnlyActions = readOnly;
 	}
 	
 	public static int size()
@@ -98,4 +119,18 @@ public class ModulesRepository
 		
 		return p.getProperty(moduleName);
 	}
+	
+	/**
+	 * Checks if some action only reads from the database. Such actions are listed
+	 * in the modules mapping file as <code>readonly.&lt;module&gt; = action1, action2</code>.
+	 * 
+	 * @param moduleName the module name
+	 * @param action the action name
+	 * @return <code>true</code> if the action is declared as read only
+	 */
+	public static boolean isReadOnly(String moduleName, String action)
+	{
+		Set actions = (Set)readOnlyActions.get(moduleName);
+		return actions != null && actions.contains(action);
+	}
 }
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 17:05:12
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum.repository;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.jforum.JForumExecutionContext;
+import net.jforum.cache.CacheEngine;
+import net.jforum.cache.Cacheable;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+/**
+ * Maps page numbers of the forum, topic and private message listings to the last row of 
+ * the previous page, so the next page can be read with a keyset query 
+ * (<i>"the rows after this one"</i>) instead of an offset.
+ * <p>
+ * Every time a full page is shown, the position of its last row is kept as the cursor
+ * of the next page. Cursors are grouped by a scope, which should change when
+ * rows are added, removed or moved before the end of the listing, so old cursors
+ * are not used anymore. The least recently used cursors are dropped when the 
+ * repository reaches <code>pagination.cursor.cache.size</code> entries.
+ * </p>
+ * <p>
+ * The cursors are kept by each node, but the stamps set by {@link #changed(String)}
+ * are kept in the cache, so all nodes of a cluster see them.
+ * </p>
+ * 
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class PageCursorRepository implements Cacheable
+{
+	private static final String FQN = "pagecursors";
+	
+	private static CacheEngine cache;
+	
+	private static final Map cursors = new LinkedHashMap(256, 0.75f, true) {
+		protected boolean removeEldestEntry(Map.Entry eldest)
+		{
+			return this.size() > SystemGlobals.getIntValue(ConfigKeys.PAGINATION_CURSOR_CACHE_SIZE);
+		}
+	};
+	
+	/**
+	 * @see net.jforum.cache.Cacheable#setCacheEngine(net.jforum.cache.CacheEngine)
+	 */
+	public void setCacheEngine(CacheEngine engine)
+	{
+		cache = engine;
+	}
+	
+	/**
+	 * Checks if keyset pagination is enabled
+	 * @return <code>true</code> if the listings should use cursors
+	 */
+	public static boolean isEnabled()
+	{
+		return SystemGlobals.getBoolValue(ConfigKeys.PAGINATION_KEYSET_ENABLED);
+	}
+	
+	/**
+	 * Gets the cursor of a page
+	 * @param scope the listing, like a forum or a topic, and its version
+	 * @param start the index of the first row of the page
+	 * @return the cursor, or <code>null</code> if not known
+	 */
+	public static long[] get(String scope, int start)
+	{
+		synchronized (cursors) {
+			return (long[])cursors.get(scope + '/' + start);
+		}
+	}
+	
+	/**
+	 * Stores the cursor of a page
+	 * @param scope the listing, like a forum or a topic, and its version
+	 * @param start the index of the first row of the page
+	 * @param cursor the values that identify the last row of the previous page 
+	 */
+	public static void put(String scope, int start, long[] cursor)
+	{
+		synchronized (cursors) {
+			cursors.put(scope + '/' + start, cursor);
+		}
+	}
+	
+	/**
+	 * Gets the scope of a listing, which changes every time {@link #changed(String)}
+	 * is called for it. Callers add to it the values that change when rows are
+	 * added or removed, like the number of rows.
+	 * 
+	 * @param listing the listing, like <code>forum/2</code>
+	 * @return the scope
+	 */
+	public static String scope(String listing)
+	{
+		Long stamp = cache != null ? (Long)cache.get(FQN, listing) : null;
+		return listing + '/' + (stamp != null ? stamp.longValue() : 0);
+	}
+	
+	/**
+	 * Tells that the rows of a listing changed their order, so the cursors 
+	 * kept for it must not be used anymore
+	 * 
+	 * @param listing the listing, like <code>forum/2</code>
+	 */
+	public static void changed(String listing)
+	{
+		if (cache == null) {
+			clear();
+			return;
+		}
+		
+		synchronized (FQN) {
+			Long stamp = (Long)cache.get(FQN, listing);
+			long next = Math.max(System.currentTimeMillis(), stamp != null ? stamp.longValue() + 1 : 0);
+			cache.add(FQN, listing, new Long(next));
+		}
+	}
+	
+	/**
+	 * Calls {@link #changed(String)} once the current transaction commits. Until then, 
+	 * other requests still read the rows in their old order.
+	 * 
+	 * @param listing the listing, like <code>forum/2</code>
+	 */
+	public static void changedAfterCommit(final String listing)
+	{
+		JForumExecutionContext.afterCommit(new Runnable() {
+			public void run()
+			{
+				changed(listing);
+			}
+			
+			public String toString()
+			{
+				return "Discard the page cursors of " + listing;
+			}
+		});
+	}
+	
+	/**
+	 * Gets the number of cursors in memory
+	 * @return the number of cursors
+	 */
+	public static int size()
+	{
+		synchronized (cursors) {
+			return cursors.size();
+		}
+	}
+	
+	/**
+	 * Removes all cursors
+	 */
+	public static void clear()
+	{
+		synchronized (cursors) {
+			cursors.clear();
+		}
+	}
+}
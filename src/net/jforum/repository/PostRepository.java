@@ -168,7 +168,14 @@ public class PostRepository implements Cacheable
 		String tid = Integer.toString(topicId);
 		List posts = (List)cache.get(FQN, tid);
 		if (posts != null && !posts.contains(p)) {
-			posts.add(p);
+			// Posts may be appended out of order, after their transactions commit
+			int position = posts.size();
+			
+			while (position > 0 && ((Post)posts.get(position - 1)).getId() > p.getId()) {
+				position--;
+			}
+			
+			posts.add(position, p);
 			cache.add(FQN, tid, posts);
 		}
 	}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 21:46:30
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum.repository;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.jforum.JForumExecutionContext;
+import net.jforum.dao.DataAccessDriver;
+import net.jforum.dao.PostDAO;
+import net.jforum.entities.Post;
+import net.jforum.util.PostTextCodec;
+import net.jforum.util.concurrent.Executor;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Compresses the text of the messages written before <code>posts.compression.enabled</code>
+ * was set. New and edited messages are compressed by the post DAOs themselves.
+ * <p>
+ * Every <code>posts.compression.interval</code> milliseconds the next
+ * <code>posts.compression.batch.size</code> texts, by id, are read, and the long ones are
+ * written again, each batch in its own transaction. The last id seen is only kept in memory,
+ * so after a restart the job starts again from the first message, skipping the texts already
+ * compressed. Once all texts were seen the job does nothing else.
+ * </p>
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class PostTextCompressor
+{
+	private static final Logger logger = Logger.getLogger(PostTextCompressor.class);
+	private static final ReentrantLock runLock = new ReentrantLock();
+
+	private static int lastPostId;
+	private static volatile boolean finished;
+
+	/**
+	 * Schedules the compression. Does nothing if it is disabled.
+	 */
+	public static void start()
+	{
+		long interval = SystemGlobals.getIntValue(ConfigKeys.POSTS_COMPRESSION_INTERVAL);
+
+		if (!SystemGlobals.getBoolValue(ConfigKeys.POSTS_COMPRESSION_ENABLED) || interval <= 0) {
+			return;
+		}
+
+		Executor.schedule(new Runnable() {
+			public void run()
+			{
+				compress();
+			}
+		}, interval);
+	}
+
+	/**
+	 * Compresses the next batch of texts. If another batch is running, or all texts
+	 * were already seen, returns at once.
+	 * @return the number of texts compressed
+	 */
+	@SuppressWarnings("try")
+	public static int compress()
+	{
+		if (finished || !runLock.tryLock()) {
+			return 0;
+		}
+
+		try {
+			try (JForumExecutionContext.ExecutionContext context = JForumExecutionContext.start()) {
+				try {
+					int batchSize = SystemGlobals.getIntValue(ConfigKeys.POSTS_COMPRESSION_BATCH_SIZE);
+					int threshold = SystemGlobals.getIntValue(ConfigKeys.POSTS_COMPRESSION_THRESHOLD);
+
+					PostDAO dao = DataAccessDriver.getInstance().newPostDAO();
+					List posts = dao.selectTexts(lastPostId, batchSize);
+
+					int compressed = 0;
+					int last = lastPostId;
+
+					for (Iterator iter = posts.iterator(); iter.hasNext(); ) {
+						Post post = (Post)iter.next();
+						last = post.getId();
+
+						String text = post.getText();
+
+						if (text != null && text.length() >= threshold && !PostTextCodec.isCompressed(text)) {
+							dao.updateText(post);
+							compressed++;
+						}
+					}
+
+					lastPostId = last;
+
+					if (posts.size() < batchSize) {
+						finished = true;
+						logger.info("All message texts were compressed");
+					}
+
+					if (compressed > 0) {
+						logger.info(compressed + " message texts compressed");
+					}
+
+					return compressed;
+				}
+				catch (RuntimeException e) {
+					JForumExecutionContext.enableRollback();
+					logger.error("Error compressing message texts: " + e, e);
+					return 0;
+				}
+			}
+		}
+		finally {
+			runLock.unlock();
+		}
+	}
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 15:48:06
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum.repository;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.jforum.JForumExecutionContext;
+import net.jforum.dao.DataAccessDriver;
+import net.jforum.util.concurrent.Executor;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Keeps the read status of watched topics in memory, and writes it to the 
+ * database from time to time, in a single batch.
+ * <p>
+ * The read status is the id of the last post of the topic when the user read it.
+ * Many views of the same topic by the same user are merged in a single entry, 
+ * which keeps only the highest post id. A new answer does not need to touch
+ * the read status of the watchers: a watcher has read the topic if its read 
+ * status is not behind the last post of the topic.
+ * </p>
+ * 
+ * @author Rafael Steil
+ * @version $Id$
+ * @see net.jforum.dao.TopicDAO#updateReadStatus(List)
+ */
+public class ReadStatusAggregator
+{
+	private static final Logger logger = Logger.getLogger(ReadStatusAggregator.class);
+	
+	private static final ConcurrentHashMap pending = new ConcurrentHashMap();
+	private static final ReentrantLock flushLock = new ReentrantLock();
+	
+	/**
+	 * Schedules the periodic flush, and registers a last flush for when
+	 * the application is stopped. Does nothing if the buffering is disabled.
+	 */
+	public static void start()
+	{
+		long interval = SystemGlobals.getIntValue(ConfigKeys.TOPIC_READ_FLUSH_INTERVAL);
+		
+		if (interval <= 0) {
+			return;
+		}
+		
+		Runnable flush = new Runnable() {
+			public void run()
+			{
+				flush();
+			}
+		};
+		
+		Executor.schedule(flush, interval);
+		Executor.addShutdownTask(flush);
+	}
+	
+	/**
+	 * Tells that an user has read a topic
+	 * @param topicId the topic id
+	 * @param userId the user id
+	 * @param lastPostId the id of the last post of the topic
+	 */
+	public static void markAsRead(int topicId, int userId, int lastPostId)
+	{
+		if (SystemGlobals.getIntValue(ConfigKeys.TOPIC_READ_FLUSH_INTERVAL) <= 0) {
+			List l = new ArrayList();
+			l.add(new int[] { topicId, userId, lastPostId });
+			
+			// Topics are shown by read only requests, which may be on a replica
+			boolean previous = JForumExecutionContext.usePrimary(true);
+			
+			try {
+				DataAccessDriver.getInstance().newTopicDAO().updateReadStatus(l);
+			}
+			finally {
+				JForumExecutionContext.usePrimary(previous);
+			}
+			
+			return;
+		}
+		
+		Long key = new Long(((long)topicId << 32) | (userId & 0xffffffffL));
+		Integer value = new Integer(lastPostId);
+		
+		while (true) {
+			Integer current = (Integer)pending.putIfAbsent(key, value);
+			
+			if (current == null || current.intValue() >= lastPostId 
+				|| pending.replace(key, current, value)) {
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Gets the number of entries not yet written to the database
+	 * @return the number of entries
+	 */
+	public static int size()
+	{
+		return pending.size();
+	}
+	
+	/**
+	 * Writes all pending entries to the database. If another flush is 
+	 * running, returns at once. If the update fails, the entries are 
+	 * kept for the next flush.
+	 */
+	@SuppressWarnings("try")
+	public static void flush()
+	{
+		if (!flushLock.tryLock()) {
+			return;
+		}
+		
+		try {
+			List readStatus = drain();
+			
+			if (readStatus.size() == 0) {
+				return;
+			}
+			
+			try (JForumExecutionContext.ExecutionContext context = JForumExecutionContext.start()) {
+				try {
+					DataAccessDriver.getInstance().newTopicDAO().updateReadStatus(readStatus);
+				}
+				catch (RuntimeException e) {
+					JForumExecutionContext.enableRollback();
+					logger.error("Could not write " + readStatus.size() + " read status entries. Will try again later: " + e, e);
+					keep(readStatus);
+				}
+			}
+		}
+		finally {
+			flushLock.unlock();
+		}
+	}
+	
+	/**
+	 * Writes the pending entries of a topic, using the connection of the
+	 * current execution. The notifications of a new answer call it first,
+	 * so the users who read the topic since the last flush are notified.
+	 * If the update fails, the entries are kept for the next flush.
+	 * @param topicId the topic id
+	 */
+	public static void flush(int topicId)
+	{
+		List readStatus = drain(topicId);
+		
+		if (readStatus.size() == 0) {
+			return;
+		}
+		
+		try {
+			DataAccessDriver.getInstance().newTopicDAO().updateReadStatus(readStatus);
+		}
+		catch (RuntimeException e) {
+			keep(readStatus);
+			throw e;
+		}
+	}
+	
+	private static void keep(List readStatus)
+	{
+		for (Iterator iter = readStatus.iterator(); iter.hasNext(); ) {
+			int[] entry = (int[])iter.next();
+			markAsRead(entry[0], entry[1], entry[2]);
+		}
+	}
+	
+	/**
+	 * Takes all entries out of the map, ordered by topic and user
+	 * @return a list of <code>int[] { topicId, userId, lastPostId }</code>
+	 */
+	static List drain()
+	{
+		return drain(0);
+	}
+	
+	/**
+	 * Takes the entries of a topic out of the map, ordered by user
+	 * @param topicId the topic id, or 0 for the entries of all topics
+	 * @return a list of <code>int[] { topicId, userId, lastPostId }</code>
+	 */
+	static List drain(int topicId)
+	{
+		Map sorted = new TreeMap();
+		
+		for (Iterator iter = pending.keySet().iterator(); iter.hasNext(); ) {
+			Long key = (Long)iter.next();
+			
+			if (topicId != 0 && (int)(key.longValue() >>> 32) != topicId) {
+				continue;
+			}
+			
+			Integer value = (Integer)pending.remove(key);
+			
+			if (value != null) {
+				sorted.put(key, value);
+			}
+		}
+		
+		List l = new ArrayList(sorted.size());
+		
+		for (Iterator iter = sorted.entrySet().iterator(); iter.hasNext(); ) {
+			Map.Entry entry = (Map.Entry)iter.next();
+			long key = ((Long)entry.getKey()).longValue();
+			
+			l.add(new int[] { (int)(key >>> 32), (int)key, ((Integer)entry.getValue()).intValue() });
+		}
+		
+		return l;
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 20:42:16
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum.repository;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.jforum.JForumExecutionContext;
+import net.jforum.dao.ArchiveDAO;
+import net.jforum.dao.DataAccessDriver;
+import net.jforum.util.concurrent.Executor;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Moves the messages of topics with no new message in the last <code>archive.months</code>
+ * months to the archive tables, so the posts tables, and their indexes, only keep the
+ * messages people still read.
+ * <p>
+ * Every <code>archive.interval</code> milliseconds up to <code>archive.batch.size</code>
+ * topics are archived, the oldest first, each one in its own transaction. The topics stay
+ * in <code>jforum_topics</code>, and the post DAOs read the archive when a topic has no
+ * messages in the posts tables, so listings, links and search don't change. A topic goes
+ * back to the posts tables when some of its messages is written. Many nodes may run the job,
+ * as a topic is only moved by whoever flags it first.
+ * </p>
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class TopicArchiver
+{
+	private static final Logger logger = Logger.getLogger(TopicArchiver.class);
+	private static final ReentrantLock runLock = new ReentrantLock();
+
+	/**
+	 * Schedules the archiving. Does nothing if it is disabled.
+	 */
+	public static void start()
+	{
+		long interval = SystemGlobals.getIntValue(ConfigKeys.ARCHIVE_INTERVAL);
+
+		if (!SystemGlobals.getBoolValue(ConfigKeys.ARCHIVE_ENABLED) || interval <= 0) {
+			return;
+		}
+
+		Executor.schedule(new Runnable() {
+			public void run()
+			{
+				archive();
+			}
+		}, interval);
+	}
+
+	/**
+	 * Archives a batch of old topics. If another batch is running, returns at once.
+	 * @return the number of topics archived
+	 */
+	@SuppressWarnings("try")
+	public static int archive()
+	{
+		if (!runLock.tryLock()) {
+			return 0;
+		}
+
+		try {
+			Date before = archiveBefore().getTime();
+			List topics;
+
+			try (JForumExecutionContext.ExecutionContext context = JForumExecutionContext.start()) {
+				topics = DataAccessDriver.getInstance().newArchiveDAO().selectTopicsToArchive(
+					before, SystemGlobals.getIntValue(ConfigKeys.ARCHIVE_BATCH_SIZE));
+			}
+
+			int archived = 0;
+
+			for (Iterator iter = topics.iterator(); iter.hasNext(); ) {
+				if (archive(((Integer)iter.next()).intValue(), before)) {
+					archived++;
+				}
+			}
+
+			if (archived > 0) {
+				logger.info(archived + " topics archived");
+			}
+
+			return archived;
+		}
+		catch (RuntimeException e) {
+			logger.error("Error archiving topics: " + e, e);
+			return 0;
+		}
+		finally {
+			runLock.unlock();
+		}
+	}
+
+	@SuppressWarnings("try")
+	private static boolean archive(int topicId, Date before)
+	{
+		try (JForumExecutionContext.ExecutionContext context = JForumExecutionContext.start()) {
+			try {
+				ArchiveDAO dao = DataAccessDriver.getInstance().newArchiveDAO();
+				return dao.archiveTopic(topicId, before);
+			}
+			catch (RuntimeException e) {
+				JForumExecutionContext.enableRollback();
+				logger.warn("Could not archive topic #" + topicId + ": " + e);
+				return false;
+			}
+		}
+	}
+
+	private static Calendar archiveBefore()
+	{
+		Calendar c = Calendar.getInstance();
+		c.add(Calendar.MONTH, -Math.max(1, SystemGlobals.getIntValue(ConfigKeys.ARCHIVE_MONTHS)));
+
+		return c;
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 18:40:12
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum.repository;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.jforum.JForumExecutionContext;
+import net.jforum.dao.DataAccessDriver;
+import net.jforum.dao.TopicDAO;
+import net.jforum.util.concurrent.Executor;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Copies the time and the author of the last post of each topic to the topics
+ * table, read by the topic listings.
+ * <p>
+ * The topics are updated <code>topic.rebuild.batch.size</code> ids at a time, each
+ * range in its own transaction, so a big board never holds the whole table locked.
+ * After each range the thread waits <code>repair.pause</code> milliseconds. A range
+ * that fails is logged and skipped.
+ * </p>
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class TopicDataRebuild
+{
+	private static final Logger logger = Logger.getLogger(TopicDataRebuild.class);
+	private static final ReentrantLock runLock = new ReentrantLock();
+
+	/**
+	 * Starts the rebuild on the maintenance pool
+	 * @return <code>false</code> if a rebuild is already running
+	 */
+	public static boolean startInBackground()
+	{
+		if (runLock.isLocked()) {
+			return false;
+		}
+
+		Executor.execute(new Runnable() {
+			public void run()
+			{
+				rebuild();
+			}
+		});
+
+		return true;
+	}
+
+	/**
+	 * Rebuilds the last post data of all topics. If another rebuild
+	 * is running, returns at once.
+	 * @return the number of ranges that failed, or <code>-1</code> if
+	 * the rebuild was not run
+	 */
+	@SuppressWarnings("try")
+	public static int rebuild()
+	{
+		if (!runLock.tryLock()) {
+			return -1;
+		}
+
+		try {
+			int maxTopicId;
+
+			try (JForumExecutionContext.ExecutionContext context = JForumExecutionContext.start()) {
+				maxTopicId = DataAccessDriver.getInstance().newBulkDAO().maxTopicId();
+			}
+
+			int batchSize = Math.max(1, SystemGlobals.getIntValue(ConfigKeys.TOPIC_REBUILD_BATCH_SIZE));
+			long start = System.currentTimeMillis();
+			int failed = 0;
+
+			for (int from = 1; from <= maxTopicId; from += batchSize) {
+				if (!rebuild(from, from + batchSize - 1)) {
+					failed++;
+				}
+
+				pause();
+			}
+
+			logger.info("Last post data of the topics rebuilt in " + (System.currentTimeMillis() - start) 
+				+ " ms, " + failed + " ranges failed");
+
+			return failed;
+		}
+		catch (RuntimeException e) {
+			logger.error("Error rebuilding the last post data of the topics: " + e, e);
+			return -1;
+		}
+		finally {
+			runLock.unlock();
+		}
+	}
+
+	@SuppressWarnings("try")
+	private static boolean rebuild(int firstTopicId, int lastTopicId)
+	{
+		try (JForumExecutionContext.ExecutionContext context = JForumExecutionContext.start()) {
+			try {
+				TopicDAO dao = DataAccessDriver.getInstance().newTopicDAO();
+				dao.rebuildLastPostData(firstTopicId, lastTopicId);
+
+				return true;
+			}
+			catch (RuntimeException e) {
+				JForumExecutionContext.enableRollback();
+				logger.warn("Could not rebuild the topics " + firstTopicId + " to " + lastTopicId + ": " + e);
+
+				return false;
+			}
+		}
+	}
+
+	private static void pause()
+	{
+		long pause = SystemGlobals.getIntValue(ConfigKeys.REPAIR_PAUSE);
+
+		if (pause > 0) {
+			try {
+				Thread.sleep(pause);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -43,25 +43,39 @@
 package net.jforum.repository;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
+import net.jforum.JForumExecutionContext;
 import net.jforum.cache.CacheEngine;
 import net.jforum.cache.Cacheable;
 import net.jforum.dao.DataAccessDriver;
 import net.jforum.dao.TopicDAO;
 import net.jforum.entities.Topic;
-import net.jforum.entities.TopicTypeComparator;
 import net.jforum.util.preferences.ConfigKeys;
 import net.jforum.util.preferences.SystemGlobals;
 
 /**
  * Repository for the last n topics for each forum.
+ * <p>
+ * The topics of each forum are kept by each node. Every change to them stores a
+ * new stamp for the forum through the cache engine, and a node whose copy was
+ * taken with another stamp drops it and reads the forum again. With a clustered
+ * cache engine, like <code>cache.engine.jboss</code>, the changes made by one node
+ * are thus seen by the others.
+ * </p>
  * 
  * @author Rafael Steil
  * @author James Yong
@@ -72,12 +86,15 @@ public class TopicRepository implements Cacheable
 	private static int maxItems = SystemGlobals.getIntValue(ConfigKeys.TOPICS_PER_PAGE);
 	
 	private static final String FQN = "topics";
-	private static final String RECENT = "recent";
 	private static final String HOTTEST = "hottest";
-	private static final String FQN_FORUM = FQN + "/byforum";
-	private static final String RELATION = "relation";
-	private static final String FQN_LOADED = FQN + "/loaded";
-	private static final Comparator TYPE_COMPARATOR = new TopicTypeComparator();
+	private static final String RECENT_HOTTEST = "recentHottest";
+	static final String STAMPS = "topics.stamps";
+	private static final String RECENT = "recent";
+	private static final Random random = new Random();
+	private static final RecentTopics recentTopics = new RecentTopics();
+	private static volatile long recentStamp;
+	private static final ConcurrentHashMap forums = new ConcurrentHashMap();
+	private static final ConcurrentHashMap relation = new ConcurrentHashMap();
 	
 	private static CacheEngine cache;
 	
@@ -91,7 +108,8 @@ public class TopicRepository implements Cacheable
 	
 	public static boolean isLoaded(int forumId)
 	{
-		return "1".equals(cache.get(FQN_LOADED, Integer.toString(forumId)));
+		ForumTopics topics = synced(new Integer(forumId));
+		return topics != null && topics.loaded;
 	}
 
 	/**
@@ -99,41 +117,34 @@ public class TopicRepository implements Cacheable
 	 * 
 	 * @param topic The topic to add to stack
 	 */
-	public synchronized static void pushTopic(Topic topic)
+	public static void pushTopic(Topic topic)
 	{
 		if (SystemGlobals.getBoolValue(ConfigKeys.TOPIC_CACHE_ENABLED)) {
-			int limit = SystemGlobals.getIntValue(ConfigKeys.RECENT_TOPICS);
-			
-			LinkedList l = (LinkedList)cache.get(FQN, RECENT);
-			if (l == null || l.size() == 0) {
-				l = new LinkedList(loadMostRecentTopics());
-			}
-			
-			l.remove(topic);
-			l.addFirst(topic);
-			
-			while (l.size() > limit) {
-				l.removeLast();
+			if (recentTopics.isEmpty() || recentStamp != stampOf(RECENT)) {
+				readMostRecentTopics();
 			}
 			
-			cache.add(FQN, RECENT, l);
+			recentTopics.push(topic, SystemGlobals.getIntValue(ConfigKeys.RECENT_TOPICS));
+			recentStamp = publish(RECENT);
 		}
 	}
 
 	/**
 	 * Get all cached recent topics. 
 	 * 
+	 * @return an unmodifiable list with the topics, the most recent first
 	 */	
 	public static List getRecentTopics()
 	{
-		List l = (List)cache.get(FQN, RECENT);
+		if (!SystemGlobals.getBoolValue(ConfigKeys.TOPIC_CACHE_ENABLED)) {
+			return Collections.unmodifiableList(readMostRecentTopics());
+		}
 		
-		if (l == null || l.size() == 0
-			|| !SystemGlobals.getBoolValue(ConfigKeys.TOPIC_CACHE_ENABLED)) {
-			l = loadMostRecentTopics();
+		if (recentTopics.isEmpty() || recentStamp != stampOf(RECENT)) {
+			readMostRecentTopics();
 		}
 		
-		return new ArrayList(l);
+		return recentTopics.get();
 	}	
 
 	/**
@@ -142,42 +153,122 @@ public class TopicRepository implements Cacheable
 	 */
 	public static List getHottestTopics()
 	{   
-	    List l = (List)cache.get(FQN, HOTTEST);
-	       
-	    if (l == null || l.size() == 0
-	        || !SystemGlobals.getBoolValue(ConfigKeys.TOPIC_CACHE_ENABLED)) {
-	        l = loadHottestTopics();
-	    }
-	    
-	    return new ArrayList(l);
+		int limit = SystemGlobals.getIntValue(ConfigKeys.HOTTEST_TOPICS);
+		return topicsByIds(HOTTEST, HottestTopics.getTopicIds(limit));
+	}
+	
+	/**
+	 * Get the topics with most views in the last 
+	 * <code>topic.hottest.recent.days</code> days.
+	 * 
+	 */
+	public static List getRecentHottestTopics()
+	{
+		int limit = SystemGlobals.getIntValue(ConfigKeys.HOTTEST_TOPICS);
+		return topicsByIds(RECENT_HOTTEST, HottestTopics.getRecentTopicIds(limit));
+	}
+	
+	/**
+	 * Gets some topics, in the same order of the ids. The cached topics
+	 * are used if they are the same ones.
+	 */
+	private static List topicsByIds(String key, List topicIds)
+	{
+		boolean cacheEnabled = SystemGlobals.getBoolValue(ConfigKeys.TOPIC_CACHE_ENABLED);
+		List l = cacheEnabled ? (List)cache.get(FQN, key) : null;
+		
+		if (l == null || l.size() != topicIds.size() || !sameTopics(l, topicIds)) {
+			boolean previous = JForumExecutionContext.usePrimary(cacheEnabled);
+			
+			try {
+				l = DataAccessDriver.getInstance().newTopicDAO().selectTopicsByIds(topicIds);
+			}
+			finally {
+				JForumExecutionContext.usePrimary(previous);
+			}
+			
+			if (cacheEnabled) {
+				cache.add(FQN, key, new ArrayList(l));
+			}
+		}
+		
+		Map byId = new HashMap();
+		
+		for (Iterator iter = l.iterator(); iter.hasNext(); ) {
+			Topic t = (Topic)iter.next();
+			byId.put(new Integer(t.getId()), t);
+		}
+		
+		List topics = new ArrayList(topicIds.size());
+		
+		for (Iterator iter = topicIds.iterator(); iter.hasNext(); ) {
+			Topic t = (Topic)byId.get(iter.next());
+			
+			if (t != null) {
+				topics.add(t);
+			}
+		}
+		
+		return topics;
+	}
+	
+	private static boolean sameTopics(List topics, List topicIds)
+	{
+		Set ids = new HashSet(topicIds);
+		
+		for (Iterator iter = topics.iterator(); iter.hasNext(); ) {
+			if (!ids.contains(new Integer(((Topic)iter.next()).getId()))) {
+				return false;
+			}
+		}
+		
+		return true;
 	}
 	
 	/**
-	 * Add recent topics to the cache
+	 * Add recent topics to the cache, and makes the other nodes read them again
 	 */
-	public synchronized static List loadMostRecentTopics()
+	public static List loadMostRecentTopics()
+	{
+		List l = readMostRecentTopics();
+		recentStamp = publish(RECENT);
+		
+		return l;
+	}
+	
+	/**
+	 * Reads the recent topics from the database, taking the current stamp
+	 */
+	private static List readMostRecentTopics()
 	{
 		TopicDAO tm = DataAccessDriver.getInstance().newTopicDAO();
 		int limit = SystemGlobals.getIntValue(ConfigKeys.RECENT_TOPICS);
+		long stamp = stampOf(RECENT);
+		List l;
 		
-		List l = tm.selectRecentTopics(limit);
-		cache.add(FQN, RECENT, new LinkedList(l));
+		boolean previous = JForumExecutionContext.usePrimary(true);
 		
+		try {
+			l = tm.selectRecentTopics(limit);
+		}
+		finally {
+			JForumExecutionContext.usePrimary(previous);
+		}
+		
+		recentTopics.set(l, limit);
+		recentStamp = stamp;
+	
 		return l;
 	}
 
 	/**
-	 * Add hottest topics to the cache
+	 * Discards the cached hottest topics, so they are read again
+	 * the next time they are shown
 	 */
-	public synchronized static List loadHottestTopics()
+	public static void loadHottestTopics()
 	{
-	    TopicDAO tm = DataAccessDriver.getInstance().newTopicDAO();
-	    int limit = SystemGlobals.getIntValue(ConfigKeys.HOTTEST_TOPICS);
-	    
-	    List l = tm.selectHottestTopics(limit);
-	    cache.add(FQN, HOTTEST, new LinkedList(l));
-	    
-	    return l;
+		cache.remove(FQN, HOTTEST);
+		cache.remove(FQN, RECENT_HOTTEST);
 	}
 	
 	/**
@@ -189,26 +280,64 @@ public class TopicRepository implements Cacheable
 	public static void addAll(int forumId, List topics)
 	{
 		if (SystemGlobals.getBoolValue(ConfigKeys.TOPIC_CACHE_ENABLED)) {
-			synchronized (FQN_FORUM) {
-				cache.add(FQN_FORUM, Integer.toString(forumId), new LinkedList(topics));
-				
-				Map m = (Map)cache.get(FQN, RELATION);
-				
-				if (m == null) {
-					m = new HashMap();
-				}
-				
-				Integer fId = new Integer(forumId);
-				
-				for (Iterator iter = topics.iterator(); iter.hasNext(); ) {
-					Topic t = (Topic)iter.next();
-					
-					m.put(new Integer(t.getId()), fId);
-				}
-				
-				cache.add(FQN, RELATION, m);
-				cache.add(FQN_LOADED, Integer.toString(forumId), "1");
+			ForumTopics forumTopics = forumTopics(forumId);
+			
+			forumTopics.lock.lock();
+			
+			try {
+				forumTopics.setAll(topics);
+				forumTopics.stamp = stampOf(forumTopics.forumId);
+			}
+			finally {
+				forumTopics.lock.unlock();
+			}
+		}
+	}
+	
+	/**
+	 * Gets the first page of topics of a forum, reading them from the 
+	 * database if they are not loaded yet. Only one thread reads the
+	 * topics of each forum at a time.
+	 * 
+	 * @param forumId The forum id
+	 * @param dao The DAO used to read the topics
+	 * @param count The number of topics to read
+	 * @return <code>ArrayList</code> with the topics
+	 */
+	public static List loadTopics(int forumId, TopicDAO dao, int count)
+	{
+		ForumTopics forumTopics = forumTopics(forumId);
+		
+		forumTopics.lock.lock();
+		
+		try {
+			long stamp = stampOf(forumTopics.forumId);
+			
+			if (forumTopics.loaded && forumTopics.topics.size() > 0 && forumTopics.stamp == stamp) {
+				return forumTopics.list();
+			}
+			
+			boolean cacheEnabled = SystemGlobals.getBoolValue(ConfigKeys.TOPIC_CACHE_ENABLED);
+			boolean previous = JForumExecutionContext.usePrimary(cacheEnabled);
+			List topics;
+			
+			try {
+				topics = dao.selectAllByForumByLimit(forumId, 0, count);
+			}
+			finally {
+				JForumExecutionContext.usePrimary(previous);
 			}
+			
+			if (cacheEnabled) {
+				// A change made while reading gives another stamp, so the topics are read again
+				forumTopics.setAll(topics);
+				forumTopics.stamp = stamp;
+			}
+			
+			return topics;
+		}
+		finally {
+			forumTopics.lock.unlock();
 		}
 	}
 	
@@ -219,12 +348,138 @@ public class TopicRepository implements Cacheable
 	 */
 	public static void clearCache(int forumId) 
 	{
-		synchronized (FQN_FORUM) {
-			cache.add(FQN_FORUM, Integer.toString(forumId), new LinkedList());
-			cache.remove(FQN, RELATION);
+		ForumTopics forumTopics = (ForumTopics)forums.get(new Integer(forumId));
+		
+		if (forumTopics == null) {
+			return;
+		}
+		
+		forumTopics.lock.lock();
+		
+		try {
+			forumTopics.setAll(new ArrayList());
+			forumTopics.loaded = false;
+			publish(forumTopics);
+		}
+		finally {
+			forumTopics.lock.unlock();
 		}
 	}
-	
+
+	/**
+	 * Removes some topics from the cache of a forum. The other topics stay
+	 * cached, and the forum is only read again if it had a full page of topics,
+	 * as then some topic that was not cached may now belong to the first page.
+	 *
+	 * @param forumId The forum id
+	 * @param topicIds The ids of the topics to remove, as <code>Integer</code>s
+	 */
+	public static void removeTopics(int forumId, Collection topicIds)
+	{
+		ForumTopics forumTopics = (ForumTopics)forums.get(new Integer(forumId));
+
+		if (forumTopics == null) {
+			return;
+		}
+
+		forumTopics.lock.lock();
+
+		try {
+			sync(forumTopics);
+			int size = forumTopics.keys.size();
+
+			for (Iterator iter = topicIds.iterator(); iter.hasNext(); ) {
+				forumTopics.remove(new Topic(((Integer)iter.next()).intValue()));
+			}
+
+			if (size >= maxItems && forumTopics.keys.size() < size) {
+				forumTopics.loaded = false;
+			}
+
+			publish(forumTopics);
+		}
+		finally {
+			forumTopics.lock.unlock();
+		}
+	}
+
+	/**
+	 * Changes the status of the cached topics, whatever forum they are in
+	 *
+	 * @param topicIds The topic ids
+	 * @param status The new status, like {@link Topic#STATUS_LOCKED}
+	 */
+	public static void setStatus(int[] topicIds, int status)
+	{
+		for (int i = 0; i < topicIds.length; i++) {
+			Integer forumId = (Integer)relation.get(new Integer(topicIds[i]));
+
+			if (forumId == null) {
+				continue;
+			}
+
+			ForumTopics forumTopics = (ForumTopics)forums.get(forumId);
+
+			if (forumTopics == null) {
+				continue;
+			}
+
+			forumTopics.lock.lock();
+
+			try {
+				sync(forumTopics);
+				Topic topic = forumTopics.get(topicIds[i]);
+
+				if (topic != null) {
+					topic.setStatus(status);
+				}
+
+				publish(forumTopics);
+			}
+			finally {
+				forumTopics.lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Adds the views just written to the database to the cached topics, which
+	 * stopped counting them as pending. The other nodes keep their own counts,
+	 * so the stamps don't change.
+	 *
+	 * @param views Map of topic id to the number of views written
+	 */
+	public static void addTotalViews(Map views)
+	{
+		for (Iterator iter = views.entrySet().iterator(); iter.hasNext(); ) {
+			Map.Entry entry = (Map.Entry)iter.next();
+			Integer forumId = (Integer)relation.get(entry.getKey());
+
+			if (forumId == null) {
+				continue;
+			}
+
+			ForumTopics forumTopics = (ForumTopics)forums.get(forumId);
+
+			if (forumTopics == null) {
+				continue;
+			}
+
+			forumTopics.lock.lock();
+
+			try {
+				Topic topic = forumTopics.get(((Integer)entry.getKey()).intValue());
+
+				if (topic != null) {
+					topic.addTotalViews(((Integer)entry.getValue()).intValue());
+				}
+			}
+			finally {
+				forumTopics.lock.unlock();
+			}
+		}
+	}
+
 	/**
 	 * Adds a new topic to the cache
 	 * 
@@ -236,41 +491,23 @@ public class TopicRepository implements Cacheable
 			return;
 		}
 		
-		synchronized (FQN_FORUM) {
-			String forumId = Integer.toString(topic.getForumId());
-			LinkedList list = (LinkedList)cache.get(FQN_FORUM, forumId);
-			
-			if (list == null) {
-				list = new LinkedList();
-				list.add(topic);
-			}
-			else {
-				boolean contains = list.contains(topic);
-				
-				// If the cache is full, remove the eldest element
-				if (!contains && list.size() + 1 > maxItems) {
-					list.removeLast();
-				}
-				else if (contains) {
-					list.remove(topic);
-				}
-				
-				list.add(topic);
-				
-				Collections.sort(list, TYPE_COMPARATOR);
-			}
-			
-			cache.add(FQN_FORUM, forumId, list);
+		ForumTopics forumTopics = forumTopics(topic.getForumId());
+		
+		forumTopics.lock.lock();
 		
-			Map m = (Map)cache.get(FQN, RELATION);
+		try {
+			sync(forumTopics);
+			forumTopics.put(topic);
 			
-			if (m == null) {
-				m = new HashMap();
+			// If the cache is full, remove the eldest element
+			while (forumTopics.topics.size() > maxItems) {
+				forumTopics.remove((Topic)forumTopics.topics.lastEntry().getValue());
 			}
 			
-			m.put(new Integer(topic.getId()), new Integer(forumId));
-			
-			cache.add(FQN, RELATION, m);
+			publish(forumTopics);
+		}
+		finally {
+			forumTopics.lock.unlock();
 		}
 	}
 	
@@ -282,18 +519,25 @@ public class TopicRepository implements Cacheable
 	public static void updateTopic(Topic topic)
 	{
 		if (SystemGlobals.getBoolValue(ConfigKeys.TOPIC_CACHE_ENABLED)) {
-			synchronized (FQN_FORUM) {
-				String forumId = Integer.toString(topic.getForumId());
-				List l = (List)cache.get(FQN_FORUM, forumId);
+			ForumTopics forumTopics = (ForumTopics)forums.get(new Integer(topic.getForumId()));
+			
+			if (forumTopics == null) {
+				return;
+			}
+			
+			forumTopics.lock.lock();
+			
+			try {
+				sync(forumTopics);
 				
-				if (l != null) {
-					int index = l.indexOf(topic);
-					
-					if (index > -1) {
-						l.set(index, topic);
-						cache.add(FQN_FORUM, forumId, l);
-					}
+				if (forumTopics.keys.containsKey(new Integer(topic.getId()))) {
+					forumTopics.put(topic);
 				}
+				
+				publish(forumTopics);
+			}
+			finally {
+				forumTopics.lock.unlock();
 			}
 		}
 	}
@@ -312,14 +556,10 @@ public class TopicRepository implements Cacheable
 		}
 		
 		if (t.getForumId() == 0) {
-			Map m = (Map)cache.get(FQN, RELATION);
+			Integer forumId = (Integer)relation.get(new Integer(t.getId()));
 			
-			if (m != null) {
-				Integer forumId = (Integer)m.get(new Integer(t.getId()));
-				
-				if (forumId != null) {
-					t.setForumId(forumId.intValue());
-				}
+			if (forumId != null) {
+				t.setForumId(forumId.intValue());
 			}
 			
 			if (t.getForumId() == 0) {
@@ -327,15 +567,9 @@ public class TopicRepository implements Cacheable
 			}
 		}
 		
-		List l = (List)cache.get(FQN_FORUM, Integer.toString(t.getForumId()));
+		ForumTopics forumTopics = synced(new Integer(t.getForumId()));
 		
-		int index = -1;
-		
-		if (l != null) {
-			index = l.indexOf(t);
-		}
-		
-		return (index == -1 ? null : (Topic)l.get(index));
+		return forumTopics == null ? null : forumTopics.get(t.getId());
 	}
 	
 	/**
@@ -350,10 +584,9 @@ public class TopicRepository implements Cacheable
 			return false;
 		}
 		
-		String forumId = Integer.toString(topic.getForumId());
-		List list = (List)cache.get(FQN_FORUM, forumId);
+		ForumTopics forumTopics = synced(new Integer(topic.getForumId()));
 		
-		return list == null ? false : list.contains(topic);
+		return forumTopics != null && forumTopics.keys.containsKey(new Integer(topic.getId()));
 	}
 	
 	/**
@@ -365,17 +598,355 @@ public class TopicRepository implements Cacheable
 	public static List getTopics(int forumid)
 	{
 		if (SystemGlobals.getBoolValue(ConfigKeys.TOPIC_CACHE_ENABLED)) {
-			synchronized (FQN_FORUM) {
-				List returnList = (List)cache.get(FQN_FORUM, Integer.toString(forumid));
-
-				if (returnList == null) {
-					return new ArrayList();
-				}
-				
-				return new ArrayList(returnList);
+			ForumTopics forumTopics = synced(new Integer(forumid));
+			
+			if (forumTopics != null) {
+				return forumTopics.list();
 			}
 		}
 		
 		return new ArrayList();
 	}
+	
+	private static ForumTopics forumTopics(int forumId)
+	{
+		Integer key = new Integer(forumId);
+		ForumTopics forumTopics = (ForumTopics)forums.get(key);
+		
+		if (forumTopics == null) {
+			forumTopics = new ForumTopics(key);
+			ForumTopics previous = (ForumTopics)forums.putIfAbsent(key, forumTopics);
+			
+			if (previous != null) {
+				forumTopics = previous;
+			}
+		}
+		
+		return forumTopics;
+	}
+	
+	/**
+	 * Gets the topics of a forum, dropping them first if another node changed them
+	 */
+	private static ForumTopics synced(Integer forumId)
+	{
+		ForumTopics forumTopics = (ForumTopics)forums.get(forumId);
+		
+		if (forumTopics != null && forumTopics.stamp != stampOf(forumId)) {
+			forumTopics.lock.lock();
+			
+			try {
+				sync(forumTopics);
+			}
+			finally {
+				forumTopics.lock.unlock();
+			}
+		}
+		
+		return forumTopics;
+	}
+	
+	/**
+	 * Drops the topics of a forum if they were taken with another stamp.
+	 * Callers must hold the lock.
+	 */
+	private static void sync(ForumTopics forumTopics)
+	{
+		long stamp = stampOf(forumTopics.forumId);
+		
+		if (forumTopics.stamp != stamp) {
+			forumTopics.setAll(new ArrayList());
+			forumTopics.loaded = false;
+			forumTopics.stamp = stamp;
+		}
+	}
+	
+	/**
+	 * Stores a new stamp for a forum, so the other nodes drop their topics.
+	 * Callers must hold the lock.
+	 */
+	private static void publish(ForumTopics forumTopics)
+	{
+		if (cache != null) {
+			forumTopics.stamp = publish(forumTopics.forumId.toString());
+		}
+	}
+	
+	/**
+	 * Stores a new stamp for a key, so the other nodes drop what they keep for it
+	 * @return the new stamp
+	 */
+	private static long publish(String key)
+	{
+		if (cache == null) {
+			return 0;
+		}
+		
+		long stamp;
+		
+		do {
+			stamp = random.nextLong();
+		} while (stamp == 0);
+		
+		cache.add(STAMPS, key, new Long(stamp));
+		
+		return stamp;
+	}
+	
+	private static long stampOf(Integer forumId)
+	{
+		return stampOf(forumId.toString());
+	}
+	
+	private static long stampOf(String key)
+	{
+		Long stamp = cache == null ? null : (Long)cache.get(STAMPS, key);
+		return stamp == null ? 0 : stamp.longValue();
+	}
+	
+	/**
+	 * The cached topics of a forum, sorted by type and last post, and 
+	 * indexed by id. Readers don't lock, and writers only lock the forum
+	 * they change.
+	 */
+	static class ForumTopics
+	{
+		final Integer forumId;
+		final ReentrantLock lock = new ReentrantLock();
+		final ConcurrentSkipListMap topics = new ConcurrentSkipListMap();
+		final ConcurrentHashMap keys = new ConcurrentHashMap();
+		volatile boolean loaded;
+		volatile long stamp;
+		
+		ForumTopics(Integer forumId)
+		{
+			this.forumId = forumId;
+		}
+		
+		Topic get(int topicId)
+		{
+			TopicKey key = (TopicKey)this.keys.get(new Integer(topicId));
+			return key == null ? null : (Topic)this.topics.get(key);
+		}
+		
+		List list()
+		{
+			return new ArrayList(this.topics.values());
+		}
+		
+		/**
+		 * Adds or replaces a topic. The old entry is removed before the
+		 * new one goes in, so readers never see the topic twice. A reader
+		 * may miss it for a moment, and then reads it from the database.
+		 * Callers must hold the lock.
+		 */
+		void put(Topic topic)
+		{
+			Integer topicId = new Integer(topic.getId());
+			TopicKey key = new TopicKey(topic);
+			TopicKey previous = (TopicKey)this.keys.get(topicId);
+			
+			if (previous != null && !previous.equals(key)) {
+				this.topics.remove(previous);
+			}
+			
+			this.topics.put(key, topic);
+			this.keys.put(topicId, key);
+			
+			relation.put(topicId, this.forumId);
+		}
+		
+		/**
+		 * Callers must hold the lock.
+		 */
+		void remove(Topic topic)
+		{
+			Integer topicId = new Integer(topic.getId());
+			TopicKey key = (TopicKey)this.keys.remove(topicId);
+			
+			if (key != null) {
+				this.topics.remove(key);
+				relation.remove(topicId, this.forumId);
+			}
+		}
+		
+		/**
+		 * Replaces all topics. Callers must hold the lock.
+		 */
+		void setAll(List topics)
+		{
+			for (Iterator iter = this.keys.keySet().iterator(); iter.hasNext(); ) {
+				relation.remove(iter.next(), this.forumId);
+			}
+			
+			this.topics.clear();
+			this.keys.clear();
+			
+			for (Iterator iter = topics.iterator(); iter.hasNext(); ) {
+				this.put((Topic)iter.next());
+			}
+			
+			this.loaded = true;
+		}
+	}
+	
+	/**
+	 * The position of a topic in the list of its forum: the higher types first, 
+	 * then the most recent last post. It is taken when the topic is added, so 
+	 * later changes to the topic don't break the order.
+	 */
+	static final class TopicKey implements Comparable
+	{
+		private final int type;
+		private final long lastPostTime;
+		private final int topicId;
+		
+		TopicKey(Topic topic)
+		{
+			this.type = topic.getType();
+			this.lastPostTime = topic.getLastPostDate() != null ? topic.getLastPostDate().getTime() : 0;
+			this.topicId = topic.getId();
+		}
+		
+		public int compareTo(Object o)
+		{
+			TopicKey other = (TopicKey)o;
+			
+			if (this.type != other.type) {
+				return this.type > other.type ? -1 : 1;
+			}
+			
+			if (this.lastPostTime != other.lastPostTime) {
+				return this.lastPostTime > other.lastPostTime ? -1 : 1;
+			}
+			
+			return this.topicId < other.topicId ? 1 : (this.topicId == other.topicId ? 0 : -1);
+		}
+		
+		public boolean equals(Object o)
+		{
+			return o instanceof TopicKey && this.compareTo(o) == 0;
+		}
+		
+		public int hashCode()
+		{
+			return this.topicId;
+		}
+	}
+	
+	/**
+	 * The most recent topics, without repeated ids. 
+	 * <p>
+	 * The topics are kept in an immutable snapshot, replaced as a whole by each 
+	 * change with a compare-and-set, so readers just take the current snapshot, and 
+	 * writers never block each other. As the list is small (<code>topic.recent</code>
+	 * entries), copying it on each change costs less than keeping a linked list in order.
+	 * </p>
+	 * <p>
+	 * Each node keeps its own list. Every push or reload stores a new stamp in
+	 * the cache engine, and a node that finds another stamp reads the list again
+	 * from the database.
+	 * </p>
+	 */
+	static class RecentTopics
+	{
+		private final AtomicReference snapshot = new AtomicReference(new Snapshot(new int[0], new Topic[0]));
+		
+		/**
+		 * Puts a topic at the head of the list. If the topic is already in
+		 * the list, it is moved to the head. 
+		 * @param topic the topic
+		 * @param limit the maximum number of topics in the list
+		 */
+		void push(Topic topic, int limit)
+		{
+			while (true) {
+				Snapshot current = (Snapshot)this.snapshot.get();
+				Snapshot next = current.push(topic, limit);
+				
+				if (this.snapshot.compareAndSet(current, next)) {
+					return;
+				}
+			}
+		}
+		
+		/**
+		 * Replaces all topics
+		 * @param topics the topics, the most recent first
+		 * @param limit the maximum number of topics in the list
+		 */
+		void set(List topics, int limit)
+		{
+			Snapshot s = new Snapshot(new int[0], new Topic[0]);
+			
+			for (int i = Math.min(topics.size(), limit) - 1; i >= 0; i--) {
+				s = s.push((Topic)topics.get(i), limit);
+			}
+			
+			this.snapshot.set(s);
+		}
+		
+		/**
+		 * @return an unmodifiable list with the topics, the most recent first
+		 */
+		List get()
+		{
+			return ((Snapshot)this.snapshot.get()).list;
+		}
+		
+		boolean isEmpty()
+		{
+			return ((Snapshot)this.snapshot.get()).ids.length == 0;
+		}
+	}
+	
+	private static final class Snapshot
+	{
+		final int[] ids;
+		final Topic[] topics;
+		final List list;
+		
+		Snapshot(int[] ids, Topic[] topics)
+		{
+			this.ids = ids;
+			this.topics = topics;
+			this.list = Collections.unmodifiableList(Arrays.asList(topics));
+		}
+		
+		Snapshot push(Topic topic, int limit)
+		{
+			int position = -1;
+			
+			for (int i = 0; i < this.ids.length; i++) {
+				if (this.ids[i] == topic.getId()) {
+					position = i;
+					break;
+				}
+			}
+			
+			int kept = position > -1 ? this.ids.length - 1 : this.ids.length;
+			int size = Math.min(limit, kept + 1);
+			
+			int[] newIds = new int[size];
+			Topic[] newTopics = new Topic[size];
+			
+			newIds[0] = topic.getId();
+			newTopics[0] = topic;
+			
+			// Copies the other topics, skipping the old position of the new one
+			int before = position > -1 ? position : this.ids.length;
+			int first = Math.min(before, size - 1);
+			
+			System.arraycopy(this.ids, 0, newIds, 1, first);
+			System.arraycopy(this.topics, 0, newTopics, 1, first);
+			
+			if (position > -1 && first < size - 1) {
+				int rest = size - 1 - first;
+				System.arraycopy(this.ids, position + 1, newIds, 1 + first, rest);
+				System.arraycopy(this.topics, position + 1, newTopics, 1 + first, rest);
+			}
+			
+			return new Snapshot(newIds, newTopics);
+		}
+	}
 }
@@ -43,6 +43,7 @@
 package net.jforum.repository;
 
 import java.io.FileInputStream;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.Properties;
 
@@ -111,4 +112,14 @@ public class Tpl implements Cacheable
 	{
 		return (String)cache.get(FQN, key);
 	}
+	
+	/**
+	 * Gets the filenames of all mapped templates
+	 * 
+	 * @return a collection of filenames
+	 */
+	public static Collection names()
+	{
+		return cache.getValues(FQN);
+	}
 }
@@ -0,0 +1,583 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 17:20:44
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum.repository;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.jforum.JForumExecutionContext;
+import net.jforum.cache.CacheEngine;
+import net.jforum.cache.Cacheable;
+import net.jforum.dao.DataAccessDriver;
+import net.jforum.entities.Topic;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Keeps, for each forum, the time of the last post of the recently changed topics,
+ * so the unread markers are found without querying the database.
+ * <p>
+ * The topics of each forum are kept in two arrays, one with the ids and another with
+ * the times, ordered by time. Only topics with messages newer than
+ * <code>unread.index.window.days</code> are kept, up to <code>unread.index.forum.size</code>
+ * topics per forum. Messages older than that are taken as read by everybody.
+ * </p>
+ * <p>
+ * The index is loaded by {@link #load()} at startup, and the post, topic, forum and
+ * moderation DAOs keep it up to date. Their changes are applied once the transaction
+ * commits. Each node has its own index, and every change stores a new stamp for the
+ * forum in the cache engine. A node that finds another stamp for a forum reads the
+ * topics of that forum again from the database.
+ * </p>
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class UnreadTopicsIndex implements Cacheable
+{
+	private static final Logger logger = Logger.getLogger(UnreadTopicsIndex.class);
+	private static final long DAY = 24L * 60 * 60 * 1000;
+	static final String STAMPS = "unread.stamps";
+	private static final Random random = new Random();
+
+	private static final ConcurrentHashMap forums = new ConcurrentHashMap();
+	private static CacheEngine cache;
+
+	/**
+	 * @see net.jforum.cache.Cacheable#setCacheEngine(net.jforum.cache.CacheEngine)
+	 */
+	public void setCacheEngine(CacheEngine engine)
+	{
+		cache = engine;
+	}
+
+	/**
+	 * Loads the topics changed inside the window. Uses the connection
+	 * of the current execution context.
+	 */
+	public static void load()
+	{
+		List topics = DataAccessDriver.getInstance().newForumDAO().selectLastPostTimes(windowStart());
+
+		forums.clear();
+
+		for (Iterator iter = topics.iterator(); iter.hasNext(); ) {
+			Topic t = (Topic)iter.next();
+			forumIndex(t.getForumId(), true).put(t.getId(), t.getLastPostDate().getTime());
+		}
+
+		for (Iterator iter = forums.entrySet().iterator(); iter.hasNext(); ) {
+			Map.Entry entry = (Map.Entry)iter.next();
+			((ForumIndex)entry.getValue()).stamp = stampOf((Integer)entry.getKey());
+		}
+
+		logger.info("Unread index loaded with " + topics.size() + " topics");
+	}
+
+	/**
+	 * Registers a new message, or a topic that has a new last message, 
+	 * once the current transaction commits
+	 * @param forumId the forum id
+	 * @param topicId the topic id
+	 * @param time the time of the message
+	 */
+	public static void postAdded(final int forumId, final int topicId, final long time)
+	{
+		afterCommit(new Runnable() {
+			public void run()
+			{
+				addPost(forumId, topicId, time);
+			}
+		});
+	}
+
+	/**
+	 * Sets the time of the last message of a topic, after messages were removed,
+	 * once the current transaction commits
+	 * @param forumId the forum id
+	 * @param topicId the topic id
+	 * @param time the time of the last message, or 0 if the topic has no messages
+	 */
+	public static void topicChanged(final int forumId, final int topicId, final long time)
+	{
+		afterCommit(new Runnable() {
+			public void run()
+			{
+				changeTopic(forumId, topicId, time);
+			}
+		});
+	}
+
+	/**
+	 * Removes a topic, once the current transaction commits
+	 * @param topicId the topic id
+	 */
+	public static void topicRemoved(final int topicId)
+	{
+		afterCommit(new Runnable() {
+			public void run()
+			{
+				removeTopic(topicId);
+			}
+		});
+	}
+
+	/**
+	 * Moves a topic to another forum, once the current transaction commits
+	 * @param topicId the topic id
+	 * @param fromForumId the current forum
+	 * @param toForumId the new forum
+	 */
+	public static void topicMoved(final int topicId, final int fromForumId, final int toForumId)
+	{
+		afterCommit(new Runnable() {
+			public void run()
+			{
+				moveTopic(topicId, fromForumId, toForumId);
+			}
+		});
+	}
+
+	/**
+	 * Removes all topics of a forum, once the current transaction commits
+	 * @param forumId the forum id
+	 */
+	public static void forumRemoved(final int forumId)
+	{
+		afterCommit(new Runnable() {
+			public void run()
+			{
+				removeForum(forumId);
+			}
+		});
+	}
+
+	static void addPost(int forumId, int topicId, long time)
+	{
+		if (time < windowStart()) {
+			return;
+		}
+
+		ForumIndex index = forumIndex(forumId, true);
+
+		synchronized (index) {
+			if (sync(forumId, index)) {
+				index.put(topicId, time);
+			}
+
+			publish(forumId, index);
+		}
+	}
+
+	static void changeTopic(int forumId, int topicId, long time)
+	{
+		ForumIndex index = forumIndex(forumId, time >= windowStart());
+
+		if (index == null) {
+			return;
+		}
+
+		synchronized (index) {
+			if (sync(forumId, index)) {
+				index.remove(topicId);
+
+				if (time >= windowStart()) {
+					index.put(topicId, time);
+				}
+			}
+
+			publish(forumId, index);
+		}
+	}
+
+	static void removeTopic(int topicId)
+	{
+		for (Iterator iter = forums.entrySet().iterator(); iter.hasNext(); ) {
+			Map.Entry entry = (Map.Entry)iter.next();
+			ForumIndex index = (ForumIndex)entry.getValue();
+
+			synchronized (index) {
+				if (index.remove(topicId) > 0) {
+					publish(((Integer)entry.getKey()).intValue(), index);
+				}
+			}
+		}
+	}
+
+	static void moveTopic(int topicId, int fromForumId, int toForumId)
+	{
+		ForumIndex from = forumIndex(fromForumId, false);
+
+		if (from == null) {
+			return;
+		}
+
+		long time;
+
+		synchronized (from) {
+			time = from.remove(topicId);
+			publish(fromForumId, from);
+		}
+
+		if (time > 0) {
+			addPost(toForumId, topicId, time);
+		}
+	}
+
+	static void removeForum(int forumId)
+	{
+		forums.remove(new Integer(forumId));
+		publish(forumId, null);
+	}
+
+	/**
+	 * Checks if a forum has messages not read by some user
+	 * @param forumId the forum id
+	 * @param lastVisit the last visit of the user
+	 * @param forumReadTime the time the user marked the forum as read, or <code>null</code>
+	 * @param tracking the topics read by the user, as a map from topic id to the time
+	 * they were read. May be <code>null</code>
+	 * @return <code>true</code> if some topic has messages the user has not read
+	 */
+	public static boolean hasUnread(int forumId, long lastVisit, Long forumReadTime, Map tracking)
+	{
+		ForumIndex index = synced(forumId);
+
+		if (index == null) {
+			return false;
+		}
+
+		long since = Math.max(lastVisit, windowStart());
+
+		if (forumReadTime != null) {
+			since = Math.max(since, forumReadTime.longValue() - 1);
+		}
+
+		return index.hasUnread(since, tracking);
+	}
+
+	/**
+	 * Gets the topics of a forum with messages newer than some time
+	 * @param forumId the forum id
+	 * @param since the time
+	 * @return the ids of the topics, as <code>Integer</code>s, the most recent first
+	 */
+	public static List getTopicsChangedSince(int forumId, long since)
+	{
+		ForumIndex index = synced(forumId);
+		return index == null ? new ArrayList() : index.changedSince(Math.max(since, windowStart()));
+	}
+
+	/**
+	 * Gets the number of topics in the index of some forum
+	 * @param forumId the forum id
+	 * @return the number of topics
+	 */
+	public static int size(int forumId)
+	{
+		ForumIndex index = forumIndex(forumId, false);
+		return index == null ? 0 : index.size();
+	}
+
+	private static void afterCommit(Runnable change)
+	{
+		JForumExecutionContext.afterCommit(change, false);
+	}
+
+	/**
+	 * Gets the index of a forum, reading it again from the database
+	 * if another node changed it
+	 */
+	private static ForumIndex synced(int forumId)
+	{
+		ForumIndex index = forumIndex(forumId, false);
+		long stamp = stampOf(new Integer(forumId));
+
+		if (index == null ? stamp == 0 : index.stamp == stamp) {
+			return index;
+		}
+
+		List topics;
+		boolean previous = JForumExecutionContext.usePrimary(true);
+
+		try {
+			topics = DataAccessDriver.getInstance().newForumDAO().selectLastPostTimes(forumId, windowStart());
+		}
+		finally {
+			JForumExecutionContext.usePrimary(previous);
+		}
+
+		ForumIndex loaded = new ForumIndex();
+
+		for (Iterator iter = topics.iterator(); iter.hasNext(); ) {
+			Topic t = (Topic)iter.next();
+			loaded.put(t.getId(), t.getLastPostDate().getTime());
+		}
+
+		loaded.stamp = stamp;
+		forums.put(new Integer(forumId), loaded);
+
+		return loaded;
+	}
+
+	/**
+	 * Tells if the index of a forum has all changes made by the other nodes.
+	 * If not, it is dropped, and the next read loads it again. Callers must
+	 * hold the lock of the index.
+	 */
+	private static boolean sync(int forumId, ForumIndex index)
+	{
+		if (index.stamp == stampOf(new Integer(forumId))) {
+			return true;
+		}
+
+		forums.remove(new Integer(forumId), index);
+		return false;
+	}
+
+	/**
+	 * Stores a new stamp for a forum, so the other nodes read it again.
+	 * Callers must hold the lock of the index, if there is one.
+	 */
+	private static void publish(int forumId, ForumIndex index)
+	{
+		if (cache == null) {
+			return;
+		}
+
+		long stamp;
+
+		do {
+			stamp = random.nextLong();
+		} while (stamp == 0);
+
+		cache.add(STAMPS, Integer.toString(forumId), new Long(stamp));
+
+		if (index != null) {
+			index.stamp = stamp;
+		}
+	}
+
+	private static long stampOf(Integer forumId)
+	{
+		Long stamp = cache == null ? null : (Long)cache.get(STAMPS, forumId.toString());
+		return stamp == null ? 0 : stamp.longValue();
+	}
+
+	private static ForumIndex forumIndex(int forumId, boolean create)
+	{
+		Integer key = new Integer(forumId);
+		ForumIndex index = (ForumIndex)forums.get(key);
+
+		if (index == null && create) {
+			index = new ForumIndex();
+			ForumIndex previous = (ForumIndex)forums.putIfAbsent(key, index);
+
+			if (previous != null) {
+				index = previous;
+			}
+		}
+
+		return index;
+	}
+
+	private static long windowStart()
+	{
+		return System.currentTimeMillis() - SystemGlobals.getIntValue(ConfigKeys.UNREAD_INDEX_WINDOW_DAYS) * DAY;
+	}
+
+	/**
+	 * The topics of a single forum, ordered by the time of their last message.
+	 * The oldest topic is at position 0. The stamp tells which changes it has.
+	 */
+	static class ForumIndex
+	{
+		private int[] topicIds = new int[16];
+		private long[] times = new long[16];
+		private int size;
+		volatile long stamp;
+
+		synchronized void put(int topicId, long time)
+		{
+			this.removeAt(this.indexOf(topicId));
+
+			int position = this.size;
+
+			if (position > 0 && this.times[position - 1] > time) {
+				position = this.insertionPoint(time);
+			}
+
+			if (this.size == this.topicIds.length) {
+				int capacity = this.size * 2;
+				int[] newIds = new int[capacity];
+				long[] newTimes = new long[capacity];
+
+				System.arraycopy(this.topicIds, 0, newIds, 0, this.size);
+				System.arraycopy(this.times, 0, newTimes, 0, this.size);
+
+				this.topicIds = newIds;
+				this.times = newTimes;
+			}
+
+			System.arraycopy(this.topicIds, position, this.topicIds, position + 1, this.size - position);
+			System.arraycopy(this.times, position, this.times, position + 1, this.size - position);
+
+			this.topicIds[position] = topicId;
+			this.times[position] = time;
+			this.size++;
+
+			this.trim();
+		}
+
+		synchronized long remove(int topicId)
+		{
+			int position = this.indexOf(topicId);
+
+			if (position < 0) {
+				return 0;
+			}
+
+			long time = this.times[position];
+			this.removeAt(position);
+
+			return time;
+		}
+
+		synchronized boolean hasUnread(long since, Map tracking)
+		{
+			for (int i = this.size - 1; i >= 0 && this.times[i] > since; i--) {
+				Long readTime = tracking == null ? null : (Long)tracking.get(new Integer(this.topicIds[i]));
+
+				if (readTime == null || readTime.longValue() <= this.times[i]) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		synchronized List changedSince(long since)
+		{
+			List l = new ArrayList();
+
+			for (int i = this.size - 1; i >= 0 && this.times[i] > since; i--) {
+				l.add(new Integer(this.topicIds[i]));
+			}
+
+			return l;
+		}
+
+		synchronized int size()
+		{
+			return this.size;
+		}
+
+		/**
+		 * Drops the topics out of the window, and the oldest ones
+		 * if there are more than <code>unread.index.forum.size</code>
+		 */
+		private void trim()
+		{
+			long start = windowStart();
+			int drop = Math.max(0, this.size - SystemGlobals.getIntValue(ConfigKeys.UNREAD_INDEX_FORUM_SIZE));
+
+			while (drop < this.size && this.times[drop] < start) {
+				drop++;
+			}
+
+			if (drop > 0) {
+				System.arraycopy(this.topicIds, drop, this.topicIds, 0, this.size - drop);
+				System.arraycopy(this.times, drop, this.times, 0, this.size - drop);
+				this.size -= drop;
+			}
+		}
+
+		private int indexOf(int topicId)
+		{
+			// Recent topics are the most likely to change
+			for (int i = this.size - 1; i >= 0; i--) {
+				if (this.topicIds[i] == topicId) {
+					return i;
+				}
+			}
+
+			return -1;
+		}
+
+		private int insertionPoint(long time)
+		{
+			int low = 0;
+			int high = this.size;
+
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+
+				if (this.times[middle] <= time) {
+					low = middle + 1;
+				}
+				else {
+					high = middle;
+				}
+			}
+
+			return low;
+		}
+
+		private void removeAt(int position)
+		{
+			if (position < 0) {
+				return;
+			}
+
+			System.arraycopy(this.topicIds, position + 1, this.topicIds, position, this.size - position - 1);
+			System.arraycopy(this.times, position + 1, this.times, position, this.size - position - 1);
+			this.size--;
+		}
+	}
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 15:58:06
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum.repository;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.jforum.cache.CacheEngine;
+import net.jforum.cache.Cacheable;
+import net.jforum.entities.User;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+/**
+ * Keeps complete users, as returned by {@link net.jforum.dao.UserDAO#selectById(int)}.
+ * <p>
+ * The users are kept in the cache engine, so a change made by one node of a cluster
+ * drops the user on all of them. The repository keeps its own copy of each user, and
+ * every call to {@link #get(int)} returns a new copy, so callers are free to change it.
+ * The number of new private messages and the size of the inbox and sent box are changed
+ * by {@link #addPrivateMessages(int, int)} and {@link #addFolderMessages(int, int, int)}.
+ * When the repository reaches <code>user.cache.size</code> entries, it is emptied.
+ * </p>
+ * <p>
+ * The user DAO removes a user every time it is changed.
+ * </p>
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class UserRepository implements Cacheable
+{
+	private static final String FQN = "users";
+	private static final String FQN_NAMES = "users.names";
+	private static final Object lock = new Object();
+	private static final AtomicLong changes = new AtomicLong();
+	private static final AtomicInteger added = new AtomicInteger();
+	private static CacheEngine cache;
+
+	/**
+	 * @see net.jforum.cache.Cacheable#setCacheEngine(net.jforum.cache.CacheEngine)
+	 */
+	public void setCacheEngine(CacheEngine engine)
+	{
+		cache = engine;
+	}
+
+	/**
+	 * Gets a user
+	 * @param userId the user id
+	 * @return a new instance of the user, or <code>null</code> if not in the cache
+	 */
+	public static User get(int userId)
+	{
+		User user = cache != null ? (User)cache.get(FQN, Integer.toString(userId)) : null;
+		return user != null ? new User(user) : null;
+	}
+
+	/**
+	 * Gets a user by its username. The search is case insensitive.
+	 * @param username the username
+	 * @return a new instance of the user, or <code>null</code> if not in the cache
+	 */
+	public static User getByName(String username)
+	{
+		Integer userId = cache != null ? (Integer)cache.get(FQN_NAMES, username.toLowerCase()) : null;
+
+		if (userId == null) {
+			return null;
+		}
+
+		User user = get(userId.intValue());
+
+		// The name may belong to a user that was renamed or dropped since
+		return user != null && username.equalsIgnoreCase(user.getUsername()) ? user : null;
+	}
+
+	/**
+	 * Gets the current version of the repository. It must be read before
+	 * loading a user, and passed to {@link #add(User, long)}.
+	 * @return the version
+	 */
+	public static long version()
+	{
+		return changes.get();
+	}
+
+	/**
+	 * Stores a copy of a user. Nothing is stored if any user was changed
+	 * after <code>version</code> was read, as the user may be outdated.
+	 * @param user the user
+	 * @param version the value of {@link #version()} before the user was loaded
+	 */
+	public static void add(User user, long version)
+	{
+		if (cache == null || SystemGlobals.getIntValue(ConfigKeys.USER_CACHE_SIZE) <= 0) {
+			return;
+		}
+
+		User copy = new User(user);
+
+		synchronized (lock) {
+			if (version != changes.get()) {
+				return;
+			}
+
+			if (added.incrementAndGet() > SystemGlobals.getIntValue(ConfigKeys.USER_CACHE_SIZE)) {
+				cache.remove(FQN);
+				cache.remove(FQN_NAMES);
+				added.set(1);
+			}
+
+			cache.add(FQN, Integer.toString(copy.getId()), copy);
+
+			if (copy.getUsername() != null) {
+				cache.add(FQN_NAMES, copy.getUsername().toLowerCase(), new Integer(copy.getId()));
+			}
+		}
+	}
+
+	/**
+	 * Changes the number of new private messages of a user
+	 * @param userId the user id
+	 * @param count the number of messages to add. Negative if they were read or removed
+	 */
+	public static void addPrivateMessages(int userId, int count)
+	{
+		synchronized (lock) {
+			changes.incrementAndGet();
+
+			User user = get(userId);
+
+			if (user != null) {
+				user.setPrivateMessagesCount(Math.max(0, user.getPrivateMessagesCount() + count));
+				cache.add(FQN, Integer.toString(userId), user);
+			}
+		}
+	}
+
+	/**
+	 * Changes the number of messages in the folders of a user
+	 * @param userId the user id
+	 * @param inbox the number of messages to add to the inbox. Negative if they were removed
+	 * @param sent the number of messages to add to the sent box. Negative if they were removed
+	 */
+	public static void addFolderMessages(int userId, int inbox, int sent)
+	{
+		synchronized (lock) {
+			changes.incrementAndGet();
+
+			User user = get(userId);
+
+			if (user != null) {
+				user.setInboxCount(Math.max(0, user.getInboxCount() + inbox));
+				user.setSentboxCount(Math.max(0, user.getSentboxCount() + sent));
+				cache.add(FQN, Integer.toString(userId), user);
+			}
+		}
+	}
+
+	/**
+	 * Removes a user, because it has changed
+	 * @param userId the user id
+	 */
+	public static void remove(int userId)
+	{
+		synchronized (lock) {
+			changes.incrementAndGet();
+
+			if (cache != null) {
+				User user = (User)cache.get(FQN, Integer.toString(userId));
+				cache.remove(FQN, Integer.toString(userId));
+
+				if (user != null && user.getUsername() != null) {
+					cache.remove(FQN_NAMES, user.getUsername().toLowerCase());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes all users
+	 */
+	public static void clear()
+	{
+		synchronized (lock) {
+			changes.incrementAndGet();
+			added.set(0);
+
+			if (cache != null) {
+				cache.remove(FQN);
+				cache.remove(FQN_NAMES);
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of users in the cache
+	 * @return the number of users
+	 */
+	public static int size()
+	{
+		return cache != null ? cache.getValues(FQN).size() : 0;
+	}
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 16:21:33
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.jforum.JForumExecutionContext;
+import net.jforum.cache.CacheEngine;
+import net.jforum.cache.Cacheable;
+import net.jforum.dao.DataAccessDriver;
+import net.jforum.entities.User;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+/**
+ * Keeps the few user fields shown next to topics and posts: username, avatar,
+ * rank and number of posts. Missing users are loaded in batches. The summaries
+ * are kept in the cache engine, so a change made by one node of a cluster drops
+ * the summary on all of them. When the repository reaches 
+ * <code>user.summary.cache.size</code> entries, it is emptied.
+ * <p>
+ * The {@link User} instances returned are shared, and must not be changed. The
+ * user DAO removes an entry every time the user is changed.
+ * </p>
+ * 
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class UserSummaryRepository implements Cacheable
+{
+	private static final String FQN = "userSummaries";
+	private static final Object lock = new Object();
+	private static final AtomicLong changes = new AtomicLong();
+	private static final AtomicInteger added = new AtomicInteger();
+	private static CacheEngine cache;
+	
+	/**
+	 * @see net.jforum.cache.Cacheable#setCacheEngine(net.jforum.cache.CacheEngine)
+	 */
+	public void setCacheEngine(CacheEngine engine)
+	{
+		cache = engine;
+	}
+	
+	/**
+	 * Gets the summary of an user
+	 * @param userId the user id
+	 * @return the user summary, or <code>null</code> if the user does not exist
+	 */
+	public static User get(int userId)
+	{
+		List l = new ArrayList();
+		l.add(new Integer(userId));
+		
+		return (User)getAll(l).get(new Integer(userId));
+	}
+	
+	/**
+	 * Gets the summaries of many users. The ones not in the cache are loaded 
+	 * with as few queries as possible.
+	 * @param userIds a collection of user ids (<code>Integer</code>). Repeated ids are fine
+	 * @return a map of user id (<code>Integer</code>) to {@link User}. Users 
+	 * that do not exist are not in the map
+	 */
+	public static Map getAll(Collection userIds)
+	{
+		Map found = new HashMap();
+		List missing = new ArrayList();
+		
+		for (Iterator iter = userIds.iterator(); iter.hasNext(); ) {
+			Integer userId = (Integer)iter.next();
+			
+			if (found.containsKey(userId)) {
+				continue;
+			}
+			
+			User user = cache != null ? (User)cache.get(FQN, userId.toString()) : null;
+			
+			if (user != null) {
+				found.put(userId, user);
+			}
+			else if (!missing.contains(userId)) {
+				missing.add(userId);
+			}
+		}
+		
+		if (missing.size() > 0) {
+			long version = changes.get();
+			List loaded;
+			
+			// Summaries are shared, so read them from the primary database
+			boolean previous = JForumExecutionContext.usePrimary(true);
+			
+			try {
+				loaded = DataAccessDriver.getInstance().newUserDAO().selectSummaries(missing);
+			}
+			finally {
+				JForumExecutionContext.usePrimary(previous);
+			}
+			
+			synchronized (lock) {
+				// Don't keep what may have been changed while it was being loaded
+				boolean keep = cache != null && version == changes.get()
+					&& SystemGlobals.getIntValue(ConfigKeys.USER_SUMMARY_CACHE_SIZE) > 0;
+				
+				for (Iterator iter = loaded.iterator(); iter.hasNext(); ) {
+					User user = (User)iter.next();
+					found.put(new Integer(user.getId()), user);
+					
+					if (keep) {
+						add(user);
+					}
+				}
+			}
+		}
+		
+		return found;
+	}
+	
+	/**
+	 * Callers must hold the lock
+	 */
+	private static void add(User user)
+	{
+		if (added.incrementAndGet() > SystemGlobals.getIntValue(ConfigKeys.USER_SUMMARY_CACHE_SIZE)) {
+			cache.remove(FQN);
+			added.set(1);
+		}
+		
+		cache.add(FQN, Integer.toString(user.getId()), user);
+	}
+	
+	/**
+	 * Removes the summary of an user, because it has changed
+	 * @param userId the user id
+	 */
+	public static void remove(int userId)
+	{
+		synchronized (lock) {
+			changes.incrementAndGet();
+			
+			if (cache != null) {
+				cache.remove(FQN, Integer.toString(userId));
+			}
+		}
+	}
+	
+	/**
+	 * Removes all summaries
+	 */
+	public static void clear()
+	{
+		synchronized (lock) {
+			changes.incrementAndGet();
+			added.set(0);
+			
+			if (cache != null) {
+				cache.remove(FQN);
+			}
+		}
+	}
+	
+	/**
+	 * Gets the number of summaries in the cache
+	 * @return the number of summaries
+	 */
+	public static int size()
+	{
+		return cache != null ? cache.getValues(FQN).size() : 0;
+	}
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 15:12:40
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum.repository;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.jforum.JForumExecutionContext;
+import net.jforum.dao.DataAccessDriver;
+import net.jforum.entities.Topic;
+import net.jforum.util.concurrent.Executor;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Counts topic views in memory, and writes them to the database from time to time, 
+ * in a single batch, instead of running one <code>UPDATE</code> for each page view.
+ * <p>
+ * Each topic has its own counter. When the views are written, the counter is retired
+ * and taken out of the map, and a view that finds a retired counter simply starts a new one,
+ * so no view is lost or counted twice. The views not yet written are added by 
+ * {@link net.jforum.entities.Topic#getTotalViews()}, so the numbers shown to the users are 
+ * always up to date.
+ * </p>
+ * 
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class ViewCountAggregator
+{
+	private static final Logger logger = Logger.getLogger(ViewCountAggregator.class);
+	private static final int RETIRED = -1;
+	
+	private static final ConcurrentHashMap pending = new ConcurrentHashMap();
+	private static final ReentrantLock flushLock = new ReentrantLock();
+	
+	/**
+	 * Schedules the periodic flush, and registers a last flush for when
+	 * the application is stopped. Does nothing if the buffering is disabled.
+	 */
+	public static void start()
+	{
+		long interval = SystemGlobals.getIntValue(ConfigKeys.TOPIC_VIEWS_FLUSH_INTERVAL);
+		
+		if (interval <= 0) {
+			return;
+		}
+		
+		Runnable flush = new Runnable() {
+			public void run()
+			{
+				flush();
+			}
+		};
+		
+		Executor.schedule(flush, interval);
+		Executor.addShutdownTask(flush);
+	}
+	
+	/**
+	 * Counts one more view of a topic, and offers it to the hottest topics
+	 * @param topic the topic
+	 */
+	public static void increment(Topic topic)
+	{
+		HottestTopics.viewed(topic.getId(), topic.getTotalViews() + 1);
+		increment(topic.getId());
+	}
+	
+	/**
+	 * Counts one more view of a topic
+	 * @param topicId the topic id
+	 */
+	public static void increment(int topicId)
+	{
+		if (SystemGlobals.getIntValue(ConfigKeys.TOPIC_VIEWS_FLUSH_INTERVAL) <= 0) {
+			// Topics are shown by read only requests, which may be on a replica
+			boolean previous = JForumExecutionContext.usePrimary(true);
+			
+			try {
+				DataAccessDriver.getInstance().newTopicDAO().incrementTotalViews(topicId);
+			}
+			finally {
+				JForumExecutionContext.usePrimary(previous);
+			}
+			
+			return;
+		}
+		
+		add(new Integer(topicId), 1);
+	}
+	
+	/**
+	 * Gets the number of views of a topic not yet written to the database
+	 * @param topicId the topic id
+	 * @return the number of views
+	 */
+	public static int getPendingViews(int topicId)
+	{
+		AtomicInteger counter = (AtomicInteger)pending.get(new Integer(topicId));
+		
+		if (counter == null) {
+			return 0;
+		}
+		
+		int value = counter.get();
+		return value == RETIRED ? 0 : value;
+	}
+	
+	/**
+	 * Gets the number of topics with views not yet written to the database
+	 * @return the number of topics
+	 */
+	public static int size()
+	{
+		return pending.size();
+	}
+	
+	/**
+	 * Writes all pending views to the database. If another flush is 
+	 * running, returns at once. If the update fails, the views are 
+	 * kept for the next flush.
+	 */
+	@SuppressWarnings("try")
+	public static void flush()
+	{
+		if (!flushLock.tryLock()) {
+			return;
+		}
+		
+		try {
+			final Map views = drain();
+			
+			if (views.size() == 0) {
+				return;
+			}
+			
+			try (JForumExecutionContext.ExecutionContext context = JForumExecutionContext.start()) {
+				try {
+					DataAccessDriver.getInstance().newTopicDAO().addTotalViews(views);
+					
+					// The views are no longer pending, so the cached topics must count them
+					JForumExecutionContext.afterCommit(new Runnable() {
+						public void run()
+						{
+							TopicRepository.addTotalViews(views);
+						}
+					});
+				}
+				catch (RuntimeException e) {
+					JForumExecutionContext.enableRollback();
+					logger.error("Could not write the views of " + views.size() + " topics. Will try again later: " + e, e);
+					
+					for (Iterator iter = views.entrySet().iterator(); iter.hasNext(); ) {
+						Map.Entry entry = (Map.Entry)iter.next();
+						add((Integer)entry.getKey(), ((Integer)entry.getValue()).intValue());
+					}
+				}
+			}
+		}
+		finally {
+			flushLock.unlock();
+		}
+	}
+	
+	/**
+	 * Takes all counters out of the map
+	 * @return a map of topic id to number of views
+	 */
+	static Map drain()
+	{
+		Map views = new HashMap();
+		
+		for (Iterator iter = pending.entrySet().iterator(); iter.hasNext(); ) {
+			Map.Entry entry = (Map.Entry)iter.next();
+			AtomicInteger counter = (AtomicInteger)entry.getValue();
+			
+			int value = counter.getAndSet(RETIRED);
+			pending.remove(entry.getKey(), counter);
+			
+			if (value > 0) {
+				views.put(entry.getKey(), new Integer(value));
+			}
+		}
+		
+		return views;
+	}
+	
+	private static void add(Integer topicId, int views)
+	{
+		while (true) {
+			AtomicInteger counter = (AtomicInteger)pending.get(topicId);
+			
+			if (counter == null) {
+				counter = new AtomicInteger();
+				AtomicInteger previous = (AtomicInteger)pending.putIfAbsent(topicId, counter);
+				
+				if (previous != null) {
+					counter = previous;
+				}
+			}
+			
+			int value = counter.get();
+			
+			if (value == RETIRED) {
+				// Drained by a flush. Help take it out, and start a new one
+				pending.remove(topicId, counter);
+				continue;
+			}
+			
+			if (counter.compareAndSet(value, value + views)) {
+				return;
+			}
+		}
+	}
+}
@@ -52,6 +52,7 @@ import net.jforum.dao.DataAccessDriver;
 import net.jforum.dao.LuceneDAO;
 import net.jforum.entities.Post;
 import net.jforum.exceptions.ForumException;
+import net.jforum.util.concurrent.Executor;
 import net.jforum.util.preferences.ConfigKeys;
 import net.jforum.util.preferences.SystemGlobals;
 
@@ -63,6 +64,8 @@ import org.apache.lucene.search.IndexSearcher;
  */
 public class LuceneReindexer
 {
+	private static boolean stopOnShutdown;
+	
 	private LuceneSettings settings;
 	private LuceneReindexArgs args;
 	private boolean recreate;
@@ -89,8 +92,33 @@ public class LuceneReindexer
 		
 		SystemGlobals.setValue(ConfigKeys.LUCENE_CURRENTLY_INDEXING, "1");
 		
-		Thread thread = new Thread(indexingJob);
-		thread.start();
+		registerShutdownTask();
+		Executor.execute(Executor.INDEXING, indexingJob);
+	}
+	
+	/**
+	 * The pool threads are daemon threads, so a reindex still running when the 
+	 * application stops is asked to end after the current message. The pool 
+	 * then waits for it to write the index, up to <code>executor.shutdown.timeout</code>.
+	 */
+	private static synchronized void registerShutdownTask()
+	{
+		if (stopOnShutdown) {
+			return;
+		}
+		
+		stopOnShutdown = true;
+		
+		Executor.addStopTask(new Runnable() {
+			public void run()
+			{
+				synchronized (LuceneReindexer.class) {
+					stopOnShutdown = false;
+				}
+				
+				SystemGlobals.setValue(ConfigKeys.LUCENE_CURRENTLY_INDEXING, "0");
+			}
+		});
 	}
 
 	private void reindex()
@@ -146,6 +174,8 @@ public class LuceneReindexer
                                         : lastPostId;
 
                                 try (JForumExecutionContext.ExecutionContext context = JForumExecutionContext.start()) {
+                                        JForumExecutionContext.setReadOnly(true);
+
                                         try {
                                                 List l = dao.getPostsToIndex(firstPostId, toPostId);
 
@@ -45,6 +45,7 @@ package net.jforum.security;
 import java.io.Serializable;
 
 import net.jforum.dao.GroupSecurityDAO;
+import net.jforum.util.MD5;
 
 /**
  * Methods and properties for all classes that need make use of security actions.
@@ -57,10 +58,28 @@ public class PermissionControl implements Serializable
 	private RoleCollection roles;
 
 	private transient GroupSecurityDAO smodel;
+	
+	private transient String fingerprint;
 
 	public void setRoles(RoleCollection roles)
 	{
 		this.roles = roles;
+		this.fingerprint = null;
+	}
+	
+	/**
+	 * Gets a hash of all roles and role values. Users with the same
+	 * permissions have the same fingerprint.
+	 * 
+	 * @return the fingerprint
+	 */
+	public String getFingerprint()
+	{
+		if (this.fingerprint == null) {
+			this.fingerprint = MD5.crypt(String.valueOf(this.roles));
+		}
+		
+		return this.fingerprint;
 	}
 
 	public void setSecurityModel(GroupSecurityDAO smodel)
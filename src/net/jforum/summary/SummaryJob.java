@@ -42,6 +42,8 @@
  */
 package net.jforum.summary;
 
+import net.jforum.JForumExecutionContext;
+
 import org.apache.log4j.Logger;
 import org.quartz.Job;
 import org.quartz.JobExecutionContext;
@@ -58,11 +60,14 @@ public class SummaryJob implements Job
 	/**
 	 * @see org.quartz.Job#execute(org.quartz.JobExecutionContext)
 	 */
+	@SuppressWarnings("try")
 	public void execute(JobExecutionContext context) throws JobExecutionException
 	{
-		SummaryModel model = new SummaryModel();
-		
-		try {
+		try (JForumExecutionContext.ExecutionContext ex = JForumExecutionContext.start()) {
+			// The summary only reads posts and users, so it can use a read replica
+			JForumExecutionContext.setReadOnly(true);
+			
+			SummaryModel model = new SummaryModel();
 			model.sendPostsSummary(model.listRecipients());
 		}
 		catch (Exception e) {
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 12:34:51
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+import net.jforum.JForumExecutionContext;
+import net.jforum.context.ForumContext;
+import net.jforum.repository.FragmentRepository;
+
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.TemplateScalarModel;
+import freemarker.template.TemplateTransformModel;
+import freemarker.template.TransformControl;
+
+/**
+ * FreeMarker transform that renders its body once and then reuses the output.
+ * Usage:
+ * <blockquote><pre>
+ * &lt;@fragment name="forumsCombo" region="forums" permissions="true"&gt;
+ *     ...
+ * &lt;/@fragment&gt;
+ * </pre></blockquote>
+ * <code>name</code> is required. <code>region</code> is one of the regions of
+ * {@link FragmentRepository}, and defaults to <code>forums</code>. If
+ * <code>permissions</code> is <code>false</code>, the fragment is shared by all
+ * users of the same language, no matter their permissions.
+ * <p>
+ * The body is rendered every time when the cache is disabled for the region,
+ * or if the session id is being written in the URLs.
+ * </p>
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class FragmentTransform implements TemplateTransformModel
+{
+	private static final String PREFETCHED = "net.jforum.fragment.";
+
+	/**
+	 * Looks for a fragment before the template is rendered, so that an action can
+	 * skip building the data used only by the body of the fragment. The fragment
+	 * found is kept in the request, and it is the one written by the template,
+	 * even if its region is invalidated in the meantime.
+	 *
+	 * @param region the region of the fragment
+	 * @param name the fragment name
+	 * @param byPermission the value of the <code>permissions</code> argument
+	 * @return <code>true</code> if the fragment is cached, so its body will not be rendered
+	 */
+	public static boolean isCached(String region, String name, boolean byPermission)
+	{
+		if (!FragmentRepository.isEnabled(region) || isRewritingUrls()) {
+			return false;
+		}
+
+		String content = FragmentRepository.get(region, FragmentRepository.buildKey(region, name, byPermission));
+
+		if (content == null) {
+			return false;
+		}
+
+		JForumExecutionContext.getRequest().setAttribute(PREFETCHED + name, content);
+
+		return true;
+	}
+
+	/**
+	 * @see freemarker.template.TemplateTransformModel#getWriter(java.io.Writer, java.util.Map)
+	 */
+	public Writer getWriter(Writer out, Map args) throws TemplateModelException
+	{
+		String name = this.argument(args, "name");
+
+		if (name == null) {
+			throw new TemplateModelException("The fragment name is required");
+		}
+
+		String region = this.argument(args, "region");
+
+		if (region == null) {
+			region = FragmentRepository.FORUMS;
+		}
+
+		String prefetched = this.prefetched(name);
+
+		if (prefetched != null) {
+			return new FragmentWriter(out, null, null, prefetched);
+		}
+
+		if (!FragmentRepository.isEnabled(region) || isRewritingUrls()) {
+			return new FragmentWriter(out, null, null, null);
+		}
+
+		String key = FragmentRepository.buildKey(region, name, !"false".equals(this.argument(args, "permissions")));
+
+		return new FragmentWriter(out, region, key, FragmentRepository.get(region, key));
+	}
+
+	private String argument(Map args, String name) throws TemplateModelException
+	{
+		TemplateModel model = (TemplateModel)args.get(name);
+
+		if (model == null) {
+			return null;
+		}
+
+		if (model instanceof TemplateScalarModel) {
+			return ((TemplateScalarModel)model).getAsString();
+		}
+
+		return model.toString();
+	}
+
+	private String prefetched(String name)
+	{
+		ForumContext forumContext = JForumExecutionContext.getForumContext();
+
+		if (forumContext == null || forumContext.getRequest() == null) {
+			return null;
+		}
+
+		return (String)forumContext.getRequest().getAttribute(PREFETCHED + name);
+	}
+
+	/**
+	 * URLs rendered for a client without cookies carry its session id, so they
+	 * cannot be shared.
+	 */
+	private static boolean isRewritingUrls()
+	{
+		ForumContext forumContext = JForumExecutionContext.getForumContext();
+
+		if (forumContext == null || forumContext.isEncodingDisabled()) {
+			return false;
+		}
+
+		String url = "/";
+
+		return !url.equals(JForumExecutionContext.getResponse().encodeURL(url));
+	}
+
+	private static class FragmentWriter extends Writer implements TransformControl
+	{
+		private final Writer out;
+		private final String region;
+		private final String key;
+		private final String cached;
+		private StringBuffer buffer;
+		private boolean failed;
+
+		FragmentWriter(Writer out, String region, String key, String cached)
+		{
+			this.out = out;
+			this.region = region;
+			this.key = key;
+			this.cached = cached;
+		}
+
+		public int onStart() throws IOException
+		{
+			if (this.cached != null) {
+				this.out.write(this.cached);
+				return SKIP_BODY;
+			}
+
+			if (this.key != null) {
+				this.buffer = new StringBuffer(1024);
+			}
+
+			return EVALUATE_BODY;
+		}
+
+		public int afterBody()
+		{
+			return END_EVALUATION;
+		}
+
+		public void onError(Throwable t) throws Throwable
+		{
+			this.failed = true;
+			throw t;
+		}
+
+		public void write(char[] cbuf, int off, int len) throws IOException
+		{
+			this.out.write(cbuf, off, len);
+
+			if (this.buffer != null) {
+				this.buffer.append(cbuf, off, len);
+			}
+		}
+
+		public void flush() throws IOException
+		{
+			this.out.flush();
+		}
+
+		public void close()
+		{
+			if (this.buffer != null && !this.failed) {
+				FragmentRepository.add(this.region, this.key, this.buffer.toString());
+				this.buffer = null;
+			}
+		}
+	}
+}
@@ -45,12 +45,16 @@ package net.jforum.util;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.text.Format;
 import java.text.MessageFormat;
+import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.jforum.SessionFacade;
 import net.jforum.entities.UserSession;
@@ -78,6 +82,14 @@ public class I18n
 
 	private static Map messagesMap = new HashMap();
 
+	// Copies of the loaded messages, by language, read without the locking
+	// done by Properties
+	private static Map textsMap = new ConcurrentHashMap();
+
+	// Parsed messages, by language and key. Each value is either a MessageFormat
+	// or, for messages without arguments, the final String
+	private static Map formatsMap = new ConcurrentHashMap();
+
 	private static Properties localeNames = new Properties();
 
 	private static String defaultName;
@@ -198,6 +210,8 @@ public class I18n
 		}
 		
 		messagesMap.put(localeName, p);
+		textsMap.put(localeName, new HashMap(p));
+		formatsMap.clear();
 
 		watchForChanges(localeName);
 	}
@@ -217,6 +231,8 @@ public class I18n
 	public static void reset()
 	{
 		messagesMap = new HashMap();
+		textsMap.clear();
+		formatsMap.clear();
 		localeNames = new Properties();
 		defaultName = null;
 	}
@@ -261,7 +277,46 @@ public class I18n
 	 */
 	public static String getMessage(String localeName, String messageName, Object params[])
 	{
-		return MessageFormat.format(((Properties) messagesMap.get(localeName)).getProperty(messageName), params);
+		Object format = compiledMessage(localeName, messageName);
+
+		if (format instanceof CompiledMessage) {
+			return ((CompiledMessage)format).format(params);
+		}
+
+		return (String)format;
+	}
+
+	/**
+	 * Gets the parsed form of a message, parsing and storing it
+	 * on the first call.
+	 * 
+	 * @param localeName the locale name
+	 * @param messageName the message key
+	 * @return a {@link CompiledMessage} if the message takes arguments, or the message itself
+	 */
+	private static Object compiledMessage(String localeName, String messageName)
+	{
+		Map formats = (Map)formatsMap.get(localeName);
+
+		if (formats == null) {
+			formats = new ConcurrentHashMap();
+			formatsMap.put(localeName, formats);
+		}
+
+		Object format = formats.get(messageName);
+
+		if (format == null) {
+			String pattern = (String)texts(localeName).get(messageName);
+			MessageFormat messageFormat = new MessageFormat(pattern);
+
+			format = pattern.indexOf('{') > -1
+				? (Object)new CompiledMessage(messageFormat)
+				: messageFormat.format(new Object[0]).intern();
+
+			formats.put(messageName, format);
+		}
+
+		return format;
 	}
 
 	/**
@@ -308,11 +363,19 @@ public class I18n
 	 */
 	public static String getMessage(String localeName, String m)
 	{
-		if (!messagesMap.containsKey(localeName)) {
+		return (String)texts(localeName).get(m);
+	}
+
+	private static Map texts(String localeName)
+	{
+		Map texts = (Map)textsMap.get(localeName);
+
+		if (texts == null) {
 			load(localeName);
+			texts = (Map)textsMap.get(localeName);
 		}
 
-		return (((Properties) messagesMap.get(localeName)).getProperty(m));
+		return texts;
 	}
 
 	public static String getMessage(String m)
@@ -370,4 +433,69 @@ public class I18n
 	{
 		return (localeNames.getProperty(language) != null);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * A parsed message. {@link MessageFormat} is not thread safe, so each call
+	 * to {@link #format(Object[])} formats with its own copy. A copy shares the
+	 * parsed pattern, which is much cheaper than parsing the message again,
+	 * and no lock is held.
+	 */
+	private static class CompiledMessage
+	{
+		// The number formats of each thread, by locale
+		private static final ThreadLocal numberFormats = new ThreadLocal() {
+			protected Object initialValue()
+			{
+				return new HashMap();
+			}
+		};
+
+		private final MessageFormat messageFormat;
+		private final boolean[] untyped;
+
+		CompiledMessage(MessageFormat messageFormat)
+		{
+			this.messageFormat = messageFormat;
+
+			Format[] formats = messageFormat.getFormatsByArgumentIndex();
+			this.untyped = new boolean[formats.length];
+
+			for (int i = 0; i < formats.length; i++) {
+				this.untyped[i] = formats[i] == null;
+			}
+		}
+
+		String format(Object[] params)
+		{
+			Object[] args = params;
+
+			// MessageFormat creates a new NumberFormat every time it sees a number
+			// without an explicit format. Keep one instead, it gives the same output
+			for (int i = 0; args != null && i < args.length && i < this.untyped.length; i++) {
+				if (this.untyped[i] && args[i] instanceof Number) {
+					if (args == params) {
+						args = (Object[])params.clone();
+					}
+
+					args[i] = this.numberFormat().format(args[i]);
+				}
+			}
+
+			return ((MessageFormat)this.messageFormat.clone()).format(args);
+		}
+
+		private NumberFormat numberFormat()
+		{
+			Map formats = (Map)numberFormats.get();
+			Locale locale = this.messageFormat.getLocale();
+			NumberFormat numberFormat = (NumberFormat)formats.get(locale);
+
+			if (numberFormat == null) {
+				numberFormat = NumberFormat.getInstance(locale);
+				formats.put(locale, numberFormat);
+			}
+
+			return numberFormat;
+		}
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 13:05:37
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum.util;
+
+import java.util.List;
+
+import freemarker.ext.beans.BeansWrapper;
+import freemarker.template.ObjectWrapper;
+import freemarker.template.SimpleSequence;
+import freemarker.template.TemplateHashModel;
+import freemarker.template.TemplateMethodModelEx;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.TemplateScalarModel;
+import freemarker.template.TemplateSequenceModel;
+
+/**
+ * Exposes {@link I18n} to the templates. Calls to <code>I18n.getMessage(...)</code>
+ * are dispatched directly, without the reflection and overload resolution done
+ * by the default object wrapper. Anything else is delegated to the wrapped
+ * {@link I18n} instance.
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class I18nTemplateModel implements TemplateHashModel
+{
+	private static final I18nTemplateModel instance = new I18nTemplateModel();
+
+	private final TemplateMethodModelEx getMessage = new GetMessageMethod();
+	private TemplateHashModel wrapped;
+
+	private I18nTemplateModel() {}
+
+	public static I18nTemplateModel getInstance()
+	{
+		return instance;
+	}
+
+	/**
+	 * @see freemarker.template.TemplateHashModel#get(java.lang.String)
+	 */
+	public TemplateModel get(String key) throws TemplateModelException
+	{
+		if ("getMessage".equals(key)) {
+			return this.getMessage;
+		}
+
+		if (this.wrapped == null) {
+			this.wrapped = (TemplateHashModel)ObjectWrapper.DEFAULT_WRAPPER.wrap(I18n.getInstance());
+		}
+
+		return this.wrapped.get(key);
+	}
+
+	/**
+	 * @see freemarker.template.TemplateHashModel#isEmpty()
+	 */
+	public boolean isEmpty()
+	{
+		return false;
+	}
+
+	private static class GetMessageMethod implements TemplateMethodModelEx
+	{
+		public Object exec(List args) throws TemplateModelException
+		{
+			if (args.size() == 1) {
+				return I18n.getMessage(asString(args.get(0)));
+			}
+
+			if (args.size() == 2) {
+				Object second = args.get(1);
+
+				if (second instanceof TemplateSequenceModel) {
+					return I18n.getMessage(asString(args.get(0)), toArray((TemplateSequenceModel)second));
+				}
+
+				return I18n.getMessage(asString(args.get(0)), asString(second));
+			}
+
+			throw new TemplateModelException("I18n.getMessage expects one or two arguments, got " + args.size());
+		}
+
+		private static String asString(Object model) throws TemplateModelException
+		{
+			if (model instanceof TemplateScalarModel) {
+				return ((TemplateScalarModel)model).getAsString();
+			}
+
+			return model == null ? null : model.toString();
+		}
+
+		private static Object[] toArray(TemplateSequenceModel sequence) throws TemplateModelException
+		{
+			if (sequence instanceof SimpleSequence) {
+				return ((SimpleSequence)sequence).toList().toArray();
+			}
+
+			Object[] params = new Object[sequence.size()];
+			BeansWrapper wrapper = BeansWrapper.getDefaultInstance();
+
+			for (int i = 0; i < params.length; i++) {
+				params[i] = wrapper.unwrap(sequence.get(i));
+			}
+
+			return params;
+		}
+	}
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 21:18:05
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.log4j.Logger;
+
+/**
+ * Compresses the text of long messages before it is written to <code>jforum_posts_text</code>,
+ * and expands it back when it is read.
+ * <p>
+ * When <code>posts.compression.enabled</code> is set, texts with at least
+ * <code>posts.compression.threshold</code> characters are compressed with Deflate and
+ * stored as {@link #MARKER} followed by the compressed bytes in Base64, so they fit in the
+ * existing text columns. A text is only stored compressed if that makes it shorter. Texts
+ * that start with the marker themselves are always compressed, so any stored text starting
+ * with the marker is a compressed one. Texts without the marker are returned as they are,
+ * so compressed and plain rows can live together.
+ * </p>
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class PostTextCodec
+{
+	private static final Logger logger = Logger.getLogger(PostTextCodec.class);
+
+	/**
+	 * The prefix of the compressed texts
+	 */
+	public static final String MARKER = "{deflate}";
+
+	/**
+	 * Gets the text to store for a message
+	 * @param text the text of the message
+	 * @return the text compressed, if the compression is enabled and the text is long
+	 * enough, or the text itself
+	 */
+	public static String encode(String text)
+	{
+		if (text == null) {
+			return null;
+		}
+
+		boolean marked = text.startsWith(MARKER);
+
+		if (!marked && (!SystemGlobals.getBoolValue(ConfigKeys.POSTS_COMPRESSION_ENABLED)
+			|| text.length() < SystemGlobals.getIntValue(ConfigKeys.POSTS_COMPRESSION_THRESHOLD))) {
+			return text;
+		}
+
+		String compressed = MARKER + compress(text);
+
+		return marked || compressed.length() < text.length()
+			? compressed
+			: text;
+	}
+
+	/**
+	 * Gets the text of a message from the stored text
+	 * @param stored the text read from the database
+	 * @return the text of the message
+	 */
+	public static String decode(String stored)
+	{
+		if (!isCompressed(stored)) {
+			return stored;
+		}
+
+		try {
+			return expand(stored.substring(MARKER.length()));
+		}
+		catch (DataFormatException e) {
+			logger.warn("Could not expand a compressed message text: " + e);
+			return stored;
+		}
+	}
+
+	/**
+	 * Checks if a stored text is compressed
+	 * @param stored the text read from the database
+	 * @return <code>true</code> if the text starts with {@link #MARKER}
+	 */
+	public static boolean isCompressed(String stored)
+	{
+		return stored != null && stored.startsWith(MARKER);
+	}
+
+	private static String compress(String text)
+	{
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+		try {
+			deflater.setInput(bytes(text));
+			deflater.finish();
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream(text.length() / 2);
+			byte[] buffer = new byte[4096];
+
+			while (!deflater.finished()) {
+				out.write(buffer, 0, deflater.deflate(buffer));
+			}
+
+			return new String(Base64.encodeBase64(out.toByteArray()), "US-ASCII");
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e.toString());
+		}
+		finally {
+			deflater.end();
+		}
+	}
+
+	private static String expand(String encoded) throws DataFormatException
+	{
+		Inflater inflater = new Inflater();
+
+		try {
+			byte[] compressed = Base64.decodeBase64(encoded.getBytes("US-ASCII"));
+			inflater.setInput(compressed);
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 4);
+			byte[] buffer = new byte[4096];
+
+			while (!inflater.finished()) {
+				int length = inflater.inflate(buffer);
+
+				if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					throw new DataFormatException("Truncated data");
+				}
+
+				out.write(buffer, 0, length);
+			}
+
+			return new String(out.toByteArray(), "UTF-8");
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e.toString());
+		}
+		finally {
+			inflater.end();
+		}
+	}
+
+	private static byte[] bytes(String text) throws UnsupportedEncodingException
+	{
+		return text.getBytes("UTF-8");
+	}
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 22:58:41
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum.util.bulk;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import net.jforum.JForumExecutionContext;
+import net.jforum.dao.BulkDAO;
+import net.jforum.dao.DataAccessDriver;
+import net.jforum.exceptions.ForumException;
+import net.jforum.util.PostTextCodec;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Writes the categories, forums, users, topics, messages and attachment data of the board
+ * as JSON lines, as described in {@link JsonRows}. Each table is read through a forward-only
+ * cursor, so the board is never held in memory.
+ * <p>
+ * Archived messages are written as regular messages, and message texts are written
+ * expanded, so the file does not depend on the archive or compression settings of the board.
+ * The attachment files themselves are not exported.
+ * </p>
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ * @see BulkImporter
+ */
+public class BulkExporter
+{
+	private static final Logger logger = Logger.getLogger(BulkExporter.class);
+
+	/**
+	 * The table of each exported row, and the query that reads it, in the order they are written
+	 */
+	static final String[][] EXPORTS = {
+		{ "jforum_categories", "BulkModel.exportCategories" },
+		{ "jforum_forums", "BulkModel.exportForums" },
+		{ "jforum_users", "BulkModel.exportUsers" },
+		{ "jforum_user_groups", "BulkModel.exportUserGroups" },
+		{ "jforum_topics", "BulkModel.exportTopics" },
+		{ "jforum_posts", "BulkModel.exportPosts" },
+		{ "jforum_posts", "BulkModel.exportArchivedPosts" },
+		{ "jforum_posts_text", "BulkModel.exportPostsText" },
+		{ "jforum_posts_text", "BulkModel.exportArchivedPostsText" },
+		{ "jforum_attach", "BulkModel.exportAttachments" },
+		{ "jforum_attach_desc", "BulkModel.exportAttachmentsDesc" }
+	};
+
+	private Writer out;
+
+	/**
+	 * @param out where the lines are written. It is not closed
+	 */
+	public BulkExporter(Writer out)
+	{
+		this.out = out;
+	}
+
+	/**
+	 * Writes all tables
+	 * @return the number of rows written
+	 */
+	public int export()
+	{
+		int total = 0;
+
+		for (int i = 0; i < EXPORTS.length; i++) {
+			total += this.export(EXPORTS[i][0], EXPORTS[i][1]);
+		}
+
+		return total;
+	}
+
+	@SuppressWarnings("try")
+	private int export(final String table, String queryName)
+	{
+		try (JForumExecutionContext.ExecutionContext context = JForumExecutionContext.start()) {
+			JForumExecutionContext.setReadOnly(true);
+
+			BulkDAO dao = DataAccessDriver.getInstance().newBulkDAO();
+
+			int count = dao.export(queryName, new BulkDAO.RowHandler() {
+				public void handle(String[] columns, Object[] values)
+				{
+					write(table, columns, values);
+				}
+			});
+
+			logger.info(count + " rows exported from " + queryName);
+
+			return count;
+		}
+	}
+
+	private void write(String table, String[] columns, Object[] values)
+	{
+		for (int i = 0; i < columns.length; i++) {
+			if ("post_text".equals(columns[i]) && values[i] instanceof String) {
+				values[i] = PostTextCodec.decode((String)values[i]);
+			}
+			else if ("topic_archived".equals(columns[i])) {
+				values[i] = new Integer(0);
+			}
+		}
+
+		try {
+			this.out.write(JsonRows.format(table, columns, values));
+			this.out.write('\n');
+		}
+		catch (IOException e) {
+			throw new ForumException(e);
+		}
+	}
+}
@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 23:12:26
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum.util.bulk;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import net.jforum.JForumExecutionContext;
+import net.jforum.dao.BulkDAO;
+import net.jforum.dao.DataAccessDriver;
+import net.jforum.exceptions.ForumException;
+import net.jforum.util.PostTextCodec;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Loads a file written by {@link BulkExporter}. Rows are inserted with their ids, in
+ * JDBC batches of <code>batchSize</code> rows, each batch in its own transaction.
+ * Nothing else is done for each row: no counters are updated, no cache is touched
+ * and no message is indexed.
+ * <p>
+ * The counters are recomputed afterwards by {@link #recount()}, with set-based
+ * queries by forum and by range of users, in parallel. The search index should be
+ * rebuilt after that, and the board restarted, so the caches are loaded again.
+ * </p>
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class BulkImporter
+{
+	private static final Logger logger = Logger.getLogger(BulkImporter.class);
+	private static final int USERS_PER_TASK = 5000;
+
+	/**
+	 * The tables a file may have rows for, in the order they are loaded
+	 */
+	public static final String[] TABLES = { "jforum_categories", "jforum_forums", "jforum_users",
+		"jforum_user_groups", "jforum_topics", "jforum_posts", "jforum_posts_text", "jforum_attach",
+		"jforum_attach_desc" };
+
+	private BufferedReader in;
+	private int batchSize;
+	private int threads;
+
+	private String table;
+	private String[] sourceColumns;
+	private int[] sourceIndexes;
+	private String[] columns;
+	private int[] types;
+	private int textIndex;
+	private List batch = new ArrayList();
+
+	/**
+	 * @param in the file to read, one row by line
+	 * @param batchSize the number of rows inserted by each batch
+	 * @param threads the number of queries {@link #recount()} runs at once
+	 */
+	public BulkImporter(BufferedReader in, int batchSize, int threads)
+	{
+		this.in = in;
+		this.batchSize = Math.max(1, batchSize);
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Removes all rows of the tables in {@link #TABLES}, the last table first.
+	 * The rows of the archive tables are removed too.
+	 */
+	@SuppressWarnings("try")
+	public void clean()
+	{
+		try (JForumExecutionContext.ExecutionContext context = JForumExecutionContext.start()) {
+			try {
+				BulkDAO dao = DataAccessDriver.getInstance().newBulkDAO();
+
+				for (int i = TABLES.length - 1; i >= 0; i--) {
+					dao.deleteAll(TABLES[i]);
+				}
+
+				dao.deleteAll("jforum_posts_text_archive");
+				dao.deleteAll("jforum_posts_archive");
+			}
+			catch (RuntimeException e) {
+				JForumExecutionContext.enableRollback();
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Inserts all rows of the file
+	 * @return the number of rows inserted
+	 */
+	@SuppressWarnings("try")
+	public int importRows()
+	{
+		int total = 0;
+
+		try {
+			String line;
+
+			while ((line = this.in.readLine()) != null) {
+				if (line.trim().length() == 0) {
+					continue;
+				}
+
+				JsonRows.Row row = JsonRows.parse(line);
+
+				if (!row.getTable().equals(this.table) || !Arrays.equals(row.getColumns(), this.sourceColumns)) {
+					this.flush();
+					this.prepare(row.getTable(), row.getColumns());
+				}
+
+				this.batch.add(this.convert(row.getValues()));
+				total++;
+
+				if (this.batch.size() >= this.batchSize) {
+					this.flush();
+				}
+			}
+
+			this.flush();
+		}
+		catch (IOException e) {
+			throw new ForumException(e);
+		}
+
+		try (JForumExecutionContext.ExecutionContext context = JForumExecutionContext.start()) {
+			DataAccessDriver.getInstance().newBulkDAO().afterImport();
+		}
+
+		logger.info(total + " rows imported");
+
+		return total;
+	}
+
+	@SuppressWarnings("try")
+	private void prepare(String table, String[] sourceColumns)
+	{
+		if (!Arrays.asList(TABLES).contains(table)) {
+			throw new ForumException("Unknown table in the import file: " + table);
+		}
+
+		Map targetTypes;
+
+		try (JForumExecutionContext.ExecutionContext context = JForumExecutionContext.start()) {
+			targetTypes = DataAccessDriver.getInstance().newBulkDAO().columnTypes(table);
+		}
+
+		// Columns the target does not have are skipped, and the ones the file does not have get their defaults
+		List indexes = new ArrayList();
+
+		for (int i = 0; i < sourceColumns.length; i++) {
+			if (targetTypes.containsKey(sourceColumns[i])) {
+				indexes.add(new Integer(i));
+			}
+		}
+
+		this.table = table;
+		this.sourceColumns = sourceColumns;
+		this.sourceIndexes = new int[indexes.size()];
+		this.columns = new String[indexes.size()];
+		this.types = new int[indexes.size()];
+		this.textIndex = -1;
+
+		for (int i = 0; i < this.sourceIndexes.length; i++) {
+			this.sourceIndexes[i] = ((Integer)indexes.get(i)).intValue();
+			this.columns[i] = sourceColumns[this.sourceIndexes[i]];
+			this.types[i] = ((Integer)targetTypes.get(this.columns[i])).intValue();
+
+			if ("post_text".equals(this.columns[i])) {
+				this.textIndex = i;
+			}
+		}
+	}
+
+	private Object[] convert(Object[] sourceValues)
+	{
+		Object[] values = new Object[this.sourceIndexes.length];
+
+		for (int i = 0; i < values.length; i++) {
+			values[i] = sourceValues[this.sourceIndexes[i]];
+		}
+
+		if (this.textIndex > -1 && values[this.textIndex] instanceof String) {
+			values[this.textIndex] = PostTextCodec.encode((String)values[this.textIndex]);
+		}
+
+		return values;
+	}
+
+	@SuppressWarnings("try")
+	private void flush()
+	{
+		if (this.batch.isEmpty()) {
+			return;
+		}
+
+		try (JForumExecutionContext.ExecutionContext context = JForumExecutionContext.start()) {
+			try {
+				DataAccessDriver.getInstance().newBulkDAO().insert(this.table, this.columns, this.types, this.batch);
+			}
+			catch (RuntimeException e) {
+				JForumExecutionContext.enableRollback();
+				throw e;
+			}
+		}
+
+		this.batch.clear();
+	}
+
+	/**
+	 * Recomputes the counters of all topics, forums and users, in parallel
+	 */
+	@SuppressWarnings("try")
+	public void recount()
+	{
+		List tasks = new ArrayList();
+		final BulkDAO dao = DataAccessDriver.getInstance().newBulkDAO();
+
+		List forumIds;
+		int maxUserId;
+
+		try (JForumExecutionContext.ExecutionContext context = JForumExecutionContext.start()) {
+			forumIds = dao.selectForumIds();
+			maxUserId = dao.maxUserId();
+		}
+
+		for (Iterator iter = forumIds.iterator(); iter.hasNext(); ) {
+			final int forumId = ((Integer)iter.next()).intValue();
+
+			tasks.add(new Recount() {
+				void recount()
+				{
+					dao.recountForum(forumId);
+				}
+			});
+		}
+
+		for (int from = 1; from <= maxUserId; from += USERS_PER_TASK) {
+			final int fromUserId = from;
+
+			tasks.add(new Recount() {
+				void recount()
+				{
+					dao.recountUserPosts(fromUserId, fromUserId + USERS_PER_TASK - 1);
+				}
+			});
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+
+		try {
+			List futures = pool.invokeAll(tasks);
+
+			for (Iterator iter = futures.iterator(); iter.hasNext(); ) {
+				((Future)iter.next()).get();
+			}
+
+			logger.info("Counters of " + forumIds.size() + " forums and " + maxUserId + " users recomputed");
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ForumException(e);
+		}
+		catch (ExecutionException e) {
+			throw new ForumException(e.getCause());
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * A recount query, run in its own transaction
+	 */
+	private abstract static class Recount implements Callable
+	{
+		abstract void recount();
+
+		@SuppressWarnings("try")
+		public Object call()
+		{
+			try (JForumExecutionContext.ExecutionContext context = JForumExecutionContext.start()) {
+				try {
+					this.recount();
+					return null;
+				}
+				catch (RuntimeException e) {
+					JForumExecutionContext.enableRollback();
+					throw e;
+				}
+			}
+		}
+	}
+}
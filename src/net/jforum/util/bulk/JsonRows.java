@@ -0,0 +1,363 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 22:40:05
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum.util.bulk;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Writes and reads the lines of a bulk export file. Each line is a JSON object with the
+ * table name in the <code>@table</code> key, followed by one key for each column.
+ * Dates are written as strings in the JDBC timestamp format, and integers are read
+ * back as <code>Long</code>s. Nested objects and arrays are not used.
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class JsonRows
+{
+	public static final String TABLE_KEY = "@table";
+
+	/**
+	 * A line read from an export file
+	 */
+	public static class Row
+	{
+		private String table;
+		private String[] columns;
+		private Object[] values;
+
+		Row(String table, String[] columns, Object[] values)
+		{
+			this.table = table;
+			this.columns = columns;
+			this.values = values;
+		}
+
+		public String getTable()
+		{
+			return this.table;
+		}
+
+		public String[] getColumns()
+		{
+			return this.columns;
+		}
+
+		public Object[] getValues()
+		{
+			return this.values;
+		}
+	}
+
+	/**
+	 * Builds the line of a row
+	 * @param table the table name
+	 * @param columns the column names
+	 * @param values the values, in the same order
+	 * @return the JSON object, with no line break
+	 */
+	public static String format(String table, String[] columns, Object[] values)
+	{
+		StringBuffer sb = new StringBuffer(64 + columns.length * 16);
+		sb.append('{');
+		appendString(sb, TABLE_KEY);
+		sb.append(':');
+		appendString(sb, table);
+
+		for (int i = 0; i < columns.length; i++) {
+			sb.append(',');
+			appendString(sb, columns[i]);
+			sb.append(':');
+			appendValue(sb, values[i]);
+		}
+
+		return sb.append('}').toString();
+	}
+
+	private static void appendValue(StringBuffer sb, Object value)
+	{
+		if (value == null) {
+			sb.append("null");
+		}
+		else if (value instanceof Number || value instanceof Boolean) {
+			sb.append(value instanceof BigDecimal
+				? ((BigDecimal)value).toString()
+				: value.toString());
+		}
+		else if (value instanceof Date) {
+			appendString(sb, value instanceof Timestamp
+				? value.toString()
+				: new Timestamp(((Date)value).getTime()).toString());
+		}
+		else {
+			appendString(sb, value.toString());
+		}
+	}
+
+	private static void appendString(StringBuffer sb, String s)
+	{
+		sb.append('"');
+
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+
+			switch (c) {
+				case '"': sb.append("\\\""); break;
+				case '\\': sb.append("\\\\"); break;
+				case '\n': sb.append("\\n"); break;
+				case '\r': sb.append("\\r"); break;
+				case '\t': sb.append("\\t"); break;
+				default:
+					if (c < 0x20) {
+						String hex = Integer.toHexString(c);
+						sb.append("\\u").append("0000".substring(hex.length())).append(hex);
+					}
+					else {
+						sb.append(c);
+					}
+			}
+		}
+
+		sb.append('"');
+	}
+
+	/**
+	 * Reads a line of an export file
+	 * @param line the line
+	 * @return the row
+	 * @throws IllegalArgumentException if the line is not a JSON object as written by
+	 * {@link #format(String, String[], Object[])}
+	 */
+	public static Row parse(String line)
+	{
+		Parser parser = new Parser(line);
+		String table = null;
+		List columns = new ArrayList();
+		List values = new ArrayList();
+
+		parser.expect('{');
+
+		if (!parser.skip('}')) {
+			do {
+				String key = parser.readString();
+				parser.expect(':');
+				Object value = parser.readValue();
+
+				if (TABLE_KEY.equals(key)) {
+					table = (String)value;
+				}
+				else {
+					columns.add(key);
+					values.add(value);
+				}
+			} while (parser.skip(','));
+
+			parser.expect('}');
+		}
+
+		if (table == null) {
+			throw new IllegalArgumentException("No " + TABLE_KEY + " in line: " + line);
+		}
+
+		return new Row(table, (String[])columns.toArray(new String[columns.size()]), values.toArray());
+	}
+
+	private static class Parser
+	{
+		private String s;
+		private int pos;
+
+		Parser(String s)
+		{
+			this.s = s;
+		}
+
+		void expect(char c)
+		{
+			if (!this.skip(c)) {
+				throw this.error("'" + c + "' expected");
+			}
+		}
+
+		boolean skip(char c)
+		{
+			this.skipSpaces();
+
+			if (this.pos < this.s.length() && this.s.charAt(this.pos) == c) {
+				this.pos++;
+				return true;
+			}
+
+			return false;
+		}
+
+		Object readValue()
+		{
+			this.skipSpaces();
+
+			if (this.pos >= this.s.length()) {
+				throw this.error("value expected");
+			}
+
+			char c = this.s.charAt(this.pos);
+
+			if (c == '"') {
+				return this.readString();
+			}
+
+			if (this.s.startsWith("null", this.pos)) {
+				this.pos += 4;
+				return null;
+			}
+
+			if (this.s.startsWith("true", this.pos)) {
+				this.pos += 4;
+				return Boolean.TRUE;
+			}
+
+			if (this.s.startsWith("false", this.pos)) {
+				this.pos += 5;
+				return Boolean.FALSE;
+			}
+
+			return this.readNumber();
+		}
+
+		private Object readNumber()
+		{
+			int start = this.pos;
+			boolean decimal = false;
+
+			while (this.pos < this.s.length()) {
+				char c = this.s.charAt(this.pos);
+
+				if (c == '.' || c == 'e' || c == 'E') {
+					decimal = true;
+				}
+				else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+					break;
+				}
+
+				this.pos++;
+			}
+
+			String number = this.s.substring(start, this.pos);
+
+			try {
+				return decimal
+					? (Object)new BigDecimal(number)
+					: new Long(number);
+			}
+			catch (NumberFormatException e) {
+				throw this.error("invalid number " + number);
+			}
+		}
+
+		String readString()
+		{
+			this.expect('"');
+
+			StringBuffer sb = new StringBuffer();
+
+			while (this.pos < this.s.length()) {
+				char c = this.s.charAt(this.pos++);
+
+				if (c == '"') {
+					return sb.toString();
+				}
+
+				if (c != '\\') {
+					sb.append(c);
+					continue;
+				}
+
+				if (this.pos >= this.s.length()) {
+					break;
+				}
+
+				c = this.s.charAt(this.pos++);
+
+				switch (c) {
+					case 'n': sb.append('\n'); break;
+					case 'r': sb.append('\r'); break;
+					case 't': sb.append('\t'); break;
+					case 'b': sb.append('\b'); break;
+					case 'f': sb.append('\f'); break;
+					case 'u':
+						if (this.pos + 4 > this.s.length()) {
+							throw this.error("invalid escape");
+						}
+
+						try {
+							sb.append((char)Integer.parseInt(this.s.substring(this.pos, this.pos + 4), 16));
+						}
+						catch (NumberFormatException e) {
+							throw this.error("invalid escape");
+						}
+
+						this.pos += 4;
+						break;
+					default: sb.append(c);
+				}
+			}
+
+			throw this.error("unterminated string");
+		}
+
+		private void skipSpaces()
+		{
+			while (this.pos < this.s.length() && Character.isWhitespace(this.s.charAt(this.pos))) {
+				this.pos++;
+			}
+		}
+
+		private IllegalArgumentException error(String message)
+		{
+			return new IllegalArgumentException(message + " at position " + this.pos);
+		}
+	}
+}
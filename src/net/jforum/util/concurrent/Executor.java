@@ -42,31 +42,249 @@
  */
 package net.jforum.util.concurrent;
 
-import org.apache.log4j.Logger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
 
-import EDU.oswego.cs.dl.util.concurrent.PooledExecutor;
+import org.apache.log4j.Logger;
 
 /**
+ * Runs background tasks on named pools, so that a flood of one kind of 
+ * task (like a mail storm) does not starve the others. 
+ * Pools are created on first use, from the <code>executor.&lt;pool&gt;.*</code> keys.
+ * 
  * @author Rafael Steil
  * @version $Id: Executor.java,v 1.6 2007/03/18 16:56:56 rafaelsteil Exp $
+ * @see TaskPool
  */
 public class Executor
 {
+	public static final String MAIL = "mail";
+	public static final String INDEXING = "indexing";
+	public static final String MAINTENANCE = "maintenance";
+	public static final String POST_COMMIT = "postcommit";
+	public static final String REPAIR = "repair";
+	
+	private static final String[][] POOL_KEYS = {
+		{ MAIL, ConfigKeys.EXECUTOR_MAIL_THREADS_MAX, 
+			ConfigKeys.EXECUTOR_MAIL_QUEUE_SIZE, ConfigKeys.EXECUTOR_MAIL_REJECTION_POLICY },
+		{ INDEXING, ConfigKeys.EXECUTOR_INDEXING_THREADS_MAX, 
+			ConfigKeys.EXECUTOR_INDEXING_QUEUE_SIZE, ConfigKeys.EXECUTOR_INDEXING_REJECTION_POLICY },
+		{ MAINTENANCE, ConfigKeys.EXECUTOR_MAINTENANCE_THREADS_MAX, 
+			ConfigKeys.EXECUTOR_MAINTENANCE_QUEUE_SIZE, ConfigKeys.EXECUTOR_MAINTENANCE_REJECTION_POLICY },
+		{ POST_COMMIT, ConfigKeys.EXECUTOR_POSTCOMMIT_THREADS_MAX, 
+			ConfigKeys.EXECUTOR_POSTCOMMIT_QUEUE_SIZE, ConfigKeys.EXECUTOR_POSTCOMMIT_REJECTION_POLICY },
+		{ REPAIR, ConfigKeys.EXECUTOR_REPAIR_THREADS_MAX, 
+			ConfigKeys.EXECUTOR_REPAIR_QUEUE_SIZE, ConfigKeys.EXECUTOR_REPAIR_REJECTION_POLICY }
+	};
+	
 	private static Logger logger = Logger.getLogger(Executor.class);
-	private static PooledExecutor executor = new PooledExecutor(5);
+	private static Map pools = new LinkedHashMap();
+	private static List stopTasks = new ArrayList();
+	private static List shutdownTasks = new ArrayList();
+	private static ScheduledThreadPoolExecutor scheduler;
+	private static boolean stopped;
 	
-	static {
-		executor.setMinimumPoolSize(2);
-		executor.setMaximumPoolSize(10);
-		executor.setKeepAliveTime(1000 * 60 * 10);
+	/**
+	 * Runs a task on the maintenance pool
+	 * @param runnable the task to run
+	 * @see #execute(String, Runnable)
+	 */
+	public static void execute(Runnable runnable) {
+		execute(MAINTENANCE, runnable);
 	}
 	
-	public static void execute(Runnable runnable) {
+	/**
+	 * Runs a task on some pool
+	 * @param poolName one of {@link #MAIL}, {@link #INDEXING}, {@link #MAINTENANCE}, {@link #POST_COMMIT} or {@link #REPAIR}
+	 * @param runnable the task to run
+	 */
+	public static void execute(String poolName, Runnable runnable) {
 		try {
-			executor.execute(runnable);
+			getPool(poolName).execute(runnable);
+		}
+		catch (RejectedExecutionException e) {
+			logger.warn("Discarding task " + runnable + ": " + e.getMessage());
 		}
 		catch (Exception e) {
 			logger.error("Exception while running task: " + e, e);
 		}
 	}
+	
+	/**
+	 * Runs a task on the maintenance pool every <code>periodMillis</code> milliseconds.
+	 * @param runnable the task to run
+	 * @param periodMillis the time between two runs
+	 */
+	public static synchronized void schedule(final Runnable runnable, long periodMillis)
+	{
+		if (stopped) {
+			throw new RejectedExecutionException("The executor was shut down");
+		}
+		
+		if (scheduler == null) {
+			scheduler = new ScheduledThreadPoolExecutor(1, new TaskPool.NamedThreadFactory("scheduler"));
+		}
+		
+		scheduler.scheduleWithFixedDelay(new Runnable() {
+			public void run()
+			{
+				execute(MAINTENANCE, runnable);
+			}
+		}, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Runs a task once on some pool, after <code>delayMillis</code> milliseconds.
+	 * @param poolName the pool name
+	 * @param runnable the task to run
+	 * @param delayMillis the time to wait
+	 */
+	public static synchronized void executeLater(final String poolName, final Runnable runnable, long delayMillis)
+	{
+		if (stopped) {
+			throw new RejectedExecutionException("The executor was shut down");
+		}
+		
+		if (scheduler == null) {
+			scheduler = new ScheduledThreadPoolExecutor(1, new TaskPool.NamedThreadFactory("scheduler"));
+		}
+		
+		scheduler.schedule(new Runnable() {
+			public void run()
+			{
+				execute(poolName, runnable);
+			}
+		}, delayMillis, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Registers a task to run when the executor is shut down, before the
+	 * pools are stopped. Used to ask long running tasks to end.
+	 * @param runnable the task to run
+	 */
+	public static synchronized void addStopTask(Runnable runnable)
+	{
+		stopTasks.add(runnable);
+	}
+	
+	/**
+	 * Registers a task to run when the executor is shut down, after the
+	 * pools are stopped, so that the work done by the queued tasks is
+	 * included. Used to save data kept in memory.
+	 * @param runnable the task to run
+	 */
+	public static synchronized void addShutdownTask(Runnable runnable)
+	{
+		shutdownTasks.add(runnable);
+	}
+	
+	/**
+	 * Gets a pool by its name, creating it if necessary
+	 * @param poolName the pool name
+	 * @return the pool
+	 * @throws RejectedExecutionException if the executor was shut down
+	 */
+	public static synchronized TaskPool getPool(String poolName)
+	{
+		TaskPool pool = (TaskPool)pools.get(poolName);
+		
+		if (pool == null || pool.isShutdown()) {
+			if (stopped) {
+				throw new RejectedExecutionException("The executor was shut down");
+			}
+			
+			pool = createPool(poolName);
+			pools.put(poolName, pool);
+		}
+		
+		return pool;
+	}
+	
+	/**
+	 * Gets all pools created so far
+	 * @return a list of {@link TaskPool}
+	 */
+	public static synchronized List getPools()
+	{
+		return new ArrayList(pools.values());
+	}
+	
+	/**
+	 * Stops the scheduled tasks, runs the stop tasks and then stops all pools, 
+	 * waiting up to <code>executor.shutdown.timeout</code> milliseconds for the 
+	 * queued tasks of each pool to finish. The shutdown tasks run last. 
+	 * After that no more tasks are accepted.
+	 */
+	public static void shutdown()
+	{
+		long timeout = SystemGlobals.getIntValue(ConfigKeys.EXECUTOR_SHUTDOWN_TIMEOUT);
+		List before;
+		List after;
+		List l;
+		
+		synchronized (Executor.class) {
+			stopped = true;
+			
+			if (scheduler != null) {
+				scheduler.shutdownNow();
+				scheduler = null;
+			}
+			
+			before = new ArrayList(stopTasks);
+			stopTasks.clear();
+			
+			after = new ArrayList(shutdownTasks);
+			shutdownTasks.clear();
+			
+			l = new ArrayList(pools.values());
+			pools.clear();
+		}
+		
+		runAll(before);
+		
+		for (int i = 0; i < l.size(); i++) {
+			TaskPool pool = (TaskPool)l.get(i);
+			
+			logger.info("Stopping pool " + pool.getName() + " (" + pool.getQueueDepth() + " queued tasks)");
+			pool.shutdown(timeout);
+		}
+		
+		runAll(after);
+	}
+	
+	private static void runAll(List tasks)
+	{
+		for (int i = 0; i < tasks.size(); i++) {
+			try {
+				((Runnable)tasks.get(i)).run();
+			}
+			catch (Exception e) {
+				logger.error("Exception while running shutdown task: " + e, e);
+			}
+		}
+	}
+	
+	private static TaskPool createPool(String poolName)
+	{
+		for (int i = 0; i < POOL_KEYS.length; i++) {
+			String[] keys = POOL_KEYS[i];
+			
+			if (keys[0].equals(poolName)) {
+				return new TaskPool(poolName, 
+					SystemGlobals.getIntValue(keys[1]),
+					SystemGlobals.getIntValue(keys[2]),
+					SystemGlobals.getValue(keys[3]));
+			}
+		}
+		
+		throw new IllegalArgumentException("Unknown pool: " + poolName);
+	}
 }
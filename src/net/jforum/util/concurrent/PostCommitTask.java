@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 19:10:27
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum.util.concurrent;
+
+import net.jforum.JForumExecutionContext;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Runs some work registered by {@link JForumExecutionContext#afterCommit(Runnable)},
+ * once the transaction that registered it has committed.
+ * <p>
+ * The work runs in its own execution context, with its own connection and transaction.
+ * If it fails, the transaction is rolled back and the work is run again later, up to
+ * <code>postcommit.retries</code> times, waiting twice as long before each new try.
+ * Work that must not run twice, like sending emails, is created with <code>retry</code>
+ * set to <code>false</code>, and is only logged when it fails.
+ * </p>
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class PostCommitTask implements Runnable
+{
+	private static final Logger logger = Logger.getLogger(PostCommitTask.class);
+
+	private final Runnable task;
+	private final boolean retry;
+	private volatile int failures;
+
+	/**
+	 * @param task the work to run
+	 */
+	public PostCommitTask(Runnable task)
+	{
+		this(task, true);
+	}
+
+	/**
+	 * @param task the work to run
+	 * @param retry <code>false</code> if the work must not run again when it fails
+	 */
+	public PostCommitTask(Runnable task, boolean retry)
+	{
+		this.task = task;
+		this.retry = retry;
+	}
+
+	/**
+	 * @see java.lang.Runnable#run()
+	 */
+	@SuppressWarnings("try")
+	public void run()
+	{
+		RuntimeException failure = null;
+
+		try (JForumExecutionContext.ExecutionContext context = JForumExecutionContext.start()) {
+			try {
+				this.task.run();
+			}
+			catch (RuntimeException e) {
+				JForumExecutionContext.enableRollback();
+				failure = e;
+			}
+		}
+
+		if (failure == null) {
+			return;
+		}
+
+		this.failures++;
+
+		if (!this.retry) {
+			logger.error("Error running " + this.task + ". It is not tried again: " + failure, failure);
+			return;
+		}
+
+		if (this.failures > SystemGlobals.getIntValue(ConfigKeys.POSTCOMMIT_RETRIES)) {
+			logger.error("Giving up " + this.task + " after " + this.failures + " failures: " + failure, failure);
+			return;
+		}
+
+		long delay = SystemGlobals.getIntValue(ConfigKeys.POSTCOMMIT_RETRY_DELAY) * (1L << (this.failures - 1));
+		logger.warn("Error running " + this.task + ". Will try again in " + delay + " ms: " + failure);
+
+		Executor.executeLater(Executor.POST_COMMIT, this, delay);
+	}
+
+	/**
+	 * Gets the number of times the work has failed so far
+	 * @return the number of failures
+	 */
+	public int getFailures()
+	{
+		return this.failures;
+	}
+}
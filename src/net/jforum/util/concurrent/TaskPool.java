@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 11:15:07
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum.util.concurrent;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+/**
+ * A named pool of threads with a bounded task queue.
+ * Threads are started as tasks arrive, up to the maximum, and
+ * stop after being idle for a minute.
+ * When the queue is full, the pool either runs the task in the
+ * thread that submitted it ({@link #POLICY_CALLER_RUNS}) or drops
+ * the task and logs a warning ({@link #POLICY_DISCARD}).
+ * <p>
+ * The pool keeps some numbers about its work, like the number of submitted,
+ * completed and rejected tasks, and the time each task took from
+ * submission to completion.
+ * </p>
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class TaskPool
+{
+	public static final String POLICY_CALLER_RUNS = "caller-runs";
+	public static final String POLICY_DISCARD = "discard";
+
+	private static Logger logger = Logger.getLogger(TaskPool.class);
+
+	private final String name;
+	private final String rejectionPolicy;
+	private final int queueCapacity;
+	private final ThreadPoolExecutor executor;
+
+	private final AtomicLong submitted = new AtomicLong();
+	private final AtomicLong completed = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong callerRuns = new AtomicLong();
+	private final AtomicLong totalLatency = new AtomicLong();
+	private final AtomicLong maxLatency = new AtomicLong();
+
+	/**
+	 * Creates a new pool.
+	 *
+	 * @param name the pool name, also used to name its threads
+	 * @param maxThreads the maximum number of threads
+	 * @param queueCapacity how many tasks can wait for a thread
+	 * @param rejectionPolicy either {@link #POLICY_CALLER_RUNS} or {@link #POLICY_DISCARD}
+	 */
+	public TaskPool(String name, int maxThreads, int queueCapacity, String rejectionPolicy)
+	{
+		this.name = name;
+		this.queueCapacity = queueCapacity;
+		this.rejectionPolicy = POLICY_DISCARD.equals(rejectionPolicy)
+			? POLICY_DISCARD
+			: POLICY_CALLER_RUNS;
+
+		this.executor = new ThreadPoolExecutor(maxThreads, maxThreads,
+			1, TimeUnit.MINUTES, new ArrayBlockingQueue(queueCapacity),
+			new NamedThreadFactory(name), new Rejection());
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Submits a task for execution.
+	 * @param runnable the task to run
+	 */
+	public void execute(Runnable runnable)
+	{
+		this.submitted.incrementAndGet();
+		this.executor.execute(new MeasuredTask(runnable));
+	}
+
+	/**
+	 * Stops accepting new tasks and waits for the queued ones to finish.
+	 *
+	 * @param timeoutMillis how long to wait for the queue to drain
+	 * @return <code>true</code> if all tasks finished in time. If not,
+	 * the pool threads are interrupted and <code>false</code> is returned
+	 */
+	public boolean shutdown(long timeoutMillis)
+	{
+		this.executor.shutdown();
+
+		try {
+			if (this.executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+				return true;
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		int dropped = this.executor.shutdownNow().size();
+		logger.warn("Pool " + this.name + " did not finish in " + timeoutMillis
+			+ " ms. " + dropped + " queued tasks were dropped");
+
+		return false;
+	}
+
+	public boolean isShutdown()
+	{
+		return this.executor.isShutdown();
+	}
+
+	public String getName()
+	{
+		return this.name;
+	}
+
+	public String getRejectionPolicy()
+	{
+		return this.rejectionPolicy;
+	}
+
+	public int getQueueDepth()
+	{
+		return this.executor.getQueue().size();
+	}
+
+	public int getQueueCapacity()
+	{
+		return this.queueCapacity;
+	}
+
+	public int getActiveCount()
+	{
+		return this.executor.getActiveCount();
+	}
+
+	public int getPoolSize()
+	{
+		return this.executor.getPoolSize();
+	}
+
+	public int getMaxPoolSize()
+	{
+		return this.executor.getMaximumPoolSize();
+	}
+
+	public long getSubmittedCount()
+	{
+		return this.submitted.get();
+	}
+
+	public long getCompletedCount()
+	{
+		return this.completed.get();
+	}
+
+	public long getFailedCount()
+	{
+		return this.failed.get();
+	}
+
+	/**
+	 * Gets the number of tasks dropped because the queue was full
+	 * @return the number of discarded tasks
+	 */
+	public long getRejectedCount()
+	{
+		return this.rejected.get();
+	}
+
+	/**
+	 * Gets the number of tasks that had to run in the submitter's thread
+	 * @return the number of tasks run by the caller
+	 */
+	public long getCallerRunsCount()
+	{
+		return this.callerRuns.get();
+	}
+
+	/**
+	 * Gets the average time, in milliseconds, between the submission and the
+	 * end of a task
+	 * @return the average latency
+	 */
+	public long getAverageLatency()
+	{
+		long count = this.completed.get() + this.failed.get();
+		return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(this.totalLatency.get() / count);
+	}
+
+	/**
+	 * Gets the longest time, in milliseconds, between the submission and the
+	 * end of a task
+	 * @return the max latency
+	 */
+	public long getMaxLatency()
+	{
+		return TimeUnit.NANOSECONDS.toMillis(this.maxLatency.get());
+	}
+
+	private void recordLatency(long latency)
+	{
+		this.totalLatency.addAndGet(latency);
+
+		long max = this.maxLatency.get();
+
+		while (latency > max && !this.maxLatency.compareAndSet(max, latency)) {
+			max = this.maxLatency.get();
+		}
+	}
+
+	private class MeasuredTask implements Runnable
+	{
+		private final Runnable task;
+		private final long submittedAt = System.nanoTime();
+
+		MeasuredTask(Runnable task)
+		{
+			this.task = task;
+		}
+
+		public void run()
+		{
+			try {
+				this.task.run();
+				completed.incrementAndGet();
+			}
+			catch (Throwable e) {
+				failed.incrementAndGet();
+				logger.error("Exception while running task on pool " + name + ": " + e, e);
+			}
+			finally {
+				recordLatency(System.nanoTime() - this.submittedAt);
+			}
+		}
+		
+		public String toString()
+		{
+			return this.task.toString();
+		}
+	}
+
+	private class Rejection implements RejectedExecutionHandler
+	{
+		public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor)
+		{
+			if (POLICY_CALLER_RUNS.equals(rejectionPolicy) && !executor.isShutdown()) {
+				callerRuns.incrementAndGet();
+				runnable.run();
+			}
+			else {
+				rejected.incrementAndGet();
+				logger.warn("Pool " + name + " is full (" + queueCapacity
+					+ " queued tasks) or stopped. Discarding task " + runnable);
+			}
+		}
+	}
+
+	static class NamedThreadFactory implements ThreadFactory
+	{
+		private final String prefix;
+		private final AtomicInteger counter = new AtomicInteger();
+
+		NamedThreadFactory(String name)
+		{
+			this.prefix = "jforum-" + name + "-";
+		}
+
+		public Thread newThread(Runnable runnable)
+		{
+			return VirtualThreads.newThread(this.prefix + this.counter.incrementAndGet(), runnable);
+		}
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 10:02:41
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum.util.concurrent;
+
+import java.lang.reflect.Method;
+
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Creates the threads used by background work.
+ * When the key <code>virtual.threads.enabled</code> is set and the running JVM
+ * supports virtual threads (Java 21 or newer), new threads are virtual ones.
+ * Otherwise, regular platform threads are created. The virtual thread API is
+ * looked up by reflection, so JForum still runs on older JVMs.
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public final class VirtualThreads
+{
+	private static Logger logger = Logger.getLogger(VirtualThreads.class);
+
+	private static Method ofVirtual;
+	private static Method builderName;
+	private static Method builderUnstarted;
+
+	static {
+		try {
+			Class builderClass = Class.forName("java.lang.Thread$Builder");
+
+			ofVirtual = Thread.class.getMethod("ofVirtual", new Class[0]);
+			builderName = builderClass.getMethod("name", new Class[] { String.class });
+			builderUnstarted = builderClass.getMethod("unstarted", new Class[] { Runnable.class });
+		}
+		catch (Exception e) {
+			ofVirtual = null;
+		}
+	}
+
+	private VirtualThreads() {}
+
+	/**
+	 * Checks if the running JVM is able to create virtual threads
+	 * @return <code>true</code> if virtual threads are available
+	 */
+	public static boolean isSupported()
+	{
+		return ofVirtual != null;
+	}
+
+	/**
+	 * Checks if background work should run on virtual threads.
+	 * @return <code>true</code> if the mode is enabled in the configuration
+	 * <b>and</b> supported by the JVM
+	 */
+	public static boolean isEnabled()
+	{
+		return isSupported() && SystemGlobals.getBoolValue(ConfigKeys.VIRTUAL_THREADS_ENABLED);
+	}
+
+	/**
+	 * Creates a new, unstarted, thread.
+	 *
+	 * @param name the thread name
+	 * @param runnable the code to run
+	 * @return a virtual thread if {@link #isEnabled()}, or a daemon platform thread otherwise
+	 */
+	public static Thread newThread(String name, Runnable runnable)
+	{
+		if (isEnabled()) {
+			try {
+				Object builder = ofVirtual.invoke(null, new Object[0]);
+				builder = builderName.invoke(builder, new Object[] { name });
+
+				return (Thread)builderUnstarted.invoke(builder, new Object[] { runnable });
+			}
+			catch (Exception e) {
+				logger.warn("Could not create a virtual thread, using a platform one: " + e, e);
+			}
+		}
+
+		Thread thread = new Thread(runnable, name);
+		thread.setDaemon(true);
+
+		return thread;
+	}
+
+	/**
+	 * Creates and starts a new thread.
+	 *
+	 * @param name the thread name
+	 * @param runnable the code to run
+	 * @return the started thread
+	 * @see #newThread(String, Runnable)
+	 */
+	public static Thread start(String name, Runnable runnable)
+	{
+		Thread thread = newThread(name, runnable);
+		thread.start();
+
+		return thread;
+	}
+}
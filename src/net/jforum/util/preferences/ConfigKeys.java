@@ -78,12 +78,20 @@ public class ConfigKeys
 	public static final String DATABASE_POOL_MAX = "database.connection.pool.max";
 	public static final String DATABASE_USE_TRANSACTIONS = "database.use.transactions";
 	public static final String DATABASE_DATASOURCE_NAME = "database.datasource.name";
+	public static final String DATABASE_REPLICA_PRIMARY_IMPLEMENTATION = "database.replica.primary.implementation";
+	public static final String DATABASE_REPLICA_URLS = "database.replica.urls";
+	public static final String DATABASE_REPLICA_PIN_SECONDS = "database.replica.pin.seconds";
+	public static final String DATABASE_REPLICA_PINNED_UNTIL = "database.replica.pinned.until";
 	public static final String DATABASE_ERROR_PAGE = "database.error.page";
 	public static final String DATABASE_MYSQL_UNICODE = "mysql.unicode";
 	public static final String DATABASE_MYSQL_ENCODING = "mysql.encoding";
 	public static final String DATABASE_AUTO_KEYS = "database.support.autokeys";
 	public static final String DATABASE_SUPPORT_SUBQUERIES = "database.support.subqueries";
 	public static final String C3P0_EXTRA_PARAMS = "c3p0.extra.params";
+	public static final String DATABASE_STATEMENT_CACHE_SIZE = "database.statement.cache.size";
+	public static final String DATABASE_QUERY_PROFILING_ENABLED = "database.query.profiling.enabled";
+	public static final String DATABASE_QUERY_PROFILING_TOP = "database.query.profiling.top";
+	public static final String DATABASE_SLOW_QUERY_THRESHOLD = "database.slow.query.threshold";
 	
 	public static final String AUTHENTICATION_TYPE = "authentication.type";
 	public static final String SSO_IMPLEMENTATION = "sso.implementation";
@@ -108,6 +116,9 @@ public class ConfigKeys
 
 	public static final String TEMPLATES_MAPPING = "templates.mapping";
 	public static final String TEMPLATE_DIR = "template.dir";
+	public static final String TEMPLATE_PRECOMPILE = "template.precompile";
+	public static final String TEMPLATE_FRAGMENT_CACHE_ENABLED = "template.fragment.cache.enabled";
+	public static final String TEMPLATE_FRAGMENT_SESSIONS_REFRESH = "template.fragment.sessions.refresh";
 	public static final String ENCODING = "encoding";
 	public static final String DEFAULT_CONTAINER_ENCODING = "default.container.encoding";
 	public static final String SERVLET_NAME = "servlet.name";
@@ -130,6 +141,26 @@ public class ConfigKeys
 
 	public static final String VERSION = "version";
 	public static final String BACKGROUND_TASKS = "background.tasks";
+	public static final String VIRTUAL_THREADS_ENABLED = "virtual.threads.enabled";
+	
+	public static final String EXECUTOR_MAIL_THREADS_MAX = "executor.mail.threads.max";
+	public static final String EXECUTOR_MAIL_QUEUE_SIZE = "executor.mail.queue.size";
+	public static final String EXECUTOR_MAIL_REJECTION_POLICY = "executor.mail.rejection.policy";
+	public static final String EXECUTOR_INDEXING_THREADS_MAX = "executor.indexing.threads.max";
+	public static final String EXECUTOR_INDEXING_QUEUE_SIZE = "executor.indexing.queue.size";
+	public static final String EXECUTOR_INDEXING_REJECTION_POLICY = "executor.indexing.rejection.policy";
+	public static final String EXECUTOR_MAINTENANCE_THREADS_MAX = "executor.maintenance.threads.max";
+	public static final String EXECUTOR_MAINTENANCE_QUEUE_SIZE = "executor.maintenance.queue.size";
+	public static final String EXECUTOR_MAINTENANCE_REJECTION_POLICY = "executor.maintenance.rejection.policy";
+	public static final String EXECUTOR_POSTCOMMIT_THREADS_MAX = "executor.postcommit.threads.max";
+	public static final String EXECUTOR_POSTCOMMIT_QUEUE_SIZE = "executor.postcommit.queue.size";
+	public static final String EXECUTOR_POSTCOMMIT_REJECTION_POLICY = "executor.postcommit.rejection.policy";
+	public static final String EXECUTOR_REPAIR_THREADS_MAX = "executor.repair.threads.max";
+	public static final String EXECUTOR_REPAIR_QUEUE_SIZE = "executor.repair.queue.size";
+	public static final String EXECUTOR_REPAIR_REJECTION_POLICY = "executor.repair.rejection.policy";
+	public static final String EXECUTOR_SHUTDOWN_TIMEOUT = "executor.shutdown.timeout";
+	public static final String POSTCOMMIT_RETRIES = "postcommit.retries";
+	public static final String POSTCOMMIT_RETRY_DELAY = "postcommit.retry.delay";
 
 	public static final String FORUM_LINK = "forum.link";
 	public static final String HOMEPAGE_LINK = "homepage.link";
@@ -153,8 +184,32 @@ public class ConfigKeys
 	public static final String USERS_PER_PAGE = "usersPerPage";
 	public static final String RECENT_TOPICS = "topic.recent";
 	public static final String HOTTEST_TOPICS = "topic.hottest";
+	public static final String HOTTEST_TOPICS_RECENT_DAYS = "topic.hottest.recent.days";
 	public static final String POSTS_CACHE_SIZE = "posts.cache.size";
 	public static final String POSTS_CACHE_ENABLED = "posts.cache.enabled";
+	public static final String TOPIC_VIEWS_FLUSH_INTERVAL = "topic.views.flush.interval";
+	public static final String TOPIC_READ_FLUSH_INTERVAL = "topic.read.flush.interval";
+	public static final String USER_SUMMARY_CACHE_SIZE = "user.summary.cache.size";
+	public static final String USER_CACHE_SIZE = "user.cache.size";
+	public static final String UNREAD_INDEX_WINDOW_DAYS = "unread.index.window.days";
+	public static final String UNREAD_INDEX_FORUM_SIZE = "unread.index.forum.size";
+	public static final String PAGINATION_KEYSET_ENABLED = "pagination.keyset.enabled";
+	public static final String PAGINATION_CURSOR_CACHE_SIZE = "pagination.cursor.cache.size";
+	public static final String BOARD_STATS_FLUSH_INTERVAL = "board.stats.flush.interval";
+	public static final String BOARD_STATS_RECONCILE_INTERVAL = "board.stats.reconcile.interval";
+	public static final String ARCHIVE_ENABLED = "archive.enabled";
+	public static final String ARCHIVE_MONTHS = "archive.months";
+	public static final String ARCHIVE_BATCH_SIZE = "archive.batch.size";
+	public static final String ARCHIVE_INTERVAL = "archive.interval";
+	public static final String POSTS_COMPRESSION_ENABLED = "posts.compression.enabled";
+	public static final String POSTS_COMPRESSION_THRESHOLD = "posts.compression.threshold";
+	public static final String POSTS_COMPRESSION_BATCH_SIZE = "posts.compression.batch.size";
+	public static final String POSTS_COMPRESSION_INTERVAL = "posts.compression.interval";
+
+	public static final String REPAIR_PAUSE = "repair.pause";
+	public static final String REPAIR_USERS_BATCH_SIZE = "repair.users.batch.size";
+	public static final String REPAIR_INTERVAL = "repair.interval";
+	public static final String TOPIC_REBUILD_BATCH_SIZE = "topic.rebuild.batch.size";
 
 	public static final String CAPTCHA_IGNORE_CASE = "captcha.ignore.case";
 	public static final String CAPTCHA_REGISTRATION = "captcha.registration";
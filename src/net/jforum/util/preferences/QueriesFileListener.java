@@ -42,6 +42,7 @@
  */
 package net.jforum.util.preferences;
 
+import net.jforum.StatementCachingConnection;
 import net.jforum.util.FileChangeListener;
 
 import org.apache.log4j.Logger;
@@ -68,6 +69,8 @@ public class QueriesFileListener implements FileChangeListener
         if (!filename.equals(driverQueries)) {
             SystemGlobals.loadQueries(driverQueries);
         }
+
+        StatementCachingConnection.invalidate();
 	}
 
 }
@@ -56,6 +56,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Vector;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import net.jforum.ConfigLoader;
 import net.jforum.exceptions.ForumException;
@@ -89,6 +91,9 @@ public class SystemGlobals implements VariableStore
 	private Map objectProperties = new HashMap();
 	private static List additionalDefaultsList = new ArrayList();
 	private static Properties queries = new Properties();
+	private static volatile Map queryNames = new HashMap();
+	private static volatile List queryTemplates = new ArrayList();
+	private static final Pattern PLACEHOLDER = Pattern.compile(":[a-zA-Z]+:|#[A-Z_]+#");
 	private static Properties transientValues = new Properties();
 
 	private VariableExpander expander = new VariableExpander(this, "${", "}");
@@ -114,6 +119,8 @@ public class SystemGlobals implements VariableStore
 		globals.installation.clear();
 		additionalDefaultsList.clear();
 		queries.clear();
+		queryNames = new HashMap();
+		queryTemplates = new ArrayList();
 		transientValues.clear();
 	}
 	
@@ -377,6 +384,23 @@ public class SystemGlobals implements VariableStore
 		try {
 			fis = new FileInputStream(queryFile);
 			queries.load(fis);
+
+			Map names = new HashMap();
+			List templates = new ArrayList();
+
+			for (Iterator iter = queries.entrySet().iterator(); iter.hasNext(); ) {
+				Map.Entry entry = (Map.Entry)iter.next();
+				names.put(entry.getValue(), entry.getKey());
+
+				QueryTemplate template = QueryTemplate.parse((String)entry.getKey(), (String)entry.getValue());
+
+				if (template != null) {
+					templates.add(template);
+				}
+			}
+
+			queryNames = names;
+			queryTemplates = templates;
 		}
 		catch (IOException e) {
 			throw new ForumException(e);
@@ -400,6 +424,43 @@ public class SystemGlobals implements VariableStore
 		return queries.getProperty(sql);
 	}
 
+	/**
+	 * Gets the name of some SQL statement. 
+	 * 
+	 * @param sql The SQL statement, as returned by {@link #getSql(String)}
+	 * @return The query's name, or <code>null</code> if the statement 
+	 * is not one of the loaded queries
+	 */
+	public static String getSqlName(String sql)
+	{
+		return (String)queryNames.get(sql);
+	}
+
+	/**
+	 * Gets the name of some SQL statement built from one of the loaded
+	 * queries, by replacing its placeholders, like <code>:ids:</code>
+	 * or <code>#FILTER#</code>, at runtime.
+	 * 
+	 * @param sql The SQL statement
+	 * @return The name of the query it was built from, or <code>null</code>
+	 * if it does not match any of the queries with placeholders
+	 * @see #getSqlName(String)
+	 */
+	public static String getSqlTemplateName(String sql)
+	{
+		List templates = queryTemplates;
+
+		for (int i = 0; i < templates.size(); i++) {
+			QueryTemplate template = (QueryTemplate)templates.get(i);
+
+			if (template.matches(sql)) {
+				return template.name;
+			}
+		}
+
+		return null;
+	}
+
 	/**
 	 * Retrieve an iterator that iterates over all known configuration keys
 	 * 
@@ -414,4 +475,48 @@ public class SystemGlobals implements VariableStore
 	{
 		return new Properties(globals.defaults);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * A query with placeholders, replaced at runtime
+	 */
+	private static class QueryTemplate
+	{
+		final String name;
+		final String prefix;
+		final Pattern pattern;
+
+		private QueryTemplate(String name, String prefix, Pattern pattern)
+		{
+			this.name = name;
+			this.prefix = prefix;
+			this.pattern = pattern;
+		}
+
+		static QueryTemplate parse(String name, String sql)
+		{
+			Matcher m = PLACEHOLDER.matcher(sql);
+
+			if (!m.find()) {
+				return null;
+			}
+
+			String prefix = sql.substring(0, m.start());
+			StringBuffer regex = new StringBuffer();
+			int last = 0;
+
+			do {
+				regex.append(Pattern.quote(sql.substring(last, m.start()))).append(".*?");
+				last = m.end();
+			} while (m.find());
+
+			regex.append(Pattern.quote(sql.substring(last)));
+
+			return new QueryTemplate(name, prefix, Pattern.compile(regex.toString(), Pattern.DOTALL));
+		}
+
+		boolean matches(String sql)
+		{
+			return sql.startsWith(this.prefix) && this.pattern.matcher(sql).matches();
+		}
+	}
+}
@@ -144,6 +144,8 @@ public class TemplateKeys
 	public static final String CACHE_LIST = "cache.list";
 	public static final String CACHE_POST_MOREINFO = "cache.post.moreinfo";
 	public static final String CACHE_TOPICS_MOREINFO = "cache.topics.moreinfo";
+	
+	public static final String PERFORMANCE_LIST = "performance.list";
 
 	public static final String CATEGORY_LIST = "category.list";
 	public static final String CATEGORY_INSERT = "category.insert";
@@ -55,13 +55,13 @@ import net.jforum.SessionFacade;
 import net.jforum.api.integration.mail.pop.POPListener;
 import net.jforum.context.RequestContext;
 import net.jforum.context.ResponseContext;
-import net.jforum.dao.DataAccessDriver;
-import net.jforum.dao.ForumDAO;
 import net.jforum.entities.UserSession;
+import net.jforum.repository.BoardStatsRepository;
 import net.jforum.repository.ModulesRepository;
 import net.jforum.repository.SecurityRepository;
 import net.jforum.security.PermissionControl;
 import net.jforum.security.SecurityConstants;
+import net.jforum.util.concurrent.Executor;
 import net.jforum.util.preferences.ConfigKeys;
 import net.jforum.util.preferences.SystemGlobals;
 import net.jforum.util.preferences.TemplateKeys;
@@ -120,8 +120,7 @@ public class AdminAction extends Command {
 			this.context.put("installModuleExists", ModulesRepository.getModuleClass("install") != null);
 			this.context.put("sessions", SessionFacade.getAllSessions());
 			
-			ForumDAO dao = DataAccessDriver.getInstance().newForumDAO();
-			this.context.put("stats", dao.getBoardStatus());
+			this.context.put("stats", BoardStatsRepository.getBoardStatus());
 			
 			this.checkBoardVersion();
 		}
@@ -129,7 +128,7 @@ public class AdminAction extends Command {
 	
 	public void fetchMail() throws Exception
 	{
-		new Thread(new Runnable() {
+		Executor.execute(Executor.MAIL, new Runnable() {
 			public void run() {
 				try {
 					new POPListener().execute(null);
@@ -138,7 +137,7 @@ public class AdminAction extends Command {
 					e.printStackTrace();
 				}
 			}
-		}).start();
+		});
 		
 		this.main();
 	}
@@ -51,7 +51,7 @@ import java.util.GregorianCalendar;
 import net.jforum.context.RequestContext;
 import net.jforum.context.ResponseContext;
 import net.jforum.exceptions.ForumException;
-import net.jforum.repository.ForumRepository;
+import net.jforum.repository.BoardStatsRepository;
 import net.jforum.search.LuceneManager;
 import net.jforum.search.LuceneReindexArgs;
 import net.jforum.search.LuceneReindexer;
@@ -100,7 +100,7 @@ public class LuceneStatsAction extends AdminCommand
 				this.context.put("isLocked", IndexReader.isLocked(indexDir.getAbsolutePath()));
 				this.context.put("lastModified", new Date(IndexReader.lastModified(indexDir)));
 				this.context.put("indexLocation", indexDir.getAbsolutePath());
-				this.context.put("totalMessages", new Integer(ForumRepository.getTotalMessages()));
+				this.context.put("totalMessages", new Integer(BoardStatsRepository.getTotalPosts()));
 				this.context.put("indexVersion", new Long(reader.getVersion()));
 				this.context.put("numberOfDocs", new Integer(reader.numDocs()));
 			}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) JForum Team
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, 
+ * with or without modification, are permitted provided 
+ * that the following conditions are met:
+ * 
+ * 1) Redistributions of source code must retain the above 
+ * copyright notice, this list of conditions and the 
+ * following  disclaimer.
+ * 2)  Redistributions in binary form must reproduce the 
+ * above copyright notice, this list of conditions and 
+ * the following disclaimer in the documentation and/or 
+ * other materials provided with the distribution.
+ * 3) Neither the name of "Rafael Steil" nor 
+ * the names of its contributors may be used to endorse 
+ * or promote products derived from this software without 
+ * specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT 
+ * HOLDERS AND CONTRIBUTORS "AS IS" AND ANY 
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, 
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL 
+ * THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE 
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, 
+ * OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER 
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+ * IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN 
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ * 
+ * Created on 19/10/2026 14:20:32
+ * The JForum Project
+ * http://www.jforum.net
+ */
+package net.jforum.view.admin;
+
+import java.util.List;
+
+import net.jforum.StatementCachingConnection;
+import net.jforum.repository.CounterRepair;
+import net.jforum.repository.TopicDataRebuild;
+import net.jforum.util.concurrent.Executor;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+import net.jforum.util.preferences.TemplateKeys;
+
+/**
+ * Shows runtime numbers about the board, like the state
+ * of the background task pools and the time taken by each query.
+ * 
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class PerformanceAction extends AdminCommand
+{
+	/**
+	 * @see net.jforum.Command#list()
+	 */
+	public void list()
+	{
+		this.setTemplateName(TemplateKeys.PERFORMANCE_LIST);
+		this.context.put("pools", Executor.getPools());
+
+		List queries = StatementCachingConnection.getStatistics();
+		int top = SystemGlobals.getIntValue(ConfigKeys.DATABASE_QUERY_PROFILING_TOP);
+
+		if (queries.size() > top) {
+			queries = queries.subList(0, top);
+		}
+
+		this.context.put("queries", queries);
+		this.context.put("histogramLimits", StatementCachingConnection.QueryStatistics.getHistogramLimits());
+		this.context.put("repair", CounterRepair.getProgress());
+	}
+
+	/**
+	 * Discards the query statistics
+	 */
+	public void resetQueries()
+	{
+		StatementCachingConnection.resetStatistics();
+		this.list();
+	}
+
+	/**
+	 * Starts copying the time and the author of the last post of each topic
+	 * to the topics table, read by the topic listings, in the background.
+	 */
+	public void rebuildTopicData()
+	{
+		boolean started = TopicDataRebuild.startInBackground();
+
+		this.list();
+		this.context.put("topicDataRebuilt", Boolean.valueOf(started));
+	}
+
+	/**
+	 * Starts recomputing the counters of all topics, forums and users in the
+	 * background. The progress is shown by {@link #list()}.
+	 */
+	public void repairCounters()
+	{
+		boolean started = CounterRepair.startInBackground();
+
+		this.list();
+		this.context.put("repairAlreadyRunning", Boolean.valueOf(!started));
+	}
+}
@@ -58,9 +58,12 @@ import net.jforum.dao.ModerationDAO;
 import net.jforum.entities.Forum;
 import net.jforum.entities.MostUsersEverOnline;
 import net.jforum.entities.UserSession;
+import net.jforum.repository.BoardStatsRepository;
 import net.jforum.repository.ForumRepository;
+import net.jforum.repository.FragmentRepository;
 import net.jforum.repository.SecurityRepository;
 import net.jforum.security.SecurityConstants;
+import net.jforum.util.FragmentTransform;
 import net.jforum.util.I18n;
 import net.jforum.util.preferences.ConfigKeys;
 import net.jforum.util.preferences.SystemGlobals;
@@ -88,8 +91,8 @@ public class ForumAction extends Command
 		this.context.put("topicsPerPage", new Integer(SystemGlobals.getIntValue(ConfigKeys.TOPICS_PER_PAGE)));
 		this.context.put("rssEnabled", SystemGlobals.getBoolValue(ConfigKeys.RSS_ENABLED));
 
-		this.context.put("totalMessages", new Integer(ForumRepository.getTotalMessages()));
-		this.context.put("totalRegisteredUsers", ForumRepository .totalUsers());
+		this.context.put("totalMessages", new Integer(BoardStatsRepository.getTotalPosts()));
+		this.context.put("totalRegisteredUsers", new Integer(BoardStatsRepository.getTotalUsers()));
 		this.context.put("lastUser", ForumRepository.lastRegisteredUser());
 
 		SimpleDateFormat df = new SimpleDateFormat(SystemGlobals.getValue(ConfigKeys.DATE_TIME_FORMAT));
@@ -99,12 +102,8 @@ public class ForumAction extends Command
 		this.context.put("lastVisit", df.format(SessionFacade.getUserSession().getLastVisit()));
 		this.context.put("forumRepository", new ForumRepository());
 
-		// Online Users
-		this.context.put("totalOnlineUsers", new Integer(SessionFacade.size()));
 		int aid = SystemGlobals.getIntValue(ConfigKeys.ANONYMOUS_USER_ID);
 
-		List onlineUsersList = SessionFacade.getLoggedSessions();
-
 		// Check for an optional language parameter
 		UserSession currentUser = SessionFacade.getUserSession();
 
@@ -116,6 +115,16 @@ public class ForumAction extends Command
 			}
 		}
 
+		// The online users box is only rendered when its fragment is not cached
+		if (!FragmentTransform.isCached(FragmentRepository.SESSIONS, "onlineUsers", false)) {
+			this.onlineUsers(aid);
+		}
+	}
+
+	private void onlineUsers(int aid)
+	{
+		List onlineUsersList = SessionFacade.getLoggedSessions();
+
 		// If there are only guest users, then just register
 		// a single one. In any other situation, we do not
 		// show the "guest" username
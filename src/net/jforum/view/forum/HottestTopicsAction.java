@@ -77,24 +77,36 @@ public class HottestTopicsAction extends Command
 	private List forums;
 
 	public void list()
+	{
+		this.list(TopicRepository.getHottestTopics(), "ForumBase.hottestTopics");
+	}
+	
+	/**
+	 * Shows the topics with most views in the last days
+	 */
+	public void recent()
+	{
+		this.list(TopicRepository.getRecentHottestTopics(), "ForumBase.recentHottestTopics");
+	}
+	
+	private void list(List topics, String title)
 	{
 		int postsPerPage = SystemGlobals.getIntValue(ConfigKeys.POSTS_PER_PAGE);
 
 		this.setTemplateName(TemplateKeys.HOTTEST_LIST);
 		
 		this.context.put("postsPerPage", new Integer(postsPerPage));
-		this.context.put("topics", this.topics());
+		this.context.put("topics", this.topics(topics));
 		this.context.put("forums", this.forums);
-		this.context.put("pageTitle", I18n.getMessage("ForumBase.hottestTopics"));
+		this.context.put("pageTitle", I18n.getMessage(title));
 
 		TopicsCommon.topicListingBase();
 		this.request.setAttribute("template", null);
 	}
 	
-	List topics()
+	List topics(List tmpTopics)
 	{
 		int postsPerPage = SystemGlobals.getIntValue(ConfigKeys.POSTS_PER_PAGE);
-		List tmpTopics = TopicRepository.getHottestTopics();
 		
 		this.forums = new ArrayList(postsPerPage);
 
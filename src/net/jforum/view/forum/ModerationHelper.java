@@ -43,8 +43,10 @@
 package net.jforum.view.forum;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import net.jforum.JForumExecutionContext;
 import net.jforum.SessionFacade;
@@ -171,41 +173,45 @@ public class ModerationHelper
 	{
 		String[] topics = JForumExecutionContext.getRequest().getParameterValues("topic_id");
 		
-		List forumsList = new ArrayList();
-		TopicDAO tm = DataAccessDriver.getInstance().newTopicDAO();
-		
-		List topicsToDelete = new ArrayList();
-		
 		if (topics != null && topics.length > 0) {
-			ModerationLog log = this.buildModerationLogFromRequest();
+			List ids = new ArrayList();
 			
 			for (int i = 0; i < topics.length; i++) {
-				Topic t = tm.selectRaw(Integer.parseInt(topics[i]));
+				ids.add(new Integer(topics[i]));
+			}
+			
+			TopicDAO tm = DataAccessDriver.getInstance().newTopicDAO();
+			List topicsToDelete = tm.selectRawByIds(ids);
+			
+			// The ids of the deleted topics of each forum
+			final Map forums = new HashMap();
+			
+			ModerationLog log = this.buildModerationLogFromRequest();
+			
+			for (Iterator iter = topicsToDelete.iterator(); iter.hasNext(); ) {
+				Topic t = (Topic)iter.next();
 				
 				log.setTopicId(t.getId());
 				log.setPosterUser(t.getPostedBy());
 				
 				this.saveModerationLog(log);
 				
-				if (!forumsList.contains(new Integer(t.getForumId()))) {
-					forumsList.add(new Integer(t.getForumId()));
+				List forumTopics = (List)forums.get(new Integer(t.getForumId()));
+				
+				if (forumTopics == null) {
+					forumTopics = new ArrayList();
+					forums.put(new Integer(t.getForumId()), forumTopics);
 				}
 				
-				topicsToDelete.add(t);
-				PostRepository.clearCache(t.getId());
+				forumTopics.add(new Integer(t.getId()));
 			}
 			
 			tm.deleteTopics(topicsToDelete, false);
 			
 			ForumDAO fm = DataAccessDriver.getInstance().newForumDAO();
-			TopicRepository.loadMostRecentTopics();
 			
-			// Reload changed forums
-			for (Iterator iter = forumsList.iterator(); iter.hasNext(); ) {
+			for (Iterator iter = forums.keySet().iterator(); iter.hasNext(); ) {
 				int forumId = ((Integer)iter.next()).intValue();
-
-				TopicRepository.clearCache(forumId);
-				
 				int postId = fm.getMaxPostId(forumId);
 				
 				if (postId > -1) {
@@ -214,9 +220,33 @@ public class ModerationHelper
 				else {
 					logger.warn("Could not find last post id for forum " + forumId);
 				}
-				
-				ForumRepository.reloadForum(forumId);
 			}
+			
+			// Refresh the caches once all topics are gone for good, each changed forum once
+			JForumExecutionContext.afterCommit(new Runnable() {
+				public void run()
+				{
+					TopicRepository.loadMostRecentTopics();
+					
+					for (Iterator iter = forums.entrySet().iterator(); iter.hasNext(); ) {
+						Map.Entry entry = (Map.Entry)iter.next();
+						int forumId = ((Integer)entry.getKey()).intValue();
+						List topicIds = (List)entry.getValue();
+						
+						for (Iterator topics = topicIds.iterator(); topics.hasNext(); ) {
+							PostRepository.clearCache(((Integer)topics.next()).intValue());
+						}
+						
+						TopicRepository.removeTopics(forumId, topicIds);
+						ForumRepository.reloadForum(forumId);
+					}
+				}
+				
+				public String toString()
+				{
+					return "caches of the topics removed from " + forums.size() + " forums";
+				}
+			});
 		}
 	}
 	
@@ -236,10 +266,7 @@ public class ModerationHelper
 			}
 			
 			DataAccessDriver.getInstance().newTopicDAO().lockUnlock(ids, status);
-			
-			// Clear the cache
-			Topic t = DataAccessDriver.getInstance().newTopicDAO().selectById(ids[0]);
-			TopicRepository.clearCache(t.getForumId());
+			TopicRepository.setStatus(ids, status);
 		}
 	}
 	
@@ -302,17 +329,21 @@ public class ModerationHelper
 				DataAccessDriver.getInstance().newForumDAO().moveTopics(topicList, fromForumId, toForumId);
 				
 				ModerationLog log = this.buildModerationLogFromRequest();
+				List ids = new ArrayList();
 				
 				for (int i = 0; i < topicList.length; i++) {
 					int topicId = Integer.parseInt(topicList[i]);
 					log.setTopicId(topicId);
 					this.saveModerationLog(log);
+					
+					ids.add(new Integer(topicId));
 				}
 
 				ForumRepository.reloadForum(fromForumId);
 				ForumRepository.reloadForum(toForumId);
 				
-				TopicRepository.clearCache(fromForumId);
+				// The moved topics may belong anywhere in the first page of the new forum
+				TopicRepository.removeTopics(fromForumId, ids);
 				TopicRepository.clearCache(toForumId);
 				
 				TopicRepository.loadMostRecentTopics();
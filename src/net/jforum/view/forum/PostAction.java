@@ -79,11 +79,14 @@ import net.jforum.entities.UserSession;
 import net.jforum.exceptions.AttachmentException;
 import net.jforum.exceptions.ForumException;
 import net.jforum.repository.ForumRepository;
+import net.jforum.repository.PageCursorRepository;
 import net.jforum.repository.PostRepository;
 import net.jforum.repository.RankingRepository;
+import net.jforum.repository.ReadStatusAggregator;
 import net.jforum.repository.SecurityRepository;
 import net.jforum.repository.SmiliesRepository;
 import net.jforum.repository.TopicRepository;
+import net.jforum.repository.ViewCountAggregator;
 import net.jforum.security.PermissionControl;
 import net.jforum.security.SecurityConstants;
 import net.jforum.util.I18n;
@@ -163,7 +166,7 @@ public class PostAction extends Command
 			moderatorCanEdit = true;
 		}
 
-		List helperList = PostCommon.topicPosts(postDao, moderatorCanEdit, us.getUserId(), topic.getId(), start, count);
+		List helperList = PostCommon.topicPosts(postDao, moderatorCanEdit, us.getUserId(), topic, start, count);
 		
 		// Ugly assumption:
 		// Is moderation pending for the topic?
@@ -174,7 +177,7 @@ public class PostAction extends Command
 
 		// Set the topic status as read
 		if (logged) {
-			topicDao.updateReadStatus(topic.getId(), us.getUserId(), true);
+			ReadStatusAggregator.markAsRead(topic.getId(), us.getUserId(), topic.getLastPostId());
 		}
 
 		boolean canVoteOnPoll = logged && SecurityRepository.canAccess(SecurityConstants.PERM_VOTE);
@@ -189,8 +192,7 @@ public class PostAction extends Command
 			}
 		}
 		
-		topicDao.incrementTotalViews(topic.getId());
-		topic.setTotalViews(topic.getTotalViews() + 1);
+		ViewCountAggregator.increment(topic);
 
 		if (us.getUserId() != anonymousUser) {
 			SessionFacade.getTopicsReadTime().put(new Integer(topic.getId()),
@@ -421,7 +423,7 @@ public class PostAction extends Command
 		int start = ViewCommon.getStartPage();
 
 		Map usersMap = topicDao.topicPosters(topic.getId());
-		List helperList = PostCommon.topicPosts(postDao, false, userId, topic.getId(), start, count);
+		List helperList = PostCommon.topicPosts(postDao, false, userId, topic, start, count);
 		Collections.reverse(helperList);
 
 		this.setTemplateName(SystemGlobals.getValue(ConfigKeys.TEMPLATE_DIR) + "/empty.htm");
@@ -863,6 +865,9 @@ public class PostAction extends Command
 				
 				if (changeType) {
 					TopicRepository.addTopic(t);
+					
+					// Sticky topics and announcements go before the others
+					PageCursorRepository.changedAfterCommit("forum/" + t.getForumId());
 				}
 				else {
 					TopicRepository.updateTopic(t);
@@ -1168,20 +1173,16 @@ public class PostAction extends Command
 	
 				JForumExecutionContext.setRedirect(path.toString());
 				
-				if (newTopic) {
-					// Notify "forum new topic" users
-					ForumCommon.notifyUsers(forum, t, p);
-				}
-				else {
+				if (!newTopic) {
 					t.setTotalReplies(t.getTotalReplies() + 1);
-					TopicsCommon.notifyUsers(t, p);
 				}
 				
-				// Update forum stats, cache and etc
-				t.setTotalViews(t.getTotalViews() + 1);
+				this.afterNewPostCommit(forum, t, p, newTopic);
 				
-				DataAccessDriver.getInstance().newUserDAO().incrementPosts(p.getUserId());
+				// The poster has obviously read the topic
+				ReadStatusAggregator.markAsRead(t.getId(), u.getId(), postId);
 				
+				// Update forum stats, cache and etc
 				TopicsCommon.updateBoardStatus(t, postId, firstPost, topicDao, forumDao);
 				ForumRepository.updateForumStats(t, u, p);
 				
@@ -1191,13 +1192,6 @@ public class PostAction extends Command
 					SessionFacade.getTopicsReadTime().put(new Integer(t.getId()),
 						new Long(p.getTime().getTime()));
 				}
-				
-				if (SystemGlobals.getBoolValue(ConfigKeys.POSTS_CACHE_ENABLED)) {
-					SimpleDateFormat df = new SimpleDateFormat(SystemGlobals.getValue(ConfigKeys.DATE_TIME_FORMAT));
-					p.setFormatedTime(df.format(p.getTime()));
-					
-					PostRepository.append(p.getTopicId(), PostCommon.preparePostForDisplay(p));
-				}
 			}
 			else {
 				JForumExecutionContext.setRedirect(this.request.getContextPath() 
@@ -1223,6 +1217,70 @@ public class PostAction extends Command
 		}
 	}
 
+	/**
+	 * Leaves for after the commit the work of a new post that the 
+	 * author does not need to wait for: the notifications, the post 
+	 * count of the author and the rendering of the post for the cache.
+	 * Each one is a task of its own, so a failure only retries that one.
+	 * The notifications are never retried, so no one gets the same email twice,
+	 * and neither is the post count, as adding one again would count the post twice.
+	 * The tasks take copies of the topic and the post, which are changed later on.
+	 */
+	private void afterNewPostCommit(final Forum forum, Topic t, Post p, final boolean newTopic)
+	{
+		final Topic topic = new Topic(t);
+		final Post post = new Post(p);
+		
+		JForumExecutionContext.afterCommit(new Runnable() {
+			public void run()
+			{
+				if (newTopic) {
+					// Notify "forum new topic" users
+					ForumCommon.notifyUsers(forum, topic, post);
+				}
+				else {
+					TopicsCommon.notifyUsers(topic, post);
+				}
+			}
+			
+			public String toString()
+			{
+				return "notifications of post #" + post.getId();
+			}
+		}, false);
+		
+		JForumExecutionContext.afterCommit(new Runnable() {
+			public void run()
+			{
+				DataAccessDriver.getInstance().newUserDAO().incrementPosts(post.getUserId());
+			}
+			
+			public String toString()
+			{
+				return "post count of user #" + post.getUserId();
+			}
+		}, false);
+		
+		if (SystemGlobals.getBoolValue(ConfigKeys.POSTS_CACHE_ENABLED)) {
+			JForumExecutionContext.afterCommit(new Runnable() {
+				public void run()
+				{
+					Post cached = new Post(post);
+					
+					SimpleDateFormat df = new SimpleDateFormat(SystemGlobals.getValue(ConfigKeys.DATE_TIME_FORMAT));
+					cached.setFormatedTime(df.format(cached.getTime()));
+					
+					PostRepository.append(cached.getTopicId(), PostCommon.preparePostForDisplay(cached));
+				}
+				
+				public String toString()
+				{
+					return "caching of post #" + post.getId();
+				}
+			});
+		}
+	}
+
 	private int startPage(Topic t, int currentStart) {
 		int postsPerPage = SystemGlobals.getIntValue(ConfigKeys.POSTS_PER_PAGE);
 
@@ -54,6 +54,7 @@ import net.jforum.entities.PrivateMessage;
 import net.jforum.entities.PrivateMessageType;
 import net.jforum.entities.User;
 import net.jforum.entities.UserSession;
+import net.jforum.repository.PageCursorRepository;
 import net.jforum.repository.SmiliesRepository;
 import net.jforum.util.I18n;
 import net.jforum.util.concurrent.Executor;
@@ -78,16 +79,21 @@ public class PrivateMessageAction extends Command
 			return;
 		}
 		
-		User user = new User();
-		user.setId(SessionFacade.getUserSession().getUserId());
+		User user = DataAccessDriver.getInstance().newUserDAO().selectById(
+			SessionFacade.getUserSession().getUserId());
 		
-		List pmList = DataAccessDriver.getInstance().newPrivateMessageDAO().selectFromInbox(user);
+		int start = ViewCommon.getStartPage();
+		int count = SystemGlobals.getIntValue(ConfigKeys.TOPICS_PER_PAGE);
+		
+		List pmList = this.pageOfMessages(user, true, start, count);
 
 		this.setTemplateName(TemplateKeys.PM_INBOX);
 		this.context.put("inbox", true);
 		this.context.put("pmList", pmList);
 		this.context.put("pageTitle", I18n.getMessage("ForumBase.privateMessages")+" "+I18n.getMessage("PrivateMessage.inbox"));
 		this.putTypes();		
+		
+		ViewCommon.contextToPagination(start, user.getInboxCount(), count);
 	}
 	
 	public void sentbox()
@@ -97,16 +103,62 @@ public class PrivateMessageAction extends Command
 			return;
 		}
 		
-		User user = new User();
-		user.setId(SessionFacade.getUserSession().getUserId());
+		User user = DataAccessDriver.getInstance().newUserDAO().selectById(
+			SessionFacade.getUserSession().getUserId());
+		
+		int start = ViewCommon.getStartPage();
+		int count = SystemGlobals.getIntValue(ConfigKeys.TOPICS_PER_PAGE);
 		
-		List pmList = DataAccessDriver.getInstance().newPrivateMessageDAO().selectFromSent(user);
+		List pmList = this.pageOfMessages(user, false, start, count);
 
 		this.context.put("sentbox", true);
 		this.context.put("pmList", pmList);
 		this.setTemplateName(TemplateKeys.PM_SENTBOX);
 		this.context.put("pageTitle", I18n.getMessage("ForumBase.privateMessages")+" "+I18n.getMessage("PrivateMessage.sentbox"));
 		this.putTypes();
+		
+		ViewCommon.contextToPagination(start, user.getSentboxCount(), count);
+	}
+	
+	/**
+	 * Selects a page of the inbox or the sent box, starting from the 
+	 * last message of the previous page when it is known.
+	 */
+	private List pageOfMessages(User user, boolean inbox, int start, int count)
+	{
+		PrivateMessageDAO dao = DataAccessDriver.getInstance().newPrivateMessageDAO();
+		
+		if (!PageCursorRepository.isEnabled()) {
+			return inbox
+				? dao.selectFromInbox(user, start, count)
+				: dao.selectFromSent(user, start, count);
+		}
+		
+		// New or removed messages change the pages, so don't reuse their cursors
+		String scope = inbox
+			? PageCursorRepository.scope("inbox/" + user.getId()) + "/" + user.getInboxCount()
+			: PageCursorRepository.scope("sentbox/" + user.getId()) + "/" + user.getSentboxCount();
+		long[] cursor = PageCursorRepository.get(scope, start);
+		
+		List pmList;
+		
+		if (cursor != null) {
+			pmList = inbox
+				? dao.selectFromInboxAfter(user, (int)cursor[0], count)
+				: dao.selectFromSentAfter(user, (int)cursor[0], count);
+		}
+		else {
+			pmList = inbox
+				? dao.selectFromInbox(user, start, count)
+				: dao.selectFromSent(user, start, count);
+		}
+		
+		if (pmList.size() == count) {
+			PrivateMessage last = (PrivateMessage)pmList.get(count - 1);
+			PageCursorRepository.put(scope, start + count, new long[] { last.getId() });
+		}
+		
+		return pmList;
 	}
 	
 	private void putTypes()
@@ -242,7 +294,7 @@ public class PrivateMessageAction extends Command
 			if (toUser.getEmail() != null 
 				&& toUser.getEmail().trim().length() > 0
 				&& SystemGlobals.getBoolValue(ConfigKeys.MAIL_NOTIFY_ANSWERS)) {
-				Executor.execute(new EmailSenderTask(new PrivateMessageSpammer(toUser)));
+				Executor.execute(Executor.MAIL, new EmailSenderTask(new PrivateMessageSpammer(toUser)));
 			}
 		}
 		else {
@@ -338,22 +390,18 @@ public class PrivateMessageAction extends Command
 		if (ids != null && ids.length > 0) {
 			PrivateMessage[] deleteList = new PrivateMessage[ids.length];
 			
-			int unreadCount = 0;
-			PrivateMessageDAO dao = DataAccessDriver.getInstance().newPrivateMessageDAO();
-			
 			for (int i = 0; i < ids.length; i++) {
-				PrivateMessage pm = dao.selectById(new PrivateMessage(Integer.parseInt(ids[i])));
-				
-				if (pm.getType() == PrivateMessageType.NEW) {
-					unreadCount++;
-				}
-				
-				deleteList[i] = pm;
+				deleteList[i] = new PrivateMessage(Integer.parseInt(ids[i]));
 			}
 			
 			UserSession userSession = SessionFacade.getUserSession();
 			
-			dao.delete(deleteList, userSession.getUserId());
+			int unreadCount = DataAccessDriver.getInstance().newPrivateMessageDAO()
+				.delete(deleteList, userSession.getUserId());
+			
+			// A message deleted and another one received keep the folder count
+			PageCursorRepository.changedAfterCommit("inbox/" + userSession.getUserId());
+			PageCursorRepository.changedAfterCommit("sentbox/" + userSession.getUserId());
 			
 			// Subtracts the number of delete messages
 			int total = userSession.getPrivateMessages() - unreadCount;
@@ -55,6 +55,7 @@ import net.jforum.dao.TopicDAO;
 import net.jforum.entities.Forum;
 import net.jforum.entities.Topic;
 import net.jforum.repository.ForumRepository;
+import net.jforum.repository.ViewCountAggregator;
 import net.jforum.util.I18n;
 import net.jforum.util.preferences.ConfigKeys;
 import net.jforum.util.preferences.SystemGlobals;
@@ -116,7 +117,7 @@ public class RSSAction extends Command
             return;
 		}
 		
-		tm.incrementTotalViews(topic.getId());
+		ViewCountAggregator.increment(topic);
 		
 		List posts = pm.selectAllByTopic(topicId);
 		
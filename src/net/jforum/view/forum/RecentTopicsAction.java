@@ -93,19 +93,18 @@ public class RecentTopicsAction extends Command
 	private List topics()
 	{
 		int postsPerPage = SystemGlobals.getIntValue(ConfigKeys.POSTS_PER_PAGE);
-		List topics = TopicRepository.getRecentTopics();
+		List recentTopics = TopicRepository.getRecentTopics();
+		List topics = new ArrayList(recentTopics.size());
 		
 		this.forums = new ArrayList(postsPerPage);
 
-		for (Iterator iter = topics.iterator(); iter.hasNext(); ) {
+		for (Iterator iter = recentTopics.iterator(); iter.hasNext(); ) {
 			Topic t = (Topic)iter.next();
 			
 			if (TopicsCommon.isTopicAccessible(t.getForumId())) {
 				Forum f = ForumRepository.getForum(t.getForumId());
 				forums.add(f);
-			}
-			else {
-				iter.remove();
+				topics.add(t);
 			}
 		}
 		
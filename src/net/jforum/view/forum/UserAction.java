@@ -321,7 +321,7 @@ public class UserAction extends Command
 		int newUserId = dao.addNew(u);
 
 		if (requiresMailActivation) {
-			Executor.execute(new EmailSenderTask(new ActivationKeySpammer(u)));
+			Executor.execute(Executor.MAIL, new EmailSenderTask(new ActivationKeySpammer(u)));
 
 			this.setTemplateName(TemplateKeys.USER_INSERT_ACTIVATE_MAIL);
 			this.context.put("message", I18n.getMessage("User.GoActivateAccountMessage"));
@@ -397,7 +397,6 @@ public class UserAction extends Command
 		
 		ForumRepository.setLastRegisteredUser(
 				DataAccessDriver.getInstance().newUserDAO().selectById(userId));
-		ForumRepository.incrementTotalUsers();
 
 		String profilePage = JForumExecutionContext.getForumContext().encodeURL("/user/edit/" + userId);
 		String homePage = JForumExecutionContext.getForumContext().encodeURL("/forums/list");
@@ -716,7 +715,7 @@ public class UserAction extends Command
 			return;
 		}
 		
-		Executor.execute(new EmailSenderTask(
+		Executor.execute(Executor.MAIL, new EmailSenderTask(
 				new LostPasswordSpammer(user, 
 					SystemGlobals.getValue(ConfigKeys.MAIL_LOST_PASSWORD_SUBJECT))));
 
@@ -52,11 +52,11 @@ import net.jforum.dao.DataAccessDriver;
 import net.jforum.dao.ForumDAO;
 import net.jforum.entities.Category;
 import net.jforum.entities.Forum;
-import net.jforum.entities.LastPostInfo;
 import net.jforum.entities.Post;
 import net.jforum.entities.Topic;
 import net.jforum.entities.UserSession;
 import net.jforum.repository.ForumRepository;
+import net.jforum.repository.UnreadTopicsIndex;
 import net.jforum.util.concurrent.Executor;
 import net.jforum.util.mail.EmailSenderTask;
 import net.jforum.util.mail.ForumNewTopicSpammer;
@@ -80,22 +80,16 @@ public class ForumCommon
 	 */
 	public static void checkUnreadPosts(Forum forum, Map tracking, long lastVisit) 
 	{
-		LastPostInfo lpi = forum.getLastPostInfo();
-		
-		if (lpi == null) {
+		if (forum.getLastPostInfo() == null) {
 			return;
 		}
 
-		Integer topicId = new Integer(lpi.getTopicId());
-		
-		if (tracking != null && tracking.containsKey(topicId)) {
-			long readTime = ((Long)tracking.get(topicId)).longValue();
-		
-			forum.setUnread(readTime > 0 && lpi.getPostTimeMillis() > readTime);
-		}
-		else {
-			forum.setUnread(lpi.getPostTimeMillis() > lastVisit);
-		}
+		Map readByForum = SessionFacade.getTopicsReadTimeByForum();
+		Long forumReadTime = readByForum != null 
+			? (Long)readByForum.get(new Integer(forum.getId())) 
+			: null;
+
+		forum.setUnread(UnreadTopicsIndex.hasUnread(forum.getId(), lastVisit, forumReadTime, tracking));
 	}
 	
 	/**
@@ -187,7 +181,7 @@ public class ForumCommon
 				// we only have to send an email if there are users
 				// subscribed to the topic
 				if (usersToNotify != null && usersToNotify.size() > 0) {
-					Executor.execute(
+					Executor.execute(Executor.MAIL,
 						new EmailSenderTask(
 							new ForumNewTopicSpammer(f, t, post, usersToNotify)));
 				}
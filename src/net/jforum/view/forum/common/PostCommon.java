@@ -56,7 +56,9 @@ import net.jforum.context.RequestContext;
 import net.jforum.dao.PostDAO;
 import net.jforum.entities.Post;
 import net.jforum.entities.Smilie;
+import net.jforum.entities.Topic;
 import net.jforum.repository.BBCodeRepository;
+import net.jforum.repository.PageCursorRepository;
 import net.jforum.repository.PostRepository;
 import net.jforum.repository.SecurityRepository;
 import net.jforum.repository.SmiliesRepository;
@@ -325,17 +327,17 @@ public class PostCommon
 			|| SecurityRepository.canAccess(SecurityConstants.PERM_MODERATION_POST_EDIT));
 	}
 
-	public static List topicPosts(PostDAO dao, boolean canEdit, int userId, int topicId, int start, int count)
+	public static List topicPosts(PostDAO dao, boolean canEdit, int userId, Topic topic, int start, int count)
 	{
 		boolean needPrepare = true;
 		List posts;
 		
  		if (SystemGlobals.getBoolValue(ConfigKeys.POSTS_CACHE_ENABLED)) {
- 			posts = PostRepository.selectAllByTopicByLimit(topicId, start, count);
+ 			posts = PostRepository.selectAllByTopicByLimit(topic.getId(), start, count);
  			needPrepare = false;
  		}
  		else {
- 			posts = dao.selectAllByTopicByLimit(topicId, start, count);
+ 			posts = pageOfPosts(dao, topic, start, count);
  		}
  		
 		List helperList = new ArrayList();
@@ -361,4 +363,32 @@ public class PostCommon
 
 		return helperList;
 	}
+	
+	/**
+	 * Selects a page of posts, starting from the last post of the previous
+	 * page when it is known.
+	 */
+	private static List pageOfPosts(PostDAO dao, Topic topic, int start, int count)
+	{
+		if (!PageCursorRepository.isEnabled()) {
+			return dao.selectAllByTopicByLimit(topic.getId(), start, count);
+		}
+		
+		// New posts only add pages, but removed or approved ones move the others.
+		// A post removed and another one added keep the count, but not the last post
+		String scope = PageCursorRepository.scope("topic/" + topic.getId()) 
+			+ "/" + topic.getLastPostId() + "/" + topic.getTotalReplies();
+		long[] cursor = PageCursorRepository.get(scope, start);
+		
+		List posts = cursor != null
+			? dao.selectAllByTopicAfter(topic.getId(), new Date(cursor[0]), (int)cursor[1], count)
+			: dao.selectAllByTopicByLimit(topic.getId(), start, count);
+		
+		if (posts.size() == count) {
+			Post last = (Post)posts.get(count - 1);
+			PageCursorRepository.put(scope, start + count, new long[] { last.getTime().getTime(), last.getId() });
+		}
+		
+		return posts;
+	}
 }
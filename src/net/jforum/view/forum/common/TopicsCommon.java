@@ -57,8 +57,11 @@ import net.jforum.entities.Post;
 import net.jforum.entities.Topic;
 import net.jforum.entities.UserSession;
 import net.jforum.repository.ForumRepository;
+import net.jforum.repository.PageCursorRepository;
+import net.jforum.repository.ReadStatusAggregator;
 import net.jforum.repository.SecurityRepository;
 import net.jforum.repository.TopicRepository;
+import net.jforum.repository.ViewCountAggregator;
 import net.jforum.security.PermissionControl;
 import net.jforum.security.SecurityConstants;
 import net.jforum.util.I18n;
@@ -78,8 +81,6 @@ import freemarker.template.SimpleHash;
  */
 public class TopicsCommon 
 {
-	private static final Object MUTEXT = new Object();
-	
 	/**
 	 * List all first 'n' topics of a given forum.
 	 * This method returns no more than <code>ConfigKeys.TOPICS_PER_PAGE</code>
@@ -100,16 +101,40 @@ public class TopicsCommon
 			topics = TopicRepository.getTopics(forumId);
 
 			if (topics.size() == 0 || !TopicRepository.isLoaded(forumId)) {
-				synchronized (MUTEXT) {
-					if (topics.size() == 0 || !TopicRepository.isLoaded(forumId)) {
-						topics = tm.selectAllByForumByLimit(forumId, start, topicsPerPage);
-						TopicRepository.addAll(forumId, topics);
-					}
-				}
+				topics = TopicRepository.loadTopics(forumId, tm, topicsPerPage);
 			}
 		}
 		else {
-			topics = tm.selectAllByForumByLimit(forumId, start, topicsPerPage);
+			topics = pageOfTopics(tm, forumId, start, topicsPerPage);
+		}
+		
+		return topics;
+	}
+	
+	/**
+	 * Selects a page of topics, starting from the last topic of the previous
+	 * page when it is known.
+	 */
+	private static List pageOfTopics(TopicDAO tm, int forumId, int start, int count)
+	{
+		Forum forum = ForumRepository.getForum(forumId);
+		
+		if (!PageCursorRepository.isEnabled() || forum == null) {
+			return tm.selectAllByForumByLimit(forumId, start, count);
+		}
+		
+		// New, removed or reordered topics change the pages, so don't reuse their cursors
+		String scope = PageCursorRepository.scope("forum/" + forumId) 
+			+ "/" + forum.getLastPostId() + "/" + forum.getTotalTopics();
+		long[] cursor = PageCursorRepository.get(scope, start);
+		
+		List topics = cursor != null
+			? tm.selectAllByForumAfter(forumId, (int)cursor[0], (int)cursor[1], count)
+			: tm.selectAllByForumByLimit(forumId, start, count);
+		
+		if (topics.size() == count) {
+			Topic last = (Topic)topics.get(count - 1);
+			PageCursorRepository.put(scope, start + count, new long[] { last.getType(), last.getLastPostId() });
 		}
 		
 		return topics;
@@ -240,13 +265,16 @@ public class TopicsCommon
 	public static void notifyUsers(Topic t, Post p)
 	{
 		if (SystemGlobals.getBoolValue(ConfigKeys.MAIL_NOTIFY_ANSWERS)) {
+			// Who is notified depends on what each watcher has read
+			ReadStatusAggregator.flush(t.getId());
+			
 			TopicDAO dao = DataAccessDriver.getInstance().newTopicDAO();
 			List usersToNotify = dao.notifyUsers(t);
 
 			// We only have to send an email if there are users
 			// subscribed to the topic
 			if (usersToNotify != null && usersToNotify.size() > 0) {
-				Executor.execute(new EmailSenderTask(new TopicReplySpammer(t, p, usersToNotify)));
+				Executor.execute(Executor.MAIL, new EmailSenderTask(new TopicReplySpammer(t, p, usersToNotify)));
 			}
 		}
 	}
@@ -278,12 +306,10 @@ public class TopicsCommon
 			topicDao.incrementTotalReplies(topic.getId());
 		}
 		
-		topicDao.incrementTotalViews(topic.getId());
+		ViewCountAggregator.increment(topic);
 		
 		TopicRepository.addTopic(topic);
 		TopicRepository.pushTopic(topic);
-		
-		ForumRepository.incrementTotalMessages();
 	}
 	
 	/**
@@ -137,6 +137,7 @@
 <#-- Forum navigation combo -->
 <#-- ********************** -->
 <#macro forumsComboTable>
+	<@fragment name="forumsComboTable" region="forums">
 	<table cellspacing="0" cellpadding="0" border="0">
 		<tr>			  
 			<td nowrap="nowrap">
@@ -161,4 +162,5 @@
 			</td>
 		</tr>
 	</table>
+	</@fragment>
 </#macro>
@@ -1,9 +1,14 @@
 package net.jforum;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import junit.framework.TestCase;
 import net.jforum.context.ForumContext;
 import net.jforum.context.RequestContext;
 import net.jforum.context.ResponseContext;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
 
 public class JForumExecutionContextTest extends TestCase
 {
@@ -66,4 +71,52 @@ public class JForumExecutionContextTest extends TestCase
         ForumContext retrieved = JForumExecutionContext.getForumContext();
         assertSame(forumContext, retrieved);
     }
+
+    public void testAfterCommitTasksRunAfterFinish() throws Exception
+    {
+        this.setUpPostCommitPool();
+
+        final CountDownLatch done = new CountDownLatch(1);
+
+        JForumExecutionContext.afterCommit(new Runnable() {
+            public void run()
+            {
+                done.countDown();
+            }
+        });
+
+        assertEquals(1, done.getCount());
+
+        JForumExecutionContext.finish();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    public void testAfterCommitTasksAreDiscardedOnRollback() throws Exception
+    {
+        this.setUpPostCommitPool();
+
+        final CountDownLatch done = new CountDownLatch(1);
+
+        JForumExecutionContext.afterCommit(new Runnable() {
+            public void run()
+            {
+                done.countDown();
+            }
+        });
+
+        JForumExecutionContext.enableRollback();
+        JForumExecutionContext.finish();
+
+        assertFalse(done.await(500, TimeUnit.MILLISECONDS));
+    }
+
+    private void setUpPostCommitPool()
+    {
+        SystemGlobals.setValue(ConfigKeys.EXECUTOR_POSTCOMMIT_THREADS_MAX, "1");
+        SystemGlobals.setValue(ConfigKeys.EXECUTOR_POSTCOMMIT_QUEUE_SIZE, "10");
+        SystemGlobals.setValue(ConfigKeys.EXECUTOR_POSTCOMMIT_REJECTION_POLICY, "caller-runs");
+        SystemGlobals.setValue(ConfigKeys.POSTCOMMIT_RETRIES, "2");
+        SystemGlobals.setValue(ConfigKeys.POSTCOMMIT_RETRY_DELAY, "10");
+    }
 }
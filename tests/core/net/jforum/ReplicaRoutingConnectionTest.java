@@ -0,0 +1,173 @@
+package net.jforum;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import junit.framework.TestCase;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+/**
+ * Uses two in-memory HSQLDB databases, one as the primary and one as the replica.
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class ReplicaRoutingConnectionTest extends TestCase
+{
+	private ReplicaRoutingConnection routing;
+
+	protected void setUp() throws Exception
+	{
+		SystemGlobals.setValue(ConfigKeys.DATABASE_CONNECTION_DRIVER, "org.hsqldb.jdbcDriver");
+		SystemGlobals.setValue(ConfigKeys.DATABASE_CONNECTION_STRING, "jdbc:hsqldb:mem:primary");
+		SystemGlobals.setValue(ConfigKeys.DATABASE_POOL_MIN, "1");
+		SystemGlobals.setValue(ConfigKeys.DATABASE_POOL_MAX, "2");
+		SystemGlobals.setValue(ConfigKeys.DATABASE_PING_DELAY, "0");
+		SystemGlobals.setValue(ConfigKeys.C3P0_EXTRA_PARAMS, "");
+		SystemGlobals.setValue(ConfigKeys.DATABASE_USE_TRANSACTIONS, "false");
+		SystemGlobals.setValue(ConfigKeys.DATABASE_STATEMENT_CACHE_SIZE, "10");
+		SystemGlobals.setValue(ConfigKeys.DATABASE_REPLICA_PRIMARY_IMPLEMENTATION, PooledConnection.class.getName());
+		SystemGlobals.setValue(ConfigKeys.DATABASE_REPLICA_URLS, "jdbc:hsqldb:mem:replica");
+
+		this.routing = new ReplicaRoutingConnection();
+		this.routing.init();
+
+		this.createMarker(this.routing.getConnection(), "primary");
+		this.createMarker(this.routing.getReadOnlyConnection(), "replica");
+	}
+
+	protected void tearDown() throws Exception
+	{
+		this.routing.realReleaseAllConnections();
+	}
+
+	public void testWritesGoToPrimary() throws Exception
+	{
+		Connection conn = this.routing.getConnection();
+
+		try {
+			assertEquals("primary", this.marker(conn));
+			assertFalse(conn.isReadOnly());
+		}
+		finally {
+			this.routing.releaseConnection(conn);
+		}
+	}
+
+	public void testReadsGoToReplica() throws Exception
+	{
+		assertTrue(this.routing.hasReadReplicas());
+
+		Connection conn = this.routing.getReadOnlyConnection();
+
+		try {
+			assertEquals("replica", this.marker(conn));
+			assertTrue(conn.isReadOnly());
+		}
+		finally {
+			this.routing.releaseConnection(conn);
+		}
+	}
+
+	public void testFallsBackToPrimaryWhenReplicaIsDown() throws Exception
+	{
+		this.routing.realReleaseAllConnections();
+
+		SystemGlobals.setValue(ConfigKeys.DATABASE_REPLICA_URLS, "jdbc:nonexistent:replica");
+		SystemGlobals.setValue(ConfigKeys.C3P0_EXTRA_PARAMS, "acquireRetryAttempts=1;checkoutTimeout=2000");
+
+		this.routing = new ReplicaRoutingConnection();
+		this.routing.init();
+
+		Connection conn = this.routing.getReadOnlyConnection();
+
+		try {
+			assertEquals("primary", this.marker(conn));
+		}
+		finally {
+			this.routing.releaseConnection(conn);
+		}
+	}
+
+	@SuppressWarnings("try")
+	public void testExecutionContextUsesReadOnlyConnection() throws Exception
+	{
+		SystemGlobals.setValue(ConfigKeys.DATABASE_CONNECTION_IMPLEMENTATION, ReplicaRoutingConnection.class.getName());
+		assertTrue(DBConnection.createInstance());
+		DBConnection.getImplementation().init();
+
+		try (JForumExecutionContext.ExecutionContext ex = JForumExecutionContext.start()) {
+			JForumExecutionContext.setReadOnly(true);
+			assertEquals("replica", this.marker(JForumExecutionContext.getConnection()));
+		}
+
+		try (JForumExecutionContext.ExecutionContext ex = JForumExecutionContext.start()) {
+			assertFalse(JForumExecutionContext.isReadOnly());
+			assertEquals("primary", this.marker(JForumExecutionContext.getConnection()));
+		}
+
+		DBConnection.getImplementation().realReleaseAllConnections();
+	}
+
+	@SuppressWarnings("try")
+	public void testReadOnlyExecutionSwitchesToPrimary() throws Exception
+	{
+		SystemGlobals.setValue(ConfigKeys.DATABASE_CONNECTION_IMPLEMENTATION, ReplicaRoutingConnection.class.getName());
+		assertTrue(DBConnection.createInstance());
+		DBConnection.getImplementation().init();
+
+		try (JForumExecutionContext.ExecutionContext ex = JForumExecutionContext.start()) {
+			JForumExecutionContext.setReadOnly(true);
+			Connection replica = JForumExecutionContext.getConnection();
+			assertEquals("replica", this.marker(replica));
+
+			boolean previous = JForumExecutionContext.usePrimary(true);
+
+			try {
+				Connection primary = JForumExecutionContext.getConnection();
+				assertEquals("primary", this.marker(primary));
+				assertSame(primary, JForumExecutionContext.getConnection());
+			}
+			finally {
+				JForumExecutionContext.usePrimary(previous);
+			}
+
+			// The replica connection was given back, so the rest of the execution reads the primary
+			assertEquals("primary", this.marker(JForumExecutionContext.getConnection()));
+		}
+
+		DBConnection.getImplementation().realReleaseAllConnections();
+	}
+
+	private void createMarker(Connection conn, String name) throws Exception
+	{
+		conn.setReadOnly(false);
+		Statement s = conn.createStatement();
+
+		try {
+			s.executeUpdate("DROP TABLE marker IF EXISTS");
+			s.executeUpdate("CREATE TABLE marker (name VARCHAR(20))");
+			s.executeUpdate("INSERT INTO marker VALUES ('" + name + "')");
+		}
+		finally {
+			s.close();
+			this.routing.releaseConnection(conn);
+		}
+	}
+
+	private String marker(Connection conn) throws Exception
+	{
+		Statement s = conn.createStatement();
+
+		try {
+			ResultSet rs = s.executeQuery("SELECT name FROM marker");
+			rs.next();
+			return rs.getString(1);
+		}
+		finally {
+			s.close();
+		}
+	}
+}
@@ -0,0 +1,231 @@
+package net.jforum;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import junit.framework.TestCase;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+/**
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class StatementCachingConnectionTest extends TestCase
+{
+	private static final String SELECT = "SELECT name FROM cached_items WHERE id = ?";
+
+	private Connection real;
+	private Connection conn;
+
+	protected void setUp() throws Exception
+	{
+		File queries = File.createTempFile("queries", ".sql");
+		queries.deleteOnExit();
+
+		FileWriter writer = new FileWriter(queries);
+		writer.write("Test.select = " + SELECT + "\n");
+		writer.write("Test.selectIds = SELECT name FROM cached_items WHERE id IN (:ids:) ORDER BY id\n");
+		writer.write("Test.count = SELECT COUNT(*) FROM cached_items\n");
+		writer.close();
+
+		SystemGlobals.loadQueries(queries.getAbsolutePath());
+		SystemGlobals.setValue(ConfigKeys.DATABASE_STATEMENT_CACHE_SIZE, "10");
+		SystemGlobals.setValue(ConfigKeys.DATABASE_QUERY_PROFILING_ENABLED, "true");
+		SystemGlobals.setValue(ConfigKeys.DATABASE_SLOW_QUERY_THRESHOLD, "0");
+
+		Class.forName("org.hsqldb.jdbcDriver");
+		this.real = DriverManager.getConnection("jdbc:hsqldb:mem:statements", "sa", "");
+
+		Statement s = this.real.createStatement();
+		s.executeUpdate("DROP TABLE cached_items IF EXISTS");
+		s.executeUpdate("CREATE TABLE cached_items (id INTEGER, name VARCHAR(20))");
+		s.executeUpdate("INSERT INTO cached_items VALUES (1, 'one')");
+		s.executeUpdate("INSERT INTO cached_items VALUES (2, 'two')");
+		s.close();
+
+		this.conn = StatementCachingConnection.wrap(this.real);
+	}
+
+	protected void tearDown() throws Exception
+	{
+		StatementCachingConnection.unwrap(this.conn).close();
+	}
+
+	public void testNamedQueryIsPreparedOnce() throws Exception
+	{
+		long prepared = this.statistics().getPrepared();
+
+		assertEquals("one", this.select(1));
+		assertEquals("two", this.select(2));
+
+		assertEquals(prepared + 1, this.statistics().getPrepared());
+	}
+
+	public void testQueryInUseIsPreparedAgain() throws Exception
+	{
+		PreparedStatement first = this.conn.prepareStatement(SELECT);
+		PreparedStatement second = this.conn.prepareStatement(SELECT);
+
+		first.setInt(1, 1);
+		second.setInt(1, 2);
+
+		ResultSet rs = first.executeQuery();
+		rs.next();
+		assertEquals("one", rs.getString(1));
+
+		rs = second.executeQuery();
+		rs.next();
+		assertEquals("two", rs.getString(1));
+
+		first.close();
+		second.close();
+	}
+
+	public void testClosingTwiceDoesNotReleaseAgain() throws Exception
+	{
+		PreparedStatement first = this.conn.prepareStatement(SELECT);
+		first.close();
+
+		PreparedStatement second = this.conn.prepareStatement(SELECT);
+		first.close();
+
+		PreparedStatement third = this.conn.prepareStatement(SELECT);
+		second.setInt(1, 1);
+		third.setInt(1, 2);
+
+		ResultSet rs = second.executeQuery();
+		rs.next();
+		assertEquals("one", rs.getString(1));
+
+		second.close();
+		third.close();
+
+		try {
+			first.executeQuery();
+			fail("A closed statement must not be used");
+		}
+		catch (SQLException e) {
+			// ok
+		}
+	}
+
+	public void testInvalidateDropsStatements() throws Exception
+	{
+		this.select(1);
+		long prepared = this.statistics().getPrepared();
+
+		StatementCachingConnection.invalidate();
+		this.select(1);
+
+		assertEquals(prepared + 1, this.statistics().getPrepared());
+	}
+
+	public void testExecutionsAreMeasured() throws Exception
+	{
+		StatementCachingConnection.resetStatistics();
+
+		this.select(1);
+		this.select(2);
+
+		StatementCachingConnection.QueryStatistics s = this.statistics();
+		assertEquals(2, s.getExecuted());
+		assertEquals(2, s.getRows());
+
+		long total = 0;
+
+		for (int i = 0; i < s.getHistogram().size(); i++) {
+			total += ((Long)s.getHistogram().get(i)).longValue();
+		}
+
+		assertEquals(2, total);
+		assertTrue(s.getMaxTime() >= s.getAverageTime());
+	}
+
+	public void testQueriesWithPlaceholdersAreMeasured() throws Exception
+	{
+		StatementCachingConnection.resetStatistics();
+
+		for (int i = 1; i <= 2; i++) {
+			PreparedStatement p = this.conn.prepareStatement(SystemGlobals.getSql("Test.selectIds")
+				.replaceAll(":ids:", i == 1 ? "1" : "1, 2"));
+			ResultSet rs = p.executeQuery();
+
+			while (rs.next()) {
+				assertNotNull(rs.getString(1));
+			}
+
+			p.close();
+		}
+
+		StatementCachingConnection.QueryStatistics s = this.statistics("Test.selectIds");
+		assertEquals(2, s.getPrepared());
+		assertEquals(2, s.getExecuted());
+		assertEquals(3, s.getRows());
+	}
+
+	public void testPlainStatementsAreMeasured() throws Exception
+	{
+		StatementCachingConnection.resetStatistics();
+
+		Statement s = this.conn.createStatement();
+		ResultSet rs = s.executeQuery(SystemGlobals.getSql("Test.count"));
+		rs.next();
+		assertEquals(2, rs.getInt(1));
+		s.close();
+
+		assertEquals(1, this.statistics("Test.count").getExecuted());
+		assertEquals(1, this.statistics("Test.count").getRows());
+	}
+
+	public void testOtherQueriesAreNotWrapped() throws Exception
+	{
+		PreparedStatement p = this.conn.prepareStatement("SELECT id FROM cached_items");
+
+		assertFalse(Proxy.isProxyClass(p.getClass()));
+		p.close();
+	}
+
+	private String select(int id) throws Exception
+	{
+		PreparedStatement p = this.conn.prepareStatement(SystemGlobals.getSql("Test.select"));
+
+		try {
+			p.setInt(1, id);
+
+			ResultSet rs = p.executeQuery();
+			rs.next();
+
+			return rs.getString(1);
+		}
+		finally {
+			p.close();
+		}
+	}
+
+	private StatementCachingConnection.QueryStatistics statistics()
+	{
+		return this.statistics("Test.select");
+	}
+
+	private StatementCachingConnection.QueryStatistics statistics(String name)
+	{
+		for (int i = 0; i < StatementCachingConnection.getStatistics().size(); i++) {
+			StatementCachingConnection.QueryStatistics s =
+				(StatementCachingConnection.QueryStatistics)StatementCachingConnection.getStatistics().get(i);
+
+			if (name.equals(s.getName())) {
+				return s;
+			}
+		}
+
+		return new StatementCachingConnection.QueryStatistics(name);
+	}
+}
@@ -0,0 +1,161 @@
+package net.jforum.dao.generic;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import junit.framework.TestCase;
+import net.jforum.JForumExecutionContext;
+import net.jforum.TestCaseUtils;
+import net.jforum.util.preferences.SystemGlobals;
+
+/**
+ * Runs the archive queries against an in-memory HSQLDB database.
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class GenericArchiveDAOTest extends TestCase
+{
+	private static final long DAY = 24L * 60 * 60 * 1000;
+	private static final String POST_COLUMNS = "post_id INT NOT NULL PRIMARY KEY, topic_id INT, forum_id INT, "
+		+ "user_id INT, post_time TIMESTAMP, poster_ip VARCHAR(15), enable_bbcode INT, enable_html INT, "
+		+ "enable_smilies INT, enable_sig INT, post_edit_time TIMESTAMP, post_edit_count INT, status INT, "
+		+ "attach INT, need_moderate INT";
+
+	private Connection conn;
+	private GenericArchiveDAO dao = new GenericArchiveDAO();
+	private Date before = new Date(System.currentTimeMillis() - 30 * DAY);
+
+	protected void setUp() throws Exception
+	{
+		SystemGlobals.loadQueries(TestCaseUtils.getRootDir() + "/WEB-INF/config/database/generic/generic_queries.sql");
+
+		Class.forName("org.hsqldb.jdbcDriver");
+		this.conn = DriverManager.getConnection("jdbc:hsqldb:mem:archive", "sa", "");
+
+		Statement s = this.conn.createStatement();
+		s.executeUpdate("DROP TABLE jforum_topics IF EXISTS");
+		s.executeUpdate("DROP TABLE jforum_posts IF EXISTS");
+		s.executeUpdate("DROP TABLE jforum_posts_text IF EXISTS");
+		s.executeUpdate("DROP TABLE jforum_posts_archive IF EXISTS");
+		s.executeUpdate("DROP TABLE jforum_posts_text_archive IF EXISTS");
+
+		s.executeUpdate("CREATE TABLE jforum_topics (topic_id INT NOT NULL PRIMARY KEY, topic_moved_id INT DEFAULT 0, "
+			+ "topic_last_post_time TIMESTAMP, topic_archived INT DEFAULT 0)");
+		s.executeUpdate("CREATE TABLE jforum_posts (" + POST_COLUMNS + ")");
+		s.executeUpdate("CREATE TABLE jforum_posts_archive (" + POST_COLUMNS + ")");
+		s.executeUpdate("CREATE TABLE jforum_posts_text (post_id INT NOT NULL PRIMARY KEY, post_text LONGVARCHAR, post_subject VARCHAR(100))");
+		s.executeUpdate("CREATE TABLE jforum_posts_text_archive (post_id INT NOT NULL PRIMARY KEY, post_text LONGVARCHAR, post_subject VARCHAR(100))");
+
+		// Topic 1 is old, topic 2 is recent, and topic 3 is old but has a message waiting for moderation
+		this.addTopic(s, 1, 90);
+		this.addPost(s, 1, 1, 0);
+		this.addPost(s, 2, 1, 0);
+		this.addTopic(s, 2, 1);
+		this.addPost(s, 3, 2, 0);
+		this.addTopic(s, 3, 90);
+		this.addPost(s, 4, 3, 0);
+		this.addPost(s, 5, 3, 1);
+		s.close();
+
+		JForumExecutionContext.get().setConnection(this.conn);
+	}
+
+	protected void tearDown() throws Exception
+	{
+		JForumExecutionContext.get().setConnection(null);
+		this.conn.close();
+	}
+
+	public void testOnlyOldTopicsAreSelected()
+	{
+		List topics = this.dao.selectTopicsToArchive(this.before, 10);
+
+		assertEquals(1, topics.size());
+		assertEquals(new Integer(1), topics.get(0));
+	}
+
+	public void testArchiveMovesMessages() throws Exception
+	{
+		assertTrue(this.dao.archiveTopic(1, this.before));
+
+		assertTrue(this.dao.isArchived(1));
+		assertEquals(3, this.count("jforum_posts"));
+		assertEquals(3, this.count("jforum_posts_text"));
+		assertEquals(2, this.count("jforum_posts_archive"));
+		assertEquals(2, this.count("jforum_posts_text_archive"));
+
+		assertFalse("A topic is archived only once", this.dao.archiveTopic(1, this.before));
+	}
+
+	public void testRecentTopicIsNotArchived() throws Exception
+	{
+		assertFalse(this.dao.archiveTopic(2, this.before));
+		assertFalse(this.dao.archiveTopic(3, this.before));
+
+		assertEquals(0, this.count("jforum_posts_archive"));
+	}
+
+	public void testRestoreMovesMessagesBack() throws Exception
+	{
+		this.dao.archiveTopic(1, this.before);
+
+		assertTrue(this.dao.restoreTopic(1));
+
+		assertFalse(this.dao.isArchived(1));
+		assertEquals(5, this.count("jforum_posts"));
+		assertEquals(5, this.count("jforum_posts_text"));
+		assertEquals(0, this.count("jforum_posts_archive"));
+		assertEquals(0, this.count("jforum_posts_text_archive"));
+
+		assertFalse("Restoring a topic that is not archived does nothing", this.dao.restoreTopic(1));
+	}
+
+	public void testDeletingTopicsRemovesArchivedMessages() throws Exception
+	{
+		TestCaseUtils.loadEnvironment();
+		SystemGlobals.loadQueries(TestCaseUtils.getRootDir() + "/WEB-INF/config/database/generic/generic_queries.sql");
+
+		this.dao.archiveTopic(1, this.before);
+
+		new GenericPostDAO().deleteByTopics(Arrays.asList(new Integer[] { new Integer(1), new Integer(2) }));
+
+		assertEquals(2, this.count("jforum_posts"));
+		assertEquals(2, this.count("jforum_posts_text"));
+		assertEquals(0, this.count("jforum_posts_archive"));
+		assertEquals(0, this.count("jforum_posts_text_archive"));
+	}
+
+	private void addTopic(Statement s, int topicId, int daysAgo) throws Exception
+	{
+		s.executeUpdate("INSERT INTO jforum_topics (topic_id, topic_last_post_time) VALUES (" + topicId + ", '"
+			+ new java.sql.Timestamp(System.currentTimeMillis() - daysAgo * DAY) + "')");
+	}
+
+	private void addPost(Statement s, int postId, int topicId, int needModerate) throws Exception
+	{
+		s.executeUpdate("INSERT INTO jforum_posts VALUES (" + postId + ", " + topicId + ", 1, 1, NOW(), '127.0.0.1', "
+			+ "1, 0, 1, 1, NULL, 0, 1, 0, " + needModerate + ")");
+		s.executeUpdate("INSERT INTO jforum_posts_text VALUES (" + postId + ", 'text " + postId + "', 'subject')");
+	}
+
+	private int count(String table) throws Exception
+	{
+		Statement s = this.conn.createStatement();
+
+		try {
+			ResultSet rs = s.executeQuery("SELECT COUNT(1) FROM " + table);
+			rs.next();
+
+			return rs.getInt(1);
+		}
+		finally {
+			s.close();
+		}
+	}
+}
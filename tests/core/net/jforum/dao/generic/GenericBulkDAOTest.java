@@ -0,0 +1,135 @@
+package net.jforum.dao.generic;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import junit.framework.TestCase;
+import net.jforum.JForumExecutionContext;
+import net.jforum.TestCaseUtils;
+import net.jforum.util.preferences.SystemGlobals;
+
+/**
+ * Runs the counter queries against an in-memory HSQLDB database.
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class GenericBulkDAOTest extends TestCase
+{
+	private Connection conn;
+	private GenericBulkDAO dao = new GenericBulkDAO();
+
+	protected void setUp() throws Exception
+	{
+		SystemGlobals.loadQueries(TestCaseUtils.getRootDir() + "/WEB-INF/config/database/generic/generic_queries.sql");
+
+		Class.forName("org.hsqldb.jdbcDriver");
+		this.conn = DriverManager.getConnection("jdbc:hsqldb:mem:bulk", "sa", "");
+
+		Statement s = this.conn.createStatement();
+		s.executeUpdate("DROP TABLE jforum_forums IF EXISTS");
+		s.executeUpdate("DROP TABLE jforum_topics IF EXISTS");
+		s.executeUpdate("DROP TABLE jforum_posts IF EXISTS");
+		s.executeUpdate("DROP TABLE jforum_posts_archive IF EXISTS");
+		s.executeUpdate("DROP TABLE jforum_users IF EXISTS");
+
+		s.executeUpdate("CREATE TABLE jforum_forums (forum_id INT NOT NULL PRIMARY KEY, forum_topics INT, forum_last_post_id INT)");
+		s.executeUpdate("CREATE TABLE jforum_topics (topic_id INT NOT NULL PRIMARY KEY, forum_id INT, topic_replies INT, "
+			+ "topic_first_post_id INT, topic_last_post_id INT, topic_last_post_time TIMESTAMP, topic_last_user_id INT, "
+			+ "topic_has_attach INT, topic_archived INT DEFAULT 0)");
+		s.executeUpdate("CREATE TABLE jforum_posts (post_id INT NOT NULL PRIMARY KEY, topic_id INT, user_id INT, "
+			+ "post_time TIMESTAMP, attach INT, need_moderate INT)");
+		s.executeUpdate("CREATE TABLE jforum_posts_archive (post_id INT NOT NULL PRIMARY KEY, topic_id INT, user_id INT)");
+		s.executeUpdate("CREATE TABLE jforum_users (user_id INT NOT NULL PRIMARY KEY, user_posts INT)");
+
+		// Every counter starts wrong
+		s.executeUpdate("INSERT INTO jforum_forums VALUES (1, 9, 9)");
+		s.executeUpdate("INSERT INTO jforum_forums VALUES (2, 9, 9)");
+		s.executeUpdate("INSERT INTO jforum_topics VALUES (1, 1, 9, 9, 9, NULL, 9, 9, 0)");
+		s.executeUpdate("INSERT INTO jforum_topics VALUES (2, 1, 9, 9, 9, NULL, 9, 9, 0)");
+		s.executeUpdate("INSERT INTO jforum_topics VALUES (3, 2, 7, 5, 6, NOW(), 3, 0, 1)");
+		s.executeUpdate("INSERT INTO jforum_users VALUES (1, 9)");
+		s.executeUpdate("INSERT INTO jforum_users VALUES (2, 9)");
+		s.executeUpdate("INSERT INTO jforum_users VALUES (3, 9)");
+
+		// Topic 1 has two messages and one waiting for moderation, topic 2 has one, topic 3 is archived
+		s.executeUpdate("INSERT INTO jforum_posts VALUES (1, 1, 1, NOW(), 0, 0)");
+		s.executeUpdate("INSERT INTO jforum_posts VALUES (2, 1, 2, NOW(), 1, 0)");
+		s.executeUpdate("INSERT INTO jforum_posts VALUES (3, 1, 2, NOW(), 0, 1)");
+		s.executeUpdate("INSERT INTO jforum_posts VALUES (4, 2, 1, NOW(), 0, 0)");
+		s.executeUpdate("INSERT INTO jforum_posts_archive VALUES (5, 3, 3)");
+		s.executeUpdate("INSERT INTO jforum_posts_archive VALUES (6, 3, 1)");
+		s.close();
+
+		JForumExecutionContext.get().setConnection(this.conn);
+	}
+
+	protected void tearDown() throws Exception
+	{
+		JForumExecutionContext.get().setConnection(null);
+		this.conn.close();
+	}
+
+	public void testRecountForum() throws Exception
+	{
+		this.dao.recountForum(1);
+
+		assertEquals("1, 1, 3, 2, 1", this.row("SELECT topic_replies, topic_first_post_id, topic_last_post_id, "
+			+ "topic_last_user_id, topic_has_attach FROM jforum_topics WHERE topic_id = 1"));
+		assertEquals("0, 4, 4, 1, 0", this.row("SELECT topic_replies, topic_first_post_id, topic_last_post_id, "
+			+ "topic_last_user_id, topic_has_attach FROM jforum_topics WHERE topic_id = 2"));
+		assertEquals("2, 4", this.row("SELECT forum_topics, forum_last_post_id FROM jforum_forums WHERE forum_id = 1"));
+
+		assertEquals("Other forums are not changed", "9, 9", 
+			this.row("SELECT forum_topics, forum_last_post_id FROM jforum_forums WHERE forum_id = 2"));
+	}
+
+	public void testArchivedTopicKeepsCounters() throws Exception
+	{
+		this.dao.recountForum(2);
+
+		assertEquals("7, 5, 6", this.row("SELECT topic_replies, topic_first_post_id, topic_last_post_id "
+			+ "FROM jforum_topics WHERE topic_id = 3"));
+		assertEquals("1, 6", this.row("SELECT forum_topics, forum_last_post_id FROM jforum_forums WHERE forum_id = 2"));
+	}
+
+	public void testRecountUserPosts() throws Exception
+	{
+		this.dao.recountUserPosts(1, 2);
+
+		assertEquals("3", this.row("SELECT user_posts FROM jforum_users WHERE user_id = 1"));
+		assertEquals("1", this.row("SELECT user_posts FROM jforum_users WHERE user_id = 2"));
+		assertEquals("Users out of the range are not changed", "9", 
+			this.row("SELECT user_posts FROM jforum_users WHERE user_id = 3"));
+	}
+
+	public void testForumIdsAndMaxIds()
+	{
+		assertEquals(2, this.dao.selectForumIds().size());
+		assertEquals(3, this.dao.maxUserId());
+		assertEquals(3, this.dao.maxTopicId());
+	}
+
+	private String row(String sql) throws Exception
+	{
+		Statement s = this.conn.createStatement();
+
+		try {
+			ResultSet rs = s.executeQuery(sql);
+			rs.next();
+
+			StringBuffer sb = new StringBuffer();
+
+			for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
+				sb.append(i > 1 ? ", " : "").append(rs.getInt(i));
+			}
+
+			return sb.toString();
+		}
+		finally {
+			s.close();
+		}
+	}
+}
@@ -0,0 +1,220 @@
+package net.jforum.dao.hsqldb;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import net.jforum.JForumExecutionContext;
+import net.jforum.TestCaseUtils;
+import net.jforum.dao.DataAccessDriver;
+import net.jforum.dao.PostDAO;
+import net.jforum.dao.PrivateMessageDAO;
+import net.jforum.dao.TopicDAO;
+import net.jforum.dao.generic.GenericPrivateMessageDAO;
+import net.jforum.entities.Post;
+import net.jforum.entities.PrivateMessage;
+import net.jforum.entities.Topic;
+import net.jforum.entities.User;
+import net.jforum.sso.DefaultLoginAuthenticator;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Reads the same listings page by page, once with offsets and once with the
+ * keyset queries, against an in-memory HSQLDB database, and checks that both
+ * give the same rows.
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class KeysetPaginationTest extends TestCase
+{
+	private static final int PAGE = 3;
+	private static final long TIME = 1000000000000L;
+
+	private Connection conn;
+
+	protected void setUp() throws Exception
+	{
+		TestCaseUtils.loadEnvironment();
+
+		String dir = TestCaseUtils.getRootDir() + "/WEB-INF/config/database/";
+		SystemGlobals.loadQueries(dir + "generic/generic_queries.sql");
+		SystemGlobals.loadQueries(dir + "hsqldb/hsqldb.sql");
+
+		SystemGlobals.setObjectValue(ConfigKeys.LOGIN_AUTHENTICATOR_INSTANCE, new DefaultLoginAuthenticator());
+		DataAccessDriver.init(new HsqldbDataAccessDriver());
+
+		Class.forName("org.hsqldb.jdbcDriver");
+		this.conn = DriverManager.getConnection("jdbc:hsqldb:mem:keyset", "sa", "");
+
+		Statement s = this.conn.createStatement();
+		String struct = FileUtils.readFileToString(new File(dir + "hsqldb/hsqldb_db_struct.sql"), "ISO-8859-1");
+		String[] statements = struct.split(";");
+
+		for (int i = 0; i < statements.length; i++) {
+			String sql = statements[i].replaceAll("(?m)^--.*$", "").trim();
+
+			if (sql.length() > 0 && !sql.startsWith("DROP")) {
+				s.executeUpdate(sql);
+			}
+		}
+
+		s.executeUpdate("INSERT INTO jforum_users (user_id, username, user_password, user_email) VALUES (1, 'Alice', 'x', 'a@b')");
+		s.executeUpdate("INSERT INTO jforum_users (user_id, username, user_password, user_email) VALUES (2, 'Bob', 'x', 'b@b')");
+
+		// Two sticky topics among normal ones
+		int[] types = { Topic.TYPE_NORMAL, Topic.TYPE_STICKY, Topic.TYPE_NORMAL, Topic.TYPE_NORMAL,
+			Topic.TYPE_STICKY, Topic.TYPE_NORMAL, Topic.TYPE_NORMAL, Topic.TYPE_ANNOUNCE };
+
+		for (int i = 0; i < types.length; i++) {
+			int topicId = i + 1;
+			s.executeUpdate("INSERT INTO jforum_topics (topic_id, forum_id, topic_title, user_id, topic_time, topic_type, "
+				+ "topic_first_post_id, topic_last_post_id, topic_last_user_id, topic_last_post_time) VALUES ("
+				+ topicId + ", 1, 'topic', 1, '" + new Timestamp(TIME) + "', " + types[i] + ", "
+				+ (100 + topicId) + ", " + (100 + (topicId * 7) % 11) + ", 2, '" + new Timestamp(TIME) + "')");
+		}
+
+		// Messages of topic 1, some of them posted at the same time
+		for (int i = 1; i <= 8; i++) {
+			s.executeUpdate("INSERT INTO jforum_posts (post_id, topic_id, forum_id, user_id, post_time) VALUES ("
+				+ i + ", 1, 1, " + (i % 2 + 1) + ", '" + new Timestamp(TIME + (i / 3) * 1000) + "')");
+			s.executeUpdate("INSERT INTO jforum_posts_text (post_id, post_text, post_subject) VALUES ("
+				+ i + ", 'text " + i + "', 'subject')");
+		}
+
+		// Alice's inbox and sent box
+		for (int i = 1; i <= 8; i++) {
+			boolean received = i % 4 != 0;
+			s.executeUpdate("INSERT INTO jforum_privmsgs (privmsgs_id, privmsgs_type, privmsgs_subject, "
+				+ "privmsgs_from_userid, privmsgs_to_userid, privmsgs_date) VALUES (" + i + ", "
+				+ (received ? 1 : 2) + ", 'pm', " + (received ? 2 : 1) + ", " + (received ? 1 : 2)
+				+ ", '" + new Timestamp(TIME) + "')");
+		}
+
+		s.close();
+
+		JForumExecutionContext.get().setConnection(this.conn);
+	}
+
+	protected void tearDown() throws Exception
+	{
+		JForumExecutionContext.get().setConnection(null);
+
+		Statement s = this.conn.createStatement();
+		s.execute("SHUTDOWN");
+		s.close();
+
+		this.conn.close();
+	}
+
+	public void testTopicPages()
+	{
+		TopicDAO dao = new HsqldbTopicDAO();
+		List byOffset = new ArrayList();
+		List byCursor = new ArrayList();
+
+		for (int start = 0; start < 8; start += PAGE) {
+			byOffset.addAll(this.topicIds(dao.selectAllByForumByLimit(1, start, PAGE)));
+		}
+
+		List page = dao.selectAllByForumByLimit(1, 0, PAGE);
+
+		while (page.size() > 0) {
+			byCursor.addAll(this.topicIds(page));
+
+			Topic last = (Topic)page.get(page.size() - 1);
+			page = dao.selectAllByForumAfter(1, last.getType(), last.getLastPostId(), PAGE);
+		}
+
+		assertEquals(8, byOffset.size());
+		assertEquals(new Integer(8), byOffset.get(0));
+		assertEquals(byOffset, byCursor);
+	}
+
+	public void testPostPages()
+	{
+		PostDAO dao = new HsqldbPostDAO();
+		List byOffset = new ArrayList();
+		List byCursor = new ArrayList();
+
+		for (int start = 0; start < 8; start += PAGE) {
+			byOffset.addAll(this.postIds(dao.selectAllByTopicByLimit(1, start, PAGE)));
+		}
+
+		List page = dao.selectAllByTopicByLimit(1, 0, PAGE);
+
+		while (page.size() > 0) {
+			byCursor.addAll(this.postIds(page));
+
+			Post last = (Post)page.get(page.size() - 1);
+			page = dao.selectAllByTopicAfter(1, last.getTime(), last.getId(), PAGE);
+		}
+
+		assertEquals("[1, 2, 3, 4, 5, 6, 7, 8]", byOffset.toString());
+		assertEquals(byOffset, byCursor);
+	}
+
+	public void testInboxAndSentPages()
+	{
+		PrivateMessageDAO dao = new GenericPrivateMessageDAO();
+		User user = new User();
+		user.setId(1);
+
+		List inbox = new ArrayList();
+		List page = dao.selectFromInbox(user, 0, PAGE);
+
+		while (page.size() > 0) {
+			inbox.addAll(this.pmIds(page));
+			page = dao.selectFromInboxAfter(user, ((PrivateMessage)page.get(page.size() - 1)).getId(), PAGE);
+		}
+
+		assertEquals("[7, 6, 5, 3, 2, 1]", inbox.toString());
+		assertEquals("[5, 3, 2]", this.pmIds(dao.selectFromInbox(user, 2, PAGE)).toString());
+
+		List sent = this.pmIds(dao.selectFromSent(user, 0, PAGE));
+		sent.addAll(this.pmIds(dao.selectFromSentAfter(user, 8, PAGE)));
+
+		assertEquals("[8, 4, 4]", sent.toString());
+	}
+
+	private List topicIds(List topics)
+	{
+		List ids = new ArrayList();
+
+		for (int i = 0; i < topics.size(); i++) {
+			ids.add(new Integer(((Topic)topics.get(i)).getId()));
+		}
+
+		return ids;
+	}
+
+	private List postIds(List posts)
+	{
+		List ids = new ArrayList();
+
+		for (int i = 0; i < posts.size(); i++) {
+			ids.add(new Integer(((Post)posts.get(i)).getId()));
+		}
+
+		return ids;
+	}
+
+	private List pmIds(List messages)
+	{
+		List ids = new ArrayList();
+
+		for (int i = 0; i < messages.size(); i++) {
+			ids.add(new Integer(((PrivateMessage)messages.get(i)).getId()));
+		}
+
+		return ids;
+	}
+}
@@ -0,0 +1,103 @@
+package net.jforum.repository;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+/**
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class HottestTopicsTest extends TestCase
+{
+	protected void setUp() throws Exception
+	{
+		SystemGlobals.setValue(ConfigKeys.HOTTEST_TOPICS, "2");
+		SystemGlobals.setValue(ConfigKeys.HOTTEST_TOPICS_RECENT_DAYS, "7");
+		HottestTopics.reset();
+	}
+
+	public void testKeepsTheHighestScores()
+	{
+		HottestTopics.TopK top = new HottestTopics.TopK(3);
+
+		for (int i = 1; i <= 10; i++) {
+			top.offer(i, i * 10);
+		}
+
+		assertEquals(3, top.size());
+		assertEquals(Arrays.asList(new Integer[] { new Integer(10), new Integer(9), new Integer(8) }), top.top(5));
+	}
+
+	public void testScoresOnlyGrow()
+	{
+		HottestTopics.TopK top = new HottestTopics.TopK(2);
+		top.offer(1, 50);
+		top.offer(2, 40);
+		top.offer(1, 10);
+		top.offer(2, 60);
+
+		assertEquals(Arrays.asList(new Integer[] { new Integer(2), new Integer(1) }), top.top(2));
+	}
+
+	public void testRemovedTopicLeavesRoom()
+	{
+		HottestTopics.TopK top = new HottestTopics.TopK(2);
+		top.offer(1, 50);
+		top.offer(2, 40);
+		top.remove(1);
+		top.offer(3, 10);
+
+		assertEquals(Arrays.asList(new Integer[] { new Integer(2), new Integer(3) }), top.top(2));
+	}
+
+	public void testNewTopicReplacesTheLowestWhenAdding()
+	{
+		HottestTopics.TopK top = new HottestTopics.TopK(2);
+		top.add(1, 5);
+		top.add(2, 3);
+		top.add(3, 1);
+
+		assertEquals(Arrays.asList(new Integer[] { new Integer(1), new Integer(3) }), top.top(2));
+	}
+
+	public void testRecentViews()
+	{
+		for (int i = 0; i < 3; i++) {
+			HottestTopics.viewed(7, 100 + i);
+		}
+
+		HottestTopics.viewed(8, 1000);
+
+		assertEquals(Arrays.asList(new Integer[] { new Integer(7), new Integer(8) }), HottestTopics.getRecentTopicIds(2));
+		assertEquals(Arrays.asList(new Integer[] { new Integer(8), new Integer(7) }), HottestTopics.getTopicIds(2));
+
+		HottestTopics.remove(7);
+		assertEquals(Arrays.asList(new Integer[] { new Integer(8) }), HottestTopics.getRecentTopicIds(2));
+	}
+
+	public void testViewsOfOtherThreadsAreNotStranded() throws Exception
+	{
+		this.viewInAnotherThread(9, 3);
+		this.viewInAnotherThread(10, 5);
+
+		assertEquals(Arrays.asList(new Integer[] { new Integer(10), new Integer(9) }), HottestTopics.getRecentTopicIds(2));
+	}
+
+	private void viewInAnotherThread(final int topicId, final int views) throws Exception
+	{
+		Thread t = new Thread() {
+			public void run()
+			{
+				for (int i = 0; i < views; i++) {
+					HottestTopics.viewed(topicId, i + 1);
+				}
+			}
+		};
+
+		t.start();
+		t.join();
+	}
+}
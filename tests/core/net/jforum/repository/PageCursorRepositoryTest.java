@@ -0,0 +1,63 @@
+package net.jforum.repository;
+
+import junit.framework.TestCase;
+import net.jforum.cache.DefaultCacheEngine;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+/**
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class PageCursorRepositoryTest extends TestCase
+{
+	protected void setUp() throws Exception
+	{
+		SystemGlobals.setValue(ConfigKeys.PAGINATION_CURSOR_CACHE_SIZE, "2");
+		PageCursorRepository.clear();
+
+		DefaultCacheEngine engine = new DefaultCacheEngine();
+		engine.init();
+		new PageCursorRepository().setCacheEngine(engine);
+	}
+
+	public void testCursorsAreKeptByScopeAndPage()
+	{
+		PageCursorRepository.put("forum/1/0", 15, new long[] { 0, 100 });
+
+		assertEquals(100, PageCursorRepository.get("forum/1/0", 15)[1]);
+		assertNull(PageCursorRepository.get("forum/1/0", 30));
+		assertNull(PageCursorRepository.get("forum/2/0", 15));
+	}
+
+	public void testLeastRecentlyUsedIsDropped()
+	{
+		PageCursorRepository.put("topic/1", 15, new long[] { 1 });
+		PageCursorRepository.put("topic/2", 15, new long[] { 2 });
+		PageCursorRepository.get("topic/1", 15);
+		PageCursorRepository.put("topic/3", 15, new long[] { 3 });
+
+		assertEquals(2, PageCursorRepository.size());
+		assertNotNull(PageCursorRepository.get("topic/1", 15));
+		assertNull(PageCursorRepository.get("topic/2", 15));
+	}
+
+	public void testChangedListingGetsANewScope()
+	{
+		String before = PageCursorRepository.scope("forum/1");
+		String other = PageCursorRepository.scope("forum/2");
+
+		PageCursorRepository.put(before, 15, new long[] { 0, 100 });
+		PageCursorRepository.changed("forum/1");
+
+		String after = PageCursorRepository.scope("forum/1");
+
+		assertFalse(before.equals(after));
+		assertTrue(after.startsWith("forum/1/"));
+		assertNull(PageCursorRepository.get(after, 15));
+		assertEquals(other, PageCursorRepository.scope("forum/2"));
+
+		PageCursorRepository.changed("forum/1");
+		assertFalse(after.equals(PageCursorRepository.scope("forum/1")));
+	}
+}
@@ -0,0 +1,68 @@
+package net.jforum.repository;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+/**
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class ReadStatusAggregatorTest extends TestCase
+{
+	protected void setUp() throws Exception
+	{
+		SystemGlobals.setValue(ConfigKeys.TOPIC_READ_FLUSH_INTERVAL, "5000");
+		ReadStatusAggregator.drain();
+	}
+
+	public void testKeepsHighestPostId()
+	{
+		ReadStatusAggregator.markAsRead(10, 2, 100);
+		ReadStatusAggregator.markAsRead(10, 2, 150);
+		ReadStatusAggregator.markAsRead(10, 2, 120);
+
+		List l = ReadStatusAggregator.drain();
+
+		assertEquals(1, l.size());
+		this.assertEntry((int[])l.get(0), 10, 2, 150);
+		assertEquals(0, ReadStatusAggregator.size());
+	}
+
+	public void testDrainIsOrderedByTopicAndUser()
+	{
+		ReadStatusAggregator.markAsRead(20, 1, 5);
+		ReadStatusAggregator.markAsRead(10, 3, 6);
+		ReadStatusAggregator.markAsRead(10, 1, 7);
+
+		List l = ReadStatusAggregator.drain();
+
+		assertEquals(3, l.size());
+		this.assertEntry((int[])l.get(0), 10, 1, 7);
+		this.assertEntry((int[])l.get(1), 10, 3, 6);
+		this.assertEntry((int[])l.get(2), 20, 1, 5);
+	}
+
+	public void testDrainOfATopicKeepsTheOthers()
+	{
+		ReadStatusAggregator.markAsRead(20, 1, 5);
+		ReadStatusAggregator.markAsRead(10, 3, 6);
+		ReadStatusAggregator.markAsRead(10, 1, 7);
+
+		List l = ReadStatusAggregator.drain(10);
+
+		assertEquals(2, l.size());
+		this.assertEntry((int[])l.get(0), 10, 1, 7);
+		this.assertEntry((int[])l.get(1), 10, 3, 6);
+		assertEquals(1, ReadStatusAggregator.size());
+	}
+
+	private void assertEntry(int[] entry, int topicId, int userId, int postId)
+	{
+		assertEquals(topicId, entry[0]);
+		assertEquals(userId, entry[1]);
+		assertEquals(postId, entry[2]);
+	}
+}
@@ -0,0 +1,164 @@
+package net.jforum.repository;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.jforum.entities.Topic;
+
+/**
+ * Compares the recent topics list of {@link TopicRepository} with the locked
+ * <code>LinkedList</code> it replaced, with some threads pushing topics and
+ * others reading the list. Run it with
+ * <code>java net.jforum.repository.RecentTopicsBenchmark [writers] [readers] [seconds]</code>.
+ * 
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class RecentTopicsBenchmark
+{
+	private static final int LIMIT = 50;
+	private static final int TOPICS = 500;
+	
+	// Keeps the reads from being optimized away
+	static volatile long sink;
+
+	interface Recent
+	{
+		void push(Topic topic);
+		List get();
+	}
+
+	/**
+	 * The former implementation: a linked list guarded by a lock, 
+	 * copied for every reader. The copy is taken with the lock held, 
+	 * as a concurrent push could break it otherwise
+	 */
+	static class LockedList implements Recent
+	{
+		private final ReentrantLock lock = new ReentrantLock();
+		private LinkedList list = new LinkedList();
+
+		public void push(Topic topic)
+		{
+			this.lock.lock();
+
+			try {
+				this.list.remove(topic);
+				this.list.addFirst(topic);
+
+				while (this.list.size() > LIMIT) {
+					this.list.removeLast();
+				}
+			}
+			finally {
+				this.lock.unlock();
+			}
+		}
+
+		public List get()
+		{
+			this.lock.lock();
+
+			try {
+				return new ArrayList(this.list);
+			}
+			finally {
+				this.lock.unlock();
+			}
+		}
+	}
+
+	static class Snapshots implements Recent
+	{
+		private final TopicRepository.RecentTopics recent = new TopicRepository.RecentTopics();
+
+		public void push(Topic topic)
+		{
+			this.recent.push(topic, LIMIT);
+		}
+
+		public List get()
+		{
+			return this.recent.get();
+		}
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		int writers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		int readers = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+		int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+		Topic[] topics = new Topic[TOPICS];
+
+		for (int i = 0; i < topics.length; i++) {
+			topics[i] = new Topic();
+			topics[i].setId(i + 1);
+		}
+
+		// Warm up both before measuring
+		run(new LockedList(), topics, writers, readers, 1);
+		run(new Snapshots(), topics, writers, readers, 1);
+
+		report("LinkedList + lock", run(new LockedList(), topics, writers, readers, seconds), seconds);
+		report("Snapshots + CAS", run(new Snapshots(), topics, writers, readers, seconds), seconds);
+	}
+
+	private static void report(String name, long[] counts, int seconds)
+	{
+		System.out.println(name + ": " + (counts[0] / seconds) + " pushes/s, " 
+			+ (counts[1] / seconds) + " reads/s");
+	}
+
+	private static long[] run(final Recent recent, final Topic[] topics, int writers, int readers, int seconds) 
+		throws InterruptedException
+	{
+		final long[] counts = new long[writers + readers];
+		final long end = System.currentTimeMillis() + seconds * 1000L;
+		final CountDownLatch done = new CountDownLatch(writers + readers);
+
+		for (int i = 0; i < writers + readers; i++) {
+			final int index = i;
+			final boolean writer = i < writers;
+
+			new Thread() {
+				public void run()
+				{
+					long count = 0;
+					long size = 0;
+					int next = index;
+
+					while (System.currentTimeMillis() < end) {
+						for (int j = 0; j < 100; j++) {
+							if (writer) {
+								recent.push(topics[next++ % topics.length]);
+							}
+							else {
+								size += recent.get().size();
+							}
+						}
+
+						count += 100;
+					}
+
+					counts[index] = count;
+					sink = size;
+					done.countDown();
+				}
+			}.start();
+		}
+
+		done.await();
+
+		long[] totals = new long[2];
+
+		for (int i = 0; i < counts.length; i++) {
+			totals[i < writers ? 0 : 1] += counts[i];
+		}
+
+		return totals;
+	}
+}
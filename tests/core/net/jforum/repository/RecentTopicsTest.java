@@ -0,0 +1,116 @@
+package net.jforum.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import net.jforum.entities.Topic;
+
+/**
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class RecentTopicsTest extends TestCase
+{
+	public void testPushKeepsTheMostRecentFirst()
+	{
+		TopicRepository.RecentTopics recent = new TopicRepository.RecentTopics();
+		assertTrue(recent.isEmpty());
+
+		for (int i = 1; i <= 5; i++) {
+			recent.push(this.newTopic(i), 3);
+		}
+
+		assertEquals("[5, 4, 3]", this.ids(recent.get()));
+	}
+
+	public void testRepeatedTopicIsMovedToTheHead()
+	{
+		TopicRepository.RecentTopics recent = new TopicRepository.RecentTopics();
+
+		for (int i = 1; i <= 4; i++) {
+			recent.push(this.newTopic(i), 4);
+		}
+
+		recent.push(this.newTopic(2), 4);
+		assertEquals("[2, 4, 3, 1]", this.ids(recent.get()));
+
+		recent.push(this.newTopic(1), 4);
+		assertEquals("[1, 2, 4, 3]", this.ids(recent.get()));
+
+		recent.push(this.newTopic(1), 4);
+		assertEquals("[1, 2, 4, 3]", this.ids(recent.get()));
+	}
+
+	public void testSnapshotIsNotChangedByLaterPushes()
+	{
+		TopicRepository.RecentTopics recent = new TopicRepository.RecentTopics();
+		List topics = new ArrayList();
+		topics.add(this.newTopic(2));
+		topics.add(this.newTopic(1));
+		recent.set(topics, 10);
+
+		List snapshot = recent.get();
+		recent.push(this.newTopic(3), 10);
+
+		assertEquals("[2, 1]", this.ids(snapshot));
+		assertEquals("[3, 2, 1]", this.ids(recent.get()));
+
+		try {
+			snapshot.remove(0);
+			fail("The snapshot must not be changed");
+		}
+		catch (UnsupportedOperationException e) {
+			// ok
+		}
+	}
+
+	public void testConcurrentPushesKeepDistinctTopics() throws Exception
+	{
+		final TopicRepository.RecentTopics recent = new TopicRepository.RecentTopics();
+		Thread[] threads = new Thread[4];
+
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				public void run()
+				{
+					for (int j = 0; j < 2000; j++) {
+						recent.push(newTopic(j % 30), 20);
+					}
+				}
+			};
+			threads[i].start();
+		}
+
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join();
+		}
+
+		List topics = recent.get();
+		assertEquals(20, topics.size());
+
+		for (int i = 0; i < topics.size(); i++) {
+			for (int j = i + 1; j < topics.size(); j++) {
+				assertFalse(topics.get(i).equals(topics.get(j)));
+			}
+		}
+	}
+
+	Topic newTopic(int id)
+	{
+		Topic t = new Topic();
+		t.setId(id);
+		return t;
+	}
+
+	private String ids(List topics)
+	{
+		List ids = new ArrayList();
+
+		for (int i = 0; i < topics.size(); i++) {
+			ids.add(new Integer(((Topic)topics.get(i)).getId()));
+		}
+
+		return ids.toString();
+	}
+}
@@ -0,0 +1,209 @@
+package net.jforum.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import net.jforum.cache.DefaultCacheEngine;
+import net.jforum.entities.Topic;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+/**
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class TopicRepositoryTest extends TestCase
+{
+	private DefaultCacheEngine engine;
+
+	protected void setUp() throws Exception
+	{
+		SystemGlobals.setValue(ConfigKeys.TOPIC_CACHE_ENABLED, "true");
+		SystemGlobals.setValue(ConfigKeys.TOPICS_PER_PAGE, "15");
+
+		this.engine = new DefaultCacheEngine();
+		this.engine.init();
+		new TopicRepository().setCacheEngine(this.engine);
+		TopicRepository.clearCache(1);
+		TopicRepository.clearCache(2);
+	}
+
+	public void testTopicsAreSortedByTypeAndLastPost()
+	{
+		List topics = new ArrayList();
+		topics.add(this.newTopic(1, 1, Topic.TYPE_NORMAL, 100));
+		topics.add(this.newTopic(2, 1, Topic.TYPE_STICKY, 50));
+		TopicRepository.addAll(1, topics);
+
+		TopicRepository.addTopic(this.newTopic(3, 1, Topic.TYPE_NORMAL, 200));
+
+		assertEquals("[2, 3, 1]", this.ids(TopicRepository.getTopics(1)));
+		assertTrue(TopicRepository.isLoaded(1));
+	}
+
+	public void testUpdatedTopicIsMoved()
+	{
+		List topics = new ArrayList();
+		topics.add(this.newTopic(1, 1, Topic.TYPE_NORMAL, 200));
+		topics.add(this.newTopic(2, 1, Topic.TYPE_NORMAL, 100));
+		TopicRepository.addAll(1, topics);
+
+		TopicRepository.updateTopic(this.newTopic(2, 1, Topic.TYPE_NORMAL, 300));
+		TopicRepository.updateTopic(this.newTopic(5, 1, Topic.TYPE_NORMAL, 400));
+
+		assertEquals("[2, 1]", this.ids(TopicRepository.getTopics(1)));
+	}
+
+	public void testClearingAForumKeepsTheOthers()
+	{
+		List first = new ArrayList();
+		first.add(this.newTopic(1, 1, Topic.TYPE_NORMAL, 100));
+		TopicRepository.addAll(1, first);
+
+		List second = new ArrayList();
+		second.add(this.newTopic(2, 2, Topic.TYPE_NORMAL, 100));
+		TopicRepository.addAll(2, second);
+
+		TopicRepository.clearCache(1);
+
+		assertEquals(0, TopicRepository.getTopics(1).size());
+		assertFalse(TopicRepository.isLoaded(1));
+		assertNull(TopicRepository.getTopic(new Topic(1)));
+
+		Topic t = TopicRepository.getTopic(new Topic(2));
+		assertNotNull(t);
+		assertEquals(2, t.getForumId());
+	}
+
+	public void testFullForumDropsTheLastTopic()
+	{
+		List topics = new ArrayList();
+		int max = SystemGlobals.getIntValue(ConfigKeys.TOPICS_PER_PAGE);
+
+		for (int i = 1; i <= max; i++) {
+			topics.add(this.newTopic(i, 1, Topic.TYPE_NORMAL, 1000 + i));
+		}
+
+		TopicRepository.addAll(1, topics);
+		TopicRepository.addTopic(this.newTopic(max + 1, 1, Topic.TYPE_NORMAL, 5000));
+
+		List cached = TopicRepository.getTopics(1);
+		assertEquals(max, cached.size());
+		assertEquals(max + 1, ((Topic)cached.get(0)).getId());
+		assertFalse(TopicRepository.isTopicCached(this.newTopic(1, 1, Topic.TYPE_NORMAL, 0)));
+	}
+
+	public void testRemovedTopicsKeepTheOthers()
+	{
+		List topics = new ArrayList();
+		topics.add(this.newTopic(1, 1, Topic.TYPE_NORMAL, 300));
+		topics.add(this.newTopic(2, 1, Topic.TYPE_NORMAL, 200));
+		topics.add(this.newTopic(3, 1, Topic.TYPE_NORMAL, 100));
+		TopicRepository.addAll(1, topics);
+
+		TopicRepository.removeTopics(1, Arrays.asList(new Integer[] { new Integer(1), new Integer(3) }));
+
+		assertEquals("[2]", this.ids(TopicRepository.getTopics(1)));
+		assertTrue("A forum with less than a page of topics has nothing else to show", TopicRepository.isLoaded(1));
+		assertNull(TopicRepository.getTopic(new Topic(1)));
+	}
+
+	public void testRemovingFromAFullForumReadsItAgain()
+	{
+		List topics = new ArrayList();
+		int max = SystemGlobals.getIntValue(ConfigKeys.TOPICS_PER_PAGE);
+
+		for (int i = 1; i <= max; i++) {
+			topics.add(this.newTopic(i, 1, Topic.TYPE_NORMAL, 1000 + i));
+		}
+
+		TopicRepository.addAll(1, topics);
+		TopicRepository.removeTopics(1, Arrays.asList(new Integer[] { new Integer(1) }));
+
+		assertEquals(max - 1, TopicRepository.getTopics(1).size());
+		assertFalse(TopicRepository.isLoaded(1));
+	}
+
+	public void testStatusChangesInEveryForum()
+	{
+		List first = new ArrayList();
+		first.add(this.newTopic(1, 1, Topic.TYPE_NORMAL, 100));
+		TopicRepository.addAll(1, first);
+
+		List second = new ArrayList();
+		second.add(this.newTopic(2, 2, Topic.TYPE_NORMAL, 100));
+		TopicRepository.addAll(2, second);
+
+		TopicRepository.setStatus(new int[] { 1, 2, 9 }, Topic.STATUS_LOCKED);
+
+		assertEquals(Topic.STATUS_LOCKED, TopicRepository.getTopic(new Topic(1)).getStatus());
+		assertEquals(Topic.STATUS_LOCKED, TopicRepository.getTopic(new Topic(2)).getStatus());
+	}
+
+	public void testWrittenViewsAreAddedToTheCachedTopics()
+	{
+		List topics = new ArrayList();
+		Topic t = this.newTopic(1, 1, Topic.TYPE_NORMAL, 100);
+		t.setTotalViews(10);
+		topics.add(t);
+		TopicRepository.addAll(1, topics);
+
+		Map views = new HashMap();
+		views.put(new Integer(1), new Integer(3));
+		views.put(new Integer(9), new Integer(5));
+		TopicRepository.addTotalViews(views);
+
+		assertEquals(13, TopicRepository.getTopic(new Topic(1)).getTotalViews());
+	}
+
+	public void testChangesOfOtherNodesDropTheTopics()
+	{
+		List first = new ArrayList();
+		first.add(this.newTopic(1, 1, Topic.TYPE_NORMAL, 100));
+		TopicRepository.addAll(1, first);
+
+		List second = new ArrayList();
+		second.add(this.newTopic(2, 2, Topic.TYPE_NORMAL, 100));
+		TopicRepository.addAll(2, second);
+
+		TopicRepository.addTopic(this.newTopic(3, 1, Topic.TYPE_NORMAL, 200));
+		assertEquals("[3, 1]", this.ids(TopicRepository.getTopics(1)));
+
+		Long stamp = (Long)this.engine.get(TopicRepository.STAMPS, "1");
+		assertNotNull("Local changes are published", stamp);
+
+		// Another node changes the first forum
+		this.engine.add(TopicRepository.STAMPS, "1", new Long(stamp.longValue() + 1));
+
+		assertEquals(0, TopicRepository.getTopics(1).size());
+		assertFalse(TopicRepository.isLoaded(1));
+		assertNull(TopicRepository.getTopic(new Topic(3)));
+		assertEquals("[2]", this.ids(TopicRepository.getTopics(2)));
+		assertTrue(TopicRepository.isLoaded(2));
+	}
+
+	private Topic newTopic(int id, int forumId, int type, long lastPostTime)
+	{
+		Topic t = new Topic(id);
+		t.setForumId(forumId);
+		t.setType(type);
+		t.setLastPostDate(new Date(lastPostTime));
+		return t;
+	}
+
+	private String ids(List topics)
+	{
+		List ids = new ArrayList();
+
+		for (int i = 0; i < topics.size(); i++) {
+			ids.add(new Integer(((Topic)topics.get(i)).getId()));
+		}
+
+		return ids.toString();
+	}
+}
@@ -0,0 +1,118 @@
+package net.jforum.repository;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import net.jforum.cache.DefaultCacheEngine;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+/**
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class UnreadTopicsIndexTest extends TestCase
+{
+	private long now;
+	private DefaultCacheEngine engine;
+
+	protected void setUp() throws Exception
+	{
+		SystemGlobals.setValue(ConfigKeys.UNREAD_INDEX_WINDOW_DAYS, "30");
+		SystemGlobals.setValue(ConfigKeys.UNREAD_INDEX_FORUM_SIZE, "3");
+
+		UnreadTopicsIndex.removeForum(1);
+		UnreadTopicsIndex.removeForum(2);
+
+		this.engine = new DefaultCacheEngine();
+		this.engine.init();
+		new UnreadTopicsIndex().setCacheEngine(this.engine);
+
+		this.now = System.currentTimeMillis();
+	}
+
+	public void testNewTopicIsUnread()
+	{
+		UnreadTopicsIndex.addPost(1, 10, this.now);
+
+		assertTrue(UnreadTopicsIndex.hasUnread(1, this.now - 1000, null, null));
+		assertFalse(UnreadTopicsIndex.hasUnread(1, this.now, null, null));
+		assertFalse(UnreadTopicsIndex.hasUnread(2, 0, null, null));
+	}
+
+	public void testReadTopicsAndForumsAreSkipped()
+	{
+		UnreadTopicsIndex.addPost(1, 10, this.now - 5000);
+		UnreadTopicsIndex.addPost(1, 11, this.now - 3000);
+
+		Map tracking = new HashMap();
+		tracking.put(new Integer(11), new Long(this.now - 2000));
+
+		assertTrue(UnreadTopicsIndex.hasUnread(1, 0, null, tracking));
+
+		tracking.put(new Integer(10), new Long(this.now - 2000));
+		assertFalse(UnreadTopicsIndex.hasUnread(1, 0, null, tracking));
+
+		assertFalse(UnreadTopicsIndex.hasUnread(1, 0, new Long(this.now), null));
+	}
+
+	public void testMessagesOutOfTheWindowAreRead()
+	{
+		UnreadTopicsIndex.addPost(1, 10, this.now - 31L * 24 * 60 * 60 * 1000);
+
+		assertEquals(0, UnreadTopicsIndex.size(1));
+		assertFalse(UnreadTopicsIndex.hasUnread(1, 0, null, null));
+	}
+
+	public void testOldestTopicsAreDropped()
+	{
+		UnreadTopicsIndex.addPost(1, 10, this.now - 4000);
+		UnreadTopicsIndex.addPost(1, 11, this.now - 3000);
+		UnreadTopicsIndex.addPost(1, 12, this.now - 1000);
+		UnreadTopicsIndex.addPost(1, 13, this.now - 2000);
+
+		assertEquals(3, UnreadTopicsIndex.size(1));
+		assertEquals("[12, 13, 11]", UnreadTopicsIndex.getTopicsChangedSince(1, 0).toString());
+	}
+
+	public void testTopicMovedAndRemoved()
+	{
+		UnreadTopicsIndex.addPost(1, 10, this.now);
+		UnreadTopicsIndex.moveTopic(10, 1, 2);
+
+		assertFalse(UnreadTopicsIndex.hasUnread(1, 0, null, null));
+		assertTrue(UnreadTopicsIndex.hasUnread(2, 0, null, null));
+
+		UnreadTopicsIndex.removeTopic(10);
+		assertEquals(0, UnreadTopicsIndex.size(2));
+	}
+
+	public void testChangesOfOtherNodesDropTheForum()
+	{
+		UnreadTopicsIndex.addPost(1, 10, this.now);
+		UnreadTopicsIndex.addPost(2, 20, this.now);
+
+		Long stamp = (Long)this.engine.get(UnreadTopicsIndex.STAMPS, "1");
+		assertNotNull("Local changes are published", stamp);
+
+		// Another node changes the first forum
+		this.engine.add(UnreadTopicsIndex.STAMPS, "1", new Long(stamp.longValue() + 1));
+		UnreadTopicsIndex.addPost(1, 11, this.now);
+		UnreadTopicsIndex.addPost(2, 21, this.now);
+
+		assertEquals(0, UnreadTopicsIndex.size(1));
+		assertEquals(2, UnreadTopicsIndex.size(2));
+	}
+
+	public void testTopicChangedToOlderMessage()
+	{
+		UnreadTopicsIndex.addPost(1, 10, this.now);
+		UnreadTopicsIndex.changeTopic(1, 10, this.now - 10000);
+
+		assertFalse(UnreadTopicsIndex.hasUnread(1, this.now - 5000, null, null));
+
+		UnreadTopicsIndex.changeTopic(1, 10, 0);
+		assertEquals(0, UnreadTopicsIndex.size(1));
+	}
+}
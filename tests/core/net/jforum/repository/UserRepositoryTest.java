@@ -0,0 +1,126 @@
+package net.jforum.repository;
+
+import junit.framework.TestCase;
+import net.jforum.cache.DefaultCacheEngine;
+import net.jforum.entities.Group;
+import net.jforum.entities.User;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+/**
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class UserRepositoryTest extends TestCase
+{
+	protected void setUp() throws Exception
+	{
+		SystemGlobals.setValue(ConfigKeys.USER_CACHE_SIZE, "2");
+
+		DefaultCacheEngine engine = new DefaultCacheEngine();
+		engine.init();
+		new UserRepository().setCacheEngine(engine);
+		UserRepository.clear();
+	}
+
+	public void testReturnsCopies()
+	{
+		UserRepository.add(this.newUser(1, "Alice"), UserRepository.version());
+
+		User user = UserRepository.get(1);
+		assertEquals("Alice", user.getUsername());
+		assertEquals(1, user.getGroupsList().size());
+
+		user.setUsername("changed");
+		user.getGroupsList().clear();
+
+		User again = UserRepository.get(1);
+		assertNotSame(user, again);
+		assertEquals("Alice", again.getUsername());
+		assertEquals(1, again.getGroupsList().size());
+	}
+
+	public void testFindsByNameIgnoringCase()
+	{
+		UserRepository.add(this.newUser(1, "Alice"), UserRepository.version());
+
+		assertEquals(1, UserRepository.getByName("ALICE").getId());
+		assertNull(UserRepository.getByName("bob"));
+
+		UserRepository.remove(1);
+		assertNull(UserRepository.getByName("alice"));
+	}
+
+	public void testOutdatedUserIsNotStored()
+	{
+		long version = UserRepository.version();
+		UserRepository.remove(2);
+		UserRepository.add(this.newUser(1, "Alice"), version);
+
+		assertNull(UserRepository.get(1));
+	}
+
+	public void testPrivateMessagesAreCounted()
+	{
+		User user = this.newUser(1, "Alice");
+		user.setPrivateMessagesCount(2);
+		UserRepository.add(user, UserRepository.version());
+
+		UserRepository.addPrivateMessages(1, 1);
+		assertEquals(3, UserRepository.get(1).getPrivateMessagesCount());
+
+		UserRepository.addPrivateMessages(1, -5);
+		assertEquals(0, UserRepository.get(1).getPrivateMessagesCount());
+	}
+
+	public void testFolderMessagesAreCounted()
+	{
+		User user = this.newUser(1, "Alice");
+		user.setInboxCount(10);
+		user.setSentboxCount(4);
+		UserRepository.add(user, UserRepository.version());
+
+		UserRepository.addFolderMessages(1, 1, -2);
+		User cached = UserRepository.get(1);
+		assertEquals(11, cached.getInboxCount());
+		assertEquals(2, cached.getSentboxCount());
+
+		UserRepository.addFolderMessages(1, -20, 0);
+		assertEquals(0, UserRepository.get(1).getInboxCount());
+	}
+
+	public void testFullRepositoryStartsOver()
+	{
+		UserRepository.add(this.newUser(1, "a"), UserRepository.version());
+		UserRepository.add(this.newUser(2, "b"), UserRepository.version());
+		UserRepository.add(this.newUser(3, "c"), UserRepository.version());
+
+		assertEquals(1, UserRepository.size());
+		assertNotNull(UserRepository.get(3));
+		assertNull(UserRepository.get(1));
+		assertNull(UserRepository.getByName("b"));
+	}
+
+	public void testRenamedUserIsNotFoundByTheOldName()
+	{
+		UserRepository.add(this.newUser(1, "Alice"), UserRepository.version());
+		UserRepository.add(this.newUser(1, "Carol"), UserRepository.version());
+
+		assertNull(UserRepository.getByName("alice"));
+		assertEquals(1, UserRepository.getByName("carol").getId());
+	}
+
+	private User newUser(int id, String username)
+	{
+		User user = new User();
+		user.setId(id);
+		user.setUsername(username);
+
+		Group group = new Group();
+		group.setId(1);
+		group.setName("General");
+		user.getGroupsList().add(group);
+
+		return user;
+	}
+}
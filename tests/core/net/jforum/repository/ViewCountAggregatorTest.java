@@ -0,0 +1,91 @@
+package net.jforum.repository;
+
+import java.util.Map;
+
+import junit.framework.TestCase;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+/**
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class ViewCountAggregatorTest extends TestCase
+{
+	protected void setUp() throws Exception
+	{
+		SystemGlobals.setValue(ConfigKeys.TOPIC_VIEWS_FLUSH_INTERVAL, "10000");
+		ViewCountAggregator.drain();
+	}
+
+	public void testPendingViewsAreCounted()
+	{
+		ViewCountAggregator.increment(1);
+		ViewCountAggregator.increment(1);
+		ViewCountAggregator.increment(2);
+
+		assertEquals(2, ViewCountAggregator.getPendingViews(1));
+		assertEquals(1, ViewCountAggregator.getPendingViews(2));
+		assertEquals(0, ViewCountAggregator.getPendingViews(3));
+	}
+
+	public void testDrainTakesAllViews()
+	{
+		ViewCountAggregator.increment(1);
+		ViewCountAggregator.increment(1);
+
+		Map views = ViewCountAggregator.drain();
+
+		assertEquals(new Integer(2), views.get(new Integer(1)));
+		assertEquals(0, ViewCountAggregator.getPendingViews(1));
+		assertEquals(0, ViewCountAggregator.size());
+
+		ViewCountAggregator.increment(1);
+		assertEquals(1, ViewCountAggregator.getPendingViews(1));
+	}
+
+	public void testConcurrentViewsAreNotLost() throws Exception
+	{
+		final int threads = 4;
+		final int views = 5000;
+		int drained = 0;
+
+		Thread[] workers = new Thread[threads];
+
+		for (int i = 0; i < threads; i++) {
+			workers[i] = new Thread() {
+				public void run()
+				{
+					for (int j = 0; j < views; j++) {
+						ViewCountAggregator.increment(7);
+					}
+				}
+			};
+			workers[i].start();
+		}
+
+		boolean running = true;
+
+		while (running) {
+			running = false;
+
+			for (int i = 0; i < threads; i++) {
+				running |= workers[i].isAlive();
+			}
+
+			Integer value = (Integer)ViewCountAggregator.drain().get(new Integer(7));
+
+			if (value != null) {
+				drained += value.intValue();
+			}
+		}
+
+		Integer value = (Integer)ViewCountAggregator.drain().get(new Integer(7));
+
+		if (value != null) {
+			drained += value.intValue();
+		}
+
+		assertEquals(threads * views, drained);
+	}
+}
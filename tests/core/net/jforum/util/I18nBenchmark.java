@@ -0,0 +1,203 @@
+package net.jforum.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import net.jforum.TestCaseUtils;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Measures the time spent on the messages of a topic page with 25 posts. The
+ * <code>I18n.getMessage</code> calls are read from <code>post_show.htm</code> and
+ * the templates it includes: the ones inside the list of posts are made once for
+ * each post, and the others once for the page. All posts are shown as edited, so
+ * the edit count message, the one with arguments, is included. The page is built
+ * by several threads at once, first parsing each message on every call, as
+ * {@link I18n} used to do, and then with the parsed messages kept by {@link I18n}.
+ * Run it with
+ * <code>java net.jforum.util.I18nBenchmark [pages per thread] [threads]</code>.
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class I18nBenchmark
+{
+	private static final int POSTS = 25;
+	private static final Pattern CALL = Pattern.compile("I18n\\.getMessage\\(\"([^\"]+)\"(\\s*,)?");
+	private static final Pattern LIST = Pattern.compile("<#list |</#list>");
+	private static final Pattern INCLUDE = Pattern.compile("<#include \"([^\"]+)\"\\s*/?>");
+
+	public static void main(String[] args) throws Exception
+	{
+		int pages = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+
+		TestCaseUtils.loadEnvironment();
+		I18n.load();
+
+		final String lang = SystemGlobals.getValue(ConfigKeys.I18N_DEFAULT);
+		final List calls = pageCalls();
+		final Properties messages = new Properties();
+		FileInputStream fis = new FileInputStream(SystemGlobals.getApplicationResourceDir() + "/"
+			+ SystemGlobals.getValue(ConfigKeys.LOCALES_DIR) + lang + ".properties");
+
+		try {
+			messages.load(fis);
+		}
+		finally {
+			fis.close();
+		}
+
+		System.out.println(calls.size() + " messages on a topic page with " + POSTS + " posts");
+
+		Page parsed = new Page() {
+			public void build()
+			{
+				for (int i = 0; i < calls.size(); i++) {
+					Call c = (Call)calls.get(i);
+					String pattern = messages.getProperty(c.key);
+
+					if (c.args != null) {
+						MessageFormat.format(pattern, c.args);
+					}
+				}
+			}
+		};
+
+		Page cached = new Page() {
+			public void build()
+			{
+				for (int i = 0; i < calls.size(); i++) {
+					Call c = (Call)calls.get(i);
+
+					if (c.args == null) {
+						I18n.getMessage(lang, c.key);
+					}
+					else {
+						I18n.getMessage(lang, c.key, c.args);
+					}
+				}
+			}
+		};
+
+		// Warm up both
+		run(parsed, pages, threads);
+		run(cached, pages, threads);
+
+		long before = report("Parsed on each call", run(parsed, pages, threads), pages * threads);
+		long after = report("Kept by I18n", run(cached, pages, threads), pages * threads);
+
+		System.out.println("Saving: " + ((before - after) / 1000.0) + " us per page");
+	}
+
+	private static long report(String name, long nanos, int pages)
+	{
+		long perPage = nanos / pages;
+		System.out.println(name + ": " + (nanos / 1000000) + " ms, " + (perPage / 1000.0) + " us per page");
+
+		return perPage;
+	}
+
+	/**
+	 * Reads the messages of post_show.htm, repeating the ones inside the list of posts
+	 */
+	private static List pageCalls() throws Exception
+	{
+		String template = template("post_show.htm").replaceAll("I18n\\.getMessage\\(editCountMessage,",
+			"I18n.getMessage(\"PostShow.editCountMany\",");
+		int start = template.indexOf("<#list posts as post>");
+		int end = start;
+		int depth = 0;
+		Matcher m = LIST.matcher(template);
+
+		while (m.find(end)) {
+			depth += m.group().startsWith("</") ? -1 : 1;
+			end = m.end();
+
+			if (depth == 0) {
+				break;
+			}
+		}
+
+		List calls = new ArrayList();
+		m = CALL.matcher(template);
+
+		while (m.find()) {
+			Call c = new Call(m.group(1), m.group(2) != null);
+			int times = m.start() > start && m.start() < end ? POSTS : 1;
+
+			for (int i = 0; i < times; i++) {
+				calls.add(c);
+			}
+		}
+
+		return calls;
+	}
+
+	private static String template(String name) throws Exception
+	{
+		String template = FileUtils.readFileToString(new File(TestCaseUtils.getRootDir()
+			+ "/templates/default/" + name), "UTF-8");
+		StringBuffer sb = new StringBuffer(template.length());
+		Matcher m = INCLUDE.matcher(template);
+
+		while (m.find()) {
+			m.appendReplacement(sb, Matcher.quoteReplacement(template(m.group(1))));
+		}
+
+		m.appendTail(sb);
+
+		return sb.toString();
+	}
+
+	private static long run(final Page page, final int pages, int threads) throws InterruptedException
+	{
+		Thread[] workers = new Thread[threads];
+		long start = System.nanoTime();
+
+		for (int i = 0; i < threads; i++) {
+			workers[i] = new Thread() {
+				public void run()
+				{
+					for (int j = 0; j < pages; j++) {
+						page.build();
+					}
+				}
+			};
+
+			workers[i].start();
+		}
+
+		for (int i = 0; i < threads; i++) {
+			workers[i].join();
+		}
+
+		return System.nanoTime() - start;
+	}
+
+	private interface Page
+	{
+		public void build();
+	}
+
+	private static class Call
+	{
+		final String key;
+		final Object[] args;
+
+		Call(String key, boolean withArgs)
+		{
+			this.key = key;
+			this.args = withArgs ? new Object[] { new Integer(1234), "Alice", new Integer(5) } : null;
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package net.jforum.util;
+
+import java.io.UnsupportedEncodingException;
+
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+/**
+ * Measures how much smaller {@link PostTextCodec} makes a page of messages, and how long
+ * it takes to compress and expand them. Run it with
+ * <code>java net.jforum.util.PostTextCodecBenchmark [messages per page] [message size] [seconds]</code>.
+ * 
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class PostTextCodecBenchmark
+{
+	private static final String[] WORDS = { "the", "forum", "message", "[b]", "[/b]", "reply", "java",
+		"[quote=admin]", "[/quote]", "database", "topic", "thanks", "error", "config", "\n", "http://www.jforum.net" };
+
+	// Keeps the results from being optimized away
+	static volatile long sink;
+
+	public static void main(String[] args) throws Exception
+	{
+		int pageSize = args.length > 0 ? Integer.parseInt(args[0]) : 15;
+		int messageSize = args.length > 1 ? Integer.parseInt(args[1]) : 4096;
+		int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+		SystemGlobals.setValue(ConfigKeys.POSTS_COMPRESSION_ENABLED, "true");
+		SystemGlobals.setValue(ConfigKeys.POSTS_COMPRESSION_THRESHOLD, "0");
+
+		String[] texts = new String[pageSize];
+		String[] stored = new String[pageSize];
+		long raw = 0;
+		long compressed = 0;
+
+		for (int i = 0; i < pageSize; i++) {
+			texts[i] = text(i, messageSize);
+			stored[i] = PostTextCodec.encode(texts[i]);
+
+			raw += bytes(texts[i]);
+			compressed += bytes(stored[i]);
+		}
+
+		System.out.println("Page of " + pageSize + " messages: " + raw + " bytes plain, " 
+			+ compressed + " bytes stored (" + (compressed * 100 / raw) + "%)");
+
+		// Warm up before measuring
+		run(texts, stored, true, 1);
+		run(texts, stored, false, 1);
+
+		System.out.println("encode: " + (run(texts, stored, true, seconds) / seconds) + " pages/s");
+		System.out.println("decode: " + (run(texts, stored, false, seconds) / seconds) + " pages/s");
+	}
+
+	private static long run(String[] texts, String[] stored, boolean encode, int seconds)
+	{
+		long end = System.currentTimeMillis() + seconds * 1000L;
+		long pages = 0;
+		long length = 0;
+
+		while (System.currentTimeMillis() < end) {
+			for (int i = 0; i < texts.length; i++) {
+				length += encode
+					? PostTextCodec.encode(texts[i]).length()
+					: PostTextCodec.decode(stored[i]).length();
+			}
+
+			pages++;
+		}
+
+		sink = length;
+
+		return pages;
+	}
+
+	private static String text(int seed, int size)
+	{
+		StringBuffer sb = new StringBuffer(size + 32);
+		long next = seed + 1;
+
+		while (sb.length() < size) {
+			next = next * 1103515245 + 12345;
+			sb.append(WORDS[(int)((next >>> 16) % WORDS.length)]).append(' ');
+		}
+
+		return sb.toString();
+	}
+
+	private static long bytes(String s) throws UnsupportedEncodingException
+	{
+		return s.getBytes("UTF-8").length;
+	}
+}
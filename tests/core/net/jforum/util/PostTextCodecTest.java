@@ -0,0 +1,102 @@
+package net.jforum.util;
+
+import junit.framework.TestCase;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+/**
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class PostTextCodecTest extends TestCase
+{
+	protected void setUp() throws Exception
+	{
+		SystemGlobals.setValue(ConfigKeys.POSTS_COMPRESSION_ENABLED, "true");
+		SystemGlobals.setValue(ConfigKeys.POSTS_COMPRESSION_THRESHOLD, "100");
+	}
+
+	protected void tearDown() throws Exception
+	{
+		SystemGlobals.setValue(ConfigKeys.POSTS_COMPRESSION_ENABLED, "false");
+	}
+
+	public void testLongTextIsCompressed()
+	{
+		String text = this.longText();
+		String stored = PostTextCodec.encode(text);
+
+		assertTrue(PostTextCodec.isCompressed(stored));
+		assertTrue(stored.length() < text.length());
+		assertEquals(text, PostTextCodec.decode(stored));
+	}
+
+	public void testShortTextIsUntouched()
+	{
+		String text = "[b]a short message[/b]";
+
+		assertSame(text, PostTextCodec.encode(text));
+		assertSame(text, PostTextCodec.decode(text));
+	}
+
+	public void testDisabledKeepsText()
+	{
+		SystemGlobals.setValue(ConfigKeys.POSTS_COMPRESSION_ENABLED, "false");
+
+		String text = this.longText();
+
+		assertSame(text, PostTextCodec.encode(text));
+	}
+
+	public void testCompressedTextIsReadWhenDisabled()
+	{
+		String text = this.longText();
+		String stored = PostTextCodec.encode(text);
+
+		SystemGlobals.setValue(ConfigKeys.POSTS_COMPRESSION_ENABLED, "false");
+
+		assertEquals(text, PostTextCodec.decode(stored));
+	}
+
+	public void testTextStartingWithMarkerIsAlwaysCompressed()
+	{
+		SystemGlobals.setValue(ConfigKeys.POSTS_COMPRESSION_ENABLED, "false");
+
+		String text = PostTextCodec.MARKER + " is how compressed texts start";
+		String stored = PostTextCodec.encode(text);
+
+		assertFalse(text.equals(stored));
+		assertEquals(text, PostTextCodec.decode(stored));
+	}
+
+	public void testNonAsciiText()
+	{
+		StringBuffer sb = new StringBuffer();
+
+		for (int i = 0; i < 50; i++) {
+			sb.append("A\u00e7\u00e3o, caf\u00e9 e \u65e5\u672c\u8a9e. ");
+		}
+
+		String text = sb.toString();
+
+		assertEquals(text, PostTextCodec.decode(PostTextCodec.encode(text)));
+	}
+
+	public void testInvalidDataIsReturnedAsStored()
+	{
+		String stored = PostTextCodec.MARKER + "not deflated";
+
+		assertEquals(stored, PostTextCodec.decode(stored));
+	}
+
+	private String longText()
+	{
+		StringBuffer sb = new StringBuffer();
+
+		for (int i = 0; i < 40; i++) {
+			sb.append("[quote=someone]This is line ").append(i).append(" of a long message[/quote]\n");
+		}
+
+		return sb.toString();
+	}
+}
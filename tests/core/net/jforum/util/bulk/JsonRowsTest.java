@@ -0,0 +1,67 @@
+package net.jforum.util.bulk;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+import junit.framework.TestCase;
+
+/**
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class JsonRowsTest extends TestCase
+{
+	public void testRoundTrip()
+	{
+		Timestamp time = Timestamp.valueOf("2026-10-19 22:40:05.123");
+		String[] columns = { "post_id", "post_text", "post_time", "price", "deleted", "poster_ip" };
+		Object[] values = { new Integer(12), "a \"quoted\"\r\n\ttext \\ \u00e7\u65e5\u0001", time, 
+			new BigDecimal("1.50"), Boolean.TRUE, null };
+
+		String line = JsonRows.format("jforum_posts", columns, values);
+
+		assertEquals(-1, line.indexOf('\n'));
+
+		JsonRows.Row row = JsonRows.parse(line);
+
+		assertEquals("jforum_posts", row.getTable());
+		assertEquals(6, row.getColumns().length);
+		assertEquals("post_text", row.getColumns()[1]);
+		assertEquals(new Long(12), row.getValues()[0]);
+		assertEquals(values[1], row.getValues()[1]);
+		assertEquals(time, Timestamp.valueOf((String)row.getValues()[2]));
+		assertEquals(new BigDecimal("1.50"), row.getValues()[3]);
+		assertEquals(Boolean.TRUE, row.getValues()[4]);
+		assertNull(row.getValues()[5]);
+	}
+
+	public void testNegativeNumbers()
+	{
+		JsonRows.Row row = JsonRows.parse("{\"@table\":\"jforum_users\", \"user_posts\": -3, \"karma\": -1.5e2}");
+
+		assertEquals(new Long(-3), row.getValues()[0]);
+		assertEquals(0, new BigDecimal("-150").compareTo((BigDecimal)row.getValues()[1]));
+	}
+
+	public void testMissingTable()
+	{
+		try {
+			JsonRows.parse("{\"user_id\":1}");
+			fail("A row needs a table");
+		}
+		catch (IllegalArgumentException e) {
+			// ok
+		}
+	}
+
+	public void testInvalidLine()
+	{
+		try {
+			JsonRows.parse("{\"@table\":\"jforum_users\",\"username\":\"admin");
+			fail("The string is not closed");
+		}
+		catch (IllegalArgumentException e) {
+			// ok
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package net.jforum.util.concurrent;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+/**
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class PostCommitTaskTest extends TestCase
+{
+	protected void setUp() throws Exception
+	{
+		SystemGlobals.setValue(ConfigKeys.EXECUTOR_POSTCOMMIT_THREADS_MAX, "1");
+		SystemGlobals.setValue(ConfigKeys.EXECUTOR_POSTCOMMIT_QUEUE_SIZE, "10");
+		SystemGlobals.setValue(ConfigKeys.EXECUTOR_POSTCOMMIT_REJECTION_POLICY, "caller-runs");
+		SystemGlobals.setValue(ConfigKeys.POSTCOMMIT_RETRIES, "2");
+		SystemGlobals.setValue(ConfigKeys.POSTCOMMIT_RETRY_DELAY, "10");
+	}
+
+	public void testFailedTaskIsRetried() throws Exception
+	{
+		final AtomicInteger runs = new AtomicInteger();
+		final CountDownLatch done = new CountDownLatch(1);
+
+		new PostCommitTask(new Runnable() {
+			public void run()
+			{
+				if (runs.incrementAndGet() < 3) {
+					throw new IllegalStateException("failing on purpose");
+				}
+
+				done.countDown();
+			}
+		}).run();
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(3, runs.get());
+	}
+
+	public void testTaskWithoutRetryRunsOnce() throws Exception
+	{
+		final AtomicInteger runs = new AtomicInteger();
+
+		PostCommitTask task = new PostCommitTask(new Runnable() {
+			public void run()
+			{
+				runs.incrementAndGet();
+				throw new IllegalStateException("failing on purpose");
+			}
+		}, false);
+
+		task.run();
+		Thread.sleep(200);
+
+		assertEquals(1, task.getFailures());
+		assertEquals(1, runs.get());
+	}
+
+	public void testGivesUpAfterTheRetries() throws Exception
+	{
+		final AtomicInteger runs = new AtomicInteger();
+
+		PostCommitTask task = new PostCommitTask(new Runnable() {
+			public void run()
+			{
+				runs.incrementAndGet();
+				throw new IllegalStateException("failing on purpose");
+			}
+		});
+
+		task.run();
+
+		long end = System.currentTimeMillis() + 5000;
+
+		while (task.getFailures() < 3 && System.currentTimeMillis() < end) {
+			Thread.sleep(10);
+		}
+
+		Thread.sleep(200);
+
+		assertEquals(3, task.getFailures());
+		assertEquals(3, runs.get());
+	}
+}
@@ -0,0 +1,145 @@
+/*
+ * Created on 19/10/2026 15:02:11
+ */
+package net.jforum.util.concurrent;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class TaskPoolTest extends TestCase
+{
+	public void testDiscardWhenQueueIsFull() throws Exception
+	{
+		final CountDownLatch release = new CountDownLatch(1);
+		TaskPool pool = new TaskPool("test", 1, 1, TaskPool.POLICY_DISCARD);
+		
+		pool.execute(new BlockingTask(release));
+		pool.execute(new BlockingTask(release));
+		pool.execute(new BlockingTask(release));
+		
+		assertEquals(1, pool.getRejectedCount());
+		assertEquals(1, pool.getQueueDepth());
+		
+		release.countDown();
+		assertTrue(pool.shutdown(5000));
+		
+		assertEquals(3, pool.getSubmittedCount());
+		assertEquals(2, pool.getCompletedCount());
+	}
+	
+	public void testCallerRunsWhenQueueIsFull() throws Exception
+	{
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger ranByCaller = new AtomicInteger();
+		final Thread caller = Thread.currentThread();
+		
+		TaskPool pool = new TaskPool("test", 1, 1, TaskPool.POLICY_CALLER_RUNS);
+		
+		pool.execute(new BlockingTask(release));
+		pool.execute(new BlockingTask(release));
+		pool.execute(new Runnable() {
+			public void run() {
+				if (Thread.currentThread() == caller) {
+					ranByCaller.incrementAndGet();
+				}
+			}
+		});
+		
+		assertEquals(1, ranByCaller.get());
+		assertEquals(1, pool.getCallerRunsCount());
+		assertEquals(0, pool.getRejectedCount());
+		
+		release.countDown();
+		assertTrue(pool.shutdown(5000));
+		assertEquals(3, pool.getCompletedCount());
+	}
+	
+	public void testThreadsAreStartedUpToTheMaximum() throws Exception
+	{
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch started = new CountDownLatch(3);
+		TaskPool pool = new TaskPool("test", 3, 100, TaskPool.POLICY_DISCARD);
+		
+		for (int i = 0; i < 3; i++) {
+			pool.execute(new Runnable() {
+				public void run() {
+					started.countDown();
+					
+					try {
+						release.await();
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			});
+		}
+		
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		assertEquals(3, pool.getActiveCount());
+		assertEquals(0, pool.getQueueDepth());
+		
+		release.countDown();
+		assertTrue(pool.shutdown(5000));
+	}
+	
+	public void testShutdownDrainsTheQueue() throws Exception
+	{
+		final AtomicInteger counter = new AtomicInteger();
+		TaskPool pool = new TaskPool("test", 2, 100, TaskPool.POLICY_DISCARD);
+		
+		for (int i = 0; i < 50; i++) {
+			pool.execute(new Runnable() {
+				public void run() {
+					counter.incrementAndGet();
+				}
+			});
+		}
+		
+		assertTrue(pool.shutdown(5000));
+		assertEquals(50, counter.get());
+		assertEquals(0, pool.getQueueDepth());
+	}
+	
+	public void testFailedTasksAreCounted() throws Exception
+	{
+		TaskPool pool = new TaskPool("test", 1, 10, TaskPool.POLICY_DISCARD);
+		
+		pool.execute(new Runnable() {
+			public void run() {
+				throw new IllegalStateException("expected");
+			}
+		});
+		
+		assertTrue(pool.shutdown(5000));
+		assertEquals(1, pool.getFailedCount());
+		assertEquals(0, pool.getCompletedCount());
+	}
+	
+	private static class BlockingTask implements Runnable
+	{
+		private final CountDownLatch latch;
+		
+		BlockingTask(CountDownLatch latch)
+		{
+			this.latch = latch;
+		}
+		
+		public void run()
+		{
+			try {
+				this.latch.await();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,208 @@
+package net.jforum.util.concurrent;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.concurrent.CountDownLatch;
+
+import net.jforum.DBConnection;
+import net.jforum.JForumExecutionContext;
+import net.jforum.PooledConnection;
+import net.jforum.TestCaseUtils;
+import net.jforum.dao.DataAccessDriver;
+import net.jforum.dao.hsqldb.HsqldbDataAccessDriver;
+import net.jforum.sso.DefaultLoginAuthenticator;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Compares a pool of platform threads with one virtual thread per client, for clients
+ * that mostly wait. Each request does the database work of a topic page: it opens an
+ * execution context, loads the topic and its first page of posts through the DAOs,
+ * using the connection pool and an in-memory HSQLDB database, and then waits for a while,
+ * like a slow client taking the response. Virtual threads need a Java 21 runtime; on
+ * older JVMs only the pool is measured. Run it with
+ * <code>java net.jforum.util.concurrent.VirtualThreadsBenchmark [clients] [requests per client] [client ms] [pool threads] [connections]</code>.
+ *
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class VirtualThreadsBenchmark
+{
+	private static final int TOPICS = 50;
+	private static final int POSTS_PER_TOPIC = 25;
+
+	public static void main(String[] args) throws Exception
+	{
+		int clients = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		int requests = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		int clientMillis = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+		int poolThreads = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+		int connections = args.length > 4 ? Integer.parseInt(args[4]) : 20;
+
+		setUp(connections);
+
+		long pooled = runPooled(clients, requests, clientMillis, poolThreads);
+		report(poolThreads + " platform threads", pooled, clients * requests);
+
+		if (!VirtualThreads.isSupported()) {
+			System.out.println("Virtual threads: not supported by this JVM ("
+				+ System.getProperty("java.version") + ")");
+		}
+		else {
+			SystemGlobals.setValue(ConfigKeys.VIRTUAL_THREADS_ENABLED, "true");
+
+			long virtual = runVirtual(clients, requests, clientMillis);
+			report(clients + " virtual threads", virtual, clients * requests);
+		}
+
+		DBConnection.getImplementation().realReleaseAllConnections();
+	}
+
+	private static void setUp(int connections) throws Exception
+	{
+		TestCaseUtils.loadEnvironment();
+
+		String dir = TestCaseUtils.getRootDir() + "/WEB-INF/config/database/";
+		SystemGlobals.loadQueries(dir + "generic/generic_queries.sql");
+		SystemGlobals.loadQueries(dir + "hsqldb/hsqldb.sql");
+
+		SystemGlobals.setObjectValue(ConfigKeys.LOGIN_AUTHENTICATOR_INSTANCE, new DefaultLoginAuthenticator());
+		DataAccessDriver.init(new HsqldbDataAccessDriver());
+
+		SystemGlobals.setValue(ConfigKeys.DATABASE_CONNECTION_IMPLEMENTATION, PooledConnection.class.getName());
+		SystemGlobals.setValue(ConfigKeys.DATABASE_CONNECTION_DRIVER, "org.hsqldb.jdbcDriver");
+		SystemGlobals.setValue(ConfigKeys.DATABASE_CONNECTION_STRING, "jdbc:hsqldb:mem:benchmark");
+		SystemGlobals.setValue(ConfigKeys.DATABASE_POOL_MIN, String.valueOf(connections));
+		SystemGlobals.setValue(ConfigKeys.DATABASE_POOL_MAX, String.valueOf(connections));
+		SystemGlobals.setValue(ConfigKeys.DATABASE_PING_DELAY, "0");
+		SystemGlobals.setValue(ConfigKeys.C3P0_EXTRA_PARAMS, "");
+		SystemGlobals.setValue(ConfigKeys.DATABASE_USE_TRANSACTIONS, "false");
+
+		DBConnection.createInstance();
+		DBConnection.getImplementation().init();
+
+		Connection conn = DBConnection.getImplementation().getConnection();
+
+		try {
+			Statement s = conn.createStatement();
+			String struct = FileUtils.readFileToString(new File(dir + "hsqldb/hsqldb_db_struct.sql"), "ISO-8859-1");
+			String[] statements = struct.split(";");
+
+			for (int i = 0; i < statements.length; i++) {
+				String sql = statements[i].replaceAll("(?m)^--.*$", "").trim();
+
+				if (sql.length() > 0 && !sql.startsWith("DROP")) {
+					s.executeUpdate(sql);
+				}
+			}
+
+			s.executeUpdate("INSERT INTO jforum_users (user_id, username, user_password, user_email) VALUES (1, 'Alice', 'x', 'a@b')");
+
+			Timestamp now = new Timestamp(System.currentTimeMillis());
+			int postId = 1;
+
+			for (int topicId = 1; topicId <= TOPICS; topicId++) {
+				s.executeUpdate("INSERT INTO jforum_topics (topic_id, forum_id, topic_title, user_id, topic_time, "
+					+ "topic_first_post_id, topic_last_post_id, topic_last_user_id, topic_last_post_time) VALUES ("
+					+ topicId + ", 1, 'topic', 1, '" + now + "', " + postId + ", "
+					+ (postId + POSTS_PER_TOPIC - 1) + ", 1, '" + now + "')");
+
+				for (int i = 0; i < POSTS_PER_TOPIC; i++, postId++) {
+					s.executeUpdate("INSERT INTO jforum_posts (post_id, topic_id, forum_id, user_id, post_time) VALUES ("
+						+ postId + ", " + topicId + ", 1, 1, '" + now + "')");
+					s.executeUpdate("INSERT INTO jforum_posts_text (post_id, post_text, post_subject) VALUES ("
+						+ postId + ", 'text of message " + postId + "', 'subject')");
+				}
+			}
+
+			s.close();
+		}
+		finally {
+			DBConnection.getImplementation().releaseConnection(conn);
+		}
+	}
+
+	private static void report(String name, long millis, int totalRequests)
+	{
+		System.out.println(name + ": " + millis + " ms, "
+			+ (totalRequests * 1000L / Math.max(1, millis)) + " requests/s");
+	}
+
+	private static long runPooled(int clients, int requests, int clientMillis, int threads)
+		throws InterruptedException
+	{
+		TaskPool pool = new TaskPool("benchmark", threads, clients, TaskPool.POLICY_CALLER_RUNS);
+		CountDownLatch done = new CountDownLatch(clients);
+		long start = System.currentTimeMillis();
+
+		for (int i = 0; i < clients; i++) {
+			pool.execute(new Client(i, requests, clientMillis, done));
+		}
+
+		done.await();
+		long elapsed = System.currentTimeMillis() - start;
+
+		pool.shutdown(60000);
+
+		return elapsed;
+	}
+
+	private static long runVirtual(int clients, int requests, int clientMillis) throws InterruptedException
+	{
+		CountDownLatch done = new CountDownLatch(clients);
+		long start = System.currentTimeMillis();
+
+		for (int i = 0; i < clients; i++) {
+			VirtualThreads.start("client-" + i, new Client(i, requests, clientMillis, done));
+		}
+
+		done.await();
+
+		return System.currentTimeMillis() - start;
+	}
+
+	private static class Client implements Runnable
+	{
+		private final int id;
+		private final int requests;
+		private final int clientMillis;
+		private final CountDownLatch done;
+
+		Client(int id, int requests, int clientMillis, CountDownLatch done)
+		{
+			this.id = id;
+			this.requests = requests;
+			this.clientMillis = clientMillis;
+			this.done = done;
+		}
+
+		public void run()
+		{
+			try {
+				for (int i = 0; i < this.requests; i++) {
+					this.showTopic((this.id + i) % TOPICS + 1);
+					Thread.sleep(this.clientMillis);
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			finally {
+				this.done.countDown();
+			}
+		}
+
+		@SuppressWarnings("try")
+		private void showTopic(int topicId)
+		{
+			try (JForumExecutionContext.ExecutionContext context = JForumExecutionContext.start()) {
+				DataAccessDriver.getInstance().newTopicDAO().selectById(topicId);
+				DataAccessDriver.getInstance().newPostDAO().selectAllByTopicByLimit(topicId, 0, POSTS_PER_TOPIC);
+			}
+		}
+	}
+}
@@ -0,0 +1,3 @@
+@echo off
+set jf=..\..\
+java -Djava.ext.dirs=%jf%\lib;%jf%\WEB-INF\lib; -cp ..\bin;%jf%\WEB-INF\classes net.jforum.tools.bulk.BulkCommandLineTool %*
\ No newline at end of file
@@ -0,0 +1,207 @@
+package net.jforum.tools.bulk;
+
+import jargs.gnu.CmdLineParser;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import net.jforum.ConfigLoader;
+import net.jforum.ForumStartup;
+import net.jforum.search.LuceneManager;
+import net.jforum.search.LuceneReindexArgs;
+import net.jforum.search.LuceneReindexer;
+import net.jforum.search.LuceneSettings;
+import net.jforum.search.SearchFacade;
+import net.jforum.util.bulk.BulkExporter;
+import net.jforum.util.bulk.BulkImporter;
+import net.jforum.util.preferences.ConfigKeys;
+import net.jforum.util.preferences.SystemGlobals;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.xml.DOMConfigurator;
+
+/**
+ * Exports the board to a gzipped file of JSON lines, or loads such a file, 
+ * using the database configured in the JForum installation at <code>--path</code>.
+ * 
+ * @author Rafael Steil
+ * @version $Id$
+ */
+public class BulkCommandLineTool
+{
+	private static final String[] SUPPORTED_DATABASES = { "mysql", "postgresql", "hsqldb" };
+	
+	private String path;
+	private String exportFile;
+	private String importFile;
+	private boolean clean;
+	private boolean reindex;
+	private int batchSize;
+	private int threads;
+	
+	public static void main(String[] args) throws IOException
+	{
+		BulkCommandLineTool tool = new BulkCommandLineTool();
+		tool.init(args);
+		
+		System.out.println("*** INITIALIZING \n");
+		
+		long start = System.currentTimeMillis();
+		
+		if (tool.exportFile != null) {
+			tool.export();
+		}
+		else {
+			tool.load();
+		}
+		
+		System.out.println("*** FINISHED in " + (System.currentTimeMillis() - start) + " ms");
+	}
+	
+	private void export() throws IOException
+	{
+		Writer out = new BufferedWriter(new OutputStreamWriter(
+			new GZIPOutputStream(new FileOutputStream(this.exportFile)), "UTF-8"), 65536);
+		
+		try {
+			int rows = new BulkExporter(out).export();
+			System.out.println("** " + rows + " rows exported to " + this.exportFile);
+		}
+		finally {
+			out.close();
+		}
+	}
+	
+	private void load() throws IOException
+	{
+		BufferedReader in = new BufferedReader(new InputStreamReader(
+			new GZIPInputStream(new FileInputStream(this.importFile)), "UTF-8"), 65536);
+		
+		try {
+			BulkImporter importer = new BulkImporter(in, this.batchSize, this.threads);
+			
+			if (this.clean) {
+				System.out.println("** Removing the current data");
+				importer.clean();
+			}
+			
+			int rows = importer.importRows();
+			System.out.println("** " + rows + " rows imported. Recomputing the counters");
+			
+			importer.recount();
+		}
+		finally {
+			in.close();
+		}
+		
+		if (this.reindex && SearchFacade.manager() instanceof LuceneManager) {
+			System.out.println("** Rebuilding the search index");
+			
+			SystemGlobals.setValue(ConfigKeys.LUCENE_CURRENTLY_INDEXING, "1");
+			
+			new LuceneReindexer((LuceneSettings)SystemGlobals.getObjectValue(ConfigKeys.LUCENE_SETTINGS), 
+				new LuceneReindexArgs(new Date(0), new Date(), 0, 0, false, LuceneReindexArgs.TYPE_DATE), 
+				true).startProcess();
+		}
+		
+		System.out.println("** Restart the board, so its caches are loaded again");
+	}
+	
+	private void init(String[] args)
+	{
+		this.parseCmdArgs(args);
+		
+		DOMConfigurator.configure(this.path + "/WEB-INF/log4j.xml");
+		
+		ConfigLoader.startSystemglobals(this.path);
+		
+		String database = SystemGlobals.getValue(ConfigKeys.DATABASE_DRIVER_NAME);
+		
+		if (!Arrays.asList(SUPPORTED_DATABASES).contains(database)) {
+			System.out.println("*** The bulk tool does not support " + database + " yet. Supported databases are " 
+				+ StringUtils.join(SUPPORTED_DATABASES, ", "));
+			System.exit(1);
+		}
+		
+		SystemGlobals.loadQueries(SystemGlobals.getValue(ConfigKeys.SQL_QUERIES_GENERIC));
+		SystemGlobals.loadQueries(SystemGlobals.getValue(ConfigKeys.SQL_QUERIES_DRIVER));
+		
+		ConfigLoader.createLoginAuthenticator();
+		ConfigLoader.loadDaoImplementation();
+		
+		if (this.reindex) {
+			SearchFacade.init();
+		}
+		
+		ForumStartup.startDatabase();
+	}
+	
+	private void parseCmdArgs(String[] args)
+	{
+		CmdLineParser parser = new CmdLineParser();
+		
+		CmdLineParser.Option pathOption = parser.addStringOption("path");
+		CmdLineParser.Option exportOption = parser.addStringOption("export");
+		CmdLineParser.Option importOption = parser.addStringOption("import");
+		CmdLineParser.Option cleanOption = parser.addBooleanOption("clean");
+		CmdLineParser.Option skipReindexOption = parser.addBooleanOption("skipReindex");
+		CmdLineParser.Option batchSizeOption = parser.addIntegerOption("batchSize");
+		CmdLineParser.Option threadsOption = parser.addIntegerOption("threads");
+		
+		try {
+			parser.parse(args);
+		}
+		catch (CmdLineParser.OptionException e) {
+			System.out.println(e.getMessage());
+			this.printUsage();
+		}
+		
+		if (parser.getRemainingArgs().length > 0) {
+			this.printUsage();
+		}
+		
+		this.path = (String)parser.getOptionValue(pathOption);
+		
+		if (StringUtils.isEmpty(this.path)) {
+			System.out.println("*** --path is a required option. It should point to the root directory where JForum is installed");
+			this.printUsage();
+		}
+		
+		this.exportFile = (String)parser.getOptionValue(exportOption);
+		this.importFile = (String)parser.getOptionValue(importOption);
+		
+		if (StringUtils.isEmpty(this.exportFile) == StringUtils.isEmpty(this.importFile)) {
+			System.out.println("*** Either --export or --import should be given");
+			this.printUsage();
+		}
+		
+		this.clean = ((Boolean)parser.getOptionValue(cleanOption, Boolean.FALSE)).booleanValue();
+		this.reindex = this.importFile != null 
+			&& !((Boolean)parser.getOptionValue(skipReindexOption, Boolean.FALSE)).booleanValue();
+		this.batchSize = ((Integer)parser.getOptionValue(batchSizeOption, new Integer(500))).intValue();
+		this.threads = ((Integer)parser.getOptionValue(threadsOption, 
+			new Integer(Runtime.getRuntime().availableProcessors()))).intValue();
+	}
+	
+	private void printUsage()
+	{
+		System.out.println("\nUsage: BulkCommandLineTool \n"
+			+ " --path full_path_to_JForum_root_directory \n"
+			+ " --export file.jsonl.gz | --import file.jsonl.gz \n"
+			+ " [--clean] removes the current users, forums and messages before importing \n"
+			+ " [--batchSize rows] rows inserted by each batch, 500 by default \n"
+			+ " [--threads count] queries run at once to recompute the counters \n"
+			+ " [--skipReindex] does not rebuild the search index after importing");
+		System.exit(1);
+	}
+}
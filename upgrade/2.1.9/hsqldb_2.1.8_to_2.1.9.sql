@@ -0,0 +1,18 @@
+ALTER TABLE jforum_topics_watch ADD last_read_post_id INT DEFAULT 0 NOT NULL;
+UPDATE jforum_topics_watch SET last_read_post_id = (SELECT t.topic_last_post_id FROM jforum_topics t WHERE t.topic_id = jforum_topics_watch.topic_id) WHERE is_read = 1;
+ALTER TABLE jforum_topics_watch DROP COLUMN is_read;
+CREATE TABLE jforum_board_stats (stat_name VARCHAR(30) NOT NULL, stat_value BIGINT DEFAULT 0 NOT NULL, PRIMARY KEY(stat_name));
+UPDATE jforum_users SET user_new_privmsg = (SELECT COUNT(1) FROM jforum_privmsgs pm WHERE pm.privmsgs_to_userid = jforum_users.user_id AND pm.privmsgs_type = 1);
+ALTER TABLE jforum_topics ADD topic_last_post_time TIMESTAMP DEFAULT NULL;
+ALTER TABLE jforum_topics ADD topic_last_user_id INT DEFAULT 0;
+ALTER TABLE jforum_topics ADD topic_has_attach INT DEFAULT 0;
+UPDATE jforum_topics SET topic_last_post_time = (SELECT p.post_time FROM jforum_posts p WHERE p.post_id = jforum_topics.topic_last_post_id AND p.need_moderate = 0), topic_last_user_id = COALESCE((SELECT p.user_id FROM jforum_posts p WHERE p.post_id = jforum_topics.topic_last_post_id), 0), topic_has_attach = COALESCE((SELECT MAX(p.attach) FROM jforum_posts p WHERE p.topic_id = jforum_topics.topic_id AND p.need_moderate = 0), 0);
+ALTER TABLE jforum_topics ADD topic_archived int DEFAULT 0;
+CREATE TABLE jforum_posts_archive (post_id int NOT NULL, topic_id int default '0' NOT NULL, forum_id int default '0' NOT NULL, user_id int default '0' NOT NULL, post_time timestamp default NULL, poster_ip varchar(15) default NULL, enable_bbcode int default '1' NOT NULL, enable_html int default '1' NOT NULL, enable_smilies int default '1' NOT NULL, enable_sig int default '1' NOT NULL, post_edit_time timestamp default NULL, post_edit_count int default '0' NOT NULL, status int default '1', attach int default 0, need_moderate int default '0', PRIMARY KEY (post_id));
+CREATE INDEX idx_posts_archive_topic ON jforum_posts_archive(topic_id);
+CREATE TABLE jforum_posts_text_archive (post_id int NOT NULL PRIMARY KEY, post_text LONGVARCHAR, post_subject VARCHAR(100));
+ALTER TABLE jforum_users ADD user_inbox_privmsg INT DEFAULT 0 NOT NULL;
+ALTER TABLE jforum_users ADD user_sent_privmsg INT DEFAULT 0 NOT NULL;
+UPDATE jforum_users SET user_inbox_privmsg = (SELECT COUNT(1) FROM jforum_privmsgs pm WHERE pm.privmsgs_to_userid = jforum_users.user_id AND pm.privmsgs_type IN (0, 1, 5)), user_sent_privmsg = (SELECT COUNT(1) FROM jforum_privmsgs pm WHERE pm.privmsgs_from_userid = jforum_users.user_id AND pm.privmsgs_type = 2);
+CREATE INDEX idx_pm_to_user ON jforum_privmsgs(privmsgs_to_userid, privmsgs_id);
+CREATE INDEX idx_pm_from_user ON jforum_privmsgs(privmsgs_from_userid, privmsgs_id);
@@ -0,0 +1,17 @@
+ALTER TABLE jforum_topics_watch ADD last_read_post_id INT NOT NULL DEFAULT 0;
+UPDATE jforum_topics_watch SET last_read_post_id = (SELECT t.topic_last_post_id FROM jforum_topics t WHERE t.topic_id = jforum_topics_watch.topic_id) WHERE is_read = 1;
+ALTER TABLE jforum_topics_watch DROP COLUMN is_read;
+CREATE TABLE jforum_board_stats (stat_name VARCHAR(30) NOT NULL, stat_value BIGINT NOT NULL DEFAULT 0, PRIMARY KEY(stat_name)) TYPE=InnoDB;
+UPDATE jforum_users SET user_new_privmsg = (SELECT COUNT(1) FROM jforum_privmsgs pm WHERE pm.privmsgs_to_userid = jforum_users.user_id AND pm.privmsgs_type = 1);
+ALTER TABLE jforum_topics ADD topic_last_post_time DATETIME DEFAULT NULL;
+ALTER TABLE jforum_topics ADD topic_last_user_id INT DEFAULT 0;
+ALTER TABLE jforum_topics ADD topic_has_attach TINYINT(1) DEFAULT 0;
+UPDATE jforum_topics SET topic_last_post_time = (SELECT p.post_time FROM jforum_posts p WHERE p.post_id = jforum_topics.topic_last_post_id AND p.need_moderate = 0), topic_last_user_id = COALESCE((SELECT p.user_id FROM jforum_posts p WHERE p.post_id = jforum_topics.topic_last_post_id), 0), topic_has_attach = COALESCE((SELECT MAX(p.attach) FROM jforum_posts p WHERE p.topic_id = jforum_topics.topic_id AND p.need_moderate = 0), 0);
+ALTER TABLE jforum_topics ADD topic_archived TINYINT(1) DEFAULT 0;
+CREATE TABLE jforum_posts_archive (post_id INT NOT NULL, topic_id INT NOT NULL default '0', forum_id INT NOT NULL default '0', user_id INT NOT NULL default '0', post_time datetime default NULL, poster_ip varchar(15) default NULL, enable_bbcode tinyint(1) NOT NULL default '1', enable_html tinyint(1) NOT NULL default '1', enable_smilies tinyint(1) NOT NULL default '1', enable_sig tinyint(1) NOT NULL default '1', post_edit_time datetime default NULL, post_edit_count INT NOT NULL default '0', status tinyint(1) default '1', attach TINYINT(1) DEFAULT '0', need_moderate TINYINT(1) DEFAULT '0', PRIMARY KEY (post_id), KEY (topic_id)) TYPE=InnoDB;
+CREATE TABLE jforum_posts_text_archive (post_id INT NOT NULL PRIMARY KEY, post_text TEXT, post_subject VARCHAR(100)) TYPE=InnoDB;
+ALTER TABLE jforum_users ADD user_inbox_privmsg INT NOT NULL DEFAULT 0;
+ALTER TABLE jforum_users ADD user_sent_privmsg INT NOT NULL DEFAULT 0;
+UPDATE jforum_users SET user_inbox_privmsg = (SELECT COUNT(1) FROM jforum_privmsgs pm WHERE pm.privmsgs_to_userid = jforum_users.user_id AND pm.privmsgs_type IN (0, 1, 5)), user_sent_privmsg = (SELECT COUNT(1) FROM jforum_privmsgs pm WHERE pm.privmsgs_from_userid = jforum_users.user_id AND pm.privmsgs_type = 2);
+CREATE INDEX idx_pm_to_user ON jforum_privmsgs(privmsgs_to_userid, privmsgs_id);
+CREATE INDEX idx_pm_from_user ON jforum_privmsgs(privmsgs_from_userid, privmsgs_id);
@@ -0,0 +1,18 @@
+ALTER TABLE jforum_topics_watch ADD last_read_post_id NUMBER(10) DEFAULT 0 NOT NULL;
+UPDATE jforum_topics_watch SET last_read_post_id = (SELECT t.topic_last_post_id FROM jforum_topics t WHERE t.topic_id = jforum_topics_watch.topic_id) WHERE is_read = 1;
+ALTER TABLE jforum_topics_watch DROP COLUMN is_read;
+CREATE TABLE jforum_board_stats (stat_name VARCHAR2(30) NOT NULL, stat_value NUMBER(19) DEFAULT 0 NOT NULL, PRIMARY KEY(stat_name));
+UPDATE jforum_users SET user_new_privmsg = (SELECT COUNT(1) FROM jforum_privmsgs pm WHERE pm.privmsgs_to_userid = jforum_users.user_id AND pm.privmsgs_type = 1);
+ALTER TABLE jforum_topics ADD topic_last_post_time DATE DEFAULT NULL;
+ALTER TABLE jforum_topics ADD topic_last_user_id NUMBER(10) DEFAULT 0;
+ALTER TABLE jforum_topics ADD topic_has_attach NUMBER(1) DEFAULT 0;
+UPDATE jforum_topics SET topic_last_post_time = (SELECT p.post_time FROM jforum_posts p WHERE p.post_id = jforum_topics.topic_last_post_id AND p.need_moderate = 0), topic_last_user_id = COALESCE((SELECT p.user_id FROM jforum_posts p WHERE p.post_id = jforum_topics.topic_last_post_id), 0), topic_has_attach = COALESCE((SELECT MAX(p.attach) FROM jforum_posts p WHERE p.topic_id = jforum_topics.topic_id AND p.need_moderate = 0), 0);
+ALTER TABLE jforum_topics ADD topic_archived NUMBER(1) DEFAULT 0;
+CREATE TABLE jforum_posts_archive (post_id NUMBER(10) NOT NULL, topic_id NUMBER(10) DEFAULT 0 NOT NULL, forum_id NUMBER(10) DEFAULT 0 NOT NULL, user_id NUMBER(10) DEFAULT 0 NOT NULL, post_time DATE DEFAULT NULL, poster_ip VARCHAR2(15) DEFAULT NULL, enable_bbcode NUMBER(10) DEFAULT 1 NOT NULL, enable_html NUMBER(10) DEFAULT 1 NOT NULL, enable_smilies NUMBER(10) DEFAULT 1 NOT NULL, enable_sig NUMBER(10) DEFAULT 1 NOT NULL, post_edit_time DATE DEFAULT NULL, post_edit_count NUMBER(10) DEFAULT 0 NOT NULL, status NUMBER(10) DEFAULT 1, attach NUMBER(1) DEFAULT 0, need_moderate NUMBER(1) DEFAULT 0, PRIMARY KEY (post_id));
+CREATE INDEX idx_posts_archive_topic ON jforum_posts_archive(topic_id);
+CREATE TABLE jforum_posts_text_archive (post_id NUMBER(10) NOT NULL, post_text BLOB, post_subject VARCHAR2(100) DEFAULT NULL, PRIMARY KEY (post_id));
+ALTER TABLE jforum_users ADD user_inbox_privmsg NUMBER(10) DEFAULT 0 NOT NULL;
+ALTER TABLE jforum_users ADD user_sent_privmsg NUMBER(10) DEFAULT 0 NOT NULL;
+UPDATE jforum_users SET user_inbox_privmsg = (SELECT COUNT(1) FROM jforum_privmsgs pm WHERE pm.privmsgs_to_userid = jforum_users.user_id AND pm.privmsgs_type IN (0, 1, 5)), user_sent_privmsg = (SELECT COUNT(1) FROM jforum_privmsgs pm WHERE pm.privmsgs_from_userid = jforum_users.user_id AND pm.privmsgs_type = 2);
+CREATE INDEX idx_pm_to_user ON jforum_privmsgs(privmsgs_to_userid, privmsgs_id);
+CREATE INDEX idx_pm_from_user ON jforum_privmsgs(privmsgs_from_userid, privmsgs_id);
@@ -0,0 +1,29 @@
+ALTER TABLE jforum_topics_watch ADD last_read_post_id INTEGER;
+ALTER TABLE jforum_topics_watch ALTER COLUMN last_read_post_id SET DEFAULT 0;
+UPDATE jforum_topics_watch SET last_read_post_id = 0;
+ALTER TABLE jforum_topics_watch ALTER COLUMN last_read_post_id SET NOT NULL;
+UPDATE jforum_topics_watch SET last_read_post_id = (SELECT t.topic_last_post_id FROM jforum_topics t WHERE t.topic_id = jforum_topics_watch.topic_id) WHERE is_read = 1;
+ALTER TABLE jforum_topics_watch DROP COLUMN is_read;
+CREATE TABLE jforum_board_stats (stat_name VARCHAR(30) NOT NULL, stat_value BIGINT NOT NULL DEFAULT 0, PRIMARY KEY(stat_name));
+UPDATE jforum_users SET user_new_privmsg = (SELECT COUNT(1) FROM jforum_privmsgs pm WHERE pm.privmsgs_to_userid = jforum_users.user_id AND pm.privmsgs_type = 1);
+ALTER TABLE jforum_topics ADD topic_last_post_time TIMESTAMP;
+ALTER TABLE jforum_topics ADD topic_last_user_id INTEGER;
+ALTER TABLE jforum_topics ALTER COLUMN topic_last_user_id SET DEFAULT 0;
+ALTER TABLE jforum_topics ADD topic_has_attach INTEGER;
+ALTER TABLE jforum_topics ALTER COLUMN topic_has_attach SET DEFAULT 0;
+UPDATE jforum_topics SET topic_last_post_time = (SELECT p.post_time FROM jforum_posts p WHERE p.post_id = jforum_topics.topic_last_post_id AND p.need_moderate = 0), topic_last_user_id = COALESCE((SELECT p.user_id FROM jforum_posts p WHERE p.post_id = jforum_topics.topic_last_post_id), 0), topic_has_attach = COALESCE((SELECT MAX(p.attach) FROM jforum_posts p WHERE p.topic_id = jforum_topics.topic_id AND p.need_moderate = 0), 0);
+ALTER TABLE jforum_topics ADD topic_archived INTEGER;
+ALTER TABLE jforum_topics ALTER COLUMN topic_archived SET DEFAULT 0;
+UPDATE jforum_topics SET topic_archived = 0;
+CREATE TABLE jforum_posts_archive (post_id INTEGER NOT NULL, topic_id INTEGER NOT NULL DEFAULT 0, forum_id INTEGER NOT NULL DEFAULT 0, user_id INTEGER NOT NULL DEFAULT 0, post_time timestamp DEFAULT NULL, poster_ip VARCHAR(15) DEFAULT NULL, enable_bbcode INTEGER NOT NULL DEFAULT 1, enable_html INTEGER NOT NULL DEFAULT 1, enable_smilies INTEGER NOT NULL DEFAULT 1, enable_sig INTEGER NOT NULL DEFAULT 1, post_edit_time timestamp DEFAULT NULL, post_edit_count INTEGER NOT NULL DEFAULT 0, status INTEGER DEFAULT 1, attach INTEGER DEFAULT 0, need_moderate INTEGER DEFAULT 0, PRIMARY KEY(post_id));
+CREATE INDEX idx_posts_archive_topic ON jforum_posts_archive(topic_id);
+CREATE TABLE jforum_posts_text_archive (post_id INTEGER NOT NULL, post_text TEXT, post_subject VARCHAR(100) DEFAULT NULL, PRIMARY KEY ( post_id ));
+ALTER TABLE jforum_users ADD user_inbox_privmsg INTEGER;
+ALTER TABLE jforum_users ALTER COLUMN user_inbox_privmsg SET DEFAULT 0;
+ALTER TABLE jforum_users ADD user_sent_privmsg INTEGER;
+ALTER TABLE jforum_users ALTER COLUMN user_sent_privmsg SET DEFAULT 0;
+UPDATE jforum_users SET user_inbox_privmsg = (SELECT COUNT(1) FROM jforum_privmsgs pm WHERE pm.privmsgs_to_userid = jforum_users.user_id AND pm.privmsgs_type IN (0, 1, 5)), user_sent_privmsg = (SELECT COUNT(1) FROM jforum_privmsgs pm WHERE pm.privmsgs_from_userid = jforum_users.user_id AND pm.privmsgs_type = 2);
+ALTER TABLE jforum_users ALTER COLUMN user_inbox_privmsg SET NOT NULL;
+ALTER TABLE jforum_users ALTER COLUMN user_sent_privmsg SET NOT NULL;
+CREATE INDEX idx_pm_to_user ON jforum_privmsgs(privmsgs_to_userid, privmsgs_id);
+CREATE INDEX idx_pm_from_user ON jforum_privmsgs(privmsgs_from_userid, privmsgs_id);
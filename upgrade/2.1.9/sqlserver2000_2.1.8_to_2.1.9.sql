@@ -0,0 +1,40 @@
+ALTER TABLE jforum_topics_watch ADD last_read_post_id BIGINT DEFAULT 0 NOT NULL
+GO
+UPDATE jforum_topics_watch SET last_read_post_id = (SELECT t.topic_last_post_id FROM jforum_topics t WHERE t.topic_id = jforum_topics_watch.topic_id) WHERE is_read = 1
+GO
+DECLARE @name NVARCHAR(256)
+SELECT @name = o.name FROM sysobjects o, syscolumns c WHERE o.id = c.cdefault AND c.id = OBJECT_ID('jforum_topics_watch') AND c.name = 'is_read'
+IF @name IS NOT NULL EXEC(N'ALTER TABLE jforum_topics_watch DROP CONSTRAINT ' + @name)
+GO
+ALTER TABLE jforum_topics_watch DROP COLUMN is_read
+GO
+CREATE TABLE jforum_board_stats (stat_name VARCHAR(30) NOT NULL PRIMARY KEY, stat_value BIGINT DEFAULT 0 NOT NULL)
+GO
+UPDATE jforum_users SET user_new_privmsg = (SELECT COUNT(1) FROM jforum_privmsgs pm WHERE pm.privmsgs_to_userid = jforum_users.user_id AND pm.privmsgs_type = 1)
+GO
+ALTER TABLE jforum_topics ADD topic_last_post_time DATETIME NULL
+GO
+ALTER TABLE jforum_topics ADD topic_last_user_id BIGINT DEFAULT 0 NULL WITH VALUES
+GO
+ALTER TABLE jforum_topics ADD topic_has_attach TINYINT DEFAULT 0 NULL WITH VALUES
+GO
+UPDATE jforum_topics SET topic_last_post_time = (SELECT p.post_time FROM jforum_posts p WHERE p.post_id = jforum_topics.topic_last_post_id AND p.need_moderate = 0), topic_last_user_id = COALESCE((SELECT p.user_id FROM jforum_posts p WHERE p.post_id = jforum_topics.topic_last_post_id), 0), topic_has_attach = COALESCE((SELECT MAX(p.attach) FROM jforum_posts p WHERE p.topic_id = jforum_topics.topic_id AND p.need_moderate = 0), 0)
+GO
+ALTER TABLE jforum_topics ADD topic_archived TINYINT DEFAULT 0 NULL WITH VALUES
+GO
+CREATE TABLE jforum_posts_archive (post_id BIGINT PRIMARY KEY NOT NULL, topic_id BIGINT DEFAULT (0) NOT NULL, forum_id BIGINT DEFAULT (0) NOT NULL, user_id BIGINT DEFAULT (0) NOT NULL, post_time DATETIME DEFAULT NULL, poster_ip VARCHAR(15) DEFAULT NULL, enable_bbcode TINYINT DEFAULT (1) NOT NULL, enable_html TINYINT DEFAULT (1) NOT NULL, enable_smilies TINYINT DEFAULT (1) NOT NULL, enable_sig TINYINT DEFAULT (1) NOT NULL, post_edit_time DATETIME DEFAULT NULL, post_edit_count BIGINT DEFAULT (0) NOT NULL, status TINYINT DEFAULT (1), attach TINYINT DEFAULT (0), need_moderate TINYINT DEFAULT (0))
+GO
+CREATE INDEX idx_posts_archive_topic ON jforum_posts_archive(topic_id)
+GO
+CREATE TABLE jforum_posts_text_archive (post_id BIGINT PRIMARY KEY NOT NULL, post_text TEXT, post_subject VARCHAR(100) NULL)
+GO
+ALTER TABLE jforum_users ADD user_inbox_privmsg INT DEFAULT 0 NOT NULL
+GO
+ALTER TABLE jforum_users ADD user_sent_privmsg INT DEFAULT 0 NOT NULL
+GO
+UPDATE jforum_users SET user_inbox_privmsg = (SELECT COUNT(1) FROM jforum_privmsgs pm WHERE pm.privmsgs_to_userid = jforum_users.user_id AND pm.privmsgs_type IN (0, 1, 5)), user_sent_privmsg = (SELECT COUNT(1) FROM jforum_privmsgs pm WHERE pm.privmsgs_from_userid = jforum_users.user_id AND pm.privmsgs_type = 2)
+GO
+CREATE INDEX idx_pm_to_user ON jforum_privmsgs(privmsgs_to_userid, privmsgs_id)
+GO
+CREATE INDEX idx_pm_from_user ON jforum_privmsgs(privmsgs_from_userid, privmsgs_id)
+GO